@@ -91,6 +91,19 @@ public class CmdWaltzTurn implements TrcRobot.RobotCommand
         }
     }   //cancel
 
+    //
+    // Implements the TrcRobot.RobotCommand interface.
+    //
+
+    /**
+     * This method is called to abort the waltz turn in progress.
+     */
+    @Override
+    public void cancel()
+    {
+        stop();
+    }   //cancel
+
     /**
      * This method must be called periodically by the caller to drive the command sequence forward.
      *
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package frclib;
+
+import com.kauailabs.navx.frc.AHRS;
+
+import trclib.TrcAccelerometer;
+import trclib.TrcDbgTrace;
+import trclib.TrcUtil;
+
+/**
+ * This class implements the x and y accelerometer of the NavX board in the robot frame. It shares the AHRS object
+ * with FrcAHRSGyro. The data is the linear acceleration with gravity removed, in units of g. Use setXScale/setYScale
+ * to convert it to other units.
+ *
+ * The NavX world linear acceleration is in the horizontal frame the board had at yaw zero. It is rotated by the
+ * current yaw back into the board frame, then the board axes are mapped onto the drive base axes (x to the right,
+ * y forward) as specified at construction, so the data follows the robot as it turns.
+ */
+public class FrcAHRSAccelerometer extends TrcAccelerometer
+{
+    /**
+     * This specifies a NavX board axis and direction that a drive base axis is mapped to.
+     */
+    public enum BoardAxis
+    {
+        POSITIVE_X,
+        NEGATIVE_X,
+        POSITIVE_Y,
+        NEGATIVE_Y
+    }   //enum BoardAxis
+
+    private final AHRS ahrs;
+    private final BoardAxis driveXAxis;
+    private final BoardAxis driveYAxis;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param ahrs specifies the NavX board, typically the ahrs of FrcAHRSGyro.
+     * @param driveXAxis specifies the board axis pointing to the right of the drive base.
+     * @param driveYAxis specifies the board axis pointing to the front of the drive base.
+     */
+    public FrcAHRSAccelerometer(final String instanceName, AHRS ahrs, BoardAxis driveXAxis, BoardAxis driveYAxis)
+    {
+        super(instanceName, 2, ACCEL_HAS_X_AXIS | ACCEL_HAS_Y_AXIS, null);
+
+        if (driveXAxis == null || driveYAxis == null || isBoardXAxis(driveXAxis) == isBoardXAxis(driveYAxis))
+        {
+            throw new IllegalArgumentException("Drive base x and y must map to different board axes.");
+        }
+
+        this.ahrs = ahrs;
+        this.driveXAxis = driveXAxis;
+        this.driveYAxis = driveYAxis;
+    }   //FrcAHRSAccelerometer
+
+    /**
+     * Constructor: Create an instance of the object with the board x and y axes aligned with the drive base.
+     *
+     * @param instanceName specifies the instance name.
+     * @param ahrs specifies the NavX board, typically the ahrs of FrcAHRSGyro.
+     */
+    public FrcAHRSAccelerometer(final String instanceName, AHRS ahrs)
+    {
+        this(instanceName, ahrs, BoardAxis.POSITIVE_X, BoardAxis.POSITIVE_Y);
+    }   //FrcAHRSAccelerometer
+
+    /**
+     * This method checks if a board axis is the x-axis.
+     *
+     * @param axis specifies the board axis.
+     * @return true if it is the x-axis, false if it is the y-axis.
+     */
+    private static boolean isBoardXAxis(BoardAxis axis)
+    {
+        return axis == BoardAxis.POSITIVE_X || axis == BoardAxis.NEGATIVE_X;
+    }   //isBoardXAxis
+
+    /**
+     * This method returns the acceleration along a board axis. The world acceleration is rotated by the yaw, which
+     * is clockwise positive: boardX = worldX*cos(yaw) - worldY*sin(yaw), boardY = worldX*sin(yaw) + worldY*cos(yaw).
+     *
+     * @param axis specifies the board axis.
+     * @return acceleration along the axis in g.
+     */
+    private double getBoardAcceleration(BoardAxis axis)
+    {
+        double yaw = Math.toRadians(ahrs.getAngle());
+        double cos = Math.cos(yaw);
+        double sin = Math.sin(yaw);
+        double worldX = ahrs.getWorldLinearAccelX();
+        double worldY = ahrs.getWorldLinearAccelY();
+        double value = isBoardXAxis(axis)? worldX*cos - worldY*sin: worldX*sin + worldY*cos;
+
+        return axis == BoardAxis.NEGATIVE_X || axis == BoardAxis.NEGATIVE_Y? -value: value;
+    }   //getBoardAcceleration
+
+    //
+    // Implements TrcAccelerometer abstract methods.
+    //
+
+    /**
+     * This method returns the raw data of the specified type for the x-axis.
+     *
+     * @param dataType specifies the data type.
+     * @return raw data of the specified type for the drive base x-axis in g.
+     */
+    @Override
+    public SensorData<Double> getRawXData(DataType dataType)
+    {
+        final String funcName = "getRawXData";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "type=%s", dataType.toString());
+        }
+
+        if (dataType != DataType.ACCELERATION)
+        {
+            throw new UnsupportedOperationException("Accelerometer only provides acceleration.");
+        }
+        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), getBoardAcceleration(driveXAxis));
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=(timestamp:%.3f,value:%f",
+                data.timestamp, data.value);
+        }
+
+        return data;
+    }   //getRawXData
+
+    /**
+     * This method returns the raw data of the specified type for the y-axis.
+     *
+     * @param dataType specifies the data type.
+     * @return raw data of the specified type for the drive base y-axis in g.
+     */
+    @Override
+    public SensorData<Double> getRawYData(DataType dataType)
+    {
+        final String funcName = "getRawYData";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "type=%s", dataType.toString());
+        }
+
+        if (dataType != DataType.ACCELERATION)
+        {
+            throw new UnsupportedOperationException("Accelerometer only provides acceleration.");
+        }
+        SensorData<Double> data = new SensorData<>(TrcUtil.getCurrentTime(), getBoardAcceleration(driveYAxis));
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=(timestamp:%.3f,value:%f",
+                data.timestamp, data.value);
+        }
+
+        return data;
+    }   //getRawYData
+
+    /**
+     * This method returns the raw data of the specified type for the z-axis which is not supported.
+     *
+     * @param dataType specifies the data type.
+     * @return throws UnsupportedOperation exception.
+     */
+    @Override
+    public SensorData<Double> getRawZData(DataType dataType)
+    {
+        throw new UnsupportedOperationException("Accelerometer does not support z-axis.");
+    }   //getRawZData
+
+}   //class FrcAHRSAccelerometer
@@ -242,7 +242,8 @@ public class FrcAHRSGyro extends TrcGyro
      */
     public SensorData<Double> getXRotationRate()
     {
-        return new SensorData<>(TrcUtil.getCurrentTime(), xSign*ahrs.getRawGyroX());
+        return recordXData(DataType.ROTATION_RATE,
+            new SensorData<>(TrcUtil.getCurrentTime(), xSign*ahrs.getRawGyroX()));
     }   //getXRotationRate
 
     /**
@@ -252,7 +253,8 @@ public class FrcAHRSGyro extends TrcGyro
      */
     public SensorData<Double> getYRotationRate()
     {
-        return new SensorData<>(TrcUtil.getCurrentTime(), ySign*ahrs.getRawGyroY());
+        return recordYData(DataType.ROTATION_RATE,
+            new SensorData<>(TrcUtil.getCurrentTime(), ySign*ahrs.getRawGyroY()));
     }   //getYRotationRate
 
     /**
@@ -262,7 +264,8 @@ public class FrcAHRSGyro extends TrcGyro
      */
     public SensorData<Double> getZRotationRate()
     {
-        return new SensorData<>(TrcUtil.getCurrentTime(), zSign*ahrs.getRate());
+        return recordZData(DataType.ROTATION_RATE,
+            new SensorData<>(TrcUtil.getCurrentTime(), zSign*ahrs.getRate()));
     }   //getZRotationRate
 
     /**
@@ -298,7 +301,8 @@ public class FrcAHRSGyro extends TrcGyro
      */
     public SensorData<Double> getZHeading()
     {
-        return new SensorData<>(TrcUtil.getCurrentTime(), zSign*ahrs.getAngle());
+        return recordZData(DataType.HEADING,
+            new SensorData<>(TrcUtil.getCurrentTime(), zSign*ahrs.getAngle()));
     }   //getZHeading
 
     /**
@@ -264,7 +264,7 @@ public class FrcCANTalon extends TrcMotor
         double pos = motor.getSelectedSensorPosition(0);
         recordResponseCode(motor.getLastError());
 
-        pos -= zeroPosition;
+        pos = recordInput(RecordedData.POSITION, pos - zeroPosition);
 
         if (debugEnabled)
         {
@@ -286,6 +286,7 @@ public class FrcCANTalon extends TrcMotor
         final String funcName = "getPower";
         double power = motor.getMotorOutputPercent();
         recordResponseCode(motor.getLastError());
+        power = recordInput(RecordedData.POWER, power);
 
         if (debugEnabled)
         {
@@ -311,6 +312,7 @@ public class FrcCANTalon extends TrcMotor
         // The sensor velocity is in the raw sensor unit per 100 msec.
         double speed = motor.getSelectedSensorVelocity(0)/0.1;
         recordResponseCode(motor.getLastError());
+        speed = recordInput(RecordedData.SPEED, speed);
 
         if (debugEnabled)
         {
@@ -333,6 +335,7 @@ public class FrcCANTalon extends TrcMotor
         boolean isActive = limitSwitchesSwapped?
             !(fwdLimitSwitchNormalOpen^motor.getSensorCollection().isFwdLimitSwitchClosed()):
             !(revLimitSwitchNormalOpen^motor.getSensorCollection().isRevLimitSwitchClosed());
+        isActive = recordInput(RecordedData.LOWER_LIMIT_SWITCH, isActive);
 
         if (debugEnabled)
         {
@@ -355,6 +358,7 @@ public class FrcCANTalon extends TrcMotor
         boolean isActive = limitSwitchesSwapped?
             !(revLimitSwitchNormalOpen^motor.getSensorCollection().isRevLimitSwitchClosed()):
             !(fwdLimitSwitchNormalOpen^motor.getSensorCollection().isFwdLimitSwitchClosed());
+        isActive = recordInput(RecordedData.UPPER_LIMIT_SWITCH, isActive);
 
         if (debugEnabled)
         {
@@ -474,6 +478,7 @@ public class FrcCANTalon extends TrcMotor
             power = 0.0;
         }
 
+        recordOutput(RecordedData.SET_POWER, power);
         motor.set(ControlMode.PercentOutput, power);
         recordResponseCode(motor.getLastError());
 
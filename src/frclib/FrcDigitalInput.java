@@ -23,8 +23,10 @@
 package frclib;
 
 import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.util.AllocationException;
 import trclib.TrcDbgTrace;
 import trclib.TrcDigitalInput;
+import trclib.TrcDigitalTrigger;
 
 /**
  * This class implements a platform dependent digital input sensor extending TrcDigitalInput. It provides
@@ -59,6 +61,37 @@ public class FrcDigitalInput extends TrcDigitalInput
         this.inverted = inverted;
     }   //setInverted
 
+    /**
+     * This method checks if the digital input state is inverted.
+     *
+     * @return true if the digital input is inverted, false otherwise.
+     */
+    boolean isInverted()
+    {
+        return inverted;
+    }   //isInverted
+
+    /**
+     * This method creates a digital trigger that captures the edges of this input with interrupts. If the
+     * roboRIO has no interrupt left, it falls back to a trigger that polls the input.
+     *
+     * @param instanceName specifies the instance name of the trigger.
+     * @param eventHandler specifies the object that will be called to handle the state change.
+     * @return digital trigger.
+     */
+    @Override
+    public TrcDigitalTrigger createTrigger(String instanceName, TrcDigitalTrigger.TriggerHandler eventHandler)
+    {
+        try
+        {
+            return new FrcDigitalTrigger(instanceName, this, digitalInput, eventHandler);
+        }
+        catch (AllocationException e)
+        {
+            return super.createTrigger(instanceName, eventHandler);
+        }
+    }   //createTrigger
+
     //
     // Implements TrcDigitalInput abstract methods.
     //
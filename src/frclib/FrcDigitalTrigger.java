@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package frclib;
+
+import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.InterruptHandlerFunction;
+import edu.wpi.first.wpilibj.Timer;
+import trclib.TrcDataRecorder;
+import trclib.TrcDigitalTrigger;
+import trclib.TrcRobot;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class implements a digital trigger that captures the edges of a roboRIO digital input with interrupts. The
+ * FPGA timestamps every edge, so edges shorter than a loop period are not missed and the trigger handler can get
+ * the exact time of the edge with getTriggerTimestamp. The interrupt thread only queues the edges, they are
+ * delivered to the handler by the trigger task at the start of the loop so the handler runs on the task thread like
+ * with the polled trigger. Use FrcDigitalInput.createTrigger to create it.
+ */
+public class FrcDigitalTrigger extends TrcDigitalTrigger
+{
+    private static final int QUEUE_SIZE = 16;
+    //
+    // The interrupt asserted mask has the rising edge in the low byte and the falling edge in the high byte. The bit
+    // within the byte depends on the interrupt index the HAL allocated, so the whole byte is tested.
+    //
+    private static final int RISING_EDGE_MASK = 0xFF;
+    private static final int FALLING_EDGE_MASK = 0xFF00;
+
+    private final FrcDigitalInput frcDigitalInput;
+    private final DigitalInput digitalInput;
+    private final boolean[] queueStates = new boolean[QUEUE_SIZE];
+    private final double[] queueTimestamps = new double[QUEUE_SIZE];
+    private int queueHead = 0;
+    private int queueCount = 0;
+    private int droppedEdgeCount = 0;
+    private Boolean deliveredState = null;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param frcDigitalInput specifies the digital input device.
+     * @param digitalInput specifies the WPILib digital input of the device.
+     * @param eventHandler specifies the object that will be called to handle the digital input device state change.
+     * @throws edu.wpi.first.wpilibj.util.AllocationException if there is no interrupt left.
+     */
+    FrcDigitalTrigger(
+        final String instanceName, final FrcDigitalInput frcDigitalInput, final DigitalInput digitalInput,
+        final TriggerHandler eventHandler)
+    {
+        super(instanceName, frcDigitalInput, eventHandler);
+        this.frcDigitalInput = frcDigitalInput;
+        this.digitalInput = digitalInput;
+        digitalInput.requestInterrupts(
+            new InterruptHandlerFunction<Object>()
+            {
+                @Override
+                public void interruptFired(int interruptAssertedMask, Object param)
+                {
+                    edgeInterrupt(interruptAssertedMask);
+                }
+            });
+        digitalInput.setUpSourceEdge(true, true);
+    }   //FrcDigitalTrigger
+
+    /**
+     * This method returns the number of edges dropped because the queue was full, i.e. the input toggled more than
+     * the queue size within a loop.
+     *
+     * @return number of dropped edges.
+     */
+    public synchronized int getDroppedEdgeCount()
+    {
+        return droppedEdgeCount;
+    }   //getDroppedEdgeCount
+
+    /**
+     * This method enables/disables the interrupts and the task that delivers the edges. When enabled, the current
+     * state is reported first like the polled trigger does.
+     *
+     * @param enabled specifies true to enable the task, false to disable.
+     */
+    @Override
+    public void setTaskEnabled(boolean enabled)
+    {
+        if (enabled)
+        {
+            synchronized (this)
+            {
+                queueHead = 0;
+                queueCount = 0;
+                deliveredState = null;
+                queueEdge(frcDigitalInput.isActive(), TrcDataRecorder.getUnrecordedTime());
+            }
+            digitalInput.enableInterrupts();
+        }
+        else
+        {
+            digitalInput.disableInterrupts();
+        }
+
+        super.setTaskEnabled(enabled);
+    }   //setTaskEnabled
+
+    /**
+     * This method is called at the start of the loop to deliver the queued edges to the trigger handler.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the competition mode that is running. (e.g. Autonomous, TeleOp, Test).
+     */
+    @Override
+    public void triggerTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    {
+        for (;;)
+        {
+            boolean state;
+            double timestamp;
+
+            synchronized (this)
+            {
+                if (queueCount == 0)
+                {
+                    break;
+                }
+
+                state = queueStates[queueHead];
+                timestamp = queueTimestamps[queueHead];
+                queueHead = (queueHead + 1)%QUEUE_SIZE;
+                queueCount--;
+            }
+
+            if (deliveredState == null || state != deliveredState)
+            {
+                deliveredState = state;
+                notifyTrigger(state, timestamp);
+            }
+        }
+    }   //triggerTask
+
+    /**
+     * This method is called on the interrupt thread when the input has edges. It converts the FPGA timestamps of
+     * the edges to TrcUtil time and queues the edges in the order they happened.
+     *
+     * @param interruptAssertedMask specifies the edges that fired.
+     */
+    private void edgeInterrupt(int interruptAssertedMask)
+    {
+        boolean rising = (interruptAssertedMask & RISING_EDGE_MASK) != 0;
+        boolean falling = (interruptAssertedMask & FALLING_EDGE_MASK) != 0;
+        boolean inverted = frcDigitalInput.isInverted();
+        double timeOffset = TrcDataRecorder.getUnrecordedTime() - Timer.getFPGATimestamp();
+        double risingTime = rising? digitalInput.readRisingTimestamp() + timeOffset: 0.0;
+        double fallingTime = falling? digitalInput.readFallingTimestamp() + timeOffset: 0.0;
+
+        synchronized (this)
+        {
+            if (rising && falling && fallingTime < risingTime)
+            {
+                queueEdge(inverted, fallingTime);
+                queueEdge(!inverted, risingTime);
+            }
+            else
+            {
+                if (rising)
+                {
+                    queueEdge(!inverted, risingTime);
+                }
+
+                if (falling)
+                {
+                    queueEdge(inverted, fallingTime);
+                }
+            }
+        }
+    }   //edgeInterrupt
+
+    /**
+     * This method adds an edge to the queue, dropping the oldest edge if the queue is full. The caller must hold
+     * the lock.
+     *
+     * @param active specifies the state of the input after the edge.
+     * @param timestamp specifies the time of the edge in seconds.
+     */
+    private void queueEdge(boolean active, double timestamp)
+    {
+        if (queueCount == QUEUE_SIZE)
+        {
+            queueHead = (queueHead + 1)%QUEUE_SIZE;
+            queueCount--;
+            droppedEdgeCount++;
+        }
+
+        int tail = (queueHead + queueCount)%QUEUE_SIZE;
+        queueStates[tail] = active;
+        queueTimestamps[tail] = timestamp;
+        queueCount++;
+    }   //queueEdge
+
+}   //class FrcDigitalTrigger
@@ -172,7 +172,8 @@ public class FrcGyro extends TrcGyro
      */
     public SensorData<Double> getZRotationRate()
     {
-        return new SensorData<>(TrcUtil.getCurrentTime(), zSign*gyro.getRate());
+        return recordZData(DataType.ROTATION_RATE,
+            new SensorData<>(TrcUtil.getCurrentTime(), zSign*gyro.getRate()));
     }   //getZRotationRate
 
     /**
@@ -208,7 +209,8 @@ public class FrcGyro extends TrcGyro
      */
     public SensorData<Double> getZHeading()
     {
-        return new SensorData<>(TrcUtil.getCurrentTime(), zSign*gyro.getAngle());
+        return recordZData(DataType.HEADING,
+            new SensorData<>(TrcUtil.getCurrentTime(), zSign*gyro.getAngle()));
     }   //getZHeading
 
     /**
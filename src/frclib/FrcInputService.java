@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package frclib;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import trclib.TrcInputService;
+import trclib.TrcRobot;
+
+/**
+ * This class implements the platform dependent input service. It reads the joysticks from the driver station data.
+ * A joystick added to the service stops monitoring its own buttons, its button handler is called by the service
+ * instead so existing handlers keep working.
+ */
+public class FrcInputService extends TrcInputService
+{
+    private final DriverStation ds;
+    private final ArrayList<FrcJoystick> joysticks = new ArrayList<>();
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public FrcInputService(final String instanceName)
+    {
+        super(instanceName);
+        ds = DriverStation.getInstance();
+    }   //FrcInputService
+
+    /**
+     * This method adds a joystick to the service.
+     *
+     * @param joystick specifies the joystick.
+     * @return device index used in the input events.
+     */
+    public int addJoystick(FrcJoystick joystick)
+    {
+        int device = addDevice(joystick.toString());
+
+        joysticks.add(joystick);
+        joystick.setButtonEventTaskEnabled(false);
+
+        return device;
+    }   //addJoystick
+
+    /**
+     * This method delivers the input events to the handlers of the service and the button events to the button
+     * handler of the joystick. Like FrcJoystick, joystick button handlers are not called in disabled mode.
+     *
+     * @param event specifies the input event.
+     * @param runMode specifies the current robot run mode.
+     */
+    @Override
+    protected void dispatchEvent(InputEvent event, TrcRobot.RunMode runMode)
+    {
+        super.dispatchEvent(event, runMode);
+
+        if ((event.type == EventType.BUTTON_PRESSED || event.type == EventType.BUTTON_RELEASED) &&
+            runMode != TrcRobot.RunMode.DISABLED_MODE)
+        {
+            FrcJoystick.ButtonHandler buttonHandler = joysticks.get(event.device).getButtonHandler();
+
+            if (buttonHandler != null)
+            {
+                buttonHandler.joystickButtonEvent(event.id, event.type == EventType.BUTTON_PRESSED);
+            }
+        }
+    }   //dispatchEvent
+
+    //
+    // Implements TrcInputService abstract methods.
+    //
+
+    /**
+     * This method reads the buttons of a joystick.
+     *
+     * @param device specifies the device index.
+     * @return buttons state bit mask.
+     */
+    @Override
+    protected int readButtons(int device)
+    {
+        return ds.getStickButtons(joysticks.get(device).getPort());
+    }   //readButtons
+
+    /**
+     * This method reads an axis of a joystick.
+     *
+     * @param device specifies the device index.
+     * @param axis specifies the axis index.
+     * @return axis value.
+     */
+    @Override
+    protected double readAxis(int device, int axis)
+    {
+        return ds.getStickAxis(joysticks.get(device).getPort(), axis);
+    }   //readAxis
+
+    /**
+     * This method returns the sampling period of a joystick, so that the service samples it as often as the
+     * joystick would sample itself.
+     *
+     * @param device specifies the device index.
+     * @return sampling period in seconds.
+     */
+    @Override
+    protected double getSamplingPeriod(int device)
+    {
+        return joysticks.get(device).getSamplingPeriod();
+    }   //getSamplingPeriod
+
+}   //class FrcInputService
@@ -24,6 +24,7 @@ package frclib;
 
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Joystick;
+import trclib.TrcDataRecorder;
 import trclib.TrcDbgTrace;
 import trclib.TrcRobot;
 import trclib.TrcTaskMgr;
@@ -126,6 +127,16 @@ public class FrcJoystick extends Joystick
     private final String instanceName;
     private final int port;
     private final DriverStation ds;
+    private final TrcDataRecorder.Channel buttonsChannel;
+    private final TrcDataRecorder.Channel xChannel;
+    private final TrcDataRecorder.Channel yChannel;
+    private final TrcDataRecorder.Channel zChannel;
+    private final TrcDataRecorder.Channel twistChannel;
+    private final TrcDataRecorder.Channel throttleChannel;
+    private final TrcDataRecorder.Channel magnitudeChannel;
+    private final TrcDataRecorder.Channel directionRadiansChannel;
+    private final TrcDataRecorder.Channel directionDegreesChannel;
+    private final TrcTaskMgr.TaskObject buttonEventTaskObj;
     private int prevButtons;
     private ButtonHandler buttonHandler = null;
     private int ySign = 1;
@@ -150,10 +161,18 @@ public class FrcJoystick extends Joystick
         this.instanceName = instanceName;
         this.port = port;
         ds = DriverStation.getInstance();
-        prevButtons = ds.getStickButtons(port);
-
-        TrcTaskMgr.TaskObject buttonEventTaskObj = TrcTaskMgr.getInstance().createTask(
-            instanceName + ".buttonEvent", this::buttonEventTask);
+        buttonsChannel = TrcDataRecorder.getChannel(instanceName + ".buttons", false);
+        xChannel = TrcDataRecorder.getChannel(instanceName + ".x", false);
+        yChannel = TrcDataRecorder.getChannel(instanceName + ".y", false);
+        zChannel = TrcDataRecorder.getChannel(instanceName + ".z", false);
+        twistChannel = TrcDataRecorder.getChannel(instanceName + ".twist", false);
+        throttleChannel = TrcDataRecorder.getChannel(instanceName + ".throttle", false);
+        magnitudeChannel = TrcDataRecorder.getChannel(instanceName + ".magnitude", false);
+        directionRadiansChannel = TrcDataRecorder.getChannel(instanceName + ".directionRadians", false);
+        directionDegreesChannel = TrcDataRecorder.getChannel(instanceName + ".directionDegrees", false);
+        prevButtons = buttonsChannel.input(ds.getStickButtons(port));
+
+        buttonEventTaskObj = TrcTaskMgr.getInstance().createTask(instanceName + ".buttonEvent", this::buttonEventTask);
         buttonEventTaskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
     }   //FrcJoystick
 
@@ -181,6 +200,35 @@ public class FrcJoystick extends Joystick
         return instanceName;
     }   //toString
 
+    /**
+     * This method returns the object that handles button events.
+     *
+     * @return button handler, null if none.
+     */
+    ButtonHandler getButtonHandler()
+    {
+        return buttonHandler;
+    }   //getButtonHandler
+
+    /**
+     * This method enables/disables the task that monitors the joystick buttons. FrcInputService disables it when
+     * it takes over the button monitoring.
+     *
+     * @param enabled specifies true to enable the task, false to disable.
+     */
+    void setButtonEventTaskEnabled(boolean enabled)
+    {
+        if (enabled)
+        {
+            prevButtons = buttonsChannel.input(ds.getStickButtons(port));
+            buttonEventTaskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
+        }
+        else
+        {
+            buttonEventTaskObj.unregisterTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
+        }
+    }   //setButtonEventTaskEnabled
+
     /**
      * This method sets the object that will handle button events. Any previous handler set with this method will
      * no longer receive events.
@@ -220,6 +268,16 @@ public class FrcJoystick extends Joystick
         samplingPeriod = period;
     }   //setSamplingPeriod
 
+    /**
+     * This method returns the sampling period of the joystick buttons.
+     *
+     * @return sampling period in seconds.
+     */
+    public double getSamplingPeriod()
+    {
+        return samplingPeriod;
+    }   //getSamplingPeriod
+
     /**
      * This method inverts the y-axis of the analog sticks.
      *
@@ -259,7 +317,7 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(getX(Hand.kRight), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(xChannel, getX(Hand.kRight), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -297,7 +355,7 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(ySign*getY(Hand.kRight), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(yChannel, ySign*getY(Hand.kRight), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -335,7 +393,7 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(getZ(), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(zChannel, getZ(), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -373,7 +431,7 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(getTwist(), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(twistChannel, getTwist(), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -411,7 +469,7 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(getThrottle(), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(throttleChannel, getThrottle(), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -450,6 +508,7 @@ public class FrcJoystick extends Joystick
         }
 
         double value = adjustValueWithDeadband(
+                magnitudeChannel,
                 getMagnitude(),
                 squared,
                 deadbandThreshold);
@@ -490,7 +549,8 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(getDirectionRadians(), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(
+                directionRadiansChannel, getDirectionRadians(), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -528,7 +588,8 @@ public class FrcJoystick extends Joystick
                 Boolean.toString(squared), deadbandThreshold);
         }
 
-        double value = adjustValueWithDeadband(getDirectionDegrees(), squared, deadbandThreshold);
+        double value = adjustValueWithDeadband(
+                directionDegreesChannel, getDirectionDegrees(), squared, deadbandThreshold);
 
         if (debugEnabled)
         {
@@ -570,7 +631,7 @@ public class FrcJoystick extends Joystick
         {
             nextPeriod = currTime + samplingPeriod;
 
-            int currButtons = ds.getStickButtons(port);
+            int currButtons = buttonsChannel.input(ds.getStickButtons(port));
             if (buttonHandler != null && runMode != TrcRobot.RunMode.DISABLED_MODE)
             {
                 int changedButtons = prevButtons^currButtons;
@@ -622,16 +683,19 @@ public class FrcJoystick extends Joystick
     /**
      * This method applies deadband to the value and squared the output if necessary.
      *
+     * @param channel specifies the recorder channel of the axis the value was read from.
      * @param value specifies the value to be processed.
      * @param squared specifies true to apply a squared curve to the output value, false otherwise.
      * @param deadbandThreshold specifies the deadband value to apply to the value.
      * @return adjusted value.
      */
     private double adjustValueWithDeadband(
+            TrcDataRecorder.Channel channel,
             double value,
             boolean squared,
             double deadbandThreshold)
     {
+        value = channel.input(value);
         value = (Math.abs(value) >= deadbandThreshold)? value: 0.0;
 
         if (squared)
@@ -22,8 +22,9 @@
 
 package frclib;
 
-import java.io.InputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.hal.FRCNetComm.tInstances;
@@ -33,7 +34,9 @@ import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import hallib.HalDashboard;
 import hallib.HalDbgLog;
+import trclib.TrcDataRecorder;
 import trclib.TrcDbgTrace;
+import trclib.TrcJvmMonitor;
 import trclib.TrcRobot.*;
 import trclib.TrcTaskMgr;
 import trclib.TrcUtil;
@@ -82,6 +85,7 @@ public abstract class FrcRobotBase extends RobotBase
 
     private TrcTaskMgr taskMgr = new TrcTaskMgr();
     private HalDashboard dashboard = new HalDashboard();
+    private TrcJvmMonitor jvmMonitor = null;
 
     private static FrcRobotBase instance = null;
     private static double modeStartTime = 0.0;
@@ -182,6 +186,17 @@ public abstract class FrcRobotBase extends RobotBase
         this.disabledMode = disabledMode;
     }   //setupRobotModes
 
+    /**
+     * This method is called by the subclass to have the robot loop report the start and end of every time slice to
+     * the JVM monitor so it can correlate slice overruns with garbage collection and JIT compilation.
+     *
+     * @param jvmMonitor specifies the JVM monitor, null to stop reporting.
+     */
+    public void setJvmMonitor(TrcJvmMonitor jvmMonitor)
+    {
+        this.jvmMonitor = jvmMonitor;
+    }   //setJvmMonitor
+
     /**
      * Start the competition match. This specific startCompetition() implements "main loop" behavior like that of
      * the FRC control system in 2008 and earlier, with a primary (slow) loop that is called periodically, and a
@@ -222,12 +237,19 @@ public abstract class FrcRobotBase extends RobotBase
         //
         final double timesliceThreshold = 0.1;
         final double taskTimeThreshold = 0.05;
+        final TrcDataRecorder.Channel modeTimeChannel =
+            TrcDataRecorder.getChannel(TrcDataRecorder.MODE_ELAPSED_TIME_CHANNEL, false);
 
         while (true)
         {
-            double timeSliceStart = TrcUtil.getCurrentTime();
+            double timeSliceStart = TrcDataRecorder.getUnrecordedTime();
             double startTime, elapsedTime;
 
+            if (jvmMonitor != null)
+            {
+                jvmMonitor.startTimeSlice();
+            }
+
             prevMode = currMode;
             //
             // Determine the current run mode.
@@ -252,6 +274,7 @@ public abstract class FrcRobotBase extends RobotBase
             {
                 currMode = RunMode.INVALID_MODE;
             }
+            TrcDataRecorder.markFrame(currMode);
 
             if (currMode != prevMode)
             {
@@ -259,7 +282,7 @@ public abstract class FrcRobotBase extends RobotBase
                 // Detected mode transition.
                 //
                 globalTracer.traceInfo(funcName, "*** Transitioning from %s to %s ***", prevMode, currMode);
-                modeStartTime = TrcUtil.getCurrentTime();
+                modeStartTime = TrcDataRecorder.getUnrecordedTime();
 
                 if (prevMode != RunMode.INVALID_MODE)
                 {
@@ -268,9 +291,9 @@ public abstract class FrcRobotBase extends RobotBase
                     //
                     if (debugEnabled)
                     {
-                        startTime = TrcUtil.getCurrentTime();
+                        startTime = TrcDataRecorder.getUnrecordedTime();
                         taskMgr.executeTaskType(TrcTaskMgr.TaskType.STOP_TASK, prevMode);
-                        elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                        elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                         dbgTrace.traceInfo(funcName, "%s.stopTask took %.3fs", prevMode, elapsedTime);
                     }
                     else
@@ -282,7 +305,7 @@ public abstract class FrcRobotBase extends RobotBase
                     //
                     if (debugEnabled)
                     {
-                        startTime = TrcUtil.getCurrentTime();
+                        startTime = TrcDataRecorder.getUnrecordedTime();
                     }
 
                     if (prevMode == RunMode.DISABLED_MODE && disabledMode != null)
@@ -304,7 +327,7 @@ public abstract class FrcRobotBase extends RobotBase
 
                     if (debugEnabled)
                     {
-                        elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                        elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                         dbgTrace.traceInfo(funcName, "%s.stopMode took %.3fs", prevMode, elapsedTime);
                     }
                     //
@@ -312,9 +335,9 @@ public abstract class FrcRobotBase extends RobotBase
                     //
                     if (debugEnabled)
                     {
-                        startTime = TrcUtil.getCurrentTime();
+                        startTime = TrcDataRecorder.getUnrecordedTime();
                         robotStopMode(prevMode, currMode);
-                        elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                        elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                         dbgTrace.traceInfo(funcName, "%s.robotStopMode took %.3fs", prevMode, elapsedTime);
                     }
                     else
@@ -330,9 +353,9 @@ public abstract class FrcRobotBase extends RobotBase
                     //
                     if (debugEnabled)
                     {
-                        startTime = TrcUtil.getCurrentTime();
+                        startTime = TrcDataRecorder.getUnrecordedTime();
                         robotStartMode(currMode, prevMode);
-                        elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                        elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                         dbgTrace.traceInfo(funcName, "%s.robotStartMode took %.3fs", currMode, elapsedTime);
                     }
                     else
@@ -344,7 +367,7 @@ public abstract class FrcRobotBase extends RobotBase
                     //
                     if (debugEnabled)
                     {
-                        startTime = TrcUtil.getCurrentTime();
+                        startTime = TrcDataRecorder.getUnrecordedTime();
                     }
 
                     if (currMode == RunMode.DISABLED_MODE)
@@ -383,7 +406,7 @@ public abstract class FrcRobotBase extends RobotBase
 
                     if (debugEnabled)
                     {
-                        elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                        elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                         dbgTrace.traceInfo(funcName, "%s.startMode took %.3fs", currMode, elapsedTime);
                     }
                     //
@@ -391,9 +414,9 @@ public abstract class FrcRobotBase extends RobotBase
                     //
                     if (debugEnabled)
                     {
-                        startTime = TrcUtil.getCurrentTime();
+                        startTime = TrcDataRecorder.getUnrecordedTime();
                         taskMgr.executeTaskType(TrcTaskMgr.TaskType.START_TASK, currMode);
-                        elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                        elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                         dbgTrace.traceInfo(funcName, "%s.startTask took %.3fs", currMode, elapsedTime);
                     }
                     else
@@ -406,14 +429,18 @@ public abstract class FrcRobotBase extends RobotBase
             //
             // Run the time slice.
             //
-            double modeElapsedTime = TrcUtil.getCurrentTime() - modeStartTime;
+            double modeElapsedTime = modeTimeChannel.input(TrcDataRecorder.getUnrecordedTime() - modeStartTime);
             boolean periodReady = nextPeriodReady();
+            if (periodReady)
+            {
+                TrcDataRecorder.markPeriodic();
+            }
             //
             // PreContinuous
             //
-            startTime = TrcUtil.getCurrentTime();
+            startTime = TrcDataRecorder.getUnrecordedTime();
             taskMgr.executeTaskType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, currMode);
-            elapsedTime = TrcUtil.getCurrentTime() - startTime;
+            elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
             if (elapsedTime > taskTimeThreshold)
             {
                 globalTracer.traceWarn(funcName, "%s.preContinuousTasks took too long (%.3fs)",
@@ -424,9 +451,9 @@ public abstract class FrcRobotBase extends RobotBase
             //
             if (periodReady)
             {
-                startTime = TrcUtil.getCurrentTime();
+                startTime = TrcDataRecorder.getUnrecordedTime();
                 taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, currMode);
-                elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                 if (elapsedTime > taskTimeThreshold)
                 {
                     globalTracer.traceWarn(funcName, "%s.prePeriodicTasks took too long (%.3fs)",
@@ -436,7 +463,7 @@ public abstract class FrcRobotBase extends RobotBase
             //
             // Continuous
             //
-            startTime = TrcUtil.getCurrentTime();
+            startTime = TrcDataRecorder.getUnrecordedTime();
             if (currMode == RunMode.DISABLED_MODE && disabledMode != null)
             {
                 disabledMode.runContinuous(modeElapsedTime);
@@ -453,7 +480,7 @@ public abstract class FrcRobotBase extends RobotBase
             {
                 teleOpMode.runContinuous(modeElapsedTime);
             }
-            elapsedTime = TrcUtil.getCurrentTime() - startTime;
+            elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
             if (elapsedTime > taskTimeThreshold)
             {
                 globalTracer.traceWarn(funcName, "%s.runContinuous took too long (%.3fs)",
@@ -464,7 +491,7 @@ public abstract class FrcRobotBase extends RobotBase
             //
             if (periodReady)
             {
-                startTime = TrcUtil.getCurrentTime();
+                startTime = TrcDataRecorder.getUnrecordedTime();
                 if (currMode == RunMode.DISABLED_MODE)
                 {
                     HAL.observeUserProgramDisabled();
@@ -497,7 +524,7 @@ public abstract class FrcRobotBase extends RobotBase
                         teleOpMode.runPeriodic(modeElapsedTime);
                     }
                 }
-                elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                 if (elapsedTime > taskTimeThreshold)
                 {
                     globalTracer.traceWarn(funcName, "%s.runPeriodic took too long (%.3fs)",
@@ -507,9 +534,9 @@ public abstract class FrcRobotBase extends RobotBase
             //
             // PostContinuous
             //
-            startTime = TrcUtil.getCurrentTime();
+            startTime = TrcDataRecorder.getUnrecordedTime();
             taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, currMode);
-            elapsedTime = TrcUtil.getCurrentTime() - startTime;
+            elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
             if (elapsedTime > taskTimeThreshold)
             {
                 globalTracer.traceWarn(funcName, "%s.postContinuousTasks took too long (%.3fs)",
@@ -520,9 +547,9 @@ public abstract class FrcRobotBase extends RobotBase
             //
             if (periodReady)
             {
-                startTime = TrcUtil.getCurrentTime();
+                startTime = TrcDataRecorder.getUnrecordedTime();
                 taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTPERIODIC_TASK, currMode);
-                elapsedTime = TrcUtil.getCurrentTime() - startTime;
+                elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
                 if (elapsedTime > taskTimeThreshold)
                 {
                     globalTracer.traceWarn(funcName, "%s.postPeriodicTask took too long (%.3fs)",
@@ -530,7 +557,7 @@ public abstract class FrcRobotBase extends RobotBase
                 }
             }
 
-            startTime = TrcUtil.getCurrentTime();
+            startTime = TrcDataRecorder.getUnrecordedTime();
 
             SmartDashboard.updateValues();
 
@@ -548,7 +575,7 @@ public abstract class FrcRobotBase extends RobotBase
                     (int)(modeElapsedTime/60), modeElapsedTime%60, currMode);
             }
 
-            elapsedTime = TrcUtil.getCurrentTime() - startTime;
+            elapsedTime = TrcDataRecorder.getUnrecordedTime() - startTime;
             if (elapsedTime > taskTimeThreshold)
             {
                 globalTracer.traceWarn(funcName, "%s.updates took too long (%.3fs)",
@@ -558,16 +585,22 @@ public abstract class FrcRobotBase extends RobotBase
             //
             // Do house keeping statistics.
             //
-            double timeSliceUsed = TrcUtil.getCurrentTime() - timeSliceStart;
+            double timeSliceUsed = TrcDataRecorder.getUnrecordedTime() - timeSliceStart;
             if (timeSliceUsed > timesliceThreshold)
             {
                 globalTracer.traceWarn(funcName, "%s took too long (%.3fs)", currMode, timeSliceUsed);
             }
+
+            if (jvmMonitor != null)
+            {
+                jvmMonitor.endTimeSlice(timeSliceUsed);
+            }
         }
     }   //startCompetition
 
     /**
-     * This method returns the host name of the RobotRIO.
+     * This method returns the host name of the RobotRIO. It reads the host name file instead of running the
+     * hostname command because starting a process takes a noticeable part of the boot time.
      *
      * @return host name.
      */
@@ -577,11 +610,7 @@ public abstract class FrcRobotBase extends RobotBase
 
         try
         {
-            byte[] buff = new byte[256];
-            Process proc = Runtime.getRuntime().exec("hostname");
-            InputStream inStream = proc.getInputStream();
-            inStream.read(buff, 0, buff.length);
-            hostName = new String(buff);
+            hostName = new String(Files.readAllBytes(Paths.get("/etc/hostname"))).trim();
         }
         catch(IOException e)
         {
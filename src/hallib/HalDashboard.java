@@ -22,15 +22,29 @@
 
 package hallib;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IllegalFormatException;
+import java.util.Objects;
+
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import trclib.TrcDbgTrace;
+import trclib.TrcUtil;
 
 /**
  * This class extends the SmartDashboard class and provides a way to send named data to the Driver Station to be
  * displayed, it also simulates an LCD display similar to the NXT Mindstorms. The Mindstorms has only 8 lines but
  * this dashboard can support as many lines as the Driver Station can support. By default, we set the number of lines
  * to 16. By changing a constant here, you can have as many lines as you want. This dashboard display is very useful
- * for displaying debug information.
+ * for displaying debug information. Values are not sent when they are put. Instead, a background publisher thread
+ * sends the changed values at a limited rate so that the network traffic does not grow with how often the robot code
+ * updates the display. Display lines are also formatted by the publisher thread, so the robot loop does not pay for
+ * formatting text that is never sent. A value edited on the dashboard is sent again the next time it is put.
+ *
+ * The static putNumber, putBoolean, putString, getNumber and getString methods of this class hide the SmartDashboard
+ * methods of the same names. Static methods are bound at compile time, so they only take effect when called through
+ * HalDashboard (or an instance of it). A call through SmartDashboard goes straight to the Driver Station and may be
+ * overwritten by a value of the same key still pending here, so robot code should always use HalDashboard.
  */
 public class HalDashboard extends SmartDashboard
 {
@@ -43,13 +57,83 @@ public class HalDashboard extends SmartDashboard
     private TrcDbgTrace dbgTrace = null;
 
     public static final int MAX_NUM_TEXTLINES = 16;
-    private static final String displayKeyFormat = "%02d";
+    public static final double DEF_PUBLISH_INTERVAL = 0.04;     // 25 Hz
+    public static final double DEF_KEY_MIN_INTERVAL = 0.1;      // 10 Hz per key
+    public static final int DEF_MAX_UPDATES_PER_CYCLE = 20;
+    private static final String[] displayKeys = new String[MAX_NUM_TEXTLINES];
+    private static final Object[] NO_ARGS = new Object[0];
+
+    static
+    {
+        for (int i = 0; i < displayKeys.length; i++)
+        {
+            displayKeys[i] = String.format("%02d", i);
+        }
+    }
+
+    /**
+     * This enum specifies the type of a dashboard value.
+     */
+    private enum ValueType
+    {
+        TEXT,
+        STRING,
+        NUMBER,
+        BOOLEAN
+    }   //enum ValueType
+
+    /**
+     * This class keeps the latest value of a dashboard key and when it was last published.
+     */
+    private static class Entry
+    {
+        final String key;
+        ValueType type;
+        String stringValue = null;
+        double numberValue = 0.0;
+        boolean booleanValue = false;
+        String format = "";
+        Object[] args = NO_ARGS;
+        String publishedText = null;
+        boolean dirty = false;
+        boolean remoteEdited = false;
+        double lastPublishTime = 0.0;
+
+        Entry(String key, ValueType type)
+        {
+            this.key = key;
+            this.type = type;
+        }   //Entry
+
+    }   //class Entry
 
     private static HalDashboard instance = null;
-    private static String[] display = new String[MAX_NUM_TEXTLINES];
+    private static final Object publishLock = new Object();
+    private static final Entry[] display = new Entry[MAX_NUM_TEXTLINES];
+    private static final HashMap<String, Entry> valueMap = new HashMap<>();
+    private static final ArrayList<Entry> entryList = new ArrayList<>();
+    private static int nextEntryIndex = 0;
+    private static volatile double publishInterval = DEF_PUBLISH_INTERVAL;
+    private static volatile double keyMinInterval = DEF_KEY_MIN_INTERVAL;
+    private static volatile int maxUpdatesPerCycle = DEF_MAX_UPDATES_PER_CYCLE;
+    private static long skippedCount = 0;
+    private static long publishedCount = 0;
+
+    static
+    {
+        for (int i = 0; i < display.length; i++)
+        {
+            display[i] = new Entry(displayKeys[i], ValueType.TEXT);
+            entryList.add(display[i]);
+        }
+    }
+
+    private Thread publisherThread = null;
+    private volatile boolean publisherStopped = false;
 
     /**
-     * Constructor: Creates an instance of the object.
+     * Constructor: Creates an instance of the object. It also starts the publisher thread that sends changed values
+     * to the Driver Station, stopping the one of the previous instance if any.
      */
     public HalDashboard()
     {
@@ -60,8 +144,16 @@ public class HalDashboard extends SmartDashboard
                 new TrcDbgTrace(moduleName, tracingEnabled, traceLevel, msgLevel);
         }
 
+        if (instance != null)
+        {
+            instance.stopPublisher();
+        }
         instance = this;
         clearDisplay();
+        publisherThread = new Thread(this::publisherTask, moduleName + ".publisher");
+        publisherThread.setDaemon(true);
+        publisherThread.setPriority(Thread.MIN_PRIORITY);
+        publisherThread.start();
     }   //HalDashboard
 
     /**
@@ -76,7 +168,73 @@ public class HalDashboard extends SmartDashboard
     }   //getInstance
 
     /**
-     * This method displays a formatted message to the display on the Driver Station.
+     * This method stops the publisher thread. Values put afterwards are no longer sent.
+     *
+     * @return true if the publisher thread has exited, false if it did not exit in time.
+     */
+    public boolean stopPublisher()
+    {
+        final String funcName = "stopPublisher";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        publisherStopped = true;
+        try
+        {
+            publisherThread.join(1000);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return !publisherThread.isAlive();
+    }   //stopPublisher
+
+    /**
+     * This method sets the publish rates. Values are published by a background thread every publish interval.
+     * Each cycle publishes at most maxUpdates changed keys and a key is not published more often than the key
+     * minimum interval. Keys that are held back are published in a later cycle with their latest value.
+     *
+     * @param publishInterval specifies the interval of the publisher thread in seconds.
+     * @param keyMinInterval specifies the minimum interval between two updates of the same key in seconds.
+     * @param maxUpdates specifies the maximum number of keys published per cycle.
+     */
+    public static void setPublishRates(double publishInterval, double keyMinInterval, int maxUpdates)
+    {
+        if (publishInterval <= 0.0 || keyMinInterval < 0.0 || maxUpdates <= 0)
+        {
+            throw new IllegalArgumentException("Invalid publish rates.");
+        }
+
+        HalDashboard.publishInterval = publishInterval;
+        HalDashboard.keyMinInterval = keyMinInterval;
+        HalDashboard.maxUpdatesPerCycle = maxUpdates;
+    }   //setPublishRates
+
+    /**
+     * This method returns the publisher statistics.
+     *
+     * @return string containing the number of published updates and the number of unchanged updates skipped.
+     */
+    public static String getPublishStatistics()
+    {
+        synchronized (publishLock)
+        {
+            return String.format("Published=%d, Skipped=%d, Keys=%d", publishedCount, skippedCount, entryList.size());
+        }
+    }   //getPublishStatistics
+
+    /**
+     * This method displays a formatted message to the display on the Driver Station. The message is formatted by
+     * the publisher thread when it is sent, at most at the publish rate. Arguments other than numbers, strings,
+     * booleans, characters and enums are converted to strings on the caller's thread, so arguments that change
+     * afterwards (e.g. a StringBuilder) do not affect the message. A call with the same format and arguments as the
+     * previous one is skipped.
      *
      * @param lineNum specifies the line number on the display.
      * @param format specifies the format string.
@@ -86,11 +244,70 @@ public class HalDashboard extends SmartDashboard
     {
         if (lineNum >= 0 && lineNum < display.length)
         {
-            display[lineNum] = String.format(format, args);
-            SmartDashboard.putString(String.format(displayKeyFormat, lineNum), display[lineNum]);
+            synchronized (publishLock)
+            {
+                Entry entry = display[lineNum];
+
+                if (!entry.remoteEdited && format.equals(entry.format) && hasSameArgs(entry.args, args))
+                {
+                    skippedCount++;
+                }
+                else
+                {
+                    if (entry.args.length != args.length)
+                    {
+                        entry.args = args.length > 0? new Object[args.length]: NO_ARGS;
+                    }
+
+                    for (int i = 0; i < args.length; i++)
+                    {
+                        entry.args[i] = getArgValue(args[i]);
+                    }
+                    entry.format = format;
+                    entry.dirty = true;
+                }
+            }
         }
     }   //displayPrintf
 
+    /**
+     * This method returns the value of a display argument to keep until the line is formatted. Immutable values are
+     * kept as is, anything else is converted to a string now.
+     *
+     * @param arg specifies the argument.
+     * @return argument value.
+     */
+    private static Object getArgValue(Object arg)
+    {
+        return arg == null || arg instanceof Number || arg instanceof String || arg instanceof Boolean ||
+               arg instanceof Character || arg instanceof Enum? arg: String.valueOf(arg);
+    }   //getArgValue
+
+    /**
+     * This method checks if the display arguments kept for a line are the same as the given ones.
+     *
+     * @param keptArgs specifies the arguments kept for the line.
+     * @param args specifies the new arguments.
+     * @return true if they are the same, false otherwise.
+     */
+    private static boolean hasSameArgs(Object[] keptArgs, Object[] args)
+    {
+        if (keptArgs.length != args.length)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < args.length; i++)
+        {
+            if (!Objects.equals(keptArgs[i], getArgValue(args[i])))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }   //hasSameArgs
+
     /**
      * This method clears all the display lines.
      */
@@ -104,15 +321,20 @@ public class HalDashboard extends SmartDashboard
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        for (int i = 0; i < display.length; i++)
+        synchronized (publishLock)
         {
-            display[i] = "";
+            for (int i = 0; i < display.length; i++)
+            {
+                display[i].format = "";
+                display[i].args = NO_ARGS;
+                display[i].dirty = true;
+            }
         }
         refreshDisplay();
     }   //clearDisplay
 
     /**
-     * This method refresh the display lines to the Driver Station.
+     * This method refresh the display lines to the Driver Station. The lines are sent by the publisher thread.
      */
     public void refreshDisplay()
     {
@@ -124,15 +346,285 @@ public class HalDashboard extends SmartDashboard
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        for (int i = 0; i < display.length; i++)
+        synchronized (publishLock)
         {
-            SmartDashboard.putString(String.format(displayKeyFormat, i), display[i]);
+            for (int i = 0; i < display.length; i++)
+            {
+                display[i].publishedText = null;
+                display[i].dirty = true;
+            }
         }
     }   //refreshDisplay
 
     /**
-     * This method returns the value associated with the given key. If the key does not already exist, it will
-     * create the key and put the default value in it and also return the default value.
+     * This method returns the entry of the given key, creating it if necessary. It must be called with the
+     * publish lock held.
+     *
+     * @param key specifies the key.
+     * @param type specifies the value type.
+     * @return entry of the key.
+     */
+    private static Entry getEntry(String key, ValueType type)
+    {
+        Entry entry = valueMap.get(key);
+
+        if (entry == null)
+        {
+            entry = new Entry(key, type);
+            valueMap.put(key, entry);
+            entryList.add(entry);
+        }
+        else
+        {
+            entry.type = type;
+        }
+
+        return entry;
+    }   //getEntry
+
+    /**
+     * This method puts a number in the dashboard. It hides SmartDashboard.putNumber (see the class comment) so that the
+     * value is only sent when it has changed and at most at the publish rate.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true always.
+     */
+    public static boolean putNumber(String key, double value)
+    {
+        synchronized (publishLock)
+        {
+            Entry entry = getEntry(key, ValueType.NUMBER);
+
+            if (entry.lastPublishTime != 0.0 && !entry.remoteEdited && entry.numberValue == value)
+            {
+                skippedCount++;
+            }
+            else
+            {
+                entry.numberValue = value;
+                entry.dirty = true;
+            }
+        }
+
+        return true;
+    }   //putNumber
+
+    /**
+     * This method puts a boolean in the dashboard. It hides SmartDashboard.putBoolean (see the class comment) so that the
+     * value is only sent when it has changed and at most at the publish rate.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true always.
+     */
+    public static boolean putBoolean(String key, boolean value)
+    {
+        synchronized (publishLock)
+        {
+            Entry entry = getEntry(key, ValueType.BOOLEAN);
+
+            if (entry.lastPublishTime != 0.0 && !entry.remoteEdited && entry.booleanValue == value)
+            {
+                skippedCount++;
+            }
+            else
+            {
+                entry.booleanValue = value;
+                entry.dirty = true;
+            }
+        }
+
+        return true;
+    }   //putBoolean
+
+    /**
+     * This method puts a string in the dashboard. It hides SmartDashboard.putString (see the class comment) so that the
+     * value is only sent when it has changed and at most at the publish rate.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true always.
+     */
+    public static boolean putString(String key, String value)
+    {
+        synchronized (publishLock)
+        {
+            Entry entry = getEntry(key, ValueType.STRING);
+
+            if (entry.lastPublishTime != 0.0 && !entry.remoteEdited && value.equals(entry.stringValue))
+            {
+                skippedCount++;
+            }
+            else
+            {
+                entry.stringValue = value;
+                entry.dirty = true;
+            }
+        }
+
+        return true;
+    }   //putString
+
+    /**
+     * This method formats a display line. A bad format string is a bug in the caller, but it must not kill the
+     * robot loop for a debug display. In that case, the format string is displayed as is.
+     *
+     * @param format specifies the format string.
+     * @param args specifies the substitution arguments.
+     * @return formatted text.
+     */
+    private static String formatText(String format, Object[] args)
+    {
+        String text;
+
+        try
+        {
+            text = String.format(format, args);
+        }
+        catch (IllegalFormatException e)
+        {
+            text = format;
+        }
+
+        return text;
+    }   //formatText
+
+    /**
+     * This method checks if the dashboard value of a published entry differs from the value last sent, i.e. it was
+     * edited on the dashboard. It must be called with the publish lock held.
+     *
+     * @param entry specifies the entry.
+     * @return true if the dashboard value was edited, false otherwise.
+     */
+    private static boolean isRemoteEdited(Entry entry)
+    {
+        boolean edited;
+
+        switch (entry.type)
+        {
+            case TEXT:
+                edited = entry.publishedText != null &&
+                         !entry.publishedText.equals(SmartDashboard.getString(entry.key, entry.publishedText));
+                break;
+
+            case NUMBER:
+                edited = Double.compare(
+                    entry.numberValue, SmartDashboard.getNumber(entry.key, entry.numberValue)) != 0;
+                break;
+
+            case BOOLEAN:
+                edited = entry.booleanValue != SmartDashboard.getBoolean(entry.key, entry.booleanValue);
+                break;
+
+            default:
+                edited = !entry.stringValue.equals(SmartDashboard.getString(entry.key, entry.stringValue));
+                break;
+        }
+
+        return edited;
+    }   //isRemoteEdited
+
+    /**
+     * This method publishes one batch of changed values. Entries are scanned round robin starting after the last
+     * entry published in the previous cycle so that a chatty key cannot starve the others. Entries that are not
+     * pending are checked for edits on the dashboard, so that the next put sends them again even if unchanged.
+     */
+    private static void publish()
+    {
+        double currTime = TrcUtil.getCurrentTime();
+
+        synchronized (publishLock)
+        {
+            int numEntries = entryList.size();
+            int numUpdates = 0;
+
+            for (int i = 0; i < numEntries && numUpdates < maxUpdatesPerCycle; i++)
+            {
+                int index = (nextEntryIndex + i)%numEntries;
+                Entry entry = entryList.get(index);
+
+                if (!entry.dirty)
+                {
+                    if (entry.lastPublishTime != 0.0 && !entry.remoteEdited && isRemoteEdited(entry))
+                    {
+                        entry.remoteEdited = true;
+                    }
+                }
+                else if (currTime - entry.lastPublishTime >= keyMinInterval)
+                {
+                    entry.dirty = false;
+                    entry.lastPublishTime = currTime;
+
+                    switch (entry.type)
+                    {
+                        case TEXT:
+                            entry.stringValue = formatText(entry.format, entry.args);
+                            if (!entry.remoteEdited && entry.stringValue.equals(entry.publishedText))
+                            {
+                                skippedCount++;
+                                continue;
+                            }
+                            entry.remoteEdited = false;
+                            entry.publishedText = entry.stringValue;
+                            SmartDashboard.putString(entry.key, entry.stringValue);
+                            break;
+
+                        case STRING:
+                            SmartDashboard.putString(entry.key, entry.stringValue);
+                            break;
+
+                        case NUMBER:
+                            SmartDashboard.putNumber(entry.key, entry.numberValue);
+                            break;
+
+                        case BOOLEAN:
+                            SmartDashboard.putBoolean(entry.key, entry.booleanValue);
+                            break;
+                    }
+
+                    entry.remoteEdited = false;
+                    numUpdates++;
+                    publishedCount++;
+                    nextEntryIndex = index + 1;
+                }
+            }
+        }
+    }   //publish
+
+    /**
+     * This method runs the publisher thread until stopPublisher is called.
+     */
+    private void publisherTask()
+    {
+        while (!publisherStopped)
+        {
+            long startTime = TrcUtil.getCurrentTimeMillis();
+
+            publish();
+            TrcUtil.sleep((long)(publishInterval*1000) - (TrcUtil.getCurrentTimeMillis() - startTime));
+        }
+    }   //publisherTask
+
+    /**
+     * This method returns the pending entry of the given key, a value that was put but not yet published. It must be
+     * called with the publish lock held.
+     *
+     * @param key specifies the key.
+     * @param type specifies the value type.
+     * @return pending entry of the key, null if there is no pending value of that type.
+     */
+    private static Entry getPendingEntry(String key, ValueType type)
+    {
+        Entry entry = valueMap.get(key);
+
+        return entry != null && entry.dirty && entry.type == type? entry: null;
+    }   //getPendingEntry
+
+    /**
+     * This method returns the value associated with the given key. A value put but not yet published is returned
+     * as is. If the key does not already exist, it will create the key and put the default value in it and also
+     * return the default value. It hides SmartDashboard.getNumber (see the class comment).
      *
      * @param key specifies the key.
      * @param defaultValue specifies the default value if the key does not already exist.
@@ -140,6 +632,16 @@ public class HalDashboard extends SmartDashboard
      */
     public static double getNumber(String key, double defaultValue)
     {
+        synchronized (publishLock)
+        {
+            Entry entry = getPendingEntry(key, ValueType.NUMBER);
+
+            if (entry != null)
+            {
+                return entry.numberValue;
+            }
+        }
+
         double value = defaultValue;
 
         if (SmartDashboard.containsKey(key))
@@ -155,8 +657,9 @@ public class HalDashboard extends SmartDashboard
     }   //getNumber
 
     /**
-     * This method returns the value associated with the given key. If the key does not already exist, it will
-     * create the key and put the default value in it and also return the default value.
+     * This method returns the value associated with the given key. A value put but not yet published is returned
+     * as is. If the key does not already exist, it will create the key and put the default value in it and also
+     * return the default value. It hides SmartDashboard.getString (see the class comment).
      *
      * @param key specifies the key.
      * @param defaultValue specifies the default value if the key does not already exist.
@@ -164,6 +667,16 @@ public class HalDashboard extends SmartDashboard
      */
     public static String getString(String key, String defaultValue)
     {
+        synchronized (publishLock)
+        {
+            Entry entry = getPendingEntry(key, ValueType.STRING);
+
+            if (entry != null)
+            {
+                return entry.stringValue;
+            }
+        }
+
         String value = defaultValue;
 
         if (SmartDashboard.containsKey(key))
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.function.DoubleSupplier;
+
+import trclib.TrcAnalogInput;
+import trclib.TrcDbgTrace;
+import trclib.TrcFilter;
+import trclib.TrcUtil;
+
+/**
+ * This class implements a simulated analog input extending TrcAnalogInput. The voltage is provided by the
+ * simulation, typically as a function of a mechanism state (e.g. a potentiometer or an ultrasonic sensor).
+ */
+public class SimAnalogInput extends TrcAnalogInput
+{
+    private static final double maxVoltage = 5.0;
+    private final DoubleSupplier voltageSupplier;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param voltageSupplier specifies the method to call to get the sensor voltage.
+     * @param filters specifies an array of filter objects, one for each axis, to filter sensor data. If no filter
+     *                is used, this can be set to null.
+     */
+    public SimAnalogInput(String instanceName, DoubleSupplier voltageSupplier, TrcFilter[] filters)
+    {
+        super(instanceName, 1, 0, filters);
+        this.voltageSupplier = voltageSupplier;
+    }   //SimAnalogInput
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param voltageSupplier specifies the method to call to get the sensor voltage.
+     */
+    public SimAnalogInput(String instanceName, DoubleSupplier voltageSupplier)
+    {
+        this(instanceName, voltageSupplier, null);
+    }   //SimAnalogInput
+
+    //
+    // Implements TrcAnalogInput abstract methods.
+    //
+
+    /**
+     * This method returns the raw sensor data of the specified type.
+     *
+     * @param index specifies the data index (not used).
+     * @param dataType specifies the data type.
+     * @return raw sensor data of the specified type.
+     */
+    @Override
+    public SensorData<Double> getRawData(int index, DataType dataType)
+    {
+        final String funcName = "getRawData";
+        double sensorData;
+        SensorData<Double> data;
+
+        if (dataType == DataType.RAW_DATA || dataType == DataType.INPUT_DATA)
+        {
+            sensorData = voltageSupplier.getAsDouble();
+        }
+        else if (dataType == DataType.NORMALIZED_DATA)
+        {
+            sensorData = voltageSupplier.getAsDouble()/maxVoltage;
+        }
+        else
+        {
+            throw new UnsupportedOperationException(
+                    "AnalogInput sensor only support INPUT_DATA/NORMALIZED_DATA types.");
+        }
+        data = new SensorData<>(TrcUtil.getCurrentTime(), sensorData);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
+                               "=(timestamp:%.3f,value=%f)", data.timestamp, data.value);
+        }
+
+        return data;
+    }   //getRawData
+
+}   //class SimAnalogInput
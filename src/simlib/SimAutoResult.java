@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This class contains the outcome of one autonomous regression scenario. It can be encoded as a single line of
+ * text so that a scenario can run in its own process and report back to the runner through its standard output.
+ */
+public class SimAutoResult
+{
+    public static final String LINE_PREFIX = "SIMAUTO_RESULT|";
+
+    public final SimAutoScenario scenario;
+    public final boolean completed;
+    public final double completionTime;
+    public final double poseError;
+    public final Map<String, Double> stateDurations;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param scenario specifies the scenario.
+     * @param completed specifies true if the autonomous routine completed within the autonomous period.
+     * @param completionTime specifies the time the routine took in seconds.
+     * @param poseError specifies the distance between the final and the expected robot position in inches.
+     * @param stateDurations specifies the time spent in each state of the routine in the order visited.
+     */
+    public SimAutoResult(
+            SimAutoScenario scenario, boolean completed, double completionTime, double poseError,
+            Map<String, Double> stateDurations)
+    {
+        this.scenario = scenario;
+        this.completed = completed;
+        this.completionTime = completionTime;
+        this.poseError = poseError;
+        this.stateDurations = stateDurations;
+    }   //SimAutoResult
+
+    /**
+     * This method returns the state durations as a readable string.
+     *
+     * @return state durations string.
+     */
+    public String getStateDurationsString()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for (Map.Entry<String, Double> entry: stateDurations.entrySet())
+        {
+            if (sb.length() > 0)
+            {
+                sb.append(' ');
+            }
+            sb.append(String.format(Locale.US, "%s=%.2f", entry.getKey(), entry.getValue()));
+        }
+
+        return sb.toString();
+    }   //getStateDurationsString
+
+    /**
+     * This method encodes the result as a single line.
+     *
+     * @return encoded result.
+     */
+    public String encode()
+    {
+        return String.format(
+            Locale.US, "%s%s|%s|%.3f|%.3f|%s", LINE_PREFIX, scenario, completed, completionTime, poseError,
+            getStateDurationsString());
+    }   //encode
+
+    /**
+     * This method decodes a line produced by encode(). The result may follow other output on the same line, such
+     * as the message level prefix HalDbgLog leaves after the last trace message.
+     *
+     * @param line specifies the encoded line.
+     * @return decoded result, null if the line is not a result line.
+     */
+    public static SimAutoResult decode(String line)
+    {
+        SimAutoResult result = null;
+        int start = line.indexOf(LINE_PREFIX);
+
+        if (start >= 0)
+        {
+            String[] fields = line.substring(start + LINE_PREFIX.length()).split("\\|", -1);
+            LinkedHashMap<String, Double> durations = new LinkedHashMap<>();
+
+            if (fields.length != 5)
+            {
+                throw new IllegalArgumentException("Invalid result line " + line);
+            }
+
+            for (String token: fields[4].split(" "))
+            {
+                int index = token.lastIndexOf('=');
+
+                if (index > 0)
+                {
+                    durations.put(token.substring(0, index), Double.parseDouble(token.substring(index + 1)));
+                }
+            }
+
+            result = new SimAutoResult(
+                SimAutoScenario.parse(fields[0]), Boolean.parseBoolean(fields[1]), Double.parseDouble(fields[2]),
+                Double.parseDouble(fields[3]), durations);
+        }
+
+        return result;
+    }   //decode
+
+}   //class SimAutoResult
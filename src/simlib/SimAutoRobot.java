@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.LinkedHashMap;
+
+import trclib.TrcDataRecorder;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcUtil;
+
+/**
+ * This class is extended by a simulated robot to take part in autonomous regression runs. The subclass creates
+ * its simulated mechanisms and the autonomous routines in robotInit(), places the robot and selects the routine
+ * for a scenario in setupScenario(), and reports when the routine is done and how far the robot ended up from
+ * where it should be.
+ */
+public abstract class SimAutoRobot extends SimRobotBase
+{
+    public static final double AUTO_PERIOD = 15.0;
+
+    /**
+     * This method returns the names of the autonomous routines the robot supports. It is also called by the
+     * runner on an instance that never runs robotInit(), so it must not depend on it.
+     *
+     * @return autonomous routine names.
+     */
+    public abstract String[] getAutoRoutines();
+
+    /**
+     * This method returns the names of the start positions the robot supports. Like getAutoRoutines(), it must
+     * not depend on robotInit().
+     *
+     * @return start position names.
+     */
+    public abstract String[] getStartPositions();
+
+    /**
+     * This method is called after robotInit() to prepare the given scenario. Typically, it sets the pose of the
+     * simulated drive base to the start position and selects the autonomous routine to run in autonomous mode.
+     *
+     * @param scenario specifies the scenario.
+     */
+    public abstract void setupScenario(SimAutoScenario scenario);
+
+    /**
+     * This method checks if the autonomous routine has completed.
+     *
+     * @return true if the routine has completed, false otherwise.
+     */
+    public abstract boolean isAutoCompleted();
+
+    /**
+     * This method returns the current state of the autonomous routine. It is sampled every loop to measure the
+     * time spent in each state.
+     *
+     * @return current state, null if the routine has no state machine or it is not running.
+     */
+    public abstract Object getAutoState();
+
+    /**
+     * This method returns the distance between the current robot position and where the scenario is expected to
+     * end.
+     *
+     * @return pose error in inches.
+     */
+    public abstract double getPoseError();
+
+    private SimAutoScenario replayScenario = null;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public SimAutoRobot(final String instanceName)
+    {
+        super(instanceName);
+    }   //SimAutoRobot
+
+    /**
+     * This method returns the completion time budget of a scenario. A scenario that takes longer is reported as a
+     * regression. The default is the full autonomous period, subclasses can override it with tighter budgets.
+     *
+     * @param scenario specifies the scenario.
+     * @return time budget in seconds.
+     */
+    public double getTimeBudget(SimAutoScenario scenario)
+    {
+        return AUTO_PERIOD;
+    }   //getTimeBudget
+
+    /**
+     * This method replays a match log recorded while the robot ran the given scenario. The scenario is set up
+     * after robotInit() like runScenario() does, then the log is replayed as by SimRobotBase.replay().
+     *
+     * @param filePath specifies the log file path.
+     * @param runControlTasks specifies true to run the control tasks in the robot loop, see SimRobotBase.replay().
+     * @param scenario specifies the scenario the log was recorded with.
+     * @return recorder holding the replay statistics, null if the log cannot be read.
+     */
+    public TrcDataRecorder replay(String filePath, boolean runControlTasks, SimAutoScenario scenario)
+    {
+        replayScenario = scenario;
+        return replay(filePath, runControlTasks);
+    }   //replay
+
+    /**
+     * This method sets up the scenario given to replay().
+     */
+    @Override
+    protected void replayInit()
+    {
+        if (replayScenario != null)
+        {
+            setupScenario(replayScenario);
+        }
+    }   //replayInit
+
+    /**
+     * This method runs the autonomous period of a scenario after a short disabled period and returns the result.
+     * It must be called only once per robot instance.
+     *
+     * @param scenario specifies the scenario.
+     * @return result of the scenario.
+     */
+    public SimAutoResult runScenario(SimAutoScenario scenario)
+    {
+        final LinkedHashMap<String, Double> stateDurations = new LinkedHashMap<>();
+        final Object[] prevState = {null};
+        final double[] stateStartTime = {0.0};
+
+        robotInit();
+        setupScenario(scenario);
+        runMode(RunMode.DISABLED_MODE, 0.1);
+        //
+        // Sample the routine state every loop and accumulate the time spent in each state.
+        //
+        double elapsedTime = runMode(RunMode.AUTO_MODE, AUTO_PERIOD, () ->
+        {
+            Object state = getAutoState();
+            double currTime = TrcUtil.getCurrentTime();
+
+            if (state != prevState[0])
+            {
+                if (prevState[0] != null)
+                {
+                    stateDurations.merge(prevState[0].toString(), currTime - stateStartTime[0], Double::sum);
+                }
+                prevState[0] = state;
+                stateStartTime[0] = currTime;
+            }
+
+            return isAutoCompleted();
+        });
+
+        if (prevState[0] != null)
+        {
+            stateDurations.merge(
+                prevState[0].toString(), TrcUtil.getCurrentTime() - stateStartTime[0], Double::sum);
+        }
+        boolean completed = isAutoCompleted();
+        SimAutoResult result = new SimAutoResult(scenario, completed, elapsedTime, getPoseError(), stateDurations);
+        shutdown();
+
+        return result;
+    }   //runScenario
+
+}   //class SimAutoRobot
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class describes one autonomous regression scenario: which autonomous routine runs from which start
+ * position, on which alliance and with which game specific message (the switch/scale/switch sides, e.g. "LRL").
+ */
+public class SimAutoScenario
+{
+    public static final String[] GAME_MESSAGES = {"LLL", "LRL", "RLR", "RRR"};
+
+    public enum Alliance
+    {
+        RED,
+        BLUE
+    }   //enum Alliance
+
+    public final String routine;
+    public final String startPosition;
+    public final Alliance alliance;
+    public final String gameMessage;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param routine specifies the name of the autonomous routine.
+     * @param startPosition specifies the name of the start position.
+     * @param alliance specifies the alliance.
+     * @param gameMessage specifies the game specific message.
+     */
+    public SimAutoScenario(String routine, String startPosition, Alliance alliance, String gameMessage)
+    {
+        if (routine.contains(",") || startPosition.contains(","))
+        {
+            throw new IllegalArgumentException("Routine and start position names must not contain commas.");
+        }
+
+        this.routine = routine;
+        this.startPosition = startPosition;
+        this.alliance = alliance;
+        this.gameMessage = gameMessage;
+    }   //SimAutoScenario
+
+    /**
+     * This method returns the scenario in the form accepted by parse().
+     *
+     * @return scenario string.
+     */
+    @Override
+    public String toString()
+    {
+        return routine + "," + startPosition + "," + alliance + "," + gameMessage;
+    }   //toString
+
+    /**
+     * This method creates a scenario from the string returned by toString().
+     *
+     * @param scenario specifies the scenario string.
+     * @return scenario object.
+     */
+    public static SimAutoScenario parse(String scenario)
+    {
+        String[] fields = scenario.split(",");
+
+        if (fields.length != 4)
+        {
+            throw new IllegalArgumentException("Invalid scenario " + scenario);
+        }
+
+        return new SimAutoScenario(fields[0], fields[1], Alliance.valueOf(fields[2]), fields[3]);
+    }   //parse
+
+    /**
+     * This method enumerates all combinations of the given routines and start positions with both alliances and
+     * all game specific messages.
+     *
+     * @param routines specifies the autonomous routine names.
+     * @param startPositions specifies the start position names.
+     * @return list of scenarios.
+     */
+    public static List<SimAutoScenario> enumerate(String[] routines, String[] startPositions)
+    {
+        ArrayList<SimAutoScenario> scenarios = new ArrayList<>();
+
+        for (String routine: routines)
+        {
+            for (String startPosition: startPositions)
+            {
+                for (Alliance alliance: Alliance.values())
+                {
+                    for (String gameMessage: GAME_MESSAGES)
+                    {
+                        scenarios.add(new SimAutoScenario(routine, startPosition, alliance, gameMessage));
+                    }
+                }
+            }
+        }
+
+        return Collections.unmodifiableList(scenarios);
+    }   //enumerate
+
+}   //class SimAutoScenario
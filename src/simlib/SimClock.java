@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import trclib.TrcUtil;
+
+/**
+ * This class implements a simulated clock. Once installed as the TrcUtil time source, all robot code reading the
+ * time through TrcUtil sees simulated time. Simulated time only moves when the simulation driver thread calls
+ * advance, so the simulation can run as fast as the CPU allows. Other threads calling TrcUtil.sleep block until
+ * the simulated time has passed. If the driver thread itself calls sleep, the clock is simply advanced.
+ */
+public class SimClock implements TrcUtil.TimeSource
+{
+    private long nanoTime = 0;
+    private Thread driverThread = null;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param startTime specifies the start time in seconds.
+     */
+    public SimClock(double startTime)
+    {
+        nanoTime = (long)(startTime*1000000000.0);
+    }   //SimClock
+
+    /**
+     * Constructor: Create an instance of the object.
+     */
+    public SimClock()
+    {
+        this(0.0);
+    }   //SimClock
+
+    /**
+     * This method installs this clock as the TrcUtil time source. The calling thread becomes the driver thread.
+     */
+    public synchronized void install()
+    {
+        driverThread = Thread.currentThread();
+        TrcUtil.setTimeSource(this);
+    }   //install
+
+    /**
+     * This method restores the system clock as the TrcUtil time source.
+     */
+    public synchronized void uninstall()
+    {
+        if (TrcUtil.getTimeSource() == this)
+        {
+            TrcUtil.setTimeSource(null);
+        }
+        driverThread = null;
+        notifyAll();
+    }   //uninstall
+
+    /**
+     * This method returns the current simulated time.
+     *
+     * @return current simulated time in seconds.
+     */
+    public synchronized double getTime()
+    {
+        return nanoTime/1000000000.0;
+    }   //getTime
+
+    /**
+     * This method advances the simulated time and wakes up any thread whose sleep has expired.
+     *
+     * @param seconds specifies the amount of time to advance in seconds.
+     */
+    public synchronized void advance(double seconds)
+    {
+        if (seconds < 0.0)
+        {
+            throw new IllegalArgumentException("Time cannot go backward.");
+        }
+
+        nanoTime += (long)(seconds*1000000000.0);
+        notifyAll();
+    }   //advance
+
+    //
+    // Implements TrcUtil.TimeSource interface.
+    //
+
+    /**
+     * This method returns the current simulated time in nano seconds.
+     *
+     * @return current simulated time in nano seconds.
+     */
+    @Override
+    public synchronized long getNanoTime()
+    {
+        return nanoTime;
+    }   //getNanoTime
+
+    /**
+     * This method blocks the calling thread until the given simulated time has passed. If called from the driver
+     * thread, it advances the clock instead since nobody else would.
+     *
+     * @param milliTime specifies sleep time in msec.
+     */
+    @Override
+    public synchronized void sleep(long milliTime)
+    {
+        if (milliTime > 0)
+        {
+            if (Thread.currentThread() == driverThread)
+            {
+                advance(milliTime/1000.0);
+            }
+            else
+            {
+                long wakeupTime = nanoTime + milliTime*1000000;
+
+                while (nanoTime < wakeupTime && TrcUtil.getTimeSource() == this)
+                {
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+    }   //sleep
+
+}   //class SimClock
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+/**
+ * This class models the torque and current curve of a brushed DC motor from its published specifications. The model
+ * is the usual linear one: current is the voltage left after the back EMF divided by the winding resistance and
+ * torque is proportional to current. Constants for the common FRC motors are provided.
+ */
+public class SimDcMotor
+{
+    public static final SimDcMotor CIM = new SimDcMotor("CIM", 12.0, 2.42, 133.0, 5330.0, 2.7);
+    public static final SimDcMotor MINI_CIM = new SimDcMotor("MiniCIM", 12.0, 1.41, 89.0, 5840.0, 3.0);
+    public static final SimDcMotor BAG = new SimDcMotor("BAG", 12.0, 0.43, 53.0, 13180.0, 1.8);
+    public static final SimDcMotor PRO_775 = new SimDcMotor("775pro", 12.0, 0.71, 134.0, 18730.0, 0.7);
+
+    private final String name;
+    private final double nominalVoltage;
+    private final double stallTorque;
+    private final double stallCurrent;
+    private final double freeSpeed;
+    private final double freeCurrent;
+    private final double resistance;
+    private final double kV;
+    private final double kT;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param name specifies the motor name.
+     * @param nominalVoltage specifies the voltage the specifications are measured at.
+     * @param stallTorque specifies the stall torque in N-m.
+     * @param stallCurrent specifies the stall current in amps.
+     * @param freeSpeed specifies the free speed in RPM.
+     * @param freeCurrent specifies the free current in amps.
+     */
+    public SimDcMotor(
+            String name, double nominalVoltage, double stallTorque, double stallCurrent, double freeSpeed,
+            double freeCurrent)
+    {
+        this.name = name;
+        this.nominalVoltage = nominalVoltage;
+        this.stallTorque = stallTorque;
+        this.stallCurrent = stallCurrent;
+        this.freeSpeed = freeSpeed*2.0*Math.PI/60.0;
+        this.freeCurrent = freeCurrent;
+        this.resistance = nominalVoltage/stallCurrent;
+        this.kV = this.freeSpeed/(nominalVoltage - resistance*freeCurrent);
+        this.kT = stallTorque/stallCurrent;
+    }   //SimDcMotor
+
+    /**
+     * This method returns the motor name.
+     *
+     * @return motor name.
+     */
+    public String toString()
+    {
+        return name;
+    }   //toString
+
+    /**
+     * This method returns the free speed of the motor.
+     *
+     * @return free speed in radians per second.
+     */
+    public double getFreeSpeed()
+    {
+        return freeSpeed;
+    }   //getFreeSpeed
+
+    /**
+     * This method returns the stall torque of the motor at nominal voltage.
+     *
+     * @return stall torque in N-m.
+     */
+    public double getStallTorque()
+    {
+        return stallTorque;
+    }   //getStallTorque
+
+    /**
+     * This method returns the stall current of the motor at nominal voltage.
+     *
+     * @return stall current in amps.
+     */
+    public double getStallCurrent()
+    {
+        return stallCurrent;
+    }   //getStallCurrent
+
+    /**
+     * This method returns the current drawn by one motor.
+     *
+     * @param voltage specifies the voltage applied to the motor.
+     * @param speed specifies the motor speed in radians per second.
+     * @return current in amps.
+     */
+    public double getCurrent(double voltage, double speed)
+    {
+        return (voltage - speed/kV)/resistance;
+    }   //getCurrent
+
+    /**
+     * This method returns the torque produced by one motor.
+     *
+     * @param voltage specifies the voltage applied to the motor.
+     * @param speed specifies the motor speed in radians per second.
+     * @return torque in N-m.
+     */
+    public double getTorque(double voltage, double speed)
+    {
+        return kT*getCurrent(voltage, speed);
+    }   //getTorque
+
+    /**
+     * This method returns the back EMF damping of one motor, i.e. how much the torque drops per unit of speed
+     * when the motor leads are driven or shorted. Mechanism models use it to integrate the motor dynamics
+     * implicitly because the damping is too stiff for an explicit step with light mechanisms.
+     *
+     * @return damping in N-m per radian per second.
+     */
+    public double getDamping()
+    {
+        return kT/(kV*resistance);
+    }   //getDamping
+
+    /**
+     * This method returns the voltage the specifications are measured at.
+     *
+     * @return nominal voltage.
+     */
+    public double getNominalVoltage()
+    {
+        return nominalVoltage;
+    }   //getNominalVoltage
+
+    /**
+     * This method returns the free current of the motor.
+     *
+     * @return free current in amps.
+     */
+    public double getFreeCurrent()
+    {
+        return freeCurrent;
+    }   //getFreeCurrent
+
+}   //class SimDcMotor
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.function.BooleanSupplier;
+
+import trclib.TrcDbgTrace;
+import trclib.TrcDigitalInput;
+
+/**
+ * This class implements a simulated digital input extending TrcDigitalInput. The state is provided by the
+ * simulation, typically from a mechanism state (e.g. a limit switch of a SimMotor or a game piece sensor).
+ */
+public class SimDigitalInput extends TrcDigitalInput
+{
+    private final BooleanSupplier stateSupplier;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param stateSupplier specifies the method to call to get the input state.
+     */
+    public SimDigitalInput(String instanceName, BooleanSupplier stateSupplier)
+    {
+        super(instanceName);
+        this.stateSupplier = stateSupplier;
+    }   //SimDigitalInput
+
+    //
+    // Implements TrcDigitalInput abstract methods.
+    //
+
+    /**
+     * This method returns the state of the digital input.
+     *
+     * @return true if the digital input is active, false otherwise.
+     */
+    @Override
+    public boolean isActive()
+    {
+        final String funcName = "isActive";
+        boolean state = stateSupplier.getAsBoolean();
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", Boolean.toString(state));
+        }
+
+        return state;
+    }   //isActive
+
+}   //class SimDigitalInput
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import trclib.TrcDbgTrace;
+import trclib.TrcDigitalOutput;
+
+/**
+ * This class implements a simulated digital output extending TrcDigitalOutput. It only remembers the state so that
+ * the simulation or a test can read it back.
+ */
+public class SimDigitalOutput extends TrcDigitalOutput
+{
+    private boolean state = false;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public SimDigitalOutput(String instanceName)
+    {
+        super(instanceName);
+    }   //SimDigitalOutput
+
+    /**
+     * This method returns the last state set on the output port.
+     *
+     * @return state of the output port.
+     */
+    public synchronized boolean getState()
+    {
+        return state;
+    }   //getState
+
+    //
+    // Implements TrcDigitalOutput abstract methods.
+    //
+
+    /**
+     * This method sets the state of the output port.
+     *
+     * @param state specifies state of the output port.
+     */
+    @Override
+    public synchronized void setState(boolean state)
+    {
+        final String funcName = "setState";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "state=%s", Boolean.toString(state));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.state = state;
+    }   //setState
+
+}   //class SimDigitalOutput
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+/**
+ * This class simulates an elevator driven by one or more DC motors through a gearbox and a cable drum. It models
+ * motor torque against the battery voltage, gravity on the carriage and payload, a constant force counter balance,
+ * Coulomb friction and hard stops at both ends of travel. The motor encoder reads the height above the bottom hard
+ * stop and the lower limit switch is active at the bottom.
+ */
+public class SimElevator implements SimMechanism
+{
+    private static final double METERS_PER_INCH = 0.0254;
+    private static final double KG_PER_LB = 0.45359237;
+    private static final double NEWTONS_PER_LBF = 4.4482216;
+    private static final double GRAVITY = 9.80665;
+    private static final double LIMIT_SWITCH_RANGE = 0.25;  // inches
+
+    private final String instanceName;
+    private final SimMotor motor;
+    private final SimDcMotor motorModel;
+    private final int numMotors;
+    private final double gearRatio;
+    private final double drumRadius;
+    private final double carriageMass;
+    private final double travel;
+    private final double countsPerInch;
+    private double efficiency = 0.85;
+    private double counterBalanceForce = 0.0;
+    private double frictionForce = 0.0;
+    private double payloadMass = 0.0;
+    private double height = 0.0;
+    private double velocity = 0.0;
+    private double current = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param motor specifies the motor controller driving the elevator, positive power raises the elevator.
+     * @param motorModel specifies the motor type.
+     * @param numMotors specifies the number of motors in the gearbox.
+     * @param gearRatio specifies the gearbox reduction (motor turns per drum turn).
+     * @param drumDiameter specifies the cable drum diameter in inches.
+     * @param carriageMass specifies the mass of the moving carriage in pounds.
+     * @param travel specifies the total travel from the bottom to the top hard stop in inches.
+     * @param countsPerInch specifies the encoder counts per inch of travel.
+     */
+    public SimElevator(
+            final String instanceName, SimMotor motor, SimDcMotor motorModel, int numMotors, double gearRatio,
+            double drumDiameter, double carriageMass, double travel, double countsPerInch)
+    {
+        this.instanceName = instanceName;
+        this.motor = motor;
+        this.motorModel = motorModel;
+        this.numMotors = numMotors;
+        this.gearRatio = gearRatio;
+        this.drumRadius = drumDiameter*METERS_PER_INCH/2.0;
+        this.carriageMass = carriageMass*KG_PER_LB;
+        this.travel = travel*METERS_PER_INCH;
+        this.countsPerInch = countsPerInch;
+        updateSensors();
+    }   //SimElevator
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the losses of the elevator.
+     *
+     * @param efficiency specifies the gearbox and drum efficiency between 0.0 and 1.0.
+     * @param frictionForce specifies the Coulomb friction of the carriage in pounds force.
+     */
+    public void setLosses(double efficiency, double frictionForce)
+    {
+        this.efficiency = efficiency;
+        this.frictionForce = frictionForce*NEWTONS_PER_LBF;
+    }   //setLosses
+
+    /**
+     * This method sets the upward force of a constant force spring or counter weight.
+     *
+     * @param force specifies the counter balance force in pounds force.
+     */
+    public void setCounterBalance(double force)
+    {
+        counterBalanceForce = force*NEWTONS_PER_LBF;
+    }   //setCounterBalance
+
+    /**
+     * This method sets the mass of the payload carried by the elevator, for example a game piece.
+     *
+     * @param mass specifies the payload mass in pounds.
+     */
+    public synchronized void setPayload(double mass)
+    {
+        payloadMass = mass*KG_PER_LB;
+    }   //setPayload
+
+    /**
+     * This method returns the height of the carriage above the bottom hard stop.
+     *
+     * @return height in inches.
+     */
+    public synchronized double getHeight()
+    {
+        return height/METERS_PER_INCH;
+    }   //getHeight
+
+    /**
+     * This method returns the velocity of the carriage.
+     *
+     * @return velocity in inches per second.
+     */
+    public synchronized double getVelocity()
+    {
+        return velocity/METERS_PER_INCH;
+    }   //getVelocity
+
+    /**
+     * This method sets the carriage height, for example to start a simulation with the elevator raised.
+     *
+     * @param height specifies the height above the bottom hard stop in inches.
+     */
+    public synchronized void setHeight(double height)
+    {
+        this.height = Math.max(0.0, Math.min(height*METERS_PER_INCH, travel));
+        velocity = 0.0;
+        updateSensors();
+    }   //setHeight
+
+    /**
+     * This method updates the encoder and limit switch of the motor from the carriage state.
+     */
+    private void updateSensors()
+    {
+        motor.setSensorState(
+            height/METERS_PER_INCH*countsPerInch, velocity/METERS_PER_INCH*countsPerInch);
+        motor.setLimitSwitchStates(height/METERS_PER_INCH <= LIMIT_SWITCH_RANGE, false);
+    }   //updateSensors
+
+    //
+    // Implements SimMechanism interface.
+    //
+
+    /**
+     * This method advances the elevator by one physics step.
+     *
+     * @param dt specifies the step size in seconds.
+     * @param batteryVoltage specifies the battery voltage in volts.
+     */
+    @Override
+    public synchronized void update(double dt, double batteryVoltage)
+    {
+        double output = motor.getMotorOutput();
+        double motorSpeed = velocity/drumRadius*gearRatio;
+        double motorForce = 0.0;
+        double damping = 0.0;
+
+        if (output != 0.0 || motor.isBrakeModeEnabled())
+        {
+            double voltage = output*batteryVoltage;
+            double motorCurrent = motorModel.getCurrent(voltage, motorSpeed);
+
+            motorForce = numMotors*motorModel.getTorque(voltage, motorSpeed)*gearRatio/drumRadius*efficiency;
+            damping = numMotors*motorModel.getDamping()*gearRatio*gearRatio/(drumRadius*drumRadius)*efficiency;
+            current = Math.max(numMotors*motorCurrent*output, 0.0);
+        }
+        else
+        {
+            current = 0.0;
+        }
+
+        double mass = carriageMass + payloadMass;
+        double netForce = motorForce + counterBalanceForce - mass*GRAVITY;
+
+        if (velocity != 0.0 || Math.abs(netForce) > frictionForce)
+        {
+            double frictionDirection = velocity != 0.0? Math.signum(velocity): Math.signum(netForce);
+            //
+            // The back EMF damping is integrated implicitly, the rest of the forces explicitly.
+            //
+            double newVelocity =
+                (velocity + (netForce + damping*velocity - frictionDirection*frictionForce)/mass*dt)/
+                (1.0 + damping/mass*dt);
+            //
+            // Friction can stop the carriage but not reverse it.
+            //
+            if (velocity != 0.0 && Math.signum(newVelocity) != Math.signum(velocity) &&
+                Math.abs(netForce) <= frictionForce)
+            {
+                newVelocity = 0.0;
+            }
+            velocity = newVelocity;
+        }
+
+        height += velocity*dt;
+        if (height <= 0.0)
+        {
+            height = 0.0;
+            velocity = Math.max(velocity, 0.0);
+        }
+        else if (height >= travel)
+        {
+            height = travel;
+            velocity = Math.min(velocity, 0.0);
+        }
+
+        updateSensors();
+    }   //update
+
+    /**
+     * This method returns the current drawn by the elevator motors during the last step.
+     *
+     * @return current in amps.
+     */
+    @Override
+    public synchronized double getCurrent()
+    {
+        return current;
+    }   //getCurrent
+
+}   //class SimElevator
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.ArrayList;
+
+/**
+ * This class implements a 2D map of the field for simulated range sensors. The map is a list of wall segments in
+ * field coordinates. The field coordinate system has its origin at the left corner of our alliance wall as seen
+ * from the driver station, x pointing right and y pointing down field, in inches. Headings are in degrees,
+ * clockwise from the y axis, the same convention as the robot gyro.
+ */
+public class SimFieldMap
+{
+    public static final double POWERUP_FIELD_WIDTH = 324.0;
+    public static final double POWERUP_FIELD_LENGTH = 648.0;
+
+    private final ArrayList<double[]> walls = new ArrayList<>();
+    private final double width;
+    private final double length;
+
+    /**
+     * Constructor: Create an instance of the object with the field perimeter as walls.
+     *
+     * @param width specifies the field width (x) in inches.
+     * @param length specifies the field length (y) in inches.
+     */
+    public SimFieldMap(double width, double length)
+    {
+        this.width = width;
+        this.length = length;
+        addBox(0.0, 0.0, width, length);
+    }   //SimFieldMap
+
+    /**
+     * This method creates an approximate map of the 2018 FIRST Power Up field. It has the perimeter, both switch
+     * fences and the scale platform. Field elements are modeled as boxes at bumper height, so details such as the
+     * exchange, portals and the cube pyramid are left out.
+     *
+     * @return Power Up field map.
+     */
+    public static SimFieldMap createPowerUpField()
+    {
+        SimFieldMap field = new SimFieldMap(POWERUP_FIELD_WIDTH, POWERUP_FIELD_LENGTH);
+        double switchWidth = 153.5;
+        double switchDepth = 56.0;
+        double switchDistance = 140.0;
+        double platformWidth = 133.5;
+        double platformDepth = 46.25;
+
+        field.addBox((POWERUP_FIELD_WIDTH - switchWidth)/2.0, switchDistance, switchWidth, switchDepth);
+        field.addBox((POWERUP_FIELD_WIDTH - switchWidth)/2.0, POWERUP_FIELD_LENGTH - switchDistance - switchDepth,
+                     switchWidth, switchDepth);
+        field.addBox((POWERUP_FIELD_WIDTH - platformWidth)/2.0, (POWERUP_FIELD_LENGTH - platformDepth)/2.0,
+                     platformWidth, platformDepth);
+
+        return field;
+    }   //createPowerUpField
+
+    /**
+     * This method returns the field width.
+     *
+     * @return field width in inches.
+     */
+    public double getWidth()
+    {
+        return width;
+    }   //getWidth
+
+    /**
+     * This method returns the field length.
+     *
+     * @return field length in inches.
+     */
+    public double getLength()
+    {
+        return length;
+    }   //getLength
+
+    /**
+     * This method adds a wall segment to the map.
+     *
+     * @param x1 specifies the x coordinate of one end.
+     * @param y1 specifies the y coordinate of one end.
+     * @param x2 specifies the x coordinate of the other end.
+     * @param y2 specifies the y coordinate of the other end.
+     */
+    public void addWall(double x1, double y1, double x2, double y2)
+    {
+        walls.add(new double[] {x1, y1, x2, y2});
+    }   //addWall
+
+    /**
+     * This method adds an axis aligned rectangular obstacle to the map.
+     *
+     * @param x specifies the x coordinate of the corner closest to the origin.
+     * @param y specifies the y coordinate of the corner closest to the origin.
+     * @param width specifies the size in x.
+     * @param length specifies the size in y.
+     */
+    public void addBox(double x, double y, double width, double length)
+    {
+        addWall(x, y, x + width, y);
+        addWall(x + width, y, x + width, y + length);
+        addWall(x + width, y + length, x, y + length);
+        addWall(x, y + length, x, y);
+    }   //addBox
+
+    /**
+     * This method casts a ray from the given point and returns the distance to the nearest wall it hits.
+     *
+     * @param x specifies the x coordinate of the ray origin.
+     * @param y specifies the y coordinate of the ray origin.
+     * @param heading specifies the ray direction in degrees clockwise from the y axis.
+     * @param maxRange specifies the maximum range.
+     * @return distance to the nearest wall in inches, maxRange if nothing is hit within range.
+     */
+    public double getRange(double x, double y, double heading, double maxRange)
+    {
+        double dx = Math.sin(Math.toRadians(heading));
+        double dy = Math.cos(Math.toRadians(heading));
+        double range = maxRange;
+
+        for (double[] wall: walls)
+        {
+            double ex = wall[2] - wall[0];
+            double ey = wall[3] - wall[1];
+            double denominator = dx*ey - dy*ex;
+
+            if (denominator != 0.0)
+            {
+                double wx = wall[0] - x;
+                double wy = wall[1] - y;
+                //
+                // t is the distance along the ray, u is the fraction along the wall.
+                //
+                double t = (wx*ey - wy*ex)/denominator;
+                double u = (wx*dy - wy*dx)/denominator;
+
+                if (t >= 0.0 && t < range && u >= 0.0 && u <= 1.0)
+                {
+                    range = t;
+                }
+            }
+        }
+
+        return range;
+    }   //getRange
+
+}   //class SimFieldMap
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+import trclib.TrcDbgTrace;
+import trclib.TrcGyro;
+import trclib.TrcUtil;
+
+/**
+ * This class implements a simulated single axis gyro extending TrcGyro. It reads the true heading and turn rate
+ * from the simulated drive base and adds drift and random noise like a real gyro would.
+ */
+public class SimGyro extends TrcGyro
+{
+    private final DoubleSupplier headingSupplier;
+    private final DoubleSupplier turnRateSupplier;
+    private final Random random = new Random(0);
+    private double driftRate = 0.0;
+    private double noise = 0.0;
+    private double zeroOffset = 0.0;
+    private double zeroTime;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param headingSupplier specifies the method to call to get the true heading in degrees.
+     * @param turnRateSupplier specifies the method to call to get the true turn rate in degrees per second.
+     */
+    public SimGyro(final String instanceName, DoubleSupplier headingSupplier, DoubleSupplier turnRateSupplier)
+    {
+        super(instanceName, 1, GYRO_HAS_Z_AXIS, null);
+        this.headingSupplier = headingSupplier;
+        this.turnRateSupplier = turnRateSupplier;
+        this.zeroTime = TrcUtil.getCurrentTime();
+    }   //SimGyro
+
+    /**
+     * This method sets the error model of the gyro.
+     *
+     * @param driftRate specifies the heading drift in degrees per second.
+     * @param noise specifies the standard deviation of the noise in degrees.
+     * @param seed specifies the random seed so that runs are repeatable.
+     */
+    public synchronized void setErrorModel(double driftRate, double noise, long seed)
+    {
+        this.driftRate = driftRate;
+        this.noise = noise;
+        random.setSeed(seed);
+    }   //setErrorModel
+
+    //
+    // Implements TrcGyro abstract methods.
+    //
+
+    /**
+     * This method returns the raw data of the specified type for the x-axis which is not supported.
+     *
+     * @param dataType specifies the data type.
+     * @return throws UnsupportedOperation exception.
+     */
+    @Override
+    public SensorData<Double> getRawXData(DataType dataType)
+    {
+        throw new UnsupportedOperationException("Gyro does not support x-axis.");
+    }   //getRawXData
+
+    /**
+     * This method returns the raw data of the specified type for the y-axis which is not supported.
+     *
+     * @param dataType specifies the data type.
+     * @return throws UnsupportedOperation exception.
+     */
+    @Override
+    public SensorData<Double> getRawYData(DataType dataType)
+    {
+        throw new UnsupportedOperationException("Gyro does not support y-axis.");
+    }   //getRawYData
+
+    /**
+     * This method returns the raw data of the specified type for the z-axis.
+     *
+     * @param dataType specifies the data type.
+     * @return raw data of the specified type for the z-axis.
+     */
+    @Override
+    public synchronized SensorData<Double> getRawZData(DataType dataType)
+    {
+        final String funcName = "getRawZData";
+        double currTime = TrcUtil.getCurrentTime();
+        double value = 0.0;
+
+        if (dataType == DataType.ROTATION_RATE)
+        {
+            value = turnRateSupplier.getAsDouble() + driftRate + random.nextGaussian()*noise;
+        }
+        else if (dataType == DataType.HEADING)
+        {
+            value = headingSupplier.getAsDouble() - zeroOffset + driftRate*(currTime - zeroTime) +
+                    random.nextGaussian()*noise;
+        }
+        SensorData<Double> data = new SensorData<>(currTime, value);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API,
+                               "=(timestamp:%.3f,value:%f", data.timestamp, data.value);
+        }
+
+        return data;
+    }   //getRawZData
+
+    /**
+     * This method resets the heading of the z-axis to zero.
+     */
+    @Override
+    public synchronized void resetZIntegrator()
+    {
+        zeroOffset = headingSupplier.getAsDouble();
+        zeroTime = TrcUtil.getCurrentTime();
+        super.resetZIntegrator();
+    }   //resetZIntegrator
+
+}   //class SimGyro
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * This class emulates the registers of the Lidar Lite v3 so that TrcLidarLite can run on a SimSerialBusDevice.
+ * Only the registers used by TrcLidarLite are modeled: the command register latches a new measurement, the
+ * status register is never busy and the distance registers return the latched distance in centimeters.
+ */
+public class SimLidarLite implements SimSerialBusDevice.RegisterModel
+{
+    private static final int REG_ACQ_COMMAND            = 0x00;
+    private static final int REG_FULL_DELAY_HIGH        = 0x0f;
+    private static final int REG_FULL_DELAY_LOW         = 0x10;
+    private static final int MAX_DISTANCE_CM            = 4000;
+
+    private final DoubleSupplier distanceSupplier;
+    private int distanceCm = 0;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param distanceSupplier specifies the method to call to get the true distance in inches.
+     */
+    public SimLidarLite(DoubleSupplier distanceSupplier)
+    {
+        this.distanceSupplier = distanceSupplier;
+    }   //SimLidarLite
+
+    /**
+     * This method takes a new measurement.
+     */
+    private void acquire()
+    {
+        int distance = (int)Math.round(distanceSupplier.getAsDouble()*2.54);
+        distanceCm = Math.max(0, Math.min(distance, MAX_DISTANCE_CM));
+    }   //acquire
+
+    //
+    // Implements SimSerialBusDevice.RegisterModel interface.
+    //
+
+    /**
+     * This method is called to read registers from the device.
+     *
+     * @param address specifies the register address, -1 if no address is specified.
+     * @param length specifies the number of bytes to read.
+     * @return a byte array containing the data read.
+     */
+    @Override
+    public byte[] read(int address, int length)
+    {
+        //
+        // Unmodeled registers read as zero. Status always reads 0 which means the device is not busy.
+        //
+        byte[] data = new byte[length];
+
+        if (address == REG_FULL_DELAY_HIGH || address == REG_FULL_DELAY_LOW)
+        {
+            //
+            // TrcLidarLite reads both bytes starting at the high byte. Acquisition is instantaneous in simulation,
+            // so take a fresh measurement whenever the distance is read.
+            //
+            acquire();
+            byte[] distance = {(byte)(distanceCm >> 8), (byte)distanceCm};
+            for (int i = 0, reg = address - REG_FULL_DELAY_HIGH; i < length && reg < distance.length; i++, reg++)
+            {
+                data[i] = distance[reg];
+            }
+        }
+
+        return data;
+    }   //read
+
+    /**
+     * This method is called to write registers of the device.
+     *
+     * @param address specifies the register address, -1 if no address is specified.
+     * @param buffer specifies the buffer containing the data to be written.
+     * @param length specifies the number of bytes to write.
+     * @return number of bytes written.
+     */
+    @Override
+    public int write(int address, byte[] buffer, int length)
+    {
+        if (address == REG_ACQ_COMMAND)
+        {
+            acquire();
+        }
+
+        return length;
+    }   //write
+
+}   //class SimLidarLite
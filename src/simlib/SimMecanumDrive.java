@@ -0,0 +1,328 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+/**
+ * This class simulates a mecanum drive base. Each wheel is driven by its own gearbox. The model assumes the
+ * wheels do not slip, so the wheel speeds follow from the robot velocity with the same mixing TrcDriveBase uses:
+ *
+ *  LF = y + x + rot    RF = y - x - rot
+ *  LR = y - x + rot    RR = y + x - rot
+ *
+ * Wheel forces from the motor curves are mapped back to a robot force and torque through the transpose of that
+ * mixing. Strafing is less efficient than driving straight because of the rollers, which is covered by a strafe
+ * efficiency factor. Rolling resistance slows the robot down when the motors coast. The robot pose is integrated
+ * in field coordinates (see SimFieldMap) and the wheel encoders are updated every step.
+ */
+public class SimMecanumDrive implements SimMechanism
+{
+    private static final double METERS_PER_INCH = 0.0254;
+    private static final double KG_PER_LB = 0.45359237;
+    private static final double GRAVITY = 9.80665;
+    private static final double[] X_MIX = {1.0, -1.0, -1.0, 1.0};   // LF, RF, LR, RR
+    private static final double[] ROT_MIX = {1.0, -1.0, 1.0, -1.0};
+
+    private final String instanceName;
+    private final SimMotor[] motors;
+    private final SimDcMotor motorModel;
+    private final int motorsPerWheel;
+    private final double gearRatio;
+    private final double wheelRadius;
+    private final double countsPerRev;
+    private final double mass;
+    private final double momentOfInertia;
+    private final double rotationArm;
+    private final double[] wheelPositions = new double[4];
+    private final double[] wheelSpeeds = new double[4];
+    private final double[] wheelForces = new double[4];
+    private double efficiency = 0.85;
+    private double strafeEfficiency = 0.7;
+    private double rollingResistance = 0.05;
+    private SimFieldMap fieldMap = null;
+    //
+    // Robot state: field pose and robot relative velocities in SI units.
+    //
+    private double xPos = 0.0;
+    private double yPos = 0.0;
+    private double heading = 0.0;
+    private double xVel = 0.0;
+    private double yVel = 0.0;
+    private double turnRate = 0.0;
+    private double current = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param leftFrontMotor specifies the left front motor controller.
+     * @param rightFrontMotor specifies the right front motor controller.
+     * @param leftRearMotor specifies the left rear motor controller.
+     * @param rightRearMotor specifies the right rear motor controller.
+     * @param motorModel specifies the motor type.
+     * @param motorsPerWheel specifies the number of motors in each wheel gearbox.
+     * @param gearRatio specifies the gearbox reduction (motor turns per wheel turn).
+     * @param wheelDiameter specifies the wheel diameter in inches.
+     * @param countsPerRev specifies the encoder counts per wheel revolution.
+     * @param trackWidth specifies the distance between the left and right wheels in inches.
+     * @param wheelBase specifies the distance between the front and rear wheels in inches.
+     * @param robotMass specifies the robot mass including battery and bumpers in pounds.
+     */
+    public SimMecanumDrive(
+            final String instanceName, SimMotor leftFrontMotor, SimMotor rightFrontMotor, SimMotor leftRearMotor,
+            SimMotor rightRearMotor, SimDcMotor motorModel, int motorsPerWheel, double gearRatio,
+            double wheelDiameter, double countsPerRev, double trackWidth, double wheelBase, double robotMass)
+    {
+        this.instanceName = instanceName;
+        this.motors = new SimMotor[] {leftFrontMotor, rightFrontMotor, leftRearMotor, rightRearMotor};
+        this.motorModel = motorModel;
+        this.motorsPerWheel = motorsPerWheel;
+        this.gearRatio = gearRatio;
+        this.wheelRadius = wheelDiameter*METERS_PER_INCH/2.0;
+        this.countsPerRev = countsPerRev;
+        this.mass = robotMass*KG_PER_LB;
+        double width = trackWidth*METERS_PER_INCH;
+        double length = wheelBase*METERS_PER_INCH;
+        this.momentOfInertia = mass*(width*width + length*length)/12.0;
+        this.rotationArm = (width + length)/2.0;
+        updateSensors();
+    }   //SimMecanumDrive
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the losses of the drive base.
+     *
+     * @param efficiency specifies the gearbox efficiency between 0.0 and 1.0.
+     * @param strafeEfficiency specifies the additional efficiency of sideway motion between 0.0 and 1.0.
+     * @param rollingResistance specifies the rolling resistance coefficient.
+     */
+    public void setLosses(double efficiency, double strafeEfficiency, double rollingResistance)
+    {
+        this.efficiency = efficiency;
+        this.strafeEfficiency = strafeEfficiency;
+        this.rollingResistance = rollingResistance;
+    }   //setLosses
+
+    /**
+     * This method sets the field map. If set, the robot center is kept inside the field perimeter.
+     *
+     * @param fieldMap specifies the field map, null if none.
+     */
+    public void setFieldMap(SimFieldMap fieldMap)
+    {
+        this.fieldMap = fieldMap;
+    }   //setFieldMap
+
+    /**
+     * This method sets the robot pose and stops the robot.
+     *
+     * @param x specifies the x position in field coordinates in inches.
+     * @param y specifies the y position in field coordinates in inches.
+     * @param heading specifies the heading in degrees clockwise from the y axis.
+     */
+    public synchronized void setPose(double x, double y, double heading)
+    {
+        xPos = x*METERS_PER_INCH;
+        yPos = y*METERS_PER_INCH;
+        this.heading = Math.toRadians(heading);
+        xVel = yVel = turnRate = 0.0;
+        updateSensors();
+    }   //setPose
+
+    /**
+     * This method returns the x position of the robot center in field coordinates.
+     *
+     * @return x position in inches.
+     */
+    public synchronized double getXPosition()
+    {
+        return xPos/METERS_PER_INCH;
+    }   //getXPosition
+
+    /**
+     * This method returns the y position of the robot center in field coordinates.
+     *
+     * @return y position in inches.
+     */
+    public synchronized double getYPosition()
+    {
+        return yPos/METERS_PER_INCH;
+    }   //getYPosition
+
+    /**
+     * This method returns the true heading of the robot.
+     *
+     * @return heading in degrees clockwise from the y axis.
+     */
+    public synchronized double getHeading()
+    {
+        return Math.toDegrees(heading);
+    }   //getHeading
+
+    /**
+     * This method returns the true turn rate of the robot.
+     *
+     * @return turn rate in degrees per second, positive clockwise.
+     */
+    public synchronized double getTurnRate()
+    {
+        return Math.toDegrees(turnRate);
+    }   //getTurnRate
+
+    /**
+     * This method returns the speed of the robot.
+     *
+     * @return speed in inches per second.
+     */
+    public synchronized double getSpeed()
+    {
+        return Math.sqrt(xVel*xVel + yVel*yVel)/METERS_PER_INCH;
+    }   //getSpeed
+
+    /**
+     * This method updates the wheel speeds from the robot velocity and the encoders from the wheel positions.
+     */
+    private void updateSensors()
+    {
+        double countsPerMeter = countsPerRev/(2.0*Math.PI*wheelRadius);
+
+        for (int i = 0; i < motors.length; i++)
+        {
+            wheelSpeeds[i] = yVel + X_MIX[i]*xVel + ROT_MIX[i]*rotationArm*turnRate;
+            motors[i].setSensorState(wheelPositions[i]*countsPerMeter, wheelSpeeds[i]*countsPerMeter);
+        }
+    }   //updateSensors
+
+    /**
+     * This method returns the rolling resistance force opposing the given velocity. It is smoothed around zero
+     * so that a stopped robot does not chatter.
+     *
+     * @param velocity specifies the velocity.
+     * @return rolling resistance force.
+     */
+    private double getRollingResistance(double velocity)
+    {
+        return -rollingResistance*mass*GRAVITY*Math.tanh(velocity/0.02);
+    }   //getRollingResistance
+
+    //
+    // Implements SimMechanism interface.
+    //
+
+    /**
+     * This method advances the drive base by one physics step.
+     *
+     * @param dt specifies the step size in seconds.
+     * @param batteryVoltage specifies the battery voltage in volts.
+     */
+    @Override
+    public synchronized void update(double dt, double batteryVoltage)
+    {
+        double xForce = 0.0, yForce = 0.0, torque = 0.0;
+        double damping = 0.0;
+
+        current = 0.0;
+        for (int i = 0; i < motors.length; i++)
+        {
+            double output = motors[i].getMotorOutput();
+
+            wheelForces[i] = 0.0;
+            if (output != 0.0 || motors[i].isBrakeModeEnabled())
+            {
+                double voltage = output*batteryVoltage;
+                double motorSpeed = wheelSpeeds[i]/wheelRadius*gearRatio;
+
+                wheelForces[i] =
+                    motorsPerWheel*motorModel.getTorque(voltage, motorSpeed)*gearRatio/wheelRadius*efficiency;
+                damping += motorsPerWheel*motorModel.getDamping()*gearRatio*gearRatio/(wheelRadius*wheelRadius)*
+                           efficiency;
+                current += Math.max(motorsPerWheel*motorModel.getCurrent(voltage, motorSpeed)*output, 0.0);
+            }
+
+            yForce += wheelForces[i];
+            xForce += X_MIX[i]*wheelForces[i];
+            torque += ROT_MIX[i]*rotationArm*wheelForces[i];
+        }
+
+        xForce = xForce*strafeEfficiency + getRollingResistance(xVel);
+        yForce += getRollingResistance(yVel);
+        torque += getRollingResistance(turnRate*rotationArm)*rotationArm;
+        //
+        // The back EMF damping is stiff, so its direct part is integrated implicitly. With all wheels driven, the
+        // damping of the three motions is decoupled and sums the damping of the driven wheels.
+        //
+        double xDamping = damping*strafeEfficiency;
+        double rotDamping = damping*rotationArm*rotationArm;
+        xVel = (xVel + (xForce + xDamping*xVel)/mass*dt)/(1.0 + xDamping/mass*dt);
+        yVel = (yVel + (yForce + damping*yVel)/mass*dt)/(1.0 + damping/mass*dt);
+        turnRate = (turnRate + (torque + rotDamping*turnRate)/momentOfInertia*dt)/
+                   (1.0 + rotDamping/momentOfInertia*dt);
+        //
+        // Convert robot relative velocity to field velocity. Heading is clockwise from the field y axis.
+        //
+        double sinA = Math.sin(heading);
+        double cosA = Math.cos(heading);
+        xPos += (xVel*cosA + yVel*sinA)*dt;
+        yPos += (-xVel*sinA + yVel*cosA)*dt;
+        heading += turnRate*dt;
+
+        if (fieldMap != null)
+        {
+            double maxX = fieldMap.getWidth()*METERS_PER_INCH;
+            double maxY = fieldMap.getLength()*METERS_PER_INCH;
+
+            if (xPos < 0.0 || xPos > maxX || yPos < 0.0 || yPos > maxY)
+            {
+                xPos = Math.max(0.0, Math.min(xPos, maxX));
+                yPos = Math.max(0.0, Math.min(yPos, maxY));
+                xVel = yVel = 0.0;
+            }
+        }
+
+        for (int i = 0; i < motors.length; i++)
+        {
+            wheelPositions[i] += (yVel + X_MIX[i]*xVel + ROT_MIX[i]*rotationArm*turnRate)*dt;
+        }
+        updateSensors();
+    }   //update
+
+    /**
+     * This method returns the current drawn by the drive motors during the last step.
+     *
+     * @return current in amps.
+     */
+    @Override
+    public synchronized double getCurrent()
+    {
+        return current;
+    }   //getCurrent
+
+}   //class SimMecanumDrive
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+/**
+ * This interface is implemented by every simulated mechanism. The simulation calls update once per physics step
+ * with the battery voltage at the start of the step. The mechanism reads the outputs of its motors, integrates its
+ * dynamics and updates the sensors attached to it.
+ */
+public interface SimMechanism
+{
+    /**
+     * This method advances the mechanism by one physics step.
+     *
+     * @param dt specifies the step size in seconds.
+     * @param batteryVoltage specifies the battery voltage in volts.
+     */
+    void update(double dt, double batteryVoltage);
+
+    /**
+     * This method returns the current drawn by the mechanism during the last step.
+     *
+     * @return current in amps.
+     */
+    double getCurrent();
+
+}   //interface SimMechanism
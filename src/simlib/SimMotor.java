@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import trclib.TrcDbgTrace;
+import trclib.TrcMotor;
+import trclib.TrcUtil;
+
+/**
+ * This class implements a simulated motor controller. It behaves like a CAN motor controller with an attached
+ * encoder: it remembers the power set by the robot code, applies soft and hardware limit switches and reports the
+ * position and speed of the mechanism it drives. It has no physics of its own. A mechanism model reads the output
+ * with getMotorOutput, integrates its dynamics and writes back the sensor state with setSensorState. Like a
+ * Talon, inverting the motor inverts both the output and the sensor so that positive power always reads as
+ * positive motion, and inverting the position sensor only corrects the sensor phase.
+ */
+public class SimMotor extends TrcMotor
+{
+    private double power = 0.0;
+    private boolean inverted = false;
+    private boolean sensorInverted = false;
+    private boolean brakeModeEnabled = true;
+    private boolean softLowerLimitEnabled = false;
+    private boolean softUpperLimitEnabled = false;
+    private double softLowerLimit = 0.0;
+    private double softUpperLimit = 0.0;
+    private boolean lowerLimitSwitchActive = false;
+    private boolean upperLimitSwitchActive = false;
+    private double sensorPosition = 0.0;
+    private double sensorSpeed = 0.0;
+    private double zeroPosition = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public SimMotor(final String instanceName)
+    {
+        super(instanceName);
+    }   //SimMotor
+
+    /**
+     * This method returns the output of the motor controller as seen by the mechanism, after inversion and limit
+     * switches.
+     *
+     * @return output as a fraction of battery voltage in the range of -1.0 to 1.0.
+     */
+    public synchronized double getMotorOutput()
+    {
+        double output = power;
+
+        if (output < 0.0 && lowerLimitSwitchActive || output > 0.0 && upperLimitSwitchActive)
+        {
+            output = 0.0;
+        }
+
+        return inverted? -output: output;
+    }   //getMotorOutput
+
+    /**
+     * This method checks if the motor is in brake mode. In brake mode, the motor leads are shorted when the output
+     * is zero, so the back EMF produces a braking torque. In coast mode, no current flows when the output is zero.
+     *
+     * @return true if brake mode is enabled, false otherwise.
+     */
+    public synchronized boolean isBrakeModeEnabled()
+    {
+        return brakeModeEnabled;
+    }   //isBrakeModeEnabled
+
+    /**
+     * This method is called by the mechanism model to update the encoder reading.
+     *
+     * @param position specifies the mechanism position in sensor units, positive in the direction of positive
+     *                 motor output.
+     * @param speed specifies the mechanism speed in sensor units per second.
+     */
+    public synchronized void setSensorState(double position, double speed)
+    {
+        double sign = (inverted? -1.0: 1.0)*(sensorInverted? -1.0: 1.0);
+
+        sensorPosition = sign*position;
+        sensorSpeed = sign*speed;
+    }   //setSensorState
+
+    /**
+     * This method is called by the mechanism model to update the limit switch states. The lower limit switch
+     * stops negative power and the upper limit switch stops positive power.
+     *
+     * @param lowerActive specifies true if the lower limit switch is active.
+     * @param upperActive specifies true if the upper limit switch is active.
+     */
+    public synchronized void setLimitSwitchStates(boolean lowerActive, boolean upperActive)
+    {
+        lowerLimitSwitchActive = lowerActive;
+        upperLimitSwitchActive = upperActive;
+    }   //setLimitSwitchStates
+
+    //
+    // Implements TrcMotorController interface.
+    //
+
+    /**
+     * This method returns the state of the motor controller direction.
+     *
+     * @return true if the motor direction is inverted, false otherwise.
+     */
+    @Override
+    public synchronized boolean getInverted()
+    {
+        return inverted;
+    }   //getInverted
+
+    /**
+     * This method returns the motor position by reading the simulated encoder.
+     *
+     * @return current motor position in sensor units.
+     */
+    @Override
+    public synchronized double getPosition()
+    {
+        final String funcName = "getPosition";
+        double pos = recordInput(RecordedData.POSITION, sensorPosition - zeroPosition);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", pos);
+        }
+
+        return pos;
+    }   //getPosition
+
+    /**
+     * This method gets the last set power.
+     *
+     * @return the last setPower value.
+     */
+    @Override
+    public synchronized double getPower()
+    {
+        return recordInput(RecordedData.POWER, power);
+    }   //getPower
+
+    /**
+     * This method returns the speed of the motor from the simulated encoder.
+     *
+     * @return motor speed in sensor units per second.
+     */
+    @Override
+    public synchronized double getSpeed()
+    {
+        return recordInput(RecordedData.SPEED, sensorSpeed);
+    }   //getSpeed
+
+    /**
+     * This method returns the state of the lower limit switch.
+     *
+     * @return true if lower limit switch is active, false otherwise.
+     */
+    @Override
+    public synchronized boolean isLowerLimitSwitchActive()
+    {
+        return recordInput(RecordedData.LOWER_LIMIT_SWITCH, lowerLimitSwitchActive);
+    }   //isLowerLimitSwitchActive
+
+    /**
+     * This method returns the state of the upper limit switch.
+     *
+     * @return true if upper limit switch is active, false otherwise.
+     */
+    @Override
+    public synchronized boolean isUpperLimitSwitchActive()
+    {
+        return recordInput(RecordedData.UPPER_LIMIT_SWITCH, upperLimitSwitchActive);
+    }   //isUpperLimitSwitchActive
+
+    /**
+     * This method resets the motor position sensor.
+     *
+     * @param hardware specifies true for resetting hardware position, false for resetting software position. Both
+     *                 are the same in simulation.
+     */
+    @Override
+    public synchronized void resetPosition(boolean hardware)
+    {
+        zeroPosition = sensorPosition;
+    }   //resetPosition
+
+    /**
+     * This method enables/disables motor brake mode.
+     *
+     * @param enabled specifies true to enable brake mode, false otherwise.
+     */
+    @Override
+    public synchronized void setBrakeModeEnabled(boolean enabled)
+    {
+        brakeModeEnabled = enabled;
+    }   //setBrakeModeEnabled
+
+    /**
+     * This method inverts the motor direction and the sensor with it.
+     *
+     * @param inverted specifies true to invert motor direction, false otherwise.
+     */
+    @Override
+    public synchronized void setInverted(boolean inverted)
+    {
+        if (this.inverted != inverted)
+        {
+            //
+            // Keep the reported position continuous when the sensor direction changes.
+            //
+            sensorPosition = -sensorPosition;
+            sensorSpeed = -sensorSpeed;
+            zeroPosition = -zeroPosition;
+            this.inverted = inverted;
+        }
+    }   //setInverted
+
+    /**
+     * This method inverts the position sensor direction.
+     *
+     * @param inverted specifies true to invert position sensor direction, false otherwise.
+     */
+    @Override
+    public synchronized void setPositionSensorInverted(boolean inverted)
+    {
+        if (sensorInverted != inverted)
+        {
+            sensorPosition = -sensorPosition;
+            sensorSpeed = -sensorSpeed;
+            zeroPosition = -zeroPosition;
+            sensorInverted = inverted;
+        }
+    }   //setPositionSensorInverted
+
+    /**
+     * This method sets the output power of the motor controller.
+     *
+     * @param power specifies the output power for the motor controller in the range of -1.0 to 1.0.
+     */
+    @Override
+    public synchronized void setPower(double power)
+    {
+        final String funcName = "setPower";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "power=%f", power);
+        }
+
+        if (softLowerLimitEnabled && power < 0.0 && getPosition() <= softLowerLimit ||
+            softUpperLimitEnabled && power > 0.0 && getPosition() >= softUpperLimit)
+        {
+            power = 0.0;
+        }
+        recordOutput(RecordedData.SET_POWER, power);
+        this.power = TrcUtil.clipRange(power);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //setPower
+
+    /**
+     * This method enables/disables soft limit switches.
+     *
+     * @param lowerLimitEnabled specifies true to enable lower soft limit switch, false otherwise.
+     * @param upperLimitEnabled specifies true to enable upper soft limit switch, false otherwise.
+     */
+    @Override
+    public synchronized void setSoftLimitEnabled(boolean lowerLimitEnabled, boolean upperLimitEnabled)
+    {
+        softLowerLimitEnabled = lowerLimitEnabled;
+        softUpperLimitEnabled = upperLimitEnabled;
+    }   //setSoftLimitEnabled
+
+    /**
+     * This method sets the lower soft limit.
+     *
+     * @param position specifies the position of the lower limit.
+     */
+    @Override
+    public synchronized void setSoftLowerLimit(double position)
+    {
+        softLowerLimit = position;
+    }   //setSoftLowerLimit
+
+    /**
+     * This method sets the upper soft limit.
+     *
+     * @param position specifies the position of the upper limit.
+     */
+    @Override
+    public synchronized void setSoftUpperLimit(double position)
+    {
+        softUpperLimit = position;
+    }   //setSoftUpperLimit
+
+}   //class SimMotor
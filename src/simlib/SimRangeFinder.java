@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+/**
+ * This class simulates a range sensor (e.g. lidar or ultrasonic) mounted on the simulated drive base. The distance
+ * is obtained by casting a ray from the sensor position along the sensor direction against the walls of the field
+ * map. It can be used as the distance source of SimLidarLite or SimAnalogInput.
+ */
+public class SimRangeFinder
+{
+    private final SimMecanumDrive driveBase;
+    private final SimFieldMap fieldMap;
+    private final double xOffset;
+    private final double yOffset;
+    private final double angleOffset;
+    private final double maxRange;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param driveBase specifies the drive base the sensor is mounted on.
+     * @param fieldMap specifies the field map.
+     * @param xOffset specifies the sensor position to the right of the robot center in inches.
+     * @param yOffset specifies the sensor position in front of the robot center in inches.
+     * @param angleOffset specifies the sensor direction in degrees clockwise from the robot front.
+     * @param maxRange specifies the maximum range of the sensor in inches.
+     */
+    public SimRangeFinder(
+            SimMecanumDrive driveBase, SimFieldMap fieldMap, double xOffset, double yOffset, double angleOffset,
+            double maxRange)
+    {
+        this.driveBase = driveBase;
+        this.fieldMap = fieldMap;
+        this.xOffset = xOffset;
+        this.yOffset = yOffset;
+        this.angleOffset = angleOffset;
+        this.maxRange = maxRange;
+    }   //SimRangeFinder
+
+    /**
+     * This method returns the distance measured by the sensor.
+     *
+     * @return distance in inches, maxRange if nothing is in range.
+     */
+    public double getDistance()
+    {
+        double heading = driveBase.getHeading();
+        double angle = Math.toRadians(heading);
+        double sinA = Math.sin(angle);
+        double cosA = Math.cos(angle);
+        double x = driveBase.getXPosition() + xOffset*cosA + yOffset*sinA;
+        double y = driveBase.getYPosition() - xOffset*sinA + yOffset*cosA;
+
+        return fieldMap.getRange(x, y, heading + angleOffset, maxRange);
+    }   //getDistance
+
+}   //class SimRangeFinder
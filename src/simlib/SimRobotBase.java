@@ -0,0 +1,459 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.ArrayList;
+import java.util.function.BooleanSupplier;
+
+import trclib.TrcDataRecorder;
+import trclib.TrcDbgTrace;
+import trclib.TrcRobot;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class is the desktop counterpart of FrcRobotBase. It runs the same robot loop (start/stop tasks, continuous
+ * and periodic tasks and the robot mode callbacks) but on a simulated clock, stepping the physics of the registered
+ * mechanisms between loop iterations. It runs as fast as the host allows, so a full match can be simulated in a
+ * fraction of real time and, given the same inputs, every run produces the same result.
+ *
+ * The control loop thread (TrcControlLoop) must not be started in simulation. Control tasks are run synchronously
+ * by this loop at the physics rate instead.
+ *
+ * The loop marks its iterations for TrcDataRecorder, so a simulated run can be recorded, and it can replay a log
+ * recorded on the robot or in simulation through the same robot code.
+ */
+public abstract class SimRobotBase
+{
+    protected static final String moduleName = "SimRobotBase";
+    protected static final boolean debugEnabled = false;
+    protected static final boolean tracingEnabled = false;
+    protected static final boolean useGlobalTracer = false;
+    protected static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    protected static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    protected TrcDbgTrace dbgTrace = null;
+
+    public static final double DEF_PHYSICS_STEP = 0.005;
+    public static final double DEF_PERIODIC_INTERVAL = 0.02;
+
+    /**
+     * This method is called when the robot is first created. Subclasses create the simulated devices, the
+     * mechanisms and the robot modes here.
+     */
+    public abstract void robotInit();
+
+    /**
+     * This method is called to prepare the robot before a robot mode is about to start.
+     *
+     * @param runMode specifies the current run mode.
+     * @param prevMode specifies the previous run mode.
+     */
+    public abstract void robotStartMode(RunMode runMode, RunMode prevMode);
+
+    /**
+     * This method is called to prepare the robot right after a robot mode has been stopped.
+     *
+     * @param runMode specifies the current run mode.
+     * @param nextMode specifies the next run mode.
+     */
+    public abstract void robotStopMode(RunMode runMode, RunMode nextMode);
+
+    /**
+     * This method is called by replay() after robotInit() to restore the robot setup a log does not contain, such
+     * as the autonomous routine selected on the dashboard. The default does nothing.
+     */
+    protected void replayInit()
+    {
+    }   //replayInit
+
+    private final String instanceName;
+    private final TrcTaskMgr taskMgr;
+    private final SimClock clock;
+    private final SimRobotBattery battery;
+    private final ArrayList<SimMechanism> mechanisms = new ArrayList<>();
+    private double physicsStep = DEF_PHYSICS_STEP;
+    private double periodicInterval = DEF_PERIODIC_INTERVAL;
+    private TrcRobot.RobotMode teleOpMode = null;
+    private TrcRobot.RobotMode autoMode = null;
+    private TrcRobot.RobotMode testMode = null;
+    private TrcRobot.RobotMode disabledMode = null;
+    private final TrcDataRecorder.Channel modeTimeChannel;
+    private RunMode currMode = RunMode.INVALID_MODE;
+    private double modeStartTime = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object. It creates the task manager and installs the simulated clock,
+     * so it must be called before any trclib object is created. The thread calling the constructor becomes the
+     * thread that drives the simulated clock.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public SimRobotBase(final String instanceName)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        clock = new SimClock();
+        clock.install();
+        taskMgr = new TrcTaskMgr();
+        battery = new SimRobotBattery();
+        modeTimeChannel = TrcDataRecorder.getChannel(TrcDataRecorder.MODE_ELAPSED_TIME_CHANNEL, false);
+    }   //SimRobotBase
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the simulated clock.
+     *
+     * @return simulated clock.
+     */
+    public SimClock getClock()
+    {
+        return clock;
+    }   //getClock
+
+    /**
+     * This method returns the simulated battery.
+     *
+     * @return simulated battery.
+     */
+    public SimRobotBattery getBattery()
+    {
+        return battery;
+    }   //getBattery
+
+    /**
+     * This method returns the current run mode.
+     *
+     * @return current run mode.
+     */
+    public RunMode getCurrentRunMode()
+    {
+        return currMode;
+    }   //getCurrentRunMode
+
+    /**
+     * This method sets the physics step and the periodic interval of the robot loop.
+     *
+     * @param physicsStep specifies the physics step in seconds, this is also the continuous task interval.
+     * @param periodicInterval specifies the periodic task interval in seconds.
+     */
+    public void setTiming(double physicsStep, double periodicInterval)
+    {
+        if (physicsStep <= 0.0 || periodicInterval < physicsStep)
+        {
+            throw new IllegalArgumentException("Physics step must be positive and not longer than periodic interval.");
+        }
+
+        this.physicsStep = physicsStep;
+        this.periodicInterval = periodicInterval;
+    }   //setTiming
+
+    /**
+     * This method adds a mechanism to be stepped by the simulation loop.
+     *
+     * @param mechanism specifies the mechanism.
+     */
+    public void addMechanism(SimMechanism mechanism)
+    {
+        mechanisms.add(mechanism);
+    }   //addMechanism
+
+    /**
+     * This method sets the robot mode objects for the different run modes.
+     *
+     * @param teleOpMode specifies the TeleOp mode object.
+     * @param autoMode specifies the Autonomous mode object.
+     * @param testMode specifies the Test mode object.
+     * @param disabledMode specifies the Disabled mode object.
+     */
+    public void setupRobotModes(
+        TrcRobot.RobotMode teleOpMode, TrcRobot.RobotMode autoMode, TrcRobot.RobotMode testMode,
+        TrcRobot.RobotMode disabledMode)
+    {
+        this.teleOpMode = teleOpMode;
+        this.autoMode = autoMode;
+        this.testMode = testMode;
+        this.disabledMode = disabledMode;
+    }   //setupRobotModes
+
+    /**
+     * This method returns the robot mode object of the given run mode.
+     *
+     * @param runMode specifies the run mode.
+     * @return robot mode object, null if none.
+     */
+    private TrcRobot.RobotMode getRobotMode(RunMode runMode)
+    {
+        switch (runMode)
+        {
+            case TELEOP_MODE:
+                return teleOpMode;
+
+            case AUTO_MODE:
+                return autoMode;
+
+            case TEST_MODE:
+                return testMode;
+
+            case DISABLED_MODE:
+                return disabledMode;
+
+            default:
+                return null;
+        }
+    }   //getRobotMode
+
+    /**
+     * This method switches the robot to the given run mode. It stops the current mode and starts the new one
+     * the same way FrcRobotBase does on a mode transition.
+     *
+     * @param runMode specifies the new run mode.
+     */
+    private void switchMode(RunMode runMode)
+    {
+        final String funcName = "switchMode";
+        RunMode prevMode = currMode;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "*** Transitioning from %s to %s ***", prevMode, runMode);
+        }
+
+        if (prevMode != RunMode.INVALID_MODE)
+        {
+            TrcRobot.RobotMode prevRobotMode = getRobotMode(prevMode);
+
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.STOP_TASK, prevMode);
+            if (prevRobotMode != null)
+            {
+                prevRobotMode.stopMode(runMode);
+            }
+            robotStopMode(prevMode, runMode);
+        }
+
+        currMode = runMode;
+        modeStartTime = TrcDataRecorder.getUnrecordedTime();
+        TrcRobot.RobotMode robotMode = getRobotMode(runMode);
+        robotStartMode(runMode, prevMode);
+        if (robotMode != null)
+        {
+            robotMode.startMode(prevMode);
+        }
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.START_TASK, runMode);
+    }   //switchMode
+
+    /**
+     * This method advances the physics of all mechanisms by one step and then advances the simulated clock.
+     */
+    private void stepPhysics()
+    {
+        double current = 0.0;
+
+        for (SimMechanism mechanism: mechanisms)
+        {
+            current += mechanism.getCurrent();
+        }
+        battery.setCurrent(current);
+
+        double voltage = battery.getVoltage();
+        for (SimMechanism mechanism: mechanisms)
+        {
+            mechanism.update(physicsStep, voltage);
+        }
+
+        clock.advance(physicsStep);
+    }   //stepPhysics
+
+    /**
+     * This method runs one iteration of the robot loop in the current mode. The loop uses unrecorded time for its
+     * own bookkeeping so that a recording only contains the times read by the robot code.
+     *
+     * @param periodReady specifies true to run the periodic tasks in this iteration.
+     * @param runControlTasks specifies true to run the control tasks in this iteration.
+     */
+    private void runIteration(boolean periodReady, boolean runControlTasks)
+    {
+        TrcRobot.RobotMode robotMode = getRobotMode(currMode);
+        double modeElapsedTime = modeTimeChannel.input(TrcDataRecorder.getUnrecordedTime() - modeStartTime);
+
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, currMode);
+        if (periodReady)
+        {
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, currMode);
+        }
+
+        if (robotMode != null)
+        {
+            robotMode.runContinuous(modeElapsedTime);
+            if (periodReady)
+            {
+                robotMode.runPeriodic(modeElapsedTime);
+            }
+        }
+
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, currMode);
+        if (runControlTasks)
+        {
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.CONTROL_TASK, currMode);
+        }
+        if (periodReady)
+        {
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTPERIODIC_TASK, currMode);
+        }
+    }   //runIteration
+
+    /**
+     * This method runs the robot in the given mode until the specified duration has elapsed or the stop condition
+     * is met, whichever comes first. The mode is started if the robot is not already in it.
+     *
+     * @param runMode specifies the run mode.
+     * @param duration specifies the maximum duration in simulated seconds.
+     * @param stopCondition specifies the condition to stop early, can be null if none.
+     * @return simulated time spent in this call in seconds.
+     */
+    public double runMode(RunMode runMode, double duration, BooleanSupplier stopCondition)
+    {
+        boolean frameMarked = false;
+
+        if (runMode != currMode)
+        {
+            //
+            // The mode transition belongs to the first loop iteration of the new mode.
+            //
+            TrcDataRecorder.markFrame(runMode);
+            frameMarked = true;
+            switchMode(runMode);
+        }
+
+        double startTime = TrcDataRecorder.getUnrecordedTime();
+        double endTime = startTime + duration;
+        double nextPeriodTime = startTime;
+        double currTime;
+
+        while ((currTime = TrcDataRecorder.getUnrecordedTime()) < endTime &&
+               (stopCondition == null || !stopCondition.getAsBoolean()))
+        {
+            boolean periodReady = currTime >= nextPeriodTime;
+
+            if (!frameMarked)
+            {
+                TrcDataRecorder.markFrame(runMode);
+            }
+            frameMarked = false;
+
+            if (periodReady)
+            {
+                nextPeriodTime += periodicInterval;
+                TrcDataRecorder.markPeriodic();
+            }
+
+            runIteration(periodReady, true);
+            stepPhysics();
+        }
+
+        return TrcDataRecorder.getUnrecordedTime() - startTime;
+    }   //runMode
+
+    /**
+     * This method runs the robot in the given mode for the specified duration.
+     *
+     * @param runMode specifies the run mode.
+     * @param duration specifies the duration in simulated seconds.
+     */
+    public void runMode(RunMode runMode, double duration)
+    {
+        runMode(runMode, duration, null);
+    }   //runMode
+
+    /**
+     * This method replays a match log through the robot code. It initializes the robot, then runs one robot loop
+     * iteration for every recorded iteration, switching modes as recorded, while TrcDataRecorder feeds the
+     * recorded sensor values, driver inputs and times back to the robot code and compares the motor outputs with
+     * the recorded ones. The robot must create its devices with the same instance names as the recorded robot and
+     * the robot must not have been initialized before this call.
+     *
+     * @param filePath specifies the log file path.
+     * @param runControlTasks specifies true to run the control tasks in the robot loop, i.e. the log was recorded
+     *                        in simulation. On the robot, the control tasks run on the control loop thread which is
+     *                        not recorded, so specify false for logs recorded on the robot.
+     * @return recorder holding the replay statistics, null if the log cannot be read.
+     */
+    public TrcDataRecorder replay(String filePath, boolean runControlTasks)
+    {
+        TrcDataRecorder recorder = null;
+
+        if (TrcDataRecorder.startReplay(filePath))
+        {
+            recorder = TrcDataRecorder.getInstance();
+            robotInit();
+            replayInit();
+
+            while (recorder.nextFrame())
+            {
+                RunMode frameMode = recorder.getFrameMode();
+
+                if (frameMode != currMode)
+                {
+                    switchMode(frameMode);
+                }
+
+                runIteration(recorder.isFramePeriodic(), runControlTasks);
+                clock.advance(physicsStep);
+            }
+
+            recorder.close();
+        }
+
+        return recorder;
+    }   //replay
+
+    /**
+     * This method stops the current run mode with one disabled loop iteration and releases the simulated clock.
+     */
+    public void shutdown()
+    {
+        if (currMode != RunMode.INVALID_MODE && currMode != RunMode.DISABLED_MODE)
+        {
+            //
+            // Stop the mode with one recorded disabled loop iteration, so that a replay stops the mode as well.
+            //
+            runMode(RunMode.DISABLED_MODE, physicsStep);
+        }
+        clock.uninstall();
+    }   //shutdown
+
+}   //class SimRobotBase
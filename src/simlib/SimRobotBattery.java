@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import trclib.TrcDbgTrace;
+import trclib.TrcRobotBattery;
+
+/**
+ * This class implements a simulated robot battery. The battery is modeled as an ideal voltage source with an
+ * internal resistance, which covers the battery, the main breaker and the wiring. The terminal voltage sags as the
+ * simulated mechanisms draw current, which in turn reduces the torque of the simulated motors.
+ */
+public class SimRobotBattery extends TrcRobotBattery
+{
+    public static final double DEF_OPEN_CIRCUIT_VOLTAGE = 12.8;
+    public static final double DEF_INTERNAL_RESISTANCE = 0.02;
+    public static final double DEF_MIN_VOLTAGE = 4.5;
+
+    private final double openCircuitVoltage;
+    private final double internalResistance;
+    private double current = 0.0;
+    private double voltage;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param openCircuitVoltage specifies the voltage with no load in volts.
+     * @param internalResistance specifies the total resistance of the battery and wiring in ohms.
+     */
+    public SimRobotBattery(double openCircuitVoltage, double internalResistance)
+    {
+        super(true, true, true);
+        this.openCircuitVoltage = openCircuitVoltage;
+        this.internalResistance = internalResistance;
+        this.voltage = openCircuitVoltage;
+    }   //SimRobotBattery
+
+    /**
+     * Constructor: Creates an instance of the object.
+     */
+    public SimRobotBattery()
+    {
+        this(DEF_OPEN_CIRCUIT_VOLTAGE, DEF_INTERNAL_RESISTANCE);
+    }   //SimRobotBattery
+
+    /**
+     * This method is called by the simulation to set the total current drawn from the battery. Regenerated current
+     * is not returned to the battery.
+     *
+     * @param current specifies the total current in amps.
+     */
+    public synchronized void setCurrent(double current)
+    {
+        this.current = Math.max(current, 0.0);
+        voltage = Math.max(openCircuitVoltage - this.current*internalResistance, DEF_MIN_VOLTAGE);
+    }   //setCurrent
+
+    //
+    // Implements TrcRobotBattery abstract methods.
+    //
+
+    /**
+     * This method returns the robot battery voltage.
+     *
+     * @return robot battery voltage in volts.
+     */
+    @Override
+    public synchronized double getVoltage()
+    {
+        final String funcName = "getVoltage";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", voltage);
+        }
+
+        return voltage;
+    }   //getVoltage
+
+    /**
+     * This method returns the robot battery current.
+     *
+     * @return robot battery current in amps.
+     */
+    @Override
+    public synchronized double getCurrent()
+    {
+        final String funcName = "getCurrent";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", current);
+        }
+
+        return current;
+    }   //getCurrent
+
+    /**
+     * This method returns the robot battery power.
+     *
+     * @return robot battery power in watts.
+     */
+    @Override
+    public synchronized double getPower()
+    {
+        final String funcName = "getPower";
+        double power = voltage*current;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", power);
+        }
+
+        return power;
+    }   //getPower
+
+}   //class SimRobotBattery
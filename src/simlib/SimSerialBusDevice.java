@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import java.util.Arrays;
+
+import trclib.TrcDbgTrace;
+import trclib.TrcSerialBusDevice;
+
+/**
+ * This class implements a simulated serial bus device extending TrcSerialBusDevice. Register reads and writes are
+ * forwarded to a register model that emulates the device, so device drivers such as TrcLidarLite run unmodified
+ * on top of it, including their asynchronous request queue.
+ */
+public class SimSerialBusDevice extends TrcSerialBusDevice
+{
+    /**
+     * This interface is implemented by a device model to emulate the registers of the device.
+     */
+    public interface RegisterModel
+    {
+        /**
+         * This method is called to read registers from the device.
+         *
+         * @param address specifies the register address, -1 if no address is specified.
+         * @param length specifies the number of bytes to read.
+         * @return a byte array containing the data read, null if the read failed.
+         */
+        byte[] read(int address, int length);
+
+        /**
+         * This method is called to write registers of the device.
+         *
+         * @param address specifies the register address, -1 if no address is specified.
+         * @param buffer specifies the buffer containing the data to be written.
+         * @param length specifies the number of bytes to write.
+         * @return number of bytes written.
+         */
+        int write(int address, byte[] buffer, int length);
+
+    }   //interface RegisterModel
+
+    private final RegisterModel model;
+
+    /**
+     * Constructor: Creates an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param model specifies the register model of the device.
+     */
+    public SimSerialBusDevice(final String instanceName, RegisterModel model)
+    {
+        super(instanceName);
+        this.model = model;
+    }   //SimSerialBusDevice
+
+    //
+    // Implements TrcSerialBusDevice abstract methods.
+    //
+
+    /**
+     * This method is called to read data from the device with the specified length.
+     *
+     * @param address specifies the register address to read from if any.
+     * @param length specifies the number of bytes to read.
+     * @return a byte array containing the data read.
+     */
+    @Override
+    public byte[] readData(int address, int length)
+    {
+        final String funcName = "readData";
+        byte[] buffer;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.CALLBK, "addr=%d,len=%d", address, length);
+        }
+
+        synchronized (model)
+        {
+            buffer = model.read(address, length);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.CALLBK, "=%s", Arrays.toString(buffer));
+        }
+
+        return buffer;
+    }   //readData
+
+    /**
+     * This method is called to write data to the device with the specified data buffer and length.
+     *
+     * @param address specifies the register address to write to if any.
+     * @param buffer specifies the buffer containing the data to be written to the device.
+     * @param length specifies the number of bytes to write.
+     * @return number of bytes written.
+     */
+    @Override
+    public int writeData(int address, byte[] buffer, int length)
+    {
+        final String funcName = "writeData";
+        int bytesWritten;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.CALLBK, "addr=%d,data=%s,len=%d",
+                address, Arrays.toString(buffer), length);
+        }
+
+        synchronized (model)
+        {
+            bytesWritten = model.write(address, buffer, length);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.CALLBK, "=%d", bytesWritten);
+        }
+
+        return bytesWritten;
+    }   //writeData
+
+}   //class SimSerialBusDevice
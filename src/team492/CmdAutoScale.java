@@ -22,7 +22,6 @@
 
 package team492;
 
-import frclib.FrcAnalogInput;
 import team492.RobotInfo.Position;
 import trclib.TrcAnalogInput;
 import trclib.TrcAnalogTrigger;
@@ -116,7 +115,7 @@ public class CmdAutoScale implements TrcRobot.RobotCommand
         else
             sm.start(State.DRIVE_TO_LANE);
 
-        FrcAnalogInput sonarSensor;
+        TrcAnalogInput sonarSensor;
         if (scaleRight && sameSide ||
             scaleRight && !sameSide && !lane3 ||
             !scaleRight && !sameSide && lane3)
@@ -83,6 +83,12 @@ public class CmdCubePickup implements TrcRobot.RobotCommand
         }
     }
 
+    @Override
+    public void cancel()
+    {
+        stop();
+    }
+
     @Override
     public boolean cmdPeriodic(double elapsedTime)
     {
@@ -103,6 +109,17 @@ public class CmdCubePickup implements TrcRobot.RobotCommand
                 switch (sm.getState())
                 {
                     case START:
+                        // Without a strafe correction, turn to the cube seen by the camera. The target heading is
+                        // latency compensated so a single turn lands on the cube.
+                        if (Robot.USE_PIXY_HEADING_COMPENSATION && xError == 0.0 &&
+                            robot.pixy != null && robot.pixy.isEnabled())
+                        {
+                            Double cubeHeading = robot.getPixyTargetHeading();
+                            if (cubeHeading != null)
+                            {
+                                robot.targetHeading = cubeHeading;
+                            }
+                        }
                         // Deploy and open cube pickup
                         robot.cubePickup.prepareForPickup();
                         robot.elevator.setPosition(RobotInfo.ELEVATOR_FLOOR_PICKUP_HEIGHT);
@@ -51,7 +51,7 @@ public class CmdExchangeAlign implements TrcRobot.RobotCommand
         
         proximitySensor = new FrcDigitalInput("LeftProximitySensor", RobotInfo.DIO_LEFT_PROXIMITY_SENSOR);
         proximitySensor.setInverted(true);
-        proximityTrigger = new TrcDigitalTrigger("ExchangeTrigger", proximitySensor, this::proximityTriggerEvent);
+        proximityTrigger = proximitySensor.createTrigger("ExchangeTrigger", this::proximityTriggerEvent);
         
         proximityEvent = new TrcEvent(moduleName + ".proximityEvent");
         pidEvent = new TrcEvent(moduleName + ".pidEvent");
@@ -103,6 +103,12 @@ public class CmdExchangeAlign implements TrcRobot.RobotCommand
         return sm.isEnabled();
     }
 
+    @Override
+    public void cancel()
+    {
+        stop();
+    }
+
     @Override
     public boolean cmdPeriodic(double elapsedTime)
     {
@@ -77,6 +77,12 @@ public class CmdStrafeUntilCube implements TrcRobot.RobotCommand
         }
     }
 
+    @Override
+    public void cancel()
+    {
+        stop();
+    }
+
     @Override
     public boolean cmdPeriodic(double elapsedTime)
     {
@@ -88,8 +88,7 @@ public class CubePickup
 
         cubeProximitySensor = new FrcDigitalInput("CubeProximitySensor", RobotInfo.DIO_CUBE_PROXIMITY_SENSOR);
         cubeProximitySensor.setInverted(true);
-        cubeProximityTrigger = new TrcDigitalTrigger(
-            "CubeProximityTrigger", cubeProximitySensor, this::cubeProximityEvent);
+        cubeProximityTrigger = cubeProximitySensor.createTrigger("CubeProximityTrigger", this::cubeProximityEvent);
 
         currentSensor = new TrcAnalogSensor("pickupCurrent", this::getPickupCurrent);
         currentTrigger = new TrcAnalogTrigger<TrcAnalogSensor.DataType>(
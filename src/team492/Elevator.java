@@ -35,10 +35,12 @@ public class Elevator
     public TrcPidController elevatorPidCtrl;
     public TrcPidActuator elevator;
 
+    private Robot robot;
     private double elevatorPower = 0.0;
 
     public Elevator(Robot robot)
     {
+        this.robot = robot;
         elevatorMotor = new FrcCANTalon("elevatorMotor", RobotInfo.CANID_ELEVATOR);
         robot.pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_ELEVATOR, "Elevator");
         elevatorMotor.configFwdLimitSwitchNormallyOpen(false);
@@ -56,6 +58,17 @@ public class Elevator
         elevator.setStallProtection(
             RobotInfo.ELEVATOR_STALL_MIN_POWER, RobotInfo.ELEVATOR_STALL_TIMEOUT,
             RobotInfo.ELEVATOR_STALL_RESET_TIMEOUT);
+        if (Robot.USE_VOLTAGE_COMPENSATION)
+        {
+            elevator.setVoltageCompensation(robot.battery, RobotInfo.BATTERY_NOMINAL_VOLTAGE);
+        }
+
+        if (Robot.USE_ELEVATOR_MOTION_PROFILE)
+        {
+            elevatorPidCtrl.setFeedForwardCoefficients(new TrcPidController.FeedForwardCoefficients(
+                RobotInfo.ELEVATOR_KS, RobotInfo.ELEVATOR_KV, RobotInfo.ELEVATOR_KA));
+            elevator.setMotionProfile(RobotInfo.ELEVATOR_MAX_VELOCITY, RobotInfo.ELEVATOR_MAX_ACCELERATION);
+        }
     }
 
     public void setManualOverride(boolean manualOverride)
@@ -111,7 +124,14 @@ public class Elevator
     public double getGravityCompensation()
     {
         // % of power needed to keep the elevator from sliding down,
-        // disregarding friction
-        return RobotInfo.ELEVATOR_GRAVITY_COMPENSATION;
+        // disregarding friction. Carrying a cube needs a little more.
+        double compensation = RobotInfo.ELEVATOR_GRAVITY_COMPENSATION;
+
+        if (robot.cubePickup != null && robot.cubePickup.cubeInProximity())
+        {
+            compensation += RobotInfo.ELEVATOR_CUBE_GRAVITY_COMPENSATION;
+        }
+
+        return compensation;
     }
 }
@@ -56,6 +56,11 @@ public class FrcDisabled implements TrcRobot.RobotMode
     {
         final String funcName = moduleName + ".startMode";
 
+        if (robot.warmup != null)
+        {
+            robot.warmup.start();
+        }
+
         switch (state)
         {
             case EXIT_RUN_MODE:
@@ -106,6 +111,11 @@ public class FrcDisabled implements TrcRobot.RobotMode
     @Override
     public void stopMode(RunMode nextMode)
     {
+        if (robot.warmup != null)
+        {
+            robot.warmup.cancel();
+        }
+
         switch (state)
         {
             case ENTER_RUN_MODE:
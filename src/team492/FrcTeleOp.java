@@ -91,48 +91,55 @@ public class FrcTeleOp implements TrcRobot.RobotMode
         if (!isAutoAssistEnabled())
         {
             //
-            // DriveBase operation.
+            // DriveBase operation. PID drive owns the drive base while it is active and may be running on the
+            // control loop thread, so only drive manually under its lock and while it is idle.
             //
-            switch (driveMode)
+            synchronized (robot.pidDrive)
             {
-                case TANK_MODE:
-                    double leftPower = leftDriveY;
-                    double rightPower = rightDriveY;
-                    if (slowDriveOverride)
-                    {
-                        leftPower /= RobotInfo.DRIVE_SLOW_YSCALE;
-                        rightPower /= RobotInfo.DRIVE_SLOW_YSCALE;
-                    }
-                    robot.driveBase.tankDrive(leftPower, rightPower, driveInverted);
-                    break;
-
-                case ARCADE_MODE:
-                    double drivePower = rightDriveY;
-                    double turnPower = robot.rightDriveStick.getTwistWithDeadband(true);
-                    if (slowDriveOverride)
-                    {
-                        drivePower /= RobotInfo.DRIVE_SLOW_YSCALE;
-                        turnPower /= RobotInfo.DRIVE_SLOW_TURNSCALE;
-                    }
-                    robot.driveBase.arcadeDrive(drivePower, turnPower, driveInverted);
-                    break;
-
-                case MECANUM_MODE:
-                    double x = leftDriveX;
-                    double y = rightDriveY;
-                    double rot = robot.rightDriveStick.getTwistWithDeadband(true);
-                    if (slowDriveOverride)
+                if (!robot.pidDrive.isActive())
+                {
+                    switch (driveMode)
                     {
-                        x /= RobotInfo.DRIVE_SLOW_XSCALE;
-                        y /= RobotInfo.DRIVE_SLOW_YSCALE;
-                        rot /= RobotInfo.DRIVE_SLOW_TURNSCALE;
-                    }
+                        case TANK_MODE:
+                            double leftPower = leftDriveY;
+                            double rightPower = rightDriveY;
+                            if (slowDriveOverride)
+                            {
+                                leftPower /= RobotInfo.DRIVE_SLOW_YSCALE;
+                                rightPower /= RobotInfo.DRIVE_SLOW_YSCALE;
+                            }
+                            robot.driveBase.tankDrive(leftPower, rightPower, driveInverted);
+                            break;
+
+                        case ARCADE_MODE:
+                            double drivePower = rightDriveY;
+                            double turnPower = robot.rightDriveStick.getTwistWithDeadband(true);
+                            if (slowDriveOverride)
+                            {
+                                drivePower /= RobotInfo.DRIVE_SLOW_YSCALE;
+                                turnPower /= RobotInfo.DRIVE_SLOW_TURNSCALE;
+                            }
+                            robot.driveBase.arcadeDrive(drivePower, turnPower, driveInverted);
+                            break;
+
+                        case MECANUM_MODE:
+                            double x = leftDriveX;
+                            double y = rightDriveY;
+                            double rot = robot.rightDriveStick.getTwistWithDeadband(true);
+                            if (slowDriveOverride)
+                            {
+                                x /= RobotInfo.DRIVE_SLOW_XSCALE;
+                                y /= RobotInfo.DRIVE_SLOW_YSCALE;
+                                rot /= RobotInfo.DRIVE_SLOW_TURNSCALE;
+                            }
 //                    double xForceOz = x * RobotInfo.MAX_WHEEL_FORCE_OZ;
 //                    double yForceOz = y * RobotInfo.MAX_WHEEL_FORCE_OZ;
-                    robot.driveBase.mecanumDrive_Cartesian(x, y, rot, driveInverted);
+                            robot.driveBase.mecanumDrive_Cartesian(x, y, rot, driveInverted);
 //                    HalDashboard.putNumber("xForceOz", xForceOz);
 //                    HalDashboard.putNumber("yForceOz", yForceOz);
-                    break;
+                            break;
+                    }
+                }
             }
 
             double elevatorPower = robot.operatorStick.getYWithDeadband(true);
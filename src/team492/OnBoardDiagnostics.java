@@ -34,6 +34,11 @@ public class OnBoardDiagnostics
     private static final double ELEVATOR_EXPECTED_ENCODER_CHANGE_INCHES = 1.0;
     private static final double ELEVATOR_POSITION_CHANGE_THRESHOLD_INCHES = 2.0;
     private static final double GRABBER_EXPECTED_CURRENT_CHANGE = 6.0; // 6A
+    // Refresh intervals: state change tests run on every call outside the loop budget so they don't miss a
+    // transition, value change tests need time for the value to move, status checks rarely change.
+    private static final double STATE_CHANGE_REFRESH_INTERVAL = 0.0;
+    private static final double VALUE_CHANGE_REFRESH_INTERVAL = 0.5;
+    private static final double STATUS_REFRESH_INTERVAL = 1.0;
     private static final String errMsgAnalogValueChange =
         "Value did not change enough, could be defective or disconnected.";
     private static final String errMsgDigitalStateChange =
@@ -41,6 +46,7 @@ public class OnBoardDiagnostics
 
     private Robot robot;
     private TrcDiagnostics<Subsystem> testCollection = new TrcDiagnostics<>();
+    private boolean groupStatusChanged = false;
 
     public OnBoardDiagnostics(Robot robot)
     {
@@ -138,21 +144,49 @@ public class OnBoardDiagnostics
             "rightGrabber", Subsystem.GRABBER, () -> robot.cubePickup.getPickupPower() != 0.0, false,
             robot.cubePickup.slaveMotor.motor::getOutputCurrent,
             GRABBER_EXPECTED_CURRENT_CHANGE, errMsgAnalogValueChange, null));
+
+        testCollection.setDefaultRefreshInterval(STATUS_REFRESH_INTERVAL);
+        for (Test<Subsystem> test: testCollection)
+        {
+            if (test instanceof TrcTestDigitalSensorStateChange || test instanceof TestActuatorLimitSwitchStuck)
+            {
+                test.setRefreshInterval(STATE_CHANGE_REFRESH_INTERVAL);
+            }
+            else if (test instanceof TrcTestAnalogSensorValueChange)
+            {
+                test.setRefreshInterval(VALUE_CHANGE_REFRESH_INTERVAL);
+            }
+        }
+        testCollection.setStatusChangeHandler(this::testStatusChanged);
     }
 
+    /**
+     * Runs the diagnostics tests that are due within the per loop time budget and publishes the results that
+     * have changed to the dashboard.
+     */
     public void updateDiagnosticsAndDashboard()
     {
-        testCollection.runAllTests();
+        testCollection.runTests(RobotInfo.DIAGNOSTICS_LOOP_BUDGET);
 
-        for (Test<Subsystem> test: testCollection)
+        if (groupStatusChanged)
         {
-            HalDashboard.putBoolean("Diagnostics/" + test.getTestName(), test.hasPassed());
+            groupStatusChanged = false;
+            Map<Subsystem, Boolean> subsystemResults = testCollection.getTestGroupResults();
+            for(Map.Entry<Subsystem, Boolean> entry: subsystemResults.entrySet())
+            {
+                HalDashboard.putBoolean("Test/" + entry.getKey().name(), entry.getValue());
+            }
         }
+    }
+
+    private void testStatusChanged(Test<Subsystem> test)
+    {
+        HalDashboard.putBoolean("Diagnostics/" + test.getTestName(), test.hasPassed());
+        groupStatusChanged = true;
 
-        Map<Subsystem, Boolean> subsystemResults = testCollection.getTestGroupResults();
-        for(Map.Entry<Subsystem, Boolean> entry: subsystemResults.entrySet())
+        if (!test.hasPassed())
         {
-            HalDashboard.putBoolean("Test/" + entry.getKey().name(), entry.getValue());
+            robot.globalTracer.traceWarn(moduleName, "%s: %s", test.getTestName(), test.getTestError());
         }
     }
 
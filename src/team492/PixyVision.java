@@ -45,19 +45,25 @@ public class PixyVision
         public double xDistance;
         public double yDistance;
         public double angle;
+        // Estimated time the frame was captured and the field heading of the target at that time.
+        public double timestamp;
+        public double heading;
 
-        public TargetInfo(Rect rect, double xDistance, double yDistance, double angle)
+        public TargetInfo(Rect rect, double xDistance, double yDistance, double angle, double timestamp,
+            double heading)
         {
             this.rect = rect;
             this.xDistance = xDistance;
             this.yDistance = yDistance;
             this.angle = angle;
+            this.timestamp = timestamp;
+            this.heading = heading;
         }   //TargetInfo
 
         public String toString()
         {
-            return String.format("Rect[%d,%d,%d,%d], xDistance=%.1f, yDistance=%.1f, angle=%.1f",
-                rect.x, rect.y, rect.width, rect.height, xDistance, yDistance, angle);
+            return String.format("Rect[%d,%d,%d,%d], xDistance=%.1f, yDistance=%.1f, angle=%.1f, heading=%.1f",
+                rect.x, rect.y, rect.width, rect.height, xDistance, yDistance, angle, heading);
         }
     }   //class TargetInfo
 
@@ -79,6 +85,7 @@ public class PixyVision
     private Orientation orientation;
     private Rect lastTargetRect = null;
     private double lastTargetRectExpireTime = TrcUtil.getCurrentTime();
+    private double lastTargetRectTimestamp = 0.0;
 
     private void commonInit(Robot robot, int signature, int brightness, Orientation orientation)
     {
@@ -234,6 +241,7 @@ public class PixyVision
 
             lastTargetRect = targetRect;
             lastTargetRectExpireTime = currTime + LAST_TARGET_RECT_FRESH_DURATION_SECONDS;
+            lastTargetRectTimestamp = pixyCamera.getDetectedObjectsTimestamp() - RobotInfo.PIXYCAM_FRAME_LATENCY;
         }
         else if (currTime < lastTargetRectExpireTime)
         {
@@ -275,13 +283,28 @@ public class PixyVision
             double targetXDistance = (targetCenterX - RobotInfo.PIXYCAM_WIDTH/2.0)*TARGET_WIDTH_INCHES/targetRect.width;
             double targetYDistance = PIXY_DISTANCE_SCALE/targetRect.width;
             double targetAngle = Math.toDegrees(Math.atan(targetXDistance/targetYDistance));
-            targetInfo = new TargetInfo(targetRect, targetXDistance, targetYDistance, targetAngle);
+            //
+            // The target angle is relative to where the robot was pointing when the frame was captured, which
+            // lags the current heading while turning. Use the heading from that time if we have the history.
+            //
+            double robotHeading = robot.headingHistory != null?
+                robot.headingHistory.lookupAt(lastTargetRectTimestamp): Double.NaN;
+            if (Double.isNaN(robotHeading))
+            {
+                //
+                // No history, or it was just cleared by a position reset.
+                //
+                robotHeading = robot.driveBase.getHeading();
+            }
+            targetInfo = new TargetInfo(
+                targetRect, targetXDistance, targetYDistance, targetAngle, lastTargetRectTimestamp,
+                robotHeading + targetAngle);
 
             if (debugEnabled)
             {
                 robot.globalTracer.traceInfo(
-                    funcName, "###TargetInfo###: xDist=%.1f, yDist=%.1f, angle=%.1f",
-                    targetXDistance, targetYDistance, targetAngle);
+                    funcName, "###TargetInfo###: xDist=%.1f, yDist=%.1f, angle=%.1f, heading=%.1f",
+                    targetXDistance, targetYDistance, targetAngle, targetInfo.heading);
             }
         }
 
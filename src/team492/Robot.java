@@ -34,6 +34,7 @@ import edu.wpi.first.wpilibj.SPI;
 import edu.wpi.first.wpilibj.Sendable;
 import edu.wpi.first.wpilibj.SerialPort;
 import edu.wpi.first.wpilibj.smartdashboard.SendableBuilder;
+import frclib.FrcAHRSAccelerometer;
 import frclib.FrcAHRSGyro;
 import frclib.FrcAnalogInput;
 import frclib.FrcCANTalon;
@@ -41,6 +42,7 @@ import frclib.FrcDigitalOutput;
 import frclib.FrcEmic2TextToSpeech;
 import frclib.FrcI2cDevice;
 import frclib.FrcI2cLEDPanel;
+import frclib.FrcInputService;
 import frclib.FrcJoystick;
 import frclib.FrcPdp;
 import frclib.FrcPneumatic;
@@ -48,8 +50,13 @@ import frclib.FrcRobotBase;
 import frclib.FrcRobotBattery;
 import hallib.HalDashboard;
 import team492.PixyVision.TargetInfo;
+import trclib.TrcControlLoop;
+import trclib.TrcDataRecorder;
 import trclib.TrcDriveBase;
+import trclib.TrcDriveStateEstimator;
 import trclib.TrcEmic2TextToSpeech.Voice;
+import trclib.TrcInitializer;
+import trclib.TrcJvmMonitor;
 import trclib.TrcLidarLite;
 import trclib.TrcMaxbotixSonarArray;
 import trclib.TrcPidController;
@@ -57,7 +64,9 @@ import trclib.TrcPidController.PidCoefficients;
 import trclib.TrcPidDrive;
 import trclib.TrcRobot.RunMode;
 import trclib.TrcRobotBattery;
+import trclib.TrcSampleHistory;
 import trclib.TrcUtil;
+import trclib.TrcWarmup;
 
 import java.util.Date;
 
@@ -84,6 +93,16 @@ public class Robot extends FrcRobotBase
     public static final boolean USE_MESSAGE_BOARD = false;
     public static final boolean USE_TORQUE_BASED_DRIVING = false;
     public static final boolean USE_GYRO_ASSIST = false;
+    public static final boolean USE_VOLTAGE_COMPENSATION = false;
+    public static final boolean USE_ELEVATOR_MOTION_PROFILE = false;
+    public static final boolean USE_DRIVE_GAIN_SCHEDULE = false;
+    public static final boolean USE_CONTROL_LOOP_THREAD = false;
+    public static final boolean USE_DATA_RECORDER = false;
+    public static final boolean USE_JVM_MONITOR = false;
+    public static final boolean USE_WARMUP = false;
+    public static final boolean USE_INPUT_SERVICE = false;
+    public static final boolean USE_STATE_ESTIMATOR = false;
+    public static final boolean USE_PIXY_HEADING_COMPENSATION = false;
 
     private static final boolean DEBUG_POWER_CONSUMPTION = false;
     private static final boolean DEBUG_DRIVE_BASE = false;
@@ -94,6 +113,12 @@ public class Robot extends FrcRobotBase
     private static final double DASHBOARD_UPDATE_INTERVAL = 0.1;
     private static final double SPEAK_PERIOD_SECONDS = 20.0; // Speaks once every this # of second.
     private static final double IDLE_PERIOD_SECONDS = 300.0;
+    //
+    // NavX board axes pointing right and forward on the drive base, need to be checked on the robot. They are
+    // here rather than in RobotInfo so that RobotInfo does not depend on frclib.
+    //
+    private static final FrcAHRSAccelerometer.BoardAxis NAVX_DRIVE_X_AXIS = FrcAHRSAccelerometer.BoardAxis.POSITIVE_X;
+    private static final FrcAHRSAccelerometer.BoardAxis NAVX_DRIVE_Y_AXIS = FrcAHRSAccelerometer.BoardAxis.POSITIVE_Y;
 
     public DriverStation ds = DriverStation.getInstance();
     public HalDashboard dashboard = HalDashboard.getInstance();
@@ -123,12 +148,14 @@ public class Robot extends FrcRobotBase
     public FrcJoystick leftDriveStick = null;
     public FrcJoystick rightDriveStick = null;
     public FrcJoystick operatorStick = null;
+    public FrcInputService inputService = null;
     //
     // Sensors.
     //
     public FrcPdp pdp = null;
     public TrcRobotBattery battery = null;
     public FrcAHRSGyro gyro = null;
+    public FrcAHRSAccelerometer accel = null;
     public AnalogInput pressureSensor = null;
     public FrcAnalogInput leftSonarSensor = null;
     public FrcAnalogInput rightSonarSensor = null;
@@ -147,9 +174,9 @@ public class Robot extends FrcRobotBase
     // Miscellaneous subsystem.
     //
     public LEDIndicator ledIndicator = null;
-    public FrcEmic2TextToSpeech tts = null;
+    public TrcInitializer.Lazy<FrcEmic2TextToSpeech> tts = null;
     private double nextTimeToSpeakInSeconds = 0.0;  //0 means disabled, no need to speak;
-    public FrcI2cLEDPanel messageBoard = null;
+    public TrcInitializer.Lazy<FrcI2cLEDPanel> messageBoard = null;
     //
     // DriveBase subsystem.
     //
@@ -158,11 +185,16 @@ public class Robot extends FrcRobotBase
     public FrcCANTalon rightFrontWheel;
     public FrcCANTalon rightRearWheel;
     public TrcDriveBase driveBase;
+    public TrcDriveStateEstimator stateEstimator = null;
+    public TrcSampleHistory headingHistory = null;
 
     public TrcPidController encoderXPidCtrl;
     public TrcPidController encoderYPidCtrl;
     public TrcPidController gyroTurnPidCtrl;
     public TrcPidDrive pidDrive;
+    public TrcControlLoop controlLoop = null;
+    public TrcJvmMonitor jvmMonitor = null;
+    public TrcWarmup warmup = null;
     //
     // Define our subsystems for Auto and TeleOp modes.
     //
@@ -201,187 +233,290 @@ public class Robot extends FrcRobotBase
     @Override
     public void robotInit()
     {
+        if (USE_DATA_RECORDER)
+        {
+            //
+            // Start recording before creating anything so that a replay sees the same initialization reads.
+            //
+            TrcDataRecorder.startRecording("/home/lvuser/tracelog", programName);
+        }
+        //
+        // Subsystems are constructed in parallel, each step lists the steps whose subsystems it uses.
+        //
+        TrcInitializer initializer = new TrcInitializer("robotInit", globalTracer, RobotInfo.INIT_THREAD_COUNT);
         //
         // Inputs.
         //
-        leftDriveStick = new FrcJoystick("leftDriveStick", RobotInfo.JSPORT_LEFT_DRIVESTICK);
-        rightDriveStick = new FrcJoystick("rightDriveStick", RobotInfo.JSPORT_RIGHT_DRIVESTICK);
-        operatorStick = new FrcJoystick("operatorStick", RobotInfo.JSPORT_OPERATORSTICK);
+        initializer.addStep("inputs", () ->
+        {
+            leftDriveStick = new FrcJoystick("leftDriveStick", RobotInfo.JSPORT_LEFT_DRIVESTICK);
+            rightDriveStick = new FrcJoystick("rightDriveStick", RobotInfo.JSPORT_RIGHT_DRIVESTICK);
+            operatorStick = new FrcJoystick("operatorStick", RobotInfo.JSPORT_OPERATORSTICK);
+            if (USE_INPUT_SERVICE)
+            {
+                inputService = new FrcInputService("inputService");
+                inputService.addJoystick(leftDriveStick);
+                inputService.addJoystick(rightDriveStick);
+                inputService.addJoystick(operatorStick);
+            }
+        });
         //
         // Sensors.
         //
-        pdp = new FrcPdp(RobotInfo.CANID_PDP);
-        battery = new FrcRobotBattery(pdp);
-        if (USE_NAV_X)
+        initializer.addStep("pdp", () ->
         {
-            gyro = new FrcAHRSGyro("NavX", SPI.Port.kMXP);
-        }
-        pressureSensor = new AnalogInput(RobotInfo.AIN_PRESSURE_SENSOR);
+            pdp = new FrcPdp(RobotInfo.CANID_PDP);
+            battery = new FrcRobotBattery(pdp);
+        });
 
-        if (USE_SONAR)
+        initializer.addStep("gyro", () ->
         {
-            leftSonarSensor = new FrcAnalogInput("LeftSonarSensor", RobotInfo.AIN_LEFT_SONAR_SENSOR);
-            leftSonarSensor.setScale(RobotInfo.SONAR_INCHES_PER_VOLT, RobotInfo.SONAR_LEFT_DISTANCE_OFFSET);
+            if (USE_NAV_X)
+            {
+                gyro = new FrcAHRSGyro("NavX", SPI.Port.kMXP);
+                accel = new FrcAHRSAccelerometer(
+                    "NavXAccel", gyro.ahrs, NAVX_DRIVE_X_AXIS, NAVX_DRIVE_Y_AXIS);
+                accel.setXScale(RobotInfo.GRAVITY_INCHES_PER_SEC2);
+                accel.setYScale(RobotInfo.GRAVITY_INCHES_PER_SEC2);
+            }
+        });
 
-            rightSonarSensor = new FrcAnalogInput("RightSonarSensor", RobotInfo.AIN_RIGHT_SONAR_SENSOR);
-            rightSonarSensor.setScale(RobotInfo.SONAR_INCHES_PER_VOLT, RobotInfo.SONAR_RIGHT_DISTANCE_OFFSET);
+        initializer.addStep("sensors", () ->
+        {
+            pressureSensor = new AnalogInput(RobotInfo.AIN_PRESSURE_SENSOR);
 
-            if (USE_MAXBOTIX_SONAR_ARRAY)
+            if (USE_SONAR)
             {
-                FrcDigitalOutput leftSonarPing = new FrcDigitalOutput("LeftSonarPing", RobotInfo.DIO_LEFT_SONAR_PING);
-                leftSonarArray = new TrcMaxbotixSonarArray("LeftSonar", leftSonarSensor, leftSonarPing);
+                leftSonarSensor = new FrcAnalogInput("LeftSonarSensor", RobotInfo.AIN_LEFT_SONAR_SENSOR);
+                leftSonarSensor.setScale(RobotInfo.SONAR_INCHES_PER_VOLT, RobotInfo.SONAR_LEFT_DISTANCE_OFFSET);
+
+                rightSonarSensor = new FrcAnalogInput("RightSonarSensor", RobotInfo.AIN_RIGHT_SONAR_SENSOR);
+                rightSonarSensor.setScale(RobotInfo.SONAR_INCHES_PER_VOLT, RobotInfo.SONAR_RIGHT_DISTANCE_OFFSET);
+
+                if (USE_MAXBOTIX_SONAR_ARRAY)
+                {
+                    FrcDigitalOutput leftSonarPing = new FrcDigitalOutput(
+                        "LeftSonarPing", RobotInfo.DIO_LEFT_SONAR_PING);
+                    leftSonarArray = new TrcMaxbotixSonarArray("LeftSonar", leftSonarSensor, leftSonarPing);
 
-                FrcDigitalOutput rightSonarPing = new FrcDigitalOutput("RightSonarPing", RobotInfo.DIO_RIGHT_SONAR_PING);
-                rightSonarArray = new TrcMaxbotixSonarArray("RightSonar", rightSonarSensor, rightSonarPing);
+                    FrcDigitalOutput rightSonarPing = new FrcDigitalOutput(
+                        "RightSonarPing", RobotInfo.DIO_RIGHT_SONAR_PING);
+                    rightSonarArray = new TrcMaxbotixSonarArray("RightSonar", rightSonarSensor, rightSonarPing);
+                }
             }
-        }
 
-        if (USE_LIDAR)
-        {
-            lidarSensor = new FrcI2cDevice("LidarSensor", I2C.Port.kMXP, TrcLidarLite.DEF_I2C_ADDRESS_7BIT);
-            frontRanger = new TrcLidarLite("LidarRanger", lidarSensor);
-        }
+            if (USE_LIDAR)
+            {
+                lidarSensor = new FrcI2cDevice("LidarSensor", I2C.Port.kMXP, TrcLidarLite.DEF_I2C_ADDRESS_7BIT);
+                frontRanger = new TrcLidarLite("LidarRanger", lidarSensor);
+            }
+        });
 
         //
-        // Vision subsystem.
+        // Vision subsystem. The camera only streams to the dashboard, so it is set up after the robot is ready.
         //
         if (USE_USB_CAM)
         {
-            UsbCamera cam0 = CameraServer.getInstance().startAutomaticCapture("cam0", 0);
-            cam0.setResolution(RobotInfo.USBCAM_WIDTH, RobotInfo.USBCAM_HEIGHT);
-            cam0.setFPS(RobotInfo.USBCAM_FRAME_RATE);
-            cam0.setBrightness(RobotInfo.USBCAM_BRIGHTNESS);
-            CameraServer.getInstance().getVideo(cam0);
-            CameraServer.getInstance().putVideo("VisionTarget", RobotInfo.USBCAM_WIDTH, RobotInfo.USBCAM_HEIGHT);
+            initializer.addDeferredStep("camera", () ->
+            {
+                UsbCamera cam0 = CameraServer.getInstance().startAutomaticCapture("cam0", 0);
+                cam0.setResolution(RobotInfo.USBCAM_WIDTH, RobotInfo.USBCAM_HEIGHT);
+                cam0.setFPS(RobotInfo.USBCAM_FRAME_RATE);
+                cam0.setBrightness(RobotInfo.USBCAM_BRIGHTNESS);
+                CameraServer.getInstance().getVideo(cam0);
+                CameraServer.getInstance().putVideo(
+                    "VisionTarget", RobotInfo.USBCAM_WIDTH, RobotInfo.USBCAM_HEIGHT);
+            });
         }
 
-        if (USE_PIXY_SPI)
+        initializer.addStep("pixy", () ->
         {
-            pixy = new PixyVision(
-                "PixyCam", this, RobotInfo.PIXY_POWER_CUBE_SIGNATURE, RobotInfo.PIXY_BRIGHTNESS,
-                RobotInfo.PIXY_ORIENTATION, SPI.Port.kMXP);
-        }
-        else if(USE_PIXY_I2C)
-        {
-            pixy = new PixyVision(
-                "PixyCam", this, RobotInfo.PIXY_POWER_CUBE_SIGNATURE, RobotInfo.PIXY_BRIGHTNESS,
-                RobotInfo.PIXY_ORIENTATION, I2C.Port.kMXP, RobotInfo.PIXYCAM_I2C_ADDRESS);
-        }
+            if (USE_PIXY_SPI)
+            {
+                pixy = new PixyVision(
+                    "PixyCam", this, RobotInfo.PIXY_POWER_CUBE_SIGNATURE, RobotInfo.PIXY_BRIGHTNESS,
+                    RobotInfo.PIXY_ORIENTATION, SPI.Port.kMXP);
+            }
+            else if(USE_PIXY_I2C)
+            {
+                pixy = new PixyVision(
+                    "PixyCam", this, RobotInfo.PIXY_POWER_CUBE_SIGNATURE, RobotInfo.PIXY_BRIGHTNESS,
+                    RobotInfo.PIXY_ORIENTATION, I2C.Port.kMXP, RobotInfo.PIXYCAM_I2C_ADDRESS);
+            }
+        });
 
         //
-        // Miscellaneous subsystems.
+        // Miscellaneous subsystems. Text to speech and the message board are created on first use.
         //
-        ledIndicator = new LEDIndicator(this);
+        initializer.addStep("ledIndicator", () -> ledIndicator = new LEDIndicator(this), "pdp");
 
         if (USE_TEXT_TO_SPEECH)
         {
-            tts = new FrcEmic2TextToSpeech("TextToSpeech", SerialPort.Port.kMXP, 9600);
-            tts.setEnabled(true);
-            tts.selectVoice(Voice.FrailFrank);
-            tts.setVolume(0.72);
+            tts = new TrcInitializer.Lazy<>("TextToSpeech", globalTracer, () ->
+            {
+                FrcEmic2TextToSpeech textToSpeech =
+                    new FrcEmic2TextToSpeech("TextToSpeech", SerialPort.Port.kMXP, 9600);
+                textToSpeech.setEnabled(true);
+                textToSpeech.selectVoice(Voice.FrailFrank);
+                textToSpeech.setVolume(0.72);
+                return textToSpeech;
+            });
         }
 
         if (USE_MESSAGE_BOARD)
         {
-            messageBoard = new FrcI2cLEDPanel("messageBoard", I2C.Port.kOnboard);
+            messageBoard = new TrcInitializer.Lazy<>(
+                "messageBoard", globalTracer, () -> new FrcI2cLEDPanel("messageBoard", I2C.Port.kOnboard));
         }
 
         //
         // DriveBase subsystem.
         //
-        leftFrontWheel = new FrcCANTalon("LeftFrontWheel", RobotInfo.CANID_LEFTFRONTWHEEL);
-        leftRearWheel = new FrcCANTalon("LeftRearWheel", RobotInfo.CANID_LEFTREARWHEEL);
-        rightFrontWheel = new FrcCANTalon("RightFrontWheel", RobotInfo.CANID_RIGHTFRONTWHEEL);
-        rightRearWheel = new FrcCANTalon("RightRearWheel", RobotInfo.CANID_RIGHTREARWHEEL);
-        pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_LEFT_FRONT_WHEEL, "LeftFrontWheel");
-        pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_LEFT_REAR_WHEEL, "LeftRearWheel");
-        pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_RIGHT_FRONT_WHEEL, "RightFrontWheel");
-        pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_RIGHT_REAR_WHEEL, "RightRearWheel");
-
-        //
-        // Initialize each drive motor controller.
-        //
-        leftFrontWheel.setInverted(false);
-        leftRearWheel.setInverted(false);
-        rightFrontWheel.setInverted(true);
-        rightRearWheel.setInverted(true);
-
-        leftFrontWheel.motor.overrideLimitSwitchesEnable(false);
-        leftRearWheel.motor.overrideLimitSwitchesEnable(false);
-        rightFrontWheel.motor.overrideLimitSwitchesEnable(false);
-        rightRearWheel.motor.overrideLimitSwitchesEnable(false);
-
-        leftFrontWheel.setPositionSensorInverted(false);
-        leftRearWheel.setPositionSensorInverted(false);
-        rightFrontWheel.setPositionSensorInverted(false);
-        rightRearWheel.setPositionSensorInverted(false);
-
-        leftFrontWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
-        leftRearWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
-        rightFrontWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
-        rightRearWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
+        initializer.addStep("driveBase", () ->
+        {
+            leftFrontWheel = new FrcCANTalon("LeftFrontWheel", RobotInfo.CANID_LEFTFRONTWHEEL);
+            leftRearWheel = new FrcCANTalon("LeftRearWheel", RobotInfo.CANID_LEFTREARWHEEL);
+            rightFrontWheel = new FrcCANTalon("RightFrontWheel", RobotInfo.CANID_RIGHTFRONTWHEEL);
+            rightRearWheel = new FrcCANTalon("RightRearWheel", RobotInfo.CANID_RIGHTREARWHEEL);
+            pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_LEFT_FRONT_WHEEL, "LeftFrontWheel");
+            pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_LEFT_REAR_WHEEL, "LeftRearWheel");
+            pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_RIGHT_FRONT_WHEEL, "RightFrontWheel");
+            pdp.registerEnergyUsed(RobotInfo.PDP_CHANNEL_RIGHT_REAR_WHEEL, "RightRearWheel");
+
+            //
+            // Initialize each drive motor controller.
+            //
+            leftFrontWheel.setInverted(false);
+            leftRearWheel.setInverted(false);
+            rightFrontWheel.setInverted(true);
+            rightRearWheel.setInverted(true);
+
+            leftFrontWheel.motor.overrideLimitSwitchesEnable(false);
+            leftRearWheel.motor.overrideLimitSwitchesEnable(false);
+            rightFrontWheel.motor.overrideLimitSwitchesEnable(false);
+            rightRearWheel.motor.overrideLimitSwitchesEnable(false);
+
+            leftFrontWheel.setPositionSensorInverted(false);
+            leftRearWheel.setPositionSensorInverted(false);
+            rightFrontWheel.setPositionSensorInverted(false);
+            rightRearWheel.setPositionSensorInverted(false);
+
+            leftFrontWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
+            leftRearWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
+            rightFrontWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
+            rightRearWheel.setFeedbackDevice(FeedbackDevice.QuadEncoder);
+
+            //
+            // Initialize DriveBase subsystem.
+            //
+            driveBase = new TrcDriveBase(leftFrontWheel, leftRearWheel, rightFrontWheel, rightRearWheel, gyro);
+            driveBase.setXPositionScale(RobotInfo.ENCODER_X_INCHES_PER_COUNT);
+            driveBase.setYPositionScale(RobotInfo.ENCODER_Y_INCHES_PER_COUNT);
+
+            if (USE_TORQUE_BASED_DRIVING)
+            {
+                driveBase.setMotorPowerMapper(this::translateMotorPower);
+            }
 
-        //
-        // Initialize DriveBase subsystem.
-        //
-        driveBase = new TrcDriveBase(leftFrontWheel, leftRearWheel, rightFrontWheel, rightRearWheel, gyro);
-        driveBase.setXPositionScale(RobotInfo.ENCODER_X_INCHES_PER_COUNT);
-        driveBase.setYPositionScale(RobotInfo.ENCODER_Y_INCHES_PER_COUNT);
+            if (USE_STATE_ESTIMATOR && gyro != null)
+            {
+                stateEstimator = new TrcDriveStateEstimator("stateEstimator", driveBase, gyro, accel);
+                stateEstimator.setProcessNoise(
+                    RobotInfo.EKF_TURN_ACCEL_NOISE, RobotInfo.EKF_ACCEL_NOISE, RobotInfo.EKF_SLIP_NOISE);
+                stateEstimator.setMeasurementNoise(
+                    RobotInfo.EKF_HEADING_NOISE, RobotInfo.EKF_TURN_RATE_NOISE, RobotInfo.EKF_WHEEL_SPEED_NOISE);
+                stateEstimator.setEnabled(true);
+            }
 
-        if (USE_TORQUE_BASED_DRIVING)
-        {
-            driveBase.setMotorPowerMapper(this::translateMotorPower);
-        }
+            //
+            // Keep a short heading history so vision targets can be aligned with the heading at capture time.
+            //
+            headingHistory = new TrcSampleHistory(
+                "headingHistory", RobotInfo.HEADING_HISTORY_SIZE,
+                stateEstimator != null? stateEstimator::getHeading: driveBase::getHeading);
+            headingHistory.setSamplePeriod(RobotInfo.HEADING_HISTORY_PERIOD);
+            headingHistory.setTaskEnabled(true);
+
+            //
+            // Create PID controllers for DriveBase PID drive.
+            //
+            encoderXPidCtrl = new TrcPidController(
+                "encoderXPidCtrl",
+                new PidCoefficients(
+                    RobotInfo.ENCODER_X_KP, RobotInfo.ENCODER_X_KI, RobotInfo.ENCODER_X_KD, RobotInfo.ENCODER_X_KF),
+                RobotInfo.ENCODER_X_TOLERANCE,
+                driveBase::getXPosition);
+            encoderYPidCtrl = new TrcPidController(
+                "encoderYPidCtrl",
+                new PidCoefficients(
+                    RobotInfo.ENCODER_Y_KP, RobotInfo.ENCODER_Y_KI, RobotInfo.ENCODER_Y_KD, RobotInfo.ENCODER_Y_KF),
+                RobotInfo.ENCODER_Y_TOLERANCE,
+                driveBase::getYPosition);
+            if (USE_DRIVE_GAIN_SCHEDULE)
+            {
+                encoderYPidCtrl.setGainSchedule(
+                    new TrcPidController.GainSchedule(TrcPidController.GainSchedule.ScheduleVariable.ERROR_MAGNITUDE)
+                        .addEntry(0.0, new PidCoefficients(
+                            RobotInfo.ENCODER_Y_NEAR_KP, RobotInfo.ENCODER_Y_NEAR_KI, RobotInfo.ENCODER_Y_NEAR_KD))
+                        .addEntry(RobotInfo.ENCODER_Y_SCHEDULE_FAR_ERROR, encoderYPidCtrl.getPidCoefficients()));
+            }
+            gyroTurnPidCtrl = new TrcPidController(
+                "gyroTurnPidCtrl",
+                new PidCoefficients(
+                    RobotInfo.GYRO_TURN_KP, RobotInfo.GYRO_TURN_KI, RobotInfo.GYRO_TURN_KD, RobotInfo.GYRO_TURN_KF),
+                RobotInfo.GYRO_TURN_TOLERANCE,
+                stateEstimator != null? stateEstimator::getHeading: driveBase::getHeading);
+            gyroTurnPidCtrl.setAbsoluteSetPoint(true);
+            if (stateEstimator != null)
+            {
+                gyroTurnPidCtrl.setInputRate(stateEstimator::getTurnRate);
+            }
+            pidDrive = new TrcPidDrive("pidDrive", driveBase, encoderXPidCtrl, encoderYPidCtrl, gyroTurnPidCtrl);
+            pidDrive.setStallTimeout(RobotInfo.DRIVE_STALL_TIMEOUT);
+            pidDrive.setMsgTracer(globalTracer);
+            if (stateEstimator != null)
+            {
+                pidDrive.setWheelSlipDetection(stateEstimator, RobotInfo.DRIVE_SLIP_THRESHOLD, null);
+            }
+            if (USE_VOLTAGE_COMPENSATION)
+            {
+                pidDrive.setVoltageCompensation(battery, RobotInfo.BATTERY_NOMINAL_VOLTAGE);
+            }
 
-        //
-        // Create PID controllers for DriveBase PID drive.
-        //
-        encoderXPidCtrl = new TrcPidController(
-            "encoderXPidCtrl",
-            new PidCoefficients(
-                RobotInfo.ENCODER_X_KP, RobotInfo.ENCODER_X_KI, RobotInfo.ENCODER_X_KD, RobotInfo.ENCODER_X_KF),
-            RobotInfo.ENCODER_X_TOLERANCE,
-            driveBase::getXPosition);
-        encoderYPidCtrl = new TrcPidController(
-            "encoderYPidCtrl",
-            new PidCoefficients(
-                RobotInfo.ENCODER_Y_KP, RobotInfo.ENCODER_Y_KI, RobotInfo.ENCODER_Y_KD, RobotInfo.ENCODER_Y_KF),
-            RobotInfo.ENCODER_Y_TOLERANCE,
-            driveBase::getYPosition);
-        gyroTurnPidCtrl = new TrcPidController(
-            "gyroTurnPidCtrl",
-            new PidCoefficients(
-                RobotInfo.GYRO_TURN_KP, RobotInfo.GYRO_TURN_KI, RobotInfo.GYRO_TURN_KD, RobotInfo.GYRO_TURN_KF),
-            RobotInfo.GYRO_TURN_TOLERANCE,
-            driveBase::getHeading);
-        gyroTurnPidCtrl.setAbsoluteSetPoint(true);
-        pidDrive = new TrcPidDrive("pidDrive", driveBase, encoderXPidCtrl, encoderYPidCtrl, gyroTurnPidCtrl);
-        pidDrive.setStallTimeout(RobotInfo.DRIVE_STALL_TIMEOUT);
-        pidDrive.setMsgTracer(globalTracer);
-
-        encoderXPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_XPID_POWER);
-        encoderYPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_YPID_POWER);
-        gyroTurnPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_TURNPID_POWER);
+            encoderXPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_XPID_POWER);
+            encoderYPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_YPID_POWER);
+            gyroTurnPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_TURNPID_POWER);
+        }, "pdp", "gyro");
 
         //
         // Create other hardware subsystems.
         //
-        elevator = new Elevator(this);
-        cubePickup = new CubePickup(this);
-        winch = new Winch(this);
-        leftFlipper = new FrcPneumatic("leftFlipper", RobotInfo.CANID_PCM1, 
-            RobotInfo.SOL_LEFT_FLIPPER_EXTEND, RobotInfo.SOL_LEFT_FLIPPER_RETRACT);
-        rightFlipper =  new FrcPneumatic("rightFlipper", RobotInfo.CANID_PCM1, 
-            RobotInfo.SOL_RIGHT_FLIPPER_EXTEND, RobotInfo.SOL_RIGHT_FLIPPER_RETRACT);
+        initializer.addStep("elevator", () -> elevator = new Elevator(this), "pdp");
+        initializer.addStep("cubePickup", () -> cubePickup = new CubePickup(this), "pdp");
+        initializer.addStep("winch", () -> winch = new Winch(this), "pdp");
+        initializer.addStep("flippers", () ->
+        {
+            leftFlipper = new FrcPneumatic("leftFlipper", RobotInfo.CANID_PCM1, 
+                RobotInfo.SOL_LEFT_FLIPPER_EXTEND, RobotInfo.SOL_LEFT_FLIPPER_RETRACT);
+            rightFlipper =  new FrcPneumatic("rightFlipper", RobotInfo.CANID_PCM1, 
+                RobotInfo.SOL_RIGHT_FLIPPER_EXTEND, RobotInfo.SOL_RIGHT_FLIPPER_RETRACT);
+        });
 
         //
         // AutoAssist commands.
         //
-        cmdAutoCubePickup = new CmdCubePickup(this);
-        cmdStrafeUntilCube = new CmdStrafeUntilCube(this);
-        cmdExchangeAlign = new CmdExchangeAlign(this);
+        initializer.addStep("commands", () ->
+        {
+            cmdAutoCubePickup = new CmdCubePickup(this);
+            cmdStrafeUntilCube = new CmdStrafeUntilCube(this);
+            cmdExchangeAlign = new CmdExchangeAlign(this);
+        }, "driveBase", "cubePickup", "elevator", "pixy", "sensors");
+
+        initializer.addStep(
+            "diagnostics", () -> diagnostics = new OnBoardDiagnostics(this),
+            "driveBase", "elevator", "cubePickup", "winch", "flippers", "pixy", "sensors");
 
-        diagnostics = new OnBoardDiagnostics(this);
+        initializer.run();
 
         //
         // Create Robot Modes.
@@ -391,6 +526,32 @@ public class Robot extends FrcRobotBase
             new FrcAuto(this),
             new FrcTest(this),
             new FrcDisabled(this));
+
+        //
+        // Run PID drive and PID motor tasks at a fixed rate instead of on the main loop. Manual drive in FrcTeleOp
+        // takes the pidDrive lock and yields the drive base while PID drive is active.
+        //
+        if (USE_CONTROL_LOOP_THREAD)
+        {
+            controlLoop = new TrcControlLoop("controlLoop", RobotInfo.CONTROL_LOOP_FREQUENCY, this::getCurrentRunMode);
+            controlLoop.start();
+        }
+
+        if (USE_JVM_MONITOR)
+        {
+            jvmMonitor = new TrcJvmMonitor("jvmMonitor", globalTracer);
+            setJvmMonitor(jvmMonitor);
+            jvmMonitor.setTaskEnabled(true);
+        }
+
+        if (USE_WARMUP)
+        {
+            //
+            // FrcDisabled runs the warm-up while the robot is disabled so the control code is compiled before
+            // autonomous starts.
+            //
+            warmup = new TrcWarmup("warmup", globalTracer);
+        }
     }   //robotInit
 
     public void robotStartMode(RunMode runMode, RunMode prevMode)
@@ -403,13 +564,13 @@ public class Robot extends FrcRobotBase
             {
                 // Robot is safe.
                 // Note: "disaibled" is not a typo. It forces the speech board to pronounce it correctly.
-                tts.speak("Robot disaibled");
+                tts.get().speak("Robot disaibled");
                 nextTimeToSpeakInSeconds = TrcUtil.getCurrentTime() + IDLE_PERIOD_SECONDS;
             }
             else
             {
                 // Robot is unsafe
-                tts.speak("Robot enabled, stand clear");
+                tts.get().speak("Robot enabled, stand clear");
                 nextTimeToSpeakInSeconds = TrcUtil.getCurrentTime() + SPEAK_PERIOD_SECONDS;
             }
         }
@@ -425,7 +586,7 @@ public class Robot extends FrcRobotBase
             pdp.setTaskEnabled(true);
             battery.setTaskEnabled(true);
             setVisionEnabled(true);
-            driveBase.resetPosition();
+            resetDrivePosition();
             targetHeading = 0.0;
 
             dashboard.clearDisplay();
@@ -486,6 +647,18 @@ public class Robot extends FrcRobotBase
                 funcName, "TotalEnergy=%.3fWh (%.2f%%)",
                 totalEnergy, totalEnergy*100.0/RobotInfo.BATTERY_CAPACITY_WATT_HOUR);
             diagnostics.printDiagnostics();
+            if (controlLoop != null)
+            {
+                controlLoop.printStatistics(globalTracer);
+                controlLoop.resetStatistics();
+            }
+
+            TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+            if (recorder != null)
+            {
+                recorder.flush();
+                recorder.printSummary(globalTracer);
+            }
             setTraceLogEnabled(false);
         }
     }   //robotStopMode
@@ -556,6 +729,24 @@ public class Robot extends FrcRobotBase
         }
     }   //setVisionEnabled
 
+    /**
+     * This method resets the drive base position together with the estimators that track it, so they don't carry
+     * stale states across the reset.
+     */
+    public void resetDrivePosition()
+    {
+        driveBase.resetPosition();
+        if (stateEstimator != null)
+        {
+            stateEstimator.reset();
+        }
+
+        if (headingHistory != null)
+        {
+            headingHistory.clear();
+        }
+    }   //resetDrivePosition
+
     public void cancelAutoAssist()
     {
         if(cmdAutoCubePickup.isEnabled())
@@ -706,7 +897,7 @@ public class Robot extends FrcRobotBase
 
         if (tts != null && nextTimeToSpeakInSeconds > 0.0 && currTime >= nextTimeToSpeakInSeconds)
         {
-            tts.speak("Stand clear");
+            tts.get().speak("Stand clear");
             nextTimeToSpeakInSeconds = currTime + SPEAK_PERIOD_SECONDS;
         }
     }   //announceSafety
@@ -717,7 +908,7 @@ public class Robot extends FrcRobotBase
 
         if (tts != null && nextTimeToSpeakInSeconds > 0.0 && currTime >= nextTimeToSpeakInSeconds)
         {
-            tts.speak("Robot is idle, please turn off.");
+            tts.get().speak("Robot is idle, please turn off.");
             nextTimeToSpeakInSeconds = currTime + SPEAK_PERIOD_SECONDS;
         }
     }   //announceIdling
@@ -807,6 +998,24 @@ public class Robot extends FrcRobotBase
         return targetInfo != null? targetInfo.angle: null;
     }
 
+    public Double getPixyTargetHeading()
+    {
+        final String funcName = "getPixyTargetHeading";
+        TargetInfo targetInfo = pixy.getTargetInfo();
+
+        if (targetInfo != null)
+        {
+            globalTracer.traceInfo(funcName, "Found cube: angle=%.1f, heading=%.1f, age=%.3f",
+                targetInfo.angle, targetInfo.heading, TrcUtil.getCurrentTime() - targetInfo.timestamp);
+        }
+        else
+        {
+            globalTracer.traceInfo(funcName, "Cube not found!");
+        }
+
+        return targetInfo != null? targetInfo.heading: null;
+    }
+
     public Double getPixyTargetX()
     {
         final String funcName = "getPixyTargetX";
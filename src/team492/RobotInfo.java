@@ -22,8 +22,6 @@
 
 package team492;
 
-import frclib.FrcPixyCam;
-
 public class RobotInfo
 {
     //
@@ -45,6 +43,11 @@ public class RobotInfo
     public static final double CUBE_DEPTH                       = 13.0;
 
     public static final double BATTERY_CAPACITY_WATT_HOUR       = 18.0*12.0;
+    public static final double BATTERY_NOMINAL_VOLTAGE          = 12.0;
+
+    public static final double CONTROL_LOOP_FREQUENCY           = 200.0;    // Hz
+    public static final int INIT_THREAD_COUNT                   = 4;
+    public static final double DIAGNOSTICS_LOOP_BUDGET          = 0.001;    // seconds of each loop for diagnostics
 
     //
     // Robot dimensions.
@@ -141,7 +144,12 @@ public class RobotInfo
     public static final int PIXY_BRIGHTNESS                     = 80;
     public static final double PIXY_CAM_OFFSET                  = 8.0;
     public static final PixyVision.Orientation PIXY_ORIENTATION = PixyVision.Orientation.NORMAL_LANDSCAPE;
-    public static final int PIXYCAM_I2C_ADDRESS                 = FrcPixyCam.DEF_I2C_ADDRESS;
+    public static final int PIXYCAM_I2C_ADDRESS                 = 0x54;     // FrcPixyCam.DEF_I2C_ADDRESS
+    public static final double PIXYCAM_FRAME_LATENCY            = 0.02;     // one 50 Hz frame, need calibration
+    public static final double HEADING_HISTORY_PERIOD           = 0.02;     // one periodic loop
+    public static final double HEADING_HISTORY_DURATION         = 0.5;
+    public static final int HEADING_HISTORY_SIZE                =
+        (int)Math.ceil(HEADING_HISTORY_DURATION/HEADING_HISTORY_PERIOD) + 1;
 
     public static final int USBCAM_WIDTH                        = 320;
     public static final int USBCAM_HEIGHT                       = 240;
@@ -175,6 +183,16 @@ public class RobotInfo
     public static final double DRIVE_MAX_XPID_POWER             = 0.7;
     public static final double DRIVE_MAX_YPID_POWER             = 0.7;
     public static final double DRIVE_MAX_TURNPID_POWER          = 0.7;
+    public static final double DRIVE_SLIP_THRESHOLD             = 12.0;     // in/s, need calibration
+
+    public static final double GRAVITY_INCHES_PER_SEC2          = 386.09;
+    // Drive state estimator noise, standard deviations. Need calibration.
+    public static final double EKF_TURN_ACCEL_NOISE             = 200.0;    // deg/s^2
+    public static final double EKF_ACCEL_NOISE                  = 5.0;      // in/s^2
+    public static final double EKF_SLIP_NOISE                   = 30.0;     // in/s^2
+    public static final double EKF_HEADING_NOISE                = 0.5;      // deg
+    public static final double EKF_TURN_RATE_NOISE              = 2.0;      // deg/s
+    public static final double EKF_WHEEL_SPEED_NOISE            = 2.0;      // in/s
 
     // 2017-03-21: 0.0152347136491642, 0.15, 0.0, 0.0
     // 0.7 power is pretty gud fam
@@ -200,6 +218,11 @@ public class RobotInfo
     public static final double ENCODER_Y_KD                     = 0.0015;
     public static final double ENCODER_Y_KF                     = 0.0;
     public static final double ENCODER_Y_TOLERANCE              = 2.0;
+    // Gain schedule keyed on error magnitude: precise gains near target, ENCODER_Y gains beyond FAR_ERROR.
+    public static final double ENCODER_Y_NEAR_KP                = 0.03;     // need calibration
+    public static final double ENCODER_Y_NEAR_KI                = 0.0;
+    public static final double ENCODER_Y_NEAR_KD                = 0.0015;   // need calibration
+    public static final double ENCODER_Y_SCHEDULE_FAR_ERROR     = 24.0;     // inches
 
     // 2017-04-05: 0.03, 0.0, 0.003
     // 2-20-2018: 0.02, 0.0, 0.0025
@@ -226,6 +249,13 @@ public class RobotInfo
     public static final double ELEVATOR_KD                      = 0.0;      // this too
     public static final double ELEVATOR_TOLERANCE               = 1.0;      // this too
     public static final double ELEVATOR_GRAVITY_COMPENSATION    = 0.0;      // was 0.08 before added counter-balance
+    public static final double ELEVATOR_CUBE_GRAVITY_COMPENSATION = 0.0;    // need calibration
+    // Untuned placeholders, not measured. Replace with a tools/sysid fit of the elevator.
+    public static final double ELEVATOR_KS                      = 0.10;     // need calibration
+    public static final double ELEVATOR_KV                      = 0.0133;   // need calibration
+    public static final double ELEVATOR_KA                      = 0.0;      // need calibration
+    public static final double ELEVATOR_MAX_VELOCITY            = 40.0;     // in/sec, need calibration
+    public static final double ELEVATOR_MAX_ACCELERATION        = 120.0;    // in/sec^2, need calibration
     public static final double ELEVATOR_CAL_POWER               = 0.3;      // this too
     public static final double ELEVATOR_POSITION_OFFSET         = 8.0;
     public static final double ELEVATOR_PID_FLOOR               = 6.0;
@@ -27,7 +27,9 @@ import java.util.Arrays;
 /**
  * This class implements an AnalogTrigger. It monitors the value of the analog sensor against an array of threshold
  * values. If the sensor reading crosses any of the thresholds in the array, it will call a notification handler so
- * that an action could be performed.
+ * that an action could be performed. For noisy sensors, each threshold can have a hysteresis band, a zone change
+ * can be debounced and notifications can be batched so that a sensor sitting at a threshold does not call the
+ * handler every loop.
  */
 public class TrcAnalogTrigger<D>
 {
@@ -63,9 +65,16 @@ public class TrcAnalogTrigger<D>
     private final TriggerHandler triggerHandler;
     private final TrcTaskMgr.TaskObject triggerTaskObj;
     private double[] thresholds;
+    private double[] hysteresis;
+    private double debounceTime = 0.0;
+    private double notificationInterval = 0.0;
     private boolean enabled = false;
     private int zone = -1;
     private double value = 0.0;
+    private int pendingZone = -1;
+    private double pendingStartTime = 0.0;
+    private int notifiedZone = -1;
+    private double nextNotificationTime = 0.0;
 
     /**
      * Constructor: Create an instance of the object.
@@ -114,7 +123,8 @@ public class TrcAnalogTrigger<D>
 
     /**
      * This method creates and threshold array and calculates all the threshold values. A threshold value is the
-     * average of two adjacent trigger points.
+     * average of two adjacent trigger points. The trigger points must be in ascending order. Setting the trigger
+     * points clears the hysteresis of all thresholds.
      *
      * @param triggerPoints specifies the array of trigger points.
      */
@@ -137,11 +147,20 @@ public class TrcAnalogTrigger<D>
             throw new IllegalArgumentException("zoneValues must have at least two elements.");
         }
 
+        for (int i = 1; i < triggerPoints.length; i++)
+        {
+            if (triggerPoints[i] < triggerPoints[i - 1])
+            {
+                throw new IllegalArgumentException("triggerPoints must be in ascending order.");
+            }
+        }
+
         thresholds = new double[triggerPoints.length - 1];
         for (int i = 0; i < thresholds.length; i++)
         {
             thresholds[i] = (triggerPoints[i] + triggerPoints[i + 1])/2.0;
         }
+        hysteresis = new double[thresholds.length];
 
         if (debugEnabled)
         {
@@ -149,6 +168,85 @@ public class TrcAnalogTrigger<D>
         }
     }   //setTriggerPoints
 
+    /**
+     * This method sets the hysteresis of each threshold. Once in a zone, the sensor value must go past the
+     * threshold by more than its hysteresis to leave the zone.
+     *
+     * @param hysteresis specifies the hysteresis array, one value per threshold, i.e. one less than the number of
+     *                   trigger points.
+     */
+    public void setHysteresis(double[] hysteresis)
+    {
+        final String funcName = "setHysteresis";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "hysteresis=%s", Arrays.toString(hysteresis));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (hysteresis.length != thresholds.length)
+        {
+            throw new IllegalArgumentException("hysteresis must have one element per threshold.");
+        }
+
+        for (double value: hysteresis)
+        {
+            if (value < 0.0)
+            {
+                throw new IllegalArgumentException("hysteresis must not be negative.");
+            }
+        }
+
+        this.hysteresis = hysteresis.clone();
+    }   //setHysteresis
+
+    /**
+     * This method sets the same hysteresis for all thresholds.
+     *
+     * @param hysteresis specifies the hysteresis.
+     */
+    public void setHysteresis(double hysteresis)
+    {
+        double[] values = new double[thresholds.length];
+
+        Arrays.fill(values, hysteresis);
+        setHysteresis(values);
+    }   //setHysteresis
+
+    /**
+     * This method sets the debounce time. A zone change is only accepted after the sensor value has stayed in the
+     * new zone for the debounce time.
+     *
+     * @param debounceTime specifies the debounce time in seconds, zero to accept zone changes immediately.
+     */
+    public void setDebounceTime(double debounceTime)
+    {
+        if (debounceTime < 0.0)
+        {
+            throw new IllegalArgumentException("debounceTime must not be negative.");
+        }
+
+        this.debounceTime = debounceTime;
+    }   //setDebounceTime
+
+    /**
+     * This method enables batched notification. The first zone change calls the handler right away, the zone
+     * changes within the following interval are combined into one call at the end of the interval that goes from
+     * the last notified zone to the current zone. No call is made if the sensor is back in the last notified zone.
+     *
+     * @param interval specifies the minimum time in seconds between notifications, zero to notify every change.
+     */
+    public void setNotificationInterval(double interval)
+    {
+        if (interval < 0.0)
+        {
+            throw new IllegalArgumentException("interval must not be negative.");
+        }
+
+        this.notificationInterval = interval;
+    }   //setNotificationInterval
+
     /**
      * This method enables/disables the task that monitors the sensor value.
      *
@@ -169,6 +267,9 @@ public class TrcAnalogTrigger<D>
         {
             zone = -1;
             value = 0.0;
+            pendingZone = -1;
+            notifiedZone = -1;
+            nextNotificationTime = 0.0;
             triggerTaskObj.registerTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
         }
         else
@@ -231,49 +332,52 @@ public class TrcAnalogTrigger<D>
 
         if (data != null && data.value != null)
         {
-            double sample = (double)data.value;
-            int currZone = -1;
+            double sample = data.value;
+            int currZone = getZone(sample);
 
-            if (sample < thresholds[0])
+            if (currZone == zone)
             {
-                currZone = 0;
+                pendingZone = -1;
             }
-            else
+            else if (zone != -1 && debounceTime > 0.0)
             {
-                for (int i = 0; i < thresholds.length - 1; i++)
+                //
+                // The new zone must hold for the debounce time before it is accepted.
+                //
+                if (currZone != pendingZone)
                 {
-                    if (sample >= thresholds[i] && sample < thresholds[i + 1])
-                    {
-                        currZone = i + 1;
-                        break;
-                    }
+                    pendingZone = currZone;
+                    pendingStartTime = data.timestamp;
+                    currZone = zone;
                 }
-
-                if (currZone == -1)
+                else if (data.timestamp - pendingStartTime < debounceTime)
                 {
-                    currZone = thresholds.length;
+                    currZone = zone;
                 }
             }
 
             if (currZone != zone)
             {
-                //
-                // We have crossed to another zone, let's notify somebody.
-                //
-                if (triggerHandler != null)
-                {
-                    triggerHandler.triggerEvent(currZone, zone, sample);
-                }
-
                 if (debugEnabled)
                 {
                     dbgTrace.traceInfo(funcName, "%s going to zone %d from zone %d (value=%f)",
-                        instanceName, currZone, zone, value);
+                        instanceName, currZone, zone, sample);
                 }
 
+                pendingZone = -1;
                 zone = currZone;
                 value = sample;
             }
+
+            if (zone != notifiedZone && (notificationInterval == 0.0 || data.timestamp >= nextNotificationTime))
+            {
+                //
+                // We have crossed to another zone, let's notify somebody.
+                //
+                triggerHandler.triggerEvent(zone, notifiedZone, value);
+                notifiedZone = zone;
+                nextNotificationTime = data.timestamp + notificationInterval;
+            }
         }
 
         if (debugEnabled)
@@ -282,4 +386,49 @@ public class TrcAnalogTrigger<D>
         }
     }   //triggerTask
 
+    /**
+     * This method determines the zone of the given sensor value. It finds the zone by binary search of the
+     * thresholds and then keeps the current zone if the value is within the hysteresis of its thresholds.
+     *
+     * @param sample specifies the sensor value.
+     * @return zone index.
+     */
+    private int getZone(double sample)
+    {
+        int low = 0;
+        int high = thresholds.length;
+
+        //
+        // Find the number of thresholds that are less than or equal to the sample, i.e. the zone index.
+        //
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+
+            if (sample >= thresholds[mid])
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        if (zone != -1)
+        {
+            while (low > zone && sample < thresholds[low - 1] + hysteresis[low - 1])
+            {
+                low--;
+            }
+
+            while (low < zone && sample >= thresholds[low] - hysteresis[low])
+            {
+                low++;
+            }
+        }
+
+        return low;
+    }   //getZone
+
 }   //class TrcAnalogTrigger
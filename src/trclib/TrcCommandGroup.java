@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+/**
+ * This class implements a robot command that runs a group of robot commands. The commands of a sequence run one
+ * after another, the commands of the other group types run at the same time so that subsystem motions overlap:
+ * a parallel group is done when all its commands are done, a race group is done when any of its commands is done
+ * and a deadline group is done when its first command is done. Commands still running when a race or deadline
+ * group is done are canceled. Groups are robot commands themselves, so they can be nested, for example to drive
+ * while raising the elevator and then flip:
+ *
+ *     TrcCommandGroup.sequence("scale",
+ *         TrcCommandGroup.parallel("approach", driveCommand, elevatorCommand),
+ *         flipCommand);
+ *
+ * Like the other robot commands, the commands must be ready to run when the group calls their cmdPeriodic the
+ * first time, i.e. a TrcCoroutine must already be started. All the commands are stepped on the calling thread in
+ * the order given and a command that finishes lets the next one of a sequence run in the same loop. To run a
+ * group again, call start: it restarts the nested groups and coroutines, other commands must be re-armed by the
+ * caller.
+ */
+public class TrcCommandGroup implements TrcRobot.RobotCommand
+{
+    private static final String moduleName = "TrcCommandGroup";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    public enum GroupType
+    {
+        SEQUENCE,
+        PARALLEL,
+        RACE,
+        DEADLINE
+    }   //enum GroupType
+
+    private final String instanceName;
+    private final GroupType groupType;
+    private final TrcRobot.RobotCommand[] commands;
+    private final boolean[] commandDone;
+    private TrcEvent onFinishedEvent = null;
+    private int currIndex = 0;
+    private boolean done = false;
+    private boolean running = false;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param groupType specifies how the commands are run.
+     * @param commands specifies the commands in the group. For a deadline group, the first command is the deadline.
+     */
+    public TrcCommandGroup(final String instanceName, GroupType groupType, TrcRobot.RobotCommand... commands)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (commands.length == 0)
+        {
+            throw new IllegalArgumentException("Command group must have at least one command.");
+        }
+
+        for (TrcRobot.RobotCommand command: commands)
+        {
+            if (command == null)
+            {
+                throw new IllegalArgumentException("Command group must not have null commands.");
+            }
+        }
+
+        this.instanceName = instanceName;
+        this.groupType = groupType;
+        this.commands = commands.clone();
+        this.commandDone = new boolean[commands.length];
+    }   //TrcCommandGroup
+
+    /**
+     * This method creates a group that runs the given commands one after another.
+     *
+     * @param instanceName specifies the instance name.
+     * @param commands specifies the commands in the group.
+     * @return command group.
+     */
+    public static TrcCommandGroup sequence(final String instanceName, TrcRobot.RobotCommand... commands)
+    {
+        return new TrcCommandGroup(instanceName, GroupType.SEQUENCE, commands);
+    }   //sequence
+
+    /**
+     * This method creates a group that runs the given commands at the same time until all of them are done.
+     *
+     * @param instanceName specifies the instance name.
+     * @param commands specifies the commands in the group.
+     * @return command group.
+     */
+    public static TrcCommandGroup parallel(final String instanceName, TrcRobot.RobotCommand... commands)
+    {
+        return new TrcCommandGroup(instanceName, GroupType.PARALLEL, commands);
+    }   //parallel
+
+    /**
+     * This method creates a group that runs the given commands at the same time until any of them is done.
+     *
+     * @param instanceName specifies the instance name.
+     * @param commands specifies the commands in the group.
+     * @return command group.
+     */
+    public static TrcCommandGroup race(final String instanceName, TrcRobot.RobotCommand... commands)
+    {
+        return new TrcCommandGroup(instanceName, GroupType.RACE, commands);
+    }   //race
+
+    /**
+     * This method creates a group that runs the given commands at the same time until the deadline command is done.
+     *
+     * @param instanceName specifies the instance name.
+     * @param deadline specifies the command that decides when the group is done.
+     * @param commands specifies the other commands in the group.
+     * @return command group.
+     */
+    public static TrcCommandGroup deadline(
+        final String instanceName, TrcRobot.RobotCommand deadline, TrcRobot.RobotCommand... commands)
+    {
+        TrcRobot.RobotCommand[] allCommands = new TrcRobot.RobotCommand[commands.length + 1];
+
+        allCommands[0] = deadline;
+        System.arraycopy(commands, 0, allCommands, 1, commands.length);
+
+        return new TrcCommandGroup(instanceName, GroupType.DEADLINE, allCommands);
+    }   //deadline
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the event to signal when the group is done. The event is cleared.
+     *
+     * @param event specifies the event to signal, null if none.
+     */
+    public void setFinishedEvent(TrcEvent event)
+    {
+        if (event != null)
+        {
+            event.clear();
+        }
+        onFinishedEvent = event;
+    }   //setFinishedEvent
+
+    /**
+     * This method starts the group from the beginning, canceling it first if it is still running. A group that has
+     * not been stepped since it was built or started is not running, so its commands are not canceled. The nested
+     * groups and coroutines are restarted as well. The group does not run until the next cmdPeriodic call.
+     *
+     * @param event specifies the event to signal when the group is done, null if none.
+     */
+    public void start(TrcEvent event)
+    {
+        final String funcName = "start";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "event=%s", event);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        cancel();
+
+        for (int i = 0; i < commands.length; i++)
+        {
+            if (commands[i] instanceof TrcCommandGroup)
+            {
+                ((TrcCommandGroup) commands[i]).start();
+            }
+            else if (commands[i] instanceof TrcCoroutine)
+            {
+                ((TrcCoroutine) commands[i]).start();
+            }
+            commandDone[i] = false;
+        }
+        currIndex = 0;
+        done = false;
+        setFinishedEvent(event);
+    }   //start
+
+    /**
+     * This method starts the group from the beginning, keeping the current finished event.
+     */
+    public void start()
+    {
+        start(onFinishedEvent);
+    }   //start
+
+    /**
+     * This method checks if the group is done.
+     *
+     * @return true if the group is done or canceled, false otherwise.
+     */
+    public boolean isDone()
+    {
+        return done;
+    }   //isDone
+
+    /**
+     * This method checks if the given command of the group is done. A command canceled by the group is not done.
+     *
+     * @param index specifies the index of the command in the group, the deadline command has index 0.
+     * @return true if the command is done, false otherwise.
+     */
+    public boolean isCommandDone(int index)
+    {
+        return commandDone[index];
+    }   //isCommandDone
+
+    //
+    // Implements TrcRobot.RobotCommand interface.
+    //
+
+    /**
+     * This method steps the commands of the group.
+     *
+     * @param elapsedTime specifies the elapsed time of the period in seconds.
+     * @return true if the group is done, false otherwise.
+     */
+    @Override
+    public boolean cmdPeriodic(double elapsedTime)
+    {
+        final String funcName = "cmdPeriodic";
+
+        if (!done)
+        {
+            running = true;
+            if (groupType == GroupType.SEQUENCE)
+            {
+                while (currIndex < commands.length && commands[currIndex].cmdPeriodic(elapsedTime))
+                {
+                    commandDone[currIndex] = true;
+                    currIndex++;
+                }
+                done = currIndex == commands.length;
+            }
+            else
+            {
+                boolean allDone = true;
+                boolean anyDone = false;
+
+                for (int i = 0; i < commands.length; i++)
+                {
+                    if (!commandDone[i] && commands[i].cmdPeriodic(elapsedTime))
+                    {
+                        commandDone[i] = true;
+                    }
+                    allDone &= commandDone[i];
+                    anyDone |= commandDone[i];
+                }
+
+                done = groupType == GroupType.PARALLEL? allDone:
+                       groupType == GroupType.RACE? anyDone: commandDone[0];
+                if (done)
+                {
+                    cancelCommands();
+                }
+            }
+
+            if (done)
+            {
+                running = false;
+                if (debugEnabled)
+                {
+                    dbgTrace.traceInfo(funcName, "%s: %s group done.", instanceName, groupType);
+                }
+
+                if (onFinishedEvent != null)
+                {
+                    onFinishedEvent.set(true);
+                }
+            }
+        }
+
+        return done;
+    }   //cmdPeriodic
+
+    /**
+     * This method cancels all the commands of the group that are still running. The finished event is not
+     * signaled. If the group has not been stepped yet, none of its commands has run so none is canceled.
+     */
+    @Override
+    public void cancel()
+    {
+        final String funcName = "cancel";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (!done)
+        {
+            done = true;
+            if (running)
+            {
+                running = false;
+                cancelCommands();
+            }
+        }
+    }   //cancel
+
+    /**
+     * This method cancels the commands that are not done. A sequence only has its current command running.
+     */
+    private void cancelCommands()
+    {
+        int start = groupType == GroupType.SEQUENCE? currIndex: 0;
+        int end = groupType == GroupType.SEQUENCE? Math.min(currIndex + 1, commands.length): commands.length;
+
+        for (int i = start; i < end; i++)
+        {
+            if (!commandDone[i])
+            {
+                commands[i].cancel();
+            }
+        }
+    }   //cancelCommands
+
+}   //class TrcCommandGroup
@@ -0,0 +1,457 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * This class implements a fixed rate control loop running on its own thread. The main robot loop runs its periodic
+ * tasks when a Driver Station packet arrives and its continuous tasks as fast as it can spin, so the interval
+ * between two calls of a continuous task varies with packet arrival and with how long everything else takes.
+ * Derivative and integral terms of a PID controller are sensitive to that. The control loop calls all tasks
+ * registered as CONTROL_TASK at a fixed rate instead. It sleeps to absolute deadlines so the execution time of the
+ * tasks does not accumulate as drift. If a cycle overruns its period, the missed deadlines are skipped rather than
+ * run back to back. The loop keeps statistics of the actual period so the jitter can be checked in the trace log.
+ * An exception thrown by a control task is traced and counted, and the loop carries on with the next cycle.
+ * Only one control loop may exist at a time.
+ */
+public class TrcControlLoop implements Runnable
+{
+    private static final String moduleName = "TrcControlLoop";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    public static final double DEF_FREQUENCY = 200.0;
+    public static final long DEF_STOP_TIMEOUT = 1000;                   //in msec
+    private static final long EXCEPTION_TRACE_INTERVAL = 1000000000L;   //in nsec
+
+    private static TrcControlLoop instance = null;
+
+    private final String instanceName;
+    private final long periodNanos;
+    private final Supplier<TrcRobot.RunMode> runModeSupplier;
+    private final TrcTaskMgr taskMgr;
+    private final Thread controlThread;
+    private volatile boolean running = false;
+    //
+    // Statistics.
+    //
+    private long cycleCount = 0;
+    private long overrunCount = 0;
+    private long minPeriodNanos = Long.MAX_VALUE;
+    private long maxPeriodNanos = 0;
+    private double periodSum = 0.0;
+    private double periodSquareSum = 0.0;
+    private long maxTaskNanos = 0;
+    private long taskNanosSum = 0;
+    private long exceptionCount = 0;
+    private long lastExceptionTraceTime = 0;
+    private long untracedExceptionCount = 0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param frequency specifies the loop frequency in Hz.
+     * @param threadPriority specifies the Java thread priority of the control thread.
+     * @param runModeSupplier specifies the method to call to get the current robot run mode.
+     */
+    public TrcControlLoop(
+            final String instanceName, double frequency, int threadPriority,
+            Supplier<TrcRobot.RunMode> runModeSupplier)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (instance != null)
+        {
+            throw new IllegalStateException("Control loop has already been created.");
+        }
+
+        if (frequency <= 0.0)
+        {
+            throw new IllegalArgumentException("Frequency must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        this.periodNanos = (long)(1000000000.0/frequency);
+        this.runModeSupplier = runModeSupplier;
+        taskMgr = TrcTaskMgr.getInstance();
+        controlThread = new Thread(this, instanceName);
+        controlThread.setDaemon(true);
+        controlThread.setPriority(threadPriority);
+        instance = this;
+    }   //TrcControlLoop
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param frequency specifies the loop frequency in Hz.
+     * @param runModeSupplier specifies the method to call to get the current robot run mode.
+     */
+    public TrcControlLoop(final String instanceName, double frequency, Supplier<TrcRobot.RunMode> runModeSupplier)
+    {
+        this(instanceName, frequency, Thread.MAX_PRIORITY, runModeSupplier);
+    }   //TrcControlLoop
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the global instance of the control loop.
+     *
+     * @return global instance of the control loop, null if none was created.
+     */
+    public static TrcControlLoop getInstance()
+    {
+        return instance;
+    }   //getInstance
+
+    /**
+     * This method returns the task type a control task should register as. If the control loop is running, it is
+     * CONTROL_TASK so the task runs on the control thread. Otherwise, it is POSTCONTINUOUS_TASK so the task runs on
+     * the main robot loop as before.
+     *
+     * @return task type for control tasks.
+     */
+    public static TrcTaskMgr.TaskType getControlTaskType()
+    {
+        return instance != null && instance.running?
+            TrcTaskMgr.TaskType.CONTROL_TASK: TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK;
+    }   //getControlTaskType
+
+    /**
+     * This method starts the control loop. It should be called at the end of robot initialization before any
+     * control task is enabled.
+     */
+    public void start()
+    {
+        final String funcName = "start";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (!running)
+        {
+            running = true;
+            controlThread.start();
+        }
+    }   //start
+
+    /**
+     * This method stops the control loop and waits for the control thread to exit. The control loop cannot be
+     * restarted, but a new one can be created once this one has stopped.
+     *
+     * @param timeout specifies the maximum time to wait for the control thread in msec.
+     * @return true if the control thread has exited, false if it is still running after the timeout.
+     */
+    public boolean stop(long timeout)
+    {
+        final String funcName = "stop";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "timeout=%d", timeout);
+        }
+
+        running = false;
+        controlThread.interrupt();
+        try
+        {
+            controlThread.join(timeout);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        boolean stopped = !controlThread.isAlive();
+        if (stopped && instance == this)
+        {
+            instance = null;
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", stopped);
+        }
+
+        return stopped;
+    }   //stop
+
+    /**
+     * This method stops the control loop and waits for the control thread to exit with the default timeout.
+     *
+     * @return true if the control thread has exited, false if it is still running after the timeout.
+     */
+    public boolean stop()
+    {
+        return stop(DEF_STOP_TIMEOUT);
+    }   //stop
+
+    /**
+     * This method checks if the control loop is running.
+     *
+     * @return true if the control loop is running, false otherwise.
+     */
+    public boolean isRunning()
+    {
+        return running;
+    }   //isRunning
+
+    /**
+     * This method returns the loop period.
+     *
+     * @return loop period in seconds.
+     */
+    public double getPeriod()
+    {
+        return periodNanos/1000000000.0;
+    }   //getPeriod
+
+    /**
+     * This method clears the loop statistics.
+     */
+    public synchronized void resetStatistics()
+    {
+        cycleCount = 0;
+        overrunCount = 0;
+        minPeriodNanos = Long.MAX_VALUE;
+        maxPeriodNanos = 0;
+        periodSum = 0.0;
+        periodSquareSum = 0.0;
+        maxTaskNanos = 0;
+        taskNanosSum = 0;
+        exceptionCount = 0;
+    }   //resetStatistics
+
+    /**
+     * This method returns the standard deviation of the actual loop period since the statistics were reset.
+     *
+     * @return period jitter in seconds.
+     */
+    public synchronized double getJitter()
+    {
+        double jitter = 0.0;
+
+        if (cycleCount > 1)
+        {
+            double mean = periodSum/cycleCount;
+            jitter = Math.sqrt(Math.max(periodSquareSum/cycleCount - mean*mean, 0.0))/1000000000.0;
+        }
+
+        return jitter;
+    }   //getJitter
+
+    /**
+     * This method returns the number of cycles that took longer than the loop period since the statistics were
+     * reset.
+     *
+     * @return number of overruns.
+     */
+    public synchronized long getOverrunCount()
+    {
+        return overrunCount;
+    }   //getOverrunCount
+
+    /**
+     * This method returns the number of cycles in which a control task threw an exception since the statistics
+     * were reset.
+     *
+     * @return number of exceptions.
+     */
+    public synchronized long getExceptionCount()
+    {
+        return exceptionCount;
+    }   //getExceptionCount
+
+    /**
+     * This method prints the loop statistics with the given tracer.
+     *
+     * @param tracer specifies the tracer to be used for printing the statistics.
+     */
+    public synchronized void printStatistics(TrcDbgTrace tracer)
+    {
+        final String funcName = "printStatistics";
+
+        if (cycleCount > 0)
+        {
+            tracer.traceInfo(
+                funcName,
+                "%s: Cycles=%d, Period=%.3f/%.3f/%.3f ms (min/avg/max), Jitter=%.3f ms, Overruns=%d, " +
+                "TaskTime=%.3f/%.3f ms (avg/max), Exceptions=%d",
+                instanceName, cycleCount, minPeriodNanos/1000000.0, periodSum/cycleCount/1000000.0,
+                maxPeriodNanos/1000000.0, getJitter()*1000.0, overrunCount,
+                (double)taskNanosSum/cycleCount/1000000.0, maxTaskNanos/1000000.0, exceptionCount);
+        }
+    }   //printStatistics
+
+    /**
+     * This method updates the loop statistics for one cycle.
+     *
+     * @param actualPeriod specifies the time since the previous cycle started in nano seconds.
+     * @param taskTime specifies the time taken by the control tasks in nano seconds.
+     * @param overrun specifies true if the cycle overran its period.
+     */
+    private synchronized void updateStatistics(long actualPeriod, long taskTime, boolean overrun)
+    {
+        cycleCount++;
+        if (overrun)
+        {
+            overrunCount++;
+        }
+
+        if (actualPeriod < minPeriodNanos)
+        {
+            minPeriodNanos = actualPeriod;
+        }
+
+        if (actualPeriod > maxPeriodNanos)
+        {
+            maxPeriodNanos = actualPeriod;
+        }
+
+        periodSum += actualPeriod;
+        periodSquareSum += (double)actualPeriod*actualPeriod;
+        taskNanosSum += taskTime;
+        if (taskTime > maxTaskNanos)
+        {
+            maxTaskNanos = taskTime;
+        }
+    }   //updateStatistics
+
+    /**
+     * This method records an exception thrown by a control task. To keep a task failing every cycle from flooding
+     * the trace log, at most one exception is traced per second together with the number of untraced ones.
+     *
+     * @param e specifies the exception.
+     * @param currTime specifies the current time in nano seconds.
+     */
+    private void handleException(RuntimeException e, long currTime)
+    {
+        final String funcName = "handleException";
+
+        synchronized (this)
+        {
+            exceptionCount++;
+        }
+
+        if (lastExceptionTraceTime == 0 || currTime - lastExceptionTraceTime >= EXCEPTION_TRACE_INTERVAL)
+        {
+            TrcDbgTrace.getGlobalTracer().traceErr(
+                funcName, "%s: control task failed (%d more since last report): %s",
+                instanceName, untracedExceptionCount, e);
+            lastExceptionTraceTime = currTime;
+            untracedExceptionCount = 0;
+        }
+        else
+        {
+            untracedExceptionCount++;
+        }
+    }   //handleException
+
+    //
+    // Implements Runnable interface.
+    //
+
+    /**
+     * This method runs the control loop.
+     */
+    @Override
+    public void run()
+    {
+        final String funcName = "run";
+        long deadline = TrcUtil.getCurrentTimeNanos();
+        long prevStartTime = 0;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.CALLBK);
+        }
+
+        while (running && !Thread.interrupted())
+        {
+            long startTime = TrcUtil.getCurrentTimeNanos();
+
+            try
+            {
+                taskMgr.executeTaskType(TrcTaskMgr.TaskType.CONTROL_TASK, runModeSupplier.get());
+            }
+            catch (RuntimeException e)
+            {
+                handleException(e, startTime);
+            }
+
+            long endTime = TrcUtil.getCurrentTimeNanos();
+            boolean overrun = false;
+
+            deadline += periodNanos;
+            if (endTime >= deadline)
+            {
+                //
+                // We missed the deadline. Skip the missed cycles and start the next one right away.
+                //
+                overrun = true;
+                deadline = endTime;
+            }
+
+            if (prevStartTime != 0)
+            {
+                updateStatistics(startTime - prevStartTime, endTime - startTime, overrun);
+            }
+            prevStartTime = startTime;
+
+            long sleepTime;
+            while (running && (sleepTime = deadline - TrcUtil.getCurrentTimeNanos()) > 0)
+            {
+                LockSupport.parkNanos(sleepTime);
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.CALLBK);
+        }
+    }   //run
+
+}   //class TrcControlLoop
@@ -0,0 +1,486 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class implements a robot command whose actions are written as straight-line code instead of a state
+ * machine. The routine runs on its own thread, but it only runs while the robot loop is blocked in cmdPeriodic,
+ * so exactly one of them runs at a time and the routine sees the robot exactly as a state machine would. When the
+ * routine awaits events or time, it hands control back to the loop and cmdPeriodic does not resume it until the
+ * events are signaled or the time is up. An idle routine therefore costs one flag check per loop regardless of
+ * what it is waiting for. For example:
+ *
+ *     new TrcCoroutine("autoRoutine", co ->
+ *     {
+ *         pidDrive.setTarget(0.0, 48.0, 0.0, false, event);
+ *         co.awaitEvent(event);
+ *         pidDrive.setTarget(0.0, 0.0, 90.0, false, event);
+ *         co.awaitEvent(event, 2.0);
+ *     });
+ *
+ * Canceling the command interrupts the routine at its current await, which throws InterruptedException so that
+ * the routine's finally blocks run before cancel returns.
+ */
+public class TrcCoroutine implements TrcRobot.RobotCommand
+{
+    private static final String moduleName = "TrcCoroutine";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This interface is implemented by the routine code.
+     */
+    public interface Routine
+    {
+        /**
+         * This method runs the routine. It is called on the coroutine thread and must only block by calling the
+         * await methods of the coroutine.
+         *
+         * @param coroutine specifies the coroutine running the routine.
+         * @throws InterruptedException if the coroutine is canceled.
+         */
+        void run(TrcCoroutine coroutine) throws InterruptedException;
+
+    }   //interface Routine
+
+    private final String instanceName;
+    private final Routine routine;
+    private final Semaphore resumeSemaphore = new Semaphore(0);
+    private final Semaphore yieldSemaphore = new Semaphore(0);
+    private volatile boolean canceled = false;
+    private Thread thread = null;
+    private TrcEvent onFinishedEvent = null;
+    private double elapsedTime = 0.0;
+    //
+    // The following are written by the thread that runs and read by the other one after the semaphore handoff,
+    // so they need no further synchronization.
+    //
+    private TrcEventWaiter waiter = null;
+    private double resumeTime = 0.0;
+    private boolean finished = false;
+    private Throwable failure = null;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param routine specifies the routine to run.
+     */
+    public TrcCoroutine(final String instanceName, Routine routine)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        this.routine = routine;
+    }   //TrcCoroutine
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method starts the routine from the beginning, canceling it first if it is still running. The routine
+     * does not run until the next cmdPeriodic call.
+     *
+     * @param onFinishedEvent specifies the event to signal when the routine returns, can be null. The event is
+     *                        canceled if the routine throws, including an InterruptedException while the
+     *                        coroutine was not canceled.
+     */
+    public void start(TrcEvent onFinishedEvent)
+    {
+        final String funcName = "start";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "event=%s", onFinishedEvent);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        cancel();
+
+        if (onFinishedEvent != null)
+        {
+            onFinishedEvent.clear();
+        }
+
+        this.onFinishedEvent = onFinishedEvent;
+        canceled = false;
+        waiter = null;
+        resumeTime = 0.0;
+        finished = false;
+        failure = null;
+        thread = new Thread(this::coroutineThread, instanceName);
+        thread.setDaemon(true);
+        thread.start();
+    }   //start
+
+    /**
+     * This method starts the routine from the beginning, canceling it first if it is still running.
+     */
+    public void start()
+    {
+        start(null);
+    }   //start
+
+    /**
+     * This method cancels the routine if it is running. It returns after the routine has unwound.
+     */
+    @Override
+    public void cancel()
+    {
+        final String funcName = "cancel";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (isActive())
+        {
+            canceled = true;
+            thread.interrupt();
+            Thread prevDelegate = TrcDataRecorder.setLoopDelegate(thread);
+            yieldSemaphore.acquireUninterruptibly();
+            TrcDataRecorder.setLoopDelegate(prevDelegate);
+        }
+        thread = null;
+    }   //cancel
+
+    /**
+     * This method returns the exception thrown by the routine.
+     *
+     * @return exception thrown by the last run of the routine, null if it did not throw or has not finished.
+     */
+    public Throwable getFailure()
+    {
+        return thread == null? failure: null;
+    }   //getFailure
+
+    /**
+     * This method checks if the routine is started and has not returned yet.
+     *
+     * @return true if the routine is active, false otherwise.
+     */
+    public boolean isActive()
+    {
+        return thread != null && !finished;
+    }   //isActive
+
+    //
+    // Implements TrcRobot.RobotCommand interface.
+    //
+
+    /**
+     * This method resumes the routine if what it is waiting for has happened and returns when the routine awaits
+     * again or returns. If the routine threw an exception, the exception is traced, the finished event is canceled
+     * and getFailure returns it.
+     *
+     * @param elapsedTime specifies the elapsed time of the period in seconds.
+     * @return true if the routine is not active, false otherwise.
+     */
+    @Override
+    public boolean cmdPeriodic(double elapsedTime)
+    {
+        final String funcName = "cmdPeriodic";
+
+        if (!isActive())
+        {
+            return true;
+        }
+
+        if (waiter != null && waiter.isReady() || resumeTime == 0.0 || TrcUtil.getCurrentTime() >= resumeTime)
+        {
+            this.elapsedTime = elapsedTime;
+            //
+            // Restore the previous delegate afterwards, this command may itself run in the routine of another
+            // coroutine.
+            //
+            Thread prevDelegate = TrcDataRecorder.setLoopDelegate(thread);
+            resumeSemaphore.release();
+            yieldSemaphore.acquireUninterruptibly();
+            TrcDataRecorder.setLoopDelegate(prevDelegate);
+
+            if (finished)
+            {
+                thread = null;
+                if (failure != null)
+                {
+                    //
+                    // Report the failure instead of throwing it into the robot loop, and cancel the event so that
+                    // whoever waits for the routine moves on knowing it did not complete.
+                    //
+                    TrcDbgTrace.getGlobalTracer().traceErr(
+                        funcName, "%s: routine failed: %s", instanceName, failure);
+                    if (onFinishedEvent != null)
+                    {
+                        onFinishedEvent.cancel();
+                    }
+                }
+                else if (onFinishedEvent != null)
+                {
+                    onFinishedEvent.set(true);
+                }
+            }
+        }
+
+        return thread == null;
+    }   //cmdPeriodic
+
+    //
+    // The following methods are called by the routine on the coroutine thread.
+    //
+
+    /**
+     * This method gives control back to the robot loop and resumes on the next cmdPeriodic call.
+     *
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public void yieldLoop() throws InterruptedException
+    {
+        suspend(null, 0.0);
+    }   //yieldLoop
+
+    /**
+     * This method gives control back to the robot loop for the given amount of time.
+     *
+     * @param time specifies the time to wait in seconds.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public void sleep(double time) throws InterruptedException
+    {
+        suspend(null, TrcUtil.getCurrentTime() + time);
+    }   //sleep
+
+    /**
+     * This method waits until any of the given events is signaled or canceled, or the timeout expires. It returns
+     * immediately if an event is already signaled or canceled, so the events must be cleared before the actions
+     * that signal them are started, as TrcPidDrive and TrcTimer do.
+     *
+     * @param timeout specifies the timeout in seconds, zero for no timeout.
+     * @param events specifies the events to wait for.
+     * @return true if an event was signaled or canceled, false if the timeout expired.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public boolean awaitAny(double timeout, TrcEvent... events) throws InterruptedException
+    {
+        return await(timeout, events, false);
+    }   //awaitAny
+
+    /**
+     * This method waits until any of the given events is signaled or canceled.
+     *
+     * @param events specifies the events to wait for.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public void awaitAny(TrcEvent... events) throws InterruptedException
+    {
+        await(0.0, events, false);
+    }   //awaitAny
+
+    /**
+     * This method waits until all the given events are signaled or canceled, or the timeout expires. Events that
+     * are already signaled or canceled count as done.
+     *
+     * @param timeout specifies the timeout in seconds, zero for no timeout.
+     * @param events specifies the events to wait for.
+     * @return true if all events were signaled or canceled, false if the timeout expired.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public boolean awaitAll(double timeout, TrcEvent... events) throws InterruptedException
+    {
+        return await(timeout, events, true);
+    }   //awaitAll
+
+    /**
+     * This method waits until all the given events are signaled or canceled.
+     *
+     * @param events specifies the events to wait for.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public void awaitAll(TrcEvent... events) throws InterruptedException
+    {
+        await(0.0, events, true);
+    }   //awaitAll
+
+    /**
+     * This method waits until the given event is signaled or canceled, or the timeout expires.
+     *
+     * @param event specifies the event to wait for.
+     * @param timeout specifies the timeout in seconds, zero for no timeout.
+     * @return true if the event was signaled or canceled, false if the timeout expired.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public boolean awaitEvent(TrcEvent event, double timeout) throws InterruptedException
+    {
+        return await(timeout, new TrcEvent[] {event}, false);
+    }   //awaitEvent
+
+    /**
+     * This method waits until the given event is signaled or canceled.
+     *
+     * @param event specifies the event to wait for.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public void awaitEvent(TrcEvent event) throws InterruptedException
+    {
+        await(0.0, new TrcEvent[] {event}, false);
+    }   //awaitEvent
+
+    /**
+     * This method runs a robot command to completion, calling its cmdPeriodic once per loop. This lets the routine
+     * reuse existing state machine commands.
+     *
+     * @param command specifies the command to run.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    public void runCommand(TrcRobot.RobotCommand command) throws InterruptedException
+    {
+        checkCoroutineThread();
+        while (!command.cmdPeriodic(elapsedTime))
+        {
+            yieldLoop();
+        }
+    }   //runCommand
+
+    /**
+     * This method waits for any or all of the given events.
+     *
+     * @param timeout specifies the timeout in seconds, zero for no timeout.
+     * @param events specifies the events to wait for.
+     * @param waitForAllEvents specifies true to wait for all events, false to wait for any of them.
+     * @return true if the events were signaled or canceled, false if the timeout expired.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    private boolean await(double timeout, TrcEvent[] events, boolean waitForAllEvents) throws InterruptedException
+    {
+        TrcEventWaiter eventWaiter = new TrcEventWaiter(events, waitForAllEvents);
+
+        eventWaiter.register();
+        try
+        {
+            if (!eventWaiter.isReady())
+            {
+                suspend(eventWaiter, timeout > 0.0? TrcUtil.getCurrentTime() + timeout: Double.POSITIVE_INFINITY);
+            }
+        }
+        finally
+        {
+            eventWaiter.unregister();
+        }
+
+        return eventWaiter.isReady();
+    }   //await
+
+    /**
+     * This method gives control back to the robot loop until the given waiter is ready or the given time is up.
+     *
+     * @param eventWaiter specifies the waiter to wait for, null if none.
+     * @param resumeTime specifies the time to resume, zero to resume on the next loop.
+     * @throws InterruptedException if the coroutine is canceled.
+     */
+    private void suspend(TrcEventWaiter eventWaiter, double resumeTime) throws InterruptedException
+    {
+        checkCoroutineThread();
+
+        try
+        {
+            if (canceled)
+            {
+                throw new InterruptedException();
+            }
+
+            this.waiter = eventWaiter;
+            this.resumeTime = resumeTime;
+            yieldSemaphore.release();
+            resumeSemaphore.acquire();
+        }
+        finally
+        {
+            this.waiter = null;
+        }
+    }   //suspend
+
+    /**
+     * This method makes sure that a routine method is called on the coroutine thread.
+     */
+    private void checkCoroutineThread()
+    {
+        if (Thread.currentThread() != thread)
+        {
+            throw new IllegalStateException("Must be called by the routine of " + instanceName + ".");
+        }
+    }   //checkCoroutineThread
+
+    /**
+     * This method runs on the coroutine thread. It waits for the first cmdPeriodic call, runs the routine and hands
+     * control back to the loop when the routine returns or throws.
+     */
+    private void coroutineThread()
+    {
+        try
+        {
+            resumeSemaphore.acquire();
+            routine.run(this);
+        }
+        catch (InterruptedException e)
+        {
+            //
+            // The await methods only throw this when the coroutine is canceled. Otherwise the routine was
+            // interrupted by something else and did not complete, so it is reported as a failure.
+            //
+            if (!canceled)
+            {
+                failure = e;
+            }
+        }
+        catch (Throwable e)
+        {
+            failure = e;
+        }
+        finally
+        {
+            finished = true;
+            yieldSemaphore.release();
+        }
+    }   //coroutineThread
+
+}   //class TrcCoroutine
@@ -0,0 +1,1360 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * This class implements a match recorder and replayer. While recording, every sensor read, driver input, motor
+ * output and time read made by the robot loop thread goes through a named channel and is written to a compact
+ * binary log, together with a frame marker for every robot loop iteration. While replaying, the same robot code
+ * runs on a desktop (see simlib.SimRobotBase.replay) and the channels feed the recorded values back in the order
+ * they were read. The time source is replaced by the recorded time, so control loops compute the same results as
+ * in the match, and every motor output is compared with the recorded one.
+ *
+ * Only the robot loop thread (the thread that starts the recording or replay) is recorded and replayed. Reads and
+ * writes from other threads (e.g. serial bus device threads or the control loop thread) pass through while
+ * recording and get the last replayed value while replaying.
+ *
+ * The log consists of a header (magic, version, start time) followed by tagged records. Channel names are written
+ * once, the first time a channel is used. Samples that did not change since the previous sample of the channel
+ * are written as a repeat record without the value, and times are written as variable length deltas.
+ *
+ * While recording, the loop thread only encodes records into preallocated blocks. Full blocks are handed to a
+ * writer thread which writes them to the file, so a slow file system never stalls the robot loop. If the writer
+ * falls so far behind that no free block is left, the recording is stopped instead of blocking the loop.
+ */
+public class TrcDataRecorder
+{
+    private static final String moduleName = "TrcDataRecorder";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private static final int FILE_MAGIC = 0x54524352;   //"TRCR"
+    private static final int FILE_VERSION = 1;
+    private static final int TAG_CHANNEL = 1;
+    private static final int TAG_FRAME = 2;
+    private static final int TAG_PERIODIC = 3;
+    private static final int TAG_SAMPLE = 4;
+    private static final int TAG_REPEAT = 5;
+    private static final int TAG_TIME = 6;
+    private static final int BUFFER_SIZE = 65536;
+    private static final int NUM_BLOCKS = 8;
+    private static final int MAX_NAME_BYTES = 1024;
+    private static final long WRITER_CLOSE_TIMEOUT = 1000;  //in msec.
+    private static final double OUTPUT_TOLERANCE = 1.0e-9;
+    //
+    // The robot loop passes the elapsed time of the current mode through this channel.
+    //
+    public static final String MODE_ELAPSED_TIME_CHANNEL = "robot.modeElapsedTime";
+
+    public enum Mode
+    {
+        RECORD,
+        REPLAY
+    }   //enum Mode
+
+    /**
+     * This class implements a named data channel. Channels are created once by the object owning the data and
+     * live as long as the program, so they can be used across recordings.
+     */
+    public static class Channel
+    {
+        private final int id;
+        private final String name;
+        private final byte[] nameBytes;
+        private final boolean isOutput;
+        private boolean defined = false;
+        private double lastValue = Double.NaN;
+        private double fileValue = Double.NaN;
+        private final ArrayDeque<Double> replayQueue = new ArrayDeque<>();
+        private int numMismatches = 0;
+        private double maxError = 0.0;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param id specifies the channel ID.
+         * @param name specifies the channel name.
+         * @param isOutput specifies true if the channel carries an output, false if it carries an input.
+         */
+        private Channel(int id, String name, boolean isOutput)
+        {
+            //
+            // Encode the name once, so that defining the channel in the log does not allocate on the loop thread.
+            //
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+            try
+            {
+                new DataOutputStream(bytes).writeUTF(name);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalArgumentException("Invalid channel name " + name + ": " + e);
+            }
+
+            if (bytes.size() > MAX_NAME_BYTES)
+            {
+                throw new IllegalArgumentException("Channel name is too long: " + name);
+            }
+
+            this.id = id;
+            this.name = name;
+            this.nameBytes = bytes.toByteArray();
+            this.isOutput = isOutput;
+        }   //Channel
+
+        /**
+         * This method returns the channel name.
+         *
+         * @return channel name.
+         */
+        @Override
+        public String toString()
+        {
+            return name;
+        }   //toString
+
+        /**
+         * This method resets the channel state for a new recording or replay.
+         */
+        private void reset()
+        {
+            defined = false;
+            lastValue = Double.NaN;
+            fileValue = Double.NaN;
+            replayQueue.clear();
+            numMismatches = 0;
+            maxError = 0.0;
+        }   //reset
+
+        /**
+         * This method passes an input value through the channel. While recording, the value is recorded and
+         * returned. While replaying, the recorded value is returned instead.
+         *
+         * @param value specifies the value read from the hardware.
+         * @return value to use.
+         */
+        public double input(double value)
+        {
+            TrcDataRecorder recorder = instance;
+            return recorder != null? recorder.processInput(this, value): value;
+        }   //input
+
+        /**
+         * This method passes a boolean input value through the channel.
+         *
+         * @param value specifies the value read from the hardware.
+         * @return value to use.
+         */
+        public boolean input(boolean value)
+        {
+            return input(value? 1.0: 0.0) != 0.0;
+        }   //input
+
+        /**
+         * This method passes an integer input value through the channel.
+         *
+         * @param value specifies the value read from the hardware.
+         * @return value to use.
+         */
+        public int input(int value)
+        {
+            return (int)input((double)value);
+        }   //input
+
+        /**
+         * This method passes an output value through the channel. While recording, the value is recorded. While
+         * replaying, it is compared with the recorded value.
+         *
+         * @param value specifies the output value.
+         */
+        public void output(double value)
+        {
+            TrcDataRecorder recorder = instance;
+
+            if (recorder != null)
+            {
+                recorder.processOutput(this, value);
+            }
+        }   //output
+
+    }   //class Channel
+
+    /**
+     * This class implements a block of encoded records passed from the loop thread to the writer thread.
+     */
+    private static class Block
+    {
+        final byte[] data;
+        int length = 0;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param size specifies the block size in bytes.
+         */
+        Block(int size)
+        {
+            data = new byte[size];
+        }   //Block
+
+    }   //class Block
+
+    /**
+     * This class implements the time source used while recording or replaying.
+     */
+    private class RecorderTimeSource implements TrcUtil.TimeSource
+    {
+        /**
+         * This method returns the current time in nano seconds.
+         *
+         * @return current time in nano seconds.
+         */
+        @Override
+        public long getNanoTime()
+        {
+            //
+            // The instance check is a volatile read, so a time read never takes a lock. A time source that is
+            // still held by someone after the recorder was closed falls back to the source it replaced.
+            //
+            return instance == TrcDataRecorder.this? processTime(): getSourceTimeNanos();
+        }   //getNanoTime
+
+        /**
+         * This method sleeps for the given amount of time. While replaying, the loop thread does not sleep because
+         * its time comes from the recording.
+         *
+         * @param milliTime specifies sleep time in msec.
+         */
+        @Override
+        public void sleep(long milliTime)
+        {
+            if (mode == Mode.RECORD || !isLoopThread())
+            {
+                long wakeupTime = System.currentTimeMillis() + milliTime;
+
+                while (milliTime > 0)
+                {
+                    try
+                    {
+                        Thread.sleep(milliTime);
+                        break;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        milliTime = wakeupTime - System.currentTimeMillis();
+                    }
+                }
+            }
+        }   //sleep
+
+    }   //class RecorderTimeSource
+
+    private static final HashMap<String, Channel> channelMap = new HashMap<>();
+    private static final ArrayList<Channel> channelList = new ArrayList<>();
+    private static volatile TrcDataRecorder instance = null;
+    private static volatile Thread loopDelegate = null;
+    //
+    // Marks the end of the recording for the writer thread.
+    //
+    private static final Block CLOSE_BLOCK = new Block(0);
+
+    private final Mode mode;
+    private final String filePath;
+    private final Thread loopThread;
+    private final TrcUtil.TimeSource prevTimeSource;
+    private DataInputStream inStream = null;
+    private volatile long lastNanoTime;
+    //
+    // Record states. The current block is only touched by the loop thread, the queues pass blocks between the
+    // loop thread and the writer thread.
+    //
+    private ArrayBlockingQueue<Block> freeBlocks = null;
+    private ArrayBlockingQueue<Block> fullBlocks = null;
+    private Block currBlock = null;
+    private Thread writerThread = null;
+    private volatile IOException writeError = null;
+    //
+    // Replay states.
+    //
+    private final ArrayDeque<Long> timeQueue = new ArrayDeque<>();
+    private Channel[] fileChannels = new Channel[64];
+    private TrcRobot.RunMode frameMode = TrcRobot.RunMode.INVALID_MODE;
+    private TrcRobot.RunMode nextFrameMode = null;
+    private boolean framePeriodic = false;
+    private boolean endOfFile = false;
+    private long lastRecordedTime;
+    //
+    // Statistics.
+    //
+    private long numFrames = 0;
+    private long numSamples = 0;
+    private long numInputMismatches = 0;
+    private long numOutputMismatches = 0;
+    private double maxOutputError = 0.0;
+    private String firstMismatch = null;
+
+    /**
+     * This method returns the channel with the given name, creating it if necessary.
+     *
+     * @param name specifies the channel name. It must be unique and the same between recording and replay.
+     * @param isOutput specifies true if the channel carries an output, false if it carries an input.
+     * @return channel.
+     */
+    public static Channel getChannel(String name, boolean isOutput)
+    {
+        synchronized (channelMap)
+        {
+            Channel channel = channelMap.get(name);
+
+            if (channel == null)
+            {
+                channel = new Channel(channelList.size(), name, isOutput);
+                channelMap.put(name, channel);
+                channelList.add(channel);
+            }
+
+            return channel;
+        }
+    }   //getChannel
+
+    /**
+     * This method returns the active recorder.
+     *
+     * @return active recorder, null if not recording or replaying.
+     */
+    public static TrcDataRecorder getInstance()
+    {
+        return instance;
+    }   //getInstance
+
+    /**
+     * This method checks if a recording or replay is active. Objects check this before looking up channels so
+     * that there is no overhead when nothing is recorded.
+     *
+     * @return true if recording or replaying, false otherwise.
+     */
+    public static boolean isActive()
+    {
+        return instance != null;
+    }   //isActive
+
+    /**
+     * This method returns the current time in nano seconds without recording it. The robot loop and the task
+     * manager use it for their own bookkeeping, so that the recorded times are only those read by the robot code
+     * and a replay does not depend on the platform specific loop.
+     *
+     * @return current time in nano seconds.
+     */
+    public static long getUnrecordedTimeNanos()
+    {
+        TrcDataRecorder recorder = instance;
+
+        if (recorder == null)
+        {
+            return TrcUtil.getCurrentTimeNanos();
+        }
+        else
+        {
+            return recorder.getSourceTimeNanos();
+        }
+    }   //getUnrecordedTimeNanos
+
+    /**
+     * This method returns the current time of the time source that was installed before the recorder.
+     *
+     * @return current time in nano seconds.
+     */
+    private long getSourceTimeNanos()
+    {
+        return prevTimeSource != null? prevTimeSource.getNanoTime(): System.nanoTime();
+    }   //getSourceTimeNanos
+
+    /**
+     * This method returns the current time in seconds without recording it.
+     *
+     * @return current time in seconds.
+     */
+    public static double getUnrecordedTime()
+    {
+        return getUnrecordedTimeNanos()/1000000000.0;
+    }   //getUnrecordedTime
+
+    /**
+     * This method lets another thread act as the loop thread while the loop thread is blocked waiting for it, so
+     * that the robot code it runs is recorded and replayed like code running on the loop thread. TrcCoroutine
+     * uses it while it steps its routine. Since a routine can step another coroutine, the caller restores the
+     * returned delegate when it is done instead of clearing it.
+     *
+     * @param thread specifies the thread acting for the loop thread, null to clear it.
+     * @return previous delegate, null if none.
+     */
+    static Thread setLoopDelegate(Thread thread)
+    {
+        Thread prevDelegate = loopDelegate;
+        loopDelegate = thread;
+        return prevDelegate;
+    }   //setLoopDelegate
+
+    /**
+     * This method checks if the calling thread is the loop thread or is acting for it.
+     *
+     * @return true if the calling thread is recorded, false otherwise.
+     */
+    private boolean isLoopThread()
+    {
+        Thread thread = Thread.currentThread();
+        return thread == loopThread || thread == loopDelegate;
+    }   //isLoopThread
+
+    /**
+     * This method starts recording to the given file. The calling thread is the robot loop thread.
+     *
+     * @param filePath specifies the log file path.
+     * @return true if the recording is started, false if the file cannot be created or already active.
+     */
+    public static synchronized boolean startRecording(String filePath)
+    {
+        boolean success = false;
+
+        if (instance == null)
+        {
+            try
+            {
+                TrcDataRecorder recorder = new TrcDataRecorder(Mode.RECORD, filePath);
+                recorder.start();
+                success = true;
+            }
+            catch (IOException e)
+            {
+                TrcDbgTrace.getGlobalTracer().traceErr("startRecording", "Failed to create %s: %s", filePath, e);
+            }
+        }
+
+        return success;
+    }   //startRecording
+
+    /**
+     * This method starts recording to a file in the given folder. The file name is formed by concatenating the
+     * date-time stamp with the specified file name, like the trace log.
+     *
+     * @param folderPath specifies the folder path.
+     * @param fileName specifies the file name, null if none provided.
+     * @return true if the recording is started, false otherwise.
+     */
+    public static boolean startRecording(String folderPath, String fileName)
+    {
+        new File(folderPath).mkdir();
+        String filePath = folderPath + File.separator + TrcUtil.getTimestamp();
+
+        if (fileName != null)
+        {
+            filePath += "!" + fileName;
+        }
+
+        return startRecording(filePath + ".rec");
+    }   //startRecording
+
+    /**
+     * This method starts replaying the given file. The calling thread is the robot loop thread. The records
+     * before the first frame (i.e. the reads done while initializing the robot) are loaded immediately, so the
+     * robot must be initialized after this call.
+     *
+     * @param filePath specifies the log file path.
+     * @return true if the replay is started, false if the file cannot be read or already active.
+     */
+    public static synchronized boolean startReplay(String filePath)
+    {
+        boolean success = false;
+
+        if (instance == null)
+        {
+            try
+            {
+                TrcDataRecorder recorder = new TrcDataRecorder(Mode.REPLAY, filePath);
+                recorder.start();
+                success = true;
+            }
+            catch (IOException e)
+            {
+                TrcDbgTrace.getGlobalTracer().traceErr("startReplay", "Failed to read %s: %s", filePath, e);
+            }
+        }
+
+        return success;
+    }   //startReplay
+
+    /**
+     * This method marks the start of a robot loop iteration while recording. It is called by the robot loop after
+     * determining the run mode.
+     *
+     * @param runMode specifies the run mode of the iteration.
+     */
+    public static void markFrame(TrcRobot.RunMode runMode)
+    {
+        TrcDataRecorder recorder = instance;
+
+        if (recorder != null && recorder.mode == Mode.RECORD && Thread.currentThread() == recorder.loopThread)
+        {
+            recorder.writeFrame(runMode);
+        }
+    }   //markFrame
+
+    /**
+     * This method marks the current robot loop iteration as a periodic one while recording.
+     */
+    public static void markPeriodic()
+    {
+        TrcDataRecorder recorder = instance;
+
+        if (recorder != null && recorder.mode == Mode.RECORD && Thread.currentThread() == recorder.loopThread)
+        {
+            recorder.writeTag(TAG_PERIODIC);
+        }
+    }   //markPeriodic
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param mode specifies the recorder mode.
+     * @param filePath specifies the log file path.
+     * @throws IOException if the file cannot be opened.
+     */
+    private TrcDataRecorder(Mode mode, String filePath) throws IOException
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.mode = mode;
+        this.filePath = filePath;
+        this.loopThread = Thread.currentThread();
+        this.prevTimeSource = TrcUtil.getTimeSource();
+
+        if (mode == Mode.RECORD)
+        {
+            lastNanoTime = getSourceTimeNanos();
+            FileOutputStream fileStream = new FileOutputStream(filePath);
+
+            try
+            {
+                DataOutputStream header = new DataOutputStream(fileStream);
+                header.writeInt(FILE_MAGIC);
+                header.writeShort(FILE_VERSION);
+                header.writeLong(lastNanoTime);
+            }
+            catch (IOException e)
+            {
+                fileStream.close();
+                throw e;
+            }
+
+            freeBlocks = new ArrayBlockingQueue<>(NUM_BLOCKS);
+            //
+            // The full queue has room for every block plus the close marker, so adding to it never fails.
+            //
+            fullBlocks = new ArrayBlockingQueue<>(NUM_BLOCKS + 1);
+            for (int i = 0; i < NUM_BLOCKS - 1; i++)
+            {
+                freeBlocks.add(new Block(BUFFER_SIZE));
+            }
+            currBlock = new Block(BUFFER_SIZE);
+
+            writerThread = new Thread(() -> writerTask(fileStream), moduleName + ".writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+        else
+        {
+            inStream = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE));
+            if (inStream.readInt() != FILE_MAGIC || inStream.readShort() != FILE_VERSION)
+            {
+                inStream.close();
+                throw new IOException("Not a recorder log or unsupported version.");
+            }
+            lastNanoTime = inStream.readLong();
+            lastRecordedTime = lastNanoTime;
+        }
+    }   //TrcDataRecorder
+
+    /**
+     * This method returns the log file path.
+     *
+     * @return log file path.
+     */
+    @Override
+    public String toString()
+    {
+        return filePath;
+    }   //toString
+
+    /**
+     * This method returns the recorder mode.
+     *
+     * @return recorder mode.
+     */
+    public Mode getMode()
+    {
+        return mode;
+    }   //getMode
+
+    /**
+     * This method resets all channels, installs the time source and activates the recorder.
+     *
+     * @throws IOException if reading the initial records failed.
+     */
+    private void start() throws IOException
+    {
+        synchronized (channelMap)
+        {
+            for (Channel channel: channelList)
+            {
+                channel.reset();
+            }
+        }
+
+        if (mode == Mode.REPLAY)
+        {
+            loadFrame();
+        }
+
+        TrcUtil.setTimeSource(new RecorderTimeSource());
+        instance = this;
+    }   //start
+
+    /**
+     * This method stops the recording or replay, closes the file and restores the previous time source. While
+     * recording, it must be called on the loop thread (or after the loop has stopped) and it waits for the writer
+     * thread to write the remaining blocks.
+     */
+    public synchronized void close()
+    {
+        final String funcName = "close";
+
+        if (instance == this)
+        {
+            instance = null;
+            TrcUtil.setTimeSource(prevTimeSource);
+        }
+
+        if (writerThread != null)
+        {
+            if (currBlock != null)
+            {
+                fullBlocks.add(currBlock);
+                currBlock = null;
+            }
+            fullBlocks.add(CLOSE_BLOCK);
+
+            try
+            {
+                writerThread.join(WRITER_CLOSE_TIMEOUT);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            if (writerThread.isAlive())
+            {
+                TrcDbgTrace.getGlobalTracer().traceWarn(funcName, "Writer of %s did not finish in time.", filePath);
+            }
+            writerThread = null;
+        }
+
+        try
+        {
+            if (inStream != null)
+            {
+                inStream.close();
+                inStream = null;
+            }
+        }
+        catch (IOException e)
+        {
+            TrcDbgTrace.getGlobalTracer().traceWarn(funcName, "Failed to close %s: %s", filePath, e);
+        }
+    }   //close
+
+    /**
+     * This method hands the recorded data to the writer thread without waiting for a full block. It is typically
+     * called on the loop thread at the end of each run mode so that the log survives the robot being powered off.
+     */
+    public void flush()
+    {
+        if (currBlock != null && currBlock.length > 0 && checkWriter())
+        {
+            submitBlock();
+        }
+    }   //flush
+
+    /**
+     * This method runs on the writer thread. It writes the blocks handed over by the loop thread to the file and
+     * returns them to the free queue, until it finds the close marker.
+     *
+     * @param fileStream specifies the log file.
+     */
+    private void writerTask(FileOutputStream fileStream)
+    {
+        try
+        {
+            while (true)
+            {
+                Block block = fullBlocks.take();
+
+                if (block == CLOSE_BLOCK)
+                {
+                    break;
+                }
+
+                if (writeError == null)
+                {
+                    try
+                    {
+                        fileStream.write(block.data, 0, block.length);
+                    }
+                    catch (IOException e)
+                    {
+                        //
+                        // Keep returning the blocks, the loop thread stops the recording when it sees the error.
+                        //
+                        writeError = e;
+                    }
+                }
+                block.length = 0;
+                freeBlocks.add(block);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            writeError = new IOException("Writer thread interrupted.");
+        }
+        finally
+        {
+            try
+            {
+                fileStream.close();
+            }
+            catch (IOException e)
+            {
+                if (writeError == null)
+                {
+                    writeError = e;
+                }
+            }
+        }
+    }   //writerTask
+
+    /**
+     * This method checks if the writer thread has failed and stops the recording if so.
+     *
+     * @return true if the writer is healthy, false if the recording was stopped.
+     */
+    private boolean checkWriter()
+    {
+        IOException e = writeError;
+
+        if (e != null)
+        {
+            recordingFailed(e);
+        }
+
+        return e == null;
+    }   //checkWriter
+
+    /**
+     * This method hands the current block to the writer thread and takes a free block. If there is no free block,
+     * the writer has fallen behind and the recording is stopped.
+     *
+     * @return true if there is a new current block, false if the recording was stopped.
+     */
+    private boolean submitBlock()
+    {
+        fullBlocks.add(currBlock);
+        currBlock = freeBlocks.poll();
+
+        if (currBlock == null)
+        {
+            recordingFailed(new IOException("Log writer fell behind."));
+        }
+
+        return currBlock != null;
+    }   //submitBlock
+
+    /**
+     * This method makes sure the current block has room for a record of the given size.
+     *
+     * @param size specifies the maximum record size in bytes.
+     * @return true if the record can be written, false if not recording.
+     */
+    private boolean reserve(int size)
+    {
+        return currBlock != null && checkWriter() && (currBlock.length + size <= BUFFER_SIZE || submitBlock());
+    }   //reserve
+
+    /**
+     * This method is called when writing the log failed. It stops the recording so that a full disk does not
+     * affect the robot.
+     *
+     * @param e specifies the exception.
+     */
+    private void recordingFailed(IOException e)
+    {
+        TrcDbgTrace.getGlobalTracer().traceErr("recordingFailed", "Recording to %s stopped: %s", filePath, e);
+        close();
+    }   //recordingFailed
+
+    /**
+     * This method encodes a byte into the current block.
+     *
+     * @param value specifies the value.
+     */
+    private void putByte(int value)
+    {
+        currBlock.data[currBlock.length++] = (byte)value;
+    }   //putByte
+
+    /**
+     * This method encodes a variable length unsigned integer into the current block.
+     *
+     * @param value specifies the value.
+     */
+    private void putVarLong(long value)
+    {
+        while ((value & ~0x7fL) != 0)
+        {
+            putByte((int)(value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        putByte((int)value);
+    }   //putVarLong
+
+    /**
+     * This method encodes a double into the current block in the byte order of DataOutputStream.
+     *
+     * @param value specifies the value.
+     */
+    private void putDouble(double value)
+    {
+        long bits = Double.doubleToLongBits(value);
+
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            putByte((int)(bits >>> shift));
+        }
+    }   //putDouble
+
+    /**
+     * This method reads a variable length unsigned integer.
+     *
+     * @return value read.
+     * @throws IOException if the read failed.
+     */
+    private long readVarLong() throws IOException
+    {
+        long value = 0;
+        int shift = 0;
+        int b;
+
+        do
+        {
+            b = inStream.readUnsignedByte();
+            value |= (long)(b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }   //readVarLong
+
+    /**
+     * This method writes a record tag. It is called on the loop thread.
+     *
+     * @param tag specifies the tag.
+     */
+    private void writeTag(int tag)
+    {
+        if (reserve(1))
+        {
+            putByte(tag);
+        }
+    }   //writeTag
+
+    /**
+     * This method writes a frame record. It is called on the loop thread.
+     *
+     * @param runMode specifies the run mode of the frame.
+     */
+    private void writeFrame(TrcRobot.RunMode runMode)
+    {
+        if (reserve(2))
+        {
+            putByte(TAG_FRAME);
+            putByte(runMode.ordinal());
+            numFrames++;
+        }
+    }   //writeFrame
+
+    /**
+     * This method writes a sample record, preceded by the channel definition if the channel is new to the log.
+     * It is called on the loop thread.
+     *
+     * @param channel specifies the channel.
+     * @param value specifies the sample value.
+     */
+    private void writeSample(Channel channel, double value)
+    {
+        if (!channel.defined && reserve(12 + channel.nameBytes.length))
+        {
+            putByte(TAG_CHANNEL);
+            putVarLong(channel.id);
+            putByte(channel.isOutput? 1: 0);
+            System.arraycopy(channel.nameBytes, 0, currBlock.data, currBlock.length, channel.nameBytes.length);
+            currBlock.length += channel.nameBytes.length;
+            channel.defined = true;
+        }
+
+        if (channel.defined && reserve(19))
+        {
+            if (Double.doubleToLongBits(value) == Double.doubleToLongBits(channel.lastValue))
+            {
+                putByte(TAG_REPEAT);
+                putVarLong(channel.id);
+            }
+            else
+            {
+                putByte(TAG_SAMPLE);
+                putVarLong(channel.id);
+                putDouble(value);
+                channel.lastValue = value;
+            }
+            numSamples++;
+        }
+    }   //writeSample
+
+    /**
+     * This method processes an input value.
+     *
+     * @param channel specifies the channel.
+     * @param value specifies the value read from the hardware.
+     * @return value to use.
+     */
+    private double processInput(Channel channel, double value)
+    {
+        if (mode == Mode.RECORD)
+        {
+            if (isLoopThread())
+            {
+                writeSample(channel, value);
+            }
+        }
+        else
+        {
+            synchronized (this)
+            {
+                if (isLoopThread())
+                {
+                    Double recordedValue = channel.replayQueue.poll();
+
+                    if (recordedValue == null)
+                    {
+                        //
+                        // The robot code read the channel more often than during the match, it has diverged.
+                        //
+                        numInputMismatches++;
+                        noteMismatch(channel, "extra read");
+                    }
+                    else
+                    {
+                        channel.lastValue = recordedValue;
+                        channel.defined = true;
+                    }
+                }
+
+                if (channel.defined)
+                {
+                    value = channel.lastValue;
+                }
+            }
+        }
+
+        return value;
+    }   //processInput
+
+    /**
+     * This method processes an output value.
+     *
+     * @param channel specifies the channel.
+     * @param value specifies the output value.
+     */
+    private void processOutput(Channel channel, double value)
+    {
+        if (isLoopThread())
+        {
+            if (mode == Mode.RECORD)
+            {
+                writeSample(channel, value);
+            }
+            else
+            {
+                synchronized (this)
+                {
+                    Double recordedValue = channel.replayQueue.poll();
+
+                    if (recordedValue == null)
+                    {
+                        numOutputMismatches++;
+                        channel.numMismatches++;
+                        noteMismatch(channel, String.format("unexpected output %.6f", value));
+                    }
+                    else
+                    {
+                        double error = Math.abs(value - recordedValue);
+
+                        if (error > OUTPUT_TOLERANCE)
+                        {
+                            numOutputMismatches++;
+                            channel.numMismatches++;
+                            channel.maxError = Math.max(channel.maxError, error);
+                            maxOutputError = Math.max(maxOutputError, error);
+                            noteMismatch(
+                                channel, String.format("output %.6f, recorded %.6f", value, recordedValue));
+                        }
+                    }
+                }
+            }
+        }
+    }   //processOutput
+
+    /**
+     * This method processes a time read. Only the loop thread changes the recorder state here, so no lock is
+     * needed: other threads get the source time while recording and the last replayed time while replaying.
+     *
+     * @return time in nano seconds.
+     */
+    private long processTime()
+    {
+        if (mode == Mode.RECORD)
+        {
+            long currTime = getSourceTimeNanos();
+
+            if (isLoopThread() && reserve(11))
+            {
+                //
+                // Zigzag encode the delta so that a time going backwards still encodes correctly.
+                //
+                long delta = currTime - lastNanoTime;
+                putByte(TAG_TIME);
+                putVarLong((delta << 1) ^ (delta >> 63));
+                lastNanoTime = currTime;
+            }
+
+            return currTime;
+        }
+        else
+        {
+            if (isLoopThread())
+            {
+                Long recordedTime = timeQueue.poll();
+
+                if (recordedTime != null)
+                {
+                    lastNanoTime = recordedTime;
+                }
+            }
+
+            return lastNanoTime;
+        }
+    }   //processTime
+
+    /**
+     * This method remembers the first mismatch found while replaying.
+     *
+     * @param channel specifies the channel.
+     * @param message specifies the mismatch description.
+     */
+    private void noteMismatch(Channel channel, String message)
+    {
+        if (firstMismatch == null)
+        {
+            firstMismatch = String.format("frame %d (%s): %s %s", numFrames, frameMode, channel, message);
+        }
+    }   //noteMismatch
+
+    /**
+     * This method reads the records of one frame into the replay queues. It stops after reading the frame marker
+     * of the next frame.
+     *
+     * @throws IOException if the log is corrupted.
+     */
+    private void loadFrame() throws IOException
+    {
+        framePeriodic = false;
+        nextFrameMode = null;
+
+        while (!endOfFile && nextFrameMode == null)
+        {
+            int tag = inStream.read();
+            Channel channel;
+
+            switch (tag)
+            {
+                case -1:
+                    endOfFile = true;
+                    break;
+
+                case TAG_CHANNEL:
+                    int id = (int)readVarLong();
+                    boolean isOutput = inStream.readBoolean();
+                    String name = inStream.readUTF();
+                    if (id >= fileChannels.length)
+                    {
+                        fileChannels = Arrays.copyOf(fileChannels, Math.max(id + 1, fileChannels.length*2));
+                    }
+                    fileChannels[id] = getChannel(name, isOutput);
+                    break;
+
+                case TAG_FRAME:
+                    nextFrameMode = TrcRobot.RunMode.values()[inStream.readUnsignedByte()];
+                    break;
+
+                case TAG_PERIODIC:
+                    framePeriodic = true;
+                    break;
+
+                case TAG_SAMPLE:
+                    channel = getFileChannel((int)readVarLong());
+                    channel.fileValue = inStream.readDouble();
+                    channel.replayQueue.add(channel.fileValue);
+                    break;
+
+                case TAG_REPEAT:
+                    channel = getFileChannel((int)readVarLong());
+                    channel.replayQueue.add(channel.fileValue);
+                    break;
+
+                case TAG_TIME:
+                    long zigzag = readVarLong();
+                    lastRecordedTime += (zigzag >>> 1) ^ -(zigzag & 1);
+                    timeQueue.add(lastRecordedTime);
+                    break;
+
+                default:
+                    throw new IOException("Invalid record tag " + tag);
+            }
+        }
+    }   //loadFrame
+
+    /**
+     * This method returns the channel with the given file ID.
+     *
+     * @param id specifies the channel ID in the file.
+     * @return channel.
+     * @throws IOException if the channel was not defined.
+     */
+    private Channel getFileChannel(int id) throws IOException
+    {
+        if (id >= fileChannels.length || fileChannels[id] == null)
+        {
+            throw new IOException("Undefined channel " + id);
+        }
+
+        return fileChannels[id];
+    }   //getFileChannel
+
+    /**
+     * This method advances the replay to the next frame. Values of the previous frame that the robot code did not
+     * consume are counted as mismatches.
+     *
+     * @return true if there is a next frame, false at the end of the log.
+     */
+    public synchronized boolean nextFrame()
+    {
+        final String funcName = "nextFrame";
+        boolean hasFrame = false;
+
+        if (mode != Mode.REPLAY)
+        {
+            throw new IllegalStateException("Recorder is not replaying.");
+        }
+
+        synchronized (channelMap)
+        {
+            for (Channel channel: channelList)
+            {
+                if (!channel.replayQueue.isEmpty())
+                {
+                    if (channel.isOutput)
+                    {
+                        numOutputMismatches += channel.replayQueue.size();
+                        channel.numMismatches += channel.replayQueue.size();
+                        noteMismatch(channel, "missing output");
+                    }
+                    else
+                    {
+                        numInputMismatches += channel.replayQueue.size();
+                        noteMismatch(channel, "missing read");
+                    }
+                    channel.replayQueue.clear();
+                }
+            }
+        }
+        timeQueue.clear();
+
+        if (nextFrameMode != null)
+        {
+            frameMode = nextFrameMode;
+            numFrames++;
+            try
+            {
+                loadFrame();
+                hasFrame = true;
+            }
+            catch (IOException e)
+            {
+                TrcDbgTrace.getGlobalTracer().traceErr(funcName, "Replay of %s stopped: %s", filePath, e);
+            }
+        }
+
+        return hasFrame;
+    }   //nextFrame
+
+    /**
+     * This method returns the run mode of the current replay frame.
+     *
+     * @return run mode.
+     */
+    public synchronized TrcRobot.RunMode getFrameMode()
+    {
+        return frameMode;
+    }   //getFrameMode
+
+    /**
+     * This method checks if the current replay frame ran the periodic tasks.
+     *
+     * @return true if periodic, false otherwise.
+     */
+    public synchronized boolean isFramePeriodic()
+    {
+        return framePeriodic;
+    }   //isFramePeriodic
+
+    /**
+     * This method returns the number of frames recorded or replayed.
+     *
+     * @return number of frames.
+     */
+    public synchronized long getFrameCount()
+    {
+        return numFrames;
+    }   //getFrameCount
+
+    /**
+     * This method returns the number of output values that did not match the recording.
+     *
+     * @return number of output mismatches.
+     */
+    public synchronized long getOutputMismatchCount()
+    {
+        return numOutputMismatches;
+    }   //getOutputMismatchCount
+
+    /**
+     * This method returns the number of reads that did not line up with the recording.
+     *
+     * @return number of input mismatches.
+     */
+    public synchronized long getInputMismatchCount()
+    {
+        return numInputMismatches;
+    }   //getInputMismatchCount
+
+    /**
+     * This method returns the largest difference between a replayed output and the recorded output.
+     *
+     * @return maximum output error.
+     */
+    public synchronized double getMaxOutputError()
+    {
+        return maxOutputError;
+    }   //getMaxOutputError
+
+    /**
+     * This method prints the recording or replay summary. For a replay, it lists the output channels that
+     * differed from the recording.
+     *
+     * @param tracer specifies the tracer to be used for printing.
+     */
+    public synchronized void printSummary(TrcDbgTrace tracer)
+    {
+        final String funcName = "printSummary";
+
+        if (mode == Mode.RECORD)
+        {
+            tracer.traceInfo(funcName, "Recorded %d frames, %d samples to %s", numFrames, numSamples, filePath);
+        }
+        else
+        {
+            tracer.traceInfo(
+                funcName, "Replayed %d frames from %s: outputMismatches=%d (maxErr=%.6f), inputMismatches=%d",
+                numFrames, filePath, numOutputMismatches, maxOutputError, numInputMismatches);
+            if (firstMismatch != null)
+            {
+                tracer.traceInfo(funcName, "First mismatch at %s", firstMismatch);
+            }
+
+            synchronized (channelMap)
+            {
+                for (Channel channel: channelList)
+                {
+                    if (channel.isOutput && channel.numMismatches > 0)
+                    {
+                        tracer.traceInfo(funcName, "  %s: mismatches=%d, maxErr=%.6f",
+                            channel, channel.numMismatches, channel.maxError);
+                    }
+                }
+            }
+        }
+    }   //printSummary
+
+}   //class TrcDataRecorder
@@ -26,12 +26,18 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * This class implements a diagnostics test collection. The client adds a bunch of diagnostics tests into the
- * collection and this class provides the mechanism to run the tests and get the results.
+ * collection and this class provides the mechanism to run the tests and get the results. Tests can be run all at
+ * once with runAllTests, or incrementally with runTests which only runs the tests that are due for a refresh,
+ * most likely to fail and longest overdue first, until a time budget is used up. Tests with a refresh interval of
+ * 0.0 run on every call outside of the budget, so a test sampling a state change never misses a loop. This allows
+ * diagnostics to run during a match without stretching the robot loop. A status change handler is notified only
+ * when a test result changes.
  */
 public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
 {
@@ -43,6 +49,23 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
     private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     private TrcDbgTrace dbgTrace = null;
 
+    /**
+     * This interface provides a notification handler for test status changes.
+     *
+     * @param <T> specifies the group enum type.
+     */
+    public interface StatusChangeHandler<T>
+    {
+        /**
+         * This method is called when a test is run for the first time or when its pass/fail status or its error
+         * message has changed.
+         *
+         * @param test specifies the test whose status has changed.
+         */
+        void statusChanged(Test<T> test);
+
+    }   //interface StatusChangeHandler
+
     /**
      * This class implements a generic diagnostics test with a specified name and a group the test is associated
      * with. This class is intended to be extended by a more specific diagnostics test that provides the actual
@@ -76,6 +99,15 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
         private boolean defStatus = false;
         private boolean testPassed = true;
         private String testError = null;
+        //
+        // Scheduling states maintained by TrcDiagnostics.
+        //
+        private double refreshInterval = -1.0;
+        private double nextRunTime = 0.0;
+        private double avgRunTime = 0.0;
+        private int runCount = 0;
+        private int failCount = 0;
+        private int lastPass = 0;
 
         /**
          * Constructor: Create an instance of the object.
@@ -198,6 +230,48 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
             return testError;
         }   //getTestError
 
+        /**
+         * This method sets how often the test is re-run by TrcDiagnostics.runTests. Tests that read a cached
+         * status or whose failure is sticky can be refreshed less often than tests that must sample a changing
+         * value.
+         *
+         * @param interval specifies the refresh interval in seconds, 0.0 to run on every call, negative to use
+         *                 the collection default.
+         */
+        public void setRefreshInterval(double interval)
+        {
+            final String funcName = "setRefreshInterval";
+
+            if (debugEnabled)
+            {
+                dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "interval=%f", interval);
+                dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+            }
+
+            refreshInterval = interval;
+        }   //setRefreshInterval
+
+        /**
+         * This method returns the estimated likelihood that the next run of the test fails. It is the fraction of
+         * failed runs with one pass and one fail assumed up front, so a test that has never run is at 0.5.
+         *
+         * @return failure likelihood between 0.0 and 1.0.
+         */
+        public double getFailureLikelihood()
+        {
+            return (failCount + 1.0)/(runCount + 2.0);
+        }   //getFailureLikelihood
+
+        /**
+         * This method returns the average time it took to run the test.
+         *
+         * @return average run time in seconds.
+         */
+        public double getAverageRunTime()
+        {
+            return avgRunTime;
+        }   //getAverageRunTime
+
         /**
          * This method runs the test and update the test status.
          */
@@ -225,7 +299,14 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
 
     }   //class Test
 
+    private static final double RUN_TIME_SMOOTHING = 0.25;
+    private static final int DEF_RECORDED_TEST_BUDGET = 1;
+
     private List<Test<T>> testCollection = new ArrayList<>();
+    private StatusChangeHandler<T> statusChangeHandler = null;
+    private double defRefreshInterval = 0.0;
+    private int recordedTestBudget = DEF_RECORDED_TEST_BUDGET;
+    private int pass = 0;
 
     /**
      * Constructor: Create an instance of the object.
@@ -263,6 +344,66 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
         }
     }   //addTest
 
+    /**
+     * This method sets the handler to be notified when a test status changes.
+     *
+     * @param handler specifies the status change handler, null to remove it.
+     */
+    public void setStatusChangeHandler(StatusChangeHandler<T> handler)
+    {
+        final String funcName = "setStatusChangeHandler";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "handler=%s", handler);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        statusChangeHandler = handler;
+    }   //setStatusChangeHandler
+
+    /**
+     * This method sets the refresh interval of the tests that don't specify their own.
+     *
+     * @param interval specifies the refresh interval in seconds, 0.0 to run on every call.
+     */
+    public void setDefaultRefreshInterval(double interval)
+    {
+        final String funcName = "setDefaultRefreshInterval";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "interval=%f", interval);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        defRefreshInterval = interval;
+    }   //setDefaultRefreshInterval
+
+    /**
+     * This method sets how many tests runTests runs per call while TrcDataRecorder is recording or replaying.
+     * The time it takes to run a test is not recorded, so a time budget would pick different tests on replay.
+     *
+     * @param count specifies the maximum number of tests to run per call, at least 1.
+     */
+    public void setRecordedTestBudget(int count)
+    {
+        final String funcName = "setRecordedTestBudget";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "count=%d", count);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("Recorded test budget must be at least 1.");
+        }
+
+        recordedTestBudget = count;
+    }   //setRecordedTestBudget
+
     /**
      * This method runs all tests in the collection and updates their status.
      */
@@ -275,7 +416,12 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        testCollection.forEach(Test::runTestAndUpdateStatus);
+        double currTime = getSchedulingTime(TrcDataRecorder.isActive());
+        pass++;
+        for (int i = 0; i < testCollection.size(); i++)
+        {
+            runTest(testCollection.get(i), currTime);
+        }
 
         if (debugEnabled)
         {
@@ -283,6 +429,175 @@ public class TrcDiagnostics<T> implements Iterable<TrcDiagnostics.Test<T>>
         }
     }   //runAllTests
 
+    /**
+     * This method runs the tests that are due for a refresh until the time budget is used up. Tests with a refresh
+     * interval of 0.0 are run first on every call and do not count against the budget, so keep them cheap. Each
+     * other due test has the priority failure likelihood*(seconds overdue + 1), the highest priority runs first
+     * and ties go to the test that has waited the longest. A test whose average run time does not fit in the
+     * remaining budget is left for a later call, except that the first due test is always run so each call makes
+     * progress. Because the priority of a waiting test keeps growing, a test that rarely fails still gets its turn
+     * when the budget only fits the tests that fail more often, it just waits longer. Tests not run keep their
+     * previous status.
+     *
+     * While TrcDataRecorder is recording or replaying, the schedule uses the recorded time and at most the
+     * recorded test budget of tests are run instead of the time budget, so a replay runs the same tests.
+     *
+     * @param timeBudget specifies the time budget in seconds.
+     * @return number of tests run, including the ones run on every call.
+     */
+    public int runTests(double timeBudget)
+    {
+        final String funcName = "runTests";
+        boolean recorded = TrcDataRecorder.isActive();
+        long budgetNanos = (long)(timeBudget*1000000000.0);
+        double currTime = getSchedulingTime(recorded);
+        int numEveryCall = 0;
+        int numRun = 0;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "budget=%f", timeBudget);
+        }
+
+        pass++;
+
+        for (int i = 0; i < testCollection.size(); i++)
+        {
+            Test<T> test = testCollection.get(i);
+
+            if (getRefreshInterval(test) == 0.0)
+            {
+                runTest(test, currTime);
+                numEveryCall++;
+            }
+        }
+        //
+        // The budget starts after the every call tests, it only limits the other tests.
+        //
+        long startNanos = TrcDataRecorder.getUnrecordedTimeNanos();
+        while (true)
+        {
+            double remaining = (budgetNanos - (TrcDataRecorder.getUnrecordedTimeNanos() - startNanos))/1000000000.0;
+            Test<T> nextTest = null;
+
+            if (recorded? numRun >= recordedTestBudget: numRun > 0 && remaining <= 0.0)
+            {
+                break;
+            }
+
+            for (int i = 0; i < testCollection.size(); i++)
+            {
+                Test<T> test = testCollection.get(i);
+
+                if (test.lastPass != pass && test.nextRunTime <= currTime &&
+                    (recorded || numRun == 0 || test.avgRunTime <= remaining) &&
+                    (nextTest == null || hasHigherPriority(test, nextTest, currTime)))
+                {
+                    nextTest = test;
+                }
+            }
+
+            if (nextTest == null)
+            {
+                break;
+            }
+            runTest(nextTest, currTime);
+            numRun++;
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%d", numEveryCall + numRun);
+        }
+
+        return numEveryCall + numRun;
+    }   //runTests
+
+    /**
+     * This method returns the refresh interval of a test, the collection default if the test has none.
+     *
+     * @param test specifies the test.
+     * @return refresh interval in seconds.
+     */
+    private double getRefreshInterval(Test<T> test)
+    {
+        return test.refreshInterval >= 0.0? test.refreshInterval: defRefreshInterval;
+    }   //getRefreshInterval
+
+    /**
+     * This method returns the current time for scheduling the tests. While recording or replaying, it is the
+     * recorded time so that the schedule is reproduced on replay.
+     *
+     * @param recorded specifies true if TrcDataRecorder is active.
+     * @return current time in seconds.
+     */
+    private double getSchedulingTime(boolean recorded)
+    {
+        return recorded? TrcUtil.getCurrentTime(): TrcDataRecorder.getUnrecordedTime();
+    }   //getSchedulingTime
+
+    /**
+     * This method returns the priority of a due test. It is the failure likelihood aged by how long the test is
+     * overdue, so a test that keeps losing to tests more likely to fail eventually runs.
+     *
+     * @param test specifies the test.
+     * @param currTime specifies the current time in seconds.
+     * @return test priority.
+     */
+    private double getPriority(Test<T> test, double currTime)
+    {
+        return test.getFailureLikelihood()*(currTime - test.nextRunTime + 1.0);
+    }   //getPriority
+
+    /**
+     * This method checks if a test should run before another.
+     *
+     * @param test specifies the test to check.
+     * @param other specifies the test to compare against.
+     * @param currTime specifies the current time in seconds.
+     * @return true if test should run first, false otherwise.
+     */
+    private boolean hasHigherPriority(Test<T> test, Test<T> other, double currTime)
+    {
+        double priority = getPriority(test, currTime);
+        double otherPriority = getPriority(other, currTime);
+
+        return priority > otherPriority || priority == otherPriority && test.nextRunTime < other.nextRunTime;
+    }   //hasHigherPriority
+
+    /**
+     * This method runs a test, updates its scheduling states and notifies the status change handler if its status
+     * has changed.
+     *
+     * @param test specifies the test to run.
+     * @param currTime specifies the current time in seconds.
+     */
+    private void runTest(Test<T> test, double currTime)
+    {
+        boolean firstRun = test.runCount == 0;
+        boolean prevPassed = test.testPassed;
+        String prevError = test.testError;
+        long startNanos = TrcDataRecorder.getUnrecordedTimeNanos();
+
+        test.lastPass = pass;
+        test.runTestAndUpdateStatus();
+
+        double runTime = (TrcDataRecorder.getUnrecordedTimeNanos() - startNanos)/1000000000.0;
+        test.avgRunTime = firstRun? runTime: test.avgRunTime + RUN_TIME_SMOOTHING*(runTime - test.avgRunTime);
+        test.runCount++;
+        if (!test.testPassed)
+        {
+            test.failCount++;
+        }
+        test.nextRunTime = currTime + getRefreshInterval(test);
+
+        if (statusChangeHandler != null &&
+            (firstRun || test.testPassed != prevPassed || !Objects.equals(test.testError, prevError)))
+        {
+            statusChangeHandler.statusChanged(test);
+        }
+    }   //runTest
+
     /**
      * This method returns a map of each test group and whether all tests in that group have passed.
      *
@@ -71,4 +71,17 @@ public abstract class TrcDigitalInput
         return instanceName;
     }   //toString
 
+    /**
+     * This method creates a digital trigger that monitors this input. Platforms that can capture edges in hardware
+     * override it to return a trigger that does not poll. The trigger is created disabled.
+     *
+     * @param instanceName specifies the instance name of the trigger.
+     * @param eventHandler specifies the object that will be called to handle the state change.
+     * @return digital trigger.
+     */
+    public TrcDigitalTrigger createTrigger(String instanceName, TrcDigitalTrigger.TriggerHandler eventHandler)
+    {
+        return new TrcDigitalTrigger(instanceName, this, eventHandler);
+    }   //createTrigger
+
 }   //class TrcDigitalInput
@@ -24,7 +24,9 @@ package trclib;
 
 /**
  * This class implements a digital trigger. A digital trigger consists of a digital input device. It monitors the
- * device state and calls the notification handler if the state changes.
+ * device state and calls the notification handler if the state changes. This implementation polls the device
+ * every PRECONTINUOUS pass, so the detected edges are quantized to the loop period. Platforms that can capture
+ * edges in hardware extend it, see TrcDigitalInput.createTrigger.
  */
 public class TrcDigitalTrigger
 {
@@ -50,11 +52,12 @@ public class TrcDigitalTrigger
 
     }   //interface TriggerHandler
 
-    private final String instanceName;
-    private final TrcDigitalInput digitalInput;
+    protected final String instanceName;
+    protected final TrcDigitalInput digitalInput;
     private final TriggerHandler eventHandler;
     private final TrcTaskMgr.TaskObject triggerTaskObj;
     private Boolean prevState = null;
+    private double triggerTimestamp = 0.0;
 
     /**
      * Constructor: Create an instance of the object.
@@ -84,6 +87,28 @@ public class TrcDigitalTrigger
         triggerTaskObj = TrcTaskMgr.getInstance().createTask(instanceName + ".triggerTask", this::triggerTask);
     }   //TrcDigitalTrigger
 
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the time the digital input changed to the state being reported. It is meant to be called
+     * by the trigger handler. A polled trigger returns the time the change was detected.
+     *
+     * @return timestamp of the state change in seconds.
+     */
+    public double getTriggerTimestamp()
+    {
+        return triggerTimestamp;
+    }   //getTriggerTimestamp
+
     /**
      * This method enables/disables the task that monitors the device state.
      *
@@ -132,16 +157,7 @@ public class TrcDigitalTrigger
 
         if (prevState == null || currState != prevState)
         {
-            if (eventHandler != null)
-            {
-                eventHandler.triggerEvent(currState);
-            }
-            prevState = currState;
-
-            if (debugEnabled)
-            {
-                dbgTrace.traceInfo(funcName, "%s triggered (state=%s)", instanceName, Boolean.toString(currState));
-            }
+            notifyTrigger(currState, TrcUtil.getCurrentTime());
         }
 
         if (debugEnabled)
@@ -150,4 +166,26 @@ public class TrcDigitalTrigger
         }
     }   //triggerTask
 
+    /**
+     * This method calls the trigger handler with a state change. It is called on the task thread, either by the
+     * polling task or by a subclass delivering edges captured by the hardware.
+     *
+     * @param active specifies the new state of the digital input.
+     * @param timestamp specifies the time of the state change in seconds.
+     */
+    protected void notifyTrigger(boolean active, double timestamp)
+    {
+        final String funcName = "notifyTrigger";
+
+        triggerTimestamp = timestamp;
+        prevState = active;
+        eventHandler.triggerEvent(active);
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "%s triggered (state=%s,timestamp=%.6f)",
+                instanceName, Boolean.toString(active), timestamp);
+        }
+    }   //notifyTrigger
+
 }   //class TrcDigitalTrigger
@@ -0,0 +1,564 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+/**
+ * This class implements an extended Kalman filter that fuses the gyro yaw rate and heading, the accelerometer and
+ * the drive base wheel speeds into one estimate of the robot heading, turn rate, velocity and wheel slip. Unlike
+ * TrcKalmanFilter which filters a single value with fixed gains, this filter tracks the covariance between the
+ * states, so an accelerometer that disagrees with the wheels shows up as slip instead of being averaged away.
+ *
+ * The state vector is [heading, turnRate, xVel, yVel, xSlip, ySlip] in the robot frame. Heading is in degrees
+ * (clockwise positive like the gyro), turn rate in degrees per second, velocity and slip in drive base units per
+ * second. The wheel speeds are modeled as the true velocity plus slip. The velocity is propagated with the
+ * accelerometer including the rotating frame terms, which is what makes the filter non-linear. All matrices are
+ * fixed size primitive arrays allocated in the constructor, so the periodic update does not create garbage.
+ * Measurements are applied one at a time which avoids inverting a matrix.
+ */
+public class TrcDriveStateEstimator
+{
+    private static final String moduleName = "TrcDriveStateEstimator";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    public static final int STATE_HEADING = 0;
+    public static final int STATE_TURN_RATE = 1;
+    public static final int STATE_X_VELOCITY = 2;
+    public static final int STATE_Y_VELOCITY = 3;
+    public static final int STATE_X_SLIP = 4;
+    public static final int STATE_Y_SLIP = 5;
+    private static final int NUM_STATES = 6;
+
+    private static final double DEF_TURN_ACCEL_NOISE = 200.0;   //deg/s^2
+    private static final double DEF_ACCEL_NOISE = 5.0;          //units/s^2
+    private static final double DEF_SLIP_NOISE = 30.0;          //units/s^2
+    private static final double DEF_HEADING_NOISE = 0.5;        //deg
+    private static final double DEF_TURN_RATE_NOISE = 2.0;      //deg/s
+    private static final double DEF_WHEEL_SPEED_NOISE = 2.0;    //units/s
+    private static final double DEF_INITIAL_VARIANCE = 1.0;
+    private static final double MAX_DELTA_TIME = 0.1;
+
+    private final String instanceName;
+    private final TrcDriveBase driveBase;
+    private final TrcGyro gyro;
+    private final TrcAccelerometer accel;
+    private final TrcTaskMgr.TaskObject estimatorTaskObj;
+    //
+    // State vector, covariance and scratch matrices, all row major.
+    //
+    private final double[] x = new double[NUM_STATES];
+    private final double[] p = new double[NUM_STATES*NUM_STATES];
+    private final double[] f = new double[NUM_STATES*NUM_STATES];
+    private final double[] fp = new double[NUM_STATES*NUM_STATES];
+    private final double[] h = new double[NUM_STATES];
+    private final double[] ph = new double[NUM_STATES];
+    private double turnAccelVar = DEF_TURN_ACCEL_NOISE*DEF_TURN_ACCEL_NOISE;
+    private double accelVar = DEF_ACCEL_NOISE*DEF_ACCEL_NOISE;
+    private double slipVar = DEF_SLIP_NOISE*DEF_SLIP_NOISE;
+    private double headingVar = DEF_HEADING_NOISE*DEF_HEADING_NOISE;
+    private double turnRateVar = DEF_TURN_RATE_NOISE*DEF_TURN_RATE_NOISE;
+    private double wheelSpeedVar = DEF_WHEEL_SPEED_NOISE*DEF_WHEEL_SPEED_NOISE;
+    private double prevTime = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param driveBase specifies the drive base providing the wheel speeds.
+     * @param gyro specifies the gyro providing the z-axis heading and rotation rate.
+     * @param accel specifies the accelerometer providing the x and y acceleration in the robot frame, in drive base
+     *              units per second squared (use setXScale/setYScale to convert). A world frame acceleration must be
+     *              rotated into the robot frame first. If null, the velocity is modeled as a random walk and slip
+     *              is not estimated.
+     */
+    public TrcDriveStateEstimator(
+        final String instanceName, final TrcDriveBase driveBase, final TrcGyro gyro, final TrcAccelerometer accel)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (driveBase == null || gyro == null)
+        {
+            throw new IllegalArgumentException("driveBase and gyro must not be null.");
+        }
+
+        this.instanceName = instanceName;
+        this.driveBase = driveBase;
+        this.gyro = gyro;
+        this.accel = accel;
+        //
+        // The task must be created after the drive base so the wheel speeds are already updated when it runs.
+        //
+        estimatorTaskObj = TrcTaskMgr.getInstance().createTask(
+            instanceName + ".estimatorTask", this::estimatorTask);
+    }   //TrcDriveStateEstimator
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method enables/disables the estimator task that updates the filter every loop from the sensors.
+     *
+     * @param enabled specifies true to enable, false to disable.
+     */
+    public synchronized void setEnabled(boolean enabled)
+    {
+        final String funcName = "setEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (enabled)
+        {
+            reset();
+            estimatorTaskObj.registerTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+        }
+        else
+        {
+            estimatorTaskObj.unregisterTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+        }
+    }   //setEnabled
+
+    /**
+     * This method sets the process noise, i.e. how fast each state is expected to change in ways the model does
+     * not predict. Larger values make the filter follow the measurements more closely.
+     *
+     * @param turnAccelNoise specifies the standard deviation of the turn acceleration in degrees/s^2.
+     * @param accelNoise specifies the standard deviation of the unmodeled acceleration in units/s^2.
+     * @param slipNoise specifies the standard deviation of the change in wheel slip in units/s^2.
+     */
+    public synchronized void setProcessNoise(double turnAccelNoise, double accelNoise, double slipNoise)
+    {
+        final String funcName = "setProcessNoise";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "turnAccel=%f,accel=%f,slip=%f",
+                turnAccelNoise, accelNoise, slipNoise);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        turnAccelVar = turnAccelNoise*turnAccelNoise;
+        accelVar = accelNoise*accelNoise;
+        slipVar = slipNoise*slipNoise;
+    }   //setProcessNoise
+
+    /**
+     * This method sets the measurement noise of the sensors. Larger values make the filter trust the sensor less.
+     *
+     * @param headingNoise specifies the standard deviation of the gyro heading in degrees.
+     * @param turnRateNoise specifies the standard deviation of the gyro rotation rate in degrees/s.
+     * @param wheelSpeedNoise specifies the standard deviation of the drive base wheel speeds in units/s.
+     */
+    public synchronized void setMeasurementNoise(double headingNoise, double turnRateNoise, double wheelSpeedNoise)
+    {
+        final String funcName = "setMeasurementNoise";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "heading=%f,turnRate=%f,wheelSpeed=%f",
+                headingNoise, turnRateNoise, wheelSpeedNoise);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        headingVar = headingNoise*headingNoise;
+        turnRateVar = turnRateNoise*turnRateNoise;
+        wheelSpeedVar = wheelSpeedNoise*wheelSpeedNoise;
+    }   //setMeasurementNoise
+
+    /**
+     * This method resets the filter. The next update re-initializes the states from the measurements.
+     */
+    public synchronized void reset()
+    {
+        prevTime = 0.0;
+    }   //reset
+
+    /**
+     * This method runs one predict and update cycle of the filter. It is called by the estimator task with the
+     * sensor readings but can also be called directly, for example to replay recorded data.
+     *
+     * @param currTime specifies the time of the measurements in seconds.
+     * @param heading specifies the gyro heading in degrees.
+     * @param turnRate specifies the gyro rotation rate in degrees/s.
+     * @param xAccel specifies the x acceleration in units/s^2, ignored if there is no accelerometer.
+     * @param yAccel specifies the y acceleration in units/s^2, ignored if there is no accelerometer.
+     * @param xWheelSpeed specifies the x speed from the wheel encoders in units/s.
+     * @param yWheelSpeed specifies the y speed from the wheel encoders in units/s.
+     */
+    public synchronized void update(
+        double currTime, double heading, double turnRate, double xAccel, double yAccel,
+        double xWheelSpeed, double yWheelSpeed)
+    {
+        final String funcName = "update";
+
+        if (prevTime == 0.0)
+        {
+            initialize(heading, turnRate, xWheelSpeed, yWheelSpeed);
+        }
+        else
+        {
+            double dt = Math.min(currTime - prevTime, MAX_DELTA_TIME);
+            if (dt > 0.0)
+            {
+                predict(dt, accel != null? xAccel: 0.0, accel != null? yAccel: 0.0);
+            }
+            measure(STATE_HEADING, -1, heading, headingVar);
+            measure(STATE_TURN_RATE, -1, turnRate, turnRateVar);
+            measure(STATE_X_VELOCITY, STATE_X_SLIP, xWheelSpeed, wheelSpeedVar);
+            measure(STATE_Y_VELOCITY, STATE_Y_SLIP, yWheelSpeed, wheelSpeedVar);
+        }
+        prevTime = currTime;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "heading=%.1f,rate=%.1f,vel=(%.1f,%.1f),slip=(%.1f,%.1f)",
+                x[STATE_HEADING], x[STATE_TURN_RATE], x[STATE_X_VELOCITY], x[STATE_Y_VELOCITY],
+                x[STATE_X_SLIP], x[STATE_Y_SLIP]);
+        }
+    }   //update
+
+    /**
+     * This method returns the estimated heading.
+     *
+     * @return heading in degrees.
+     */
+    public synchronized double getHeading()
+    {
+        return x[STATE_HEADING];
+    }   //getHeading
+
+    /**
+     * This method returns the estimated turn rate.
+     *
+     * @return turn rate in degrees per second.
+     */
+    public synchronized double getTurnRate()
+    {
+        return x[STATE_TURN_RATE];
+    }   //getTurnRate
+
+    /**
+     * This method returns the estimated x velocity of the robot, excluding wheel slip.
+     *
+     * @return x velocity in drive base units per second.
+     */
+    public synchronized double getXVelocity()
+    {
+        return x[STATE_X_VELOCITY];
+    }   //getXVelocity
+
+    /**
+     * This method returns the estimated y velocity of the robot, excluding wheel slip.
+     *
+     * @return y velocity in drive base units per second.
+     */
+    public synchronized double getYVelocity()
+    {
+        return x[STATE_Y_VELOCITY];
+    }   //getYVelocity
+
+    /**
+     * This method returns the estimated x wheel slip, the part of the x wheel speed that is not moving the robot.
+     *
+     * @return x slip in drive base units per second.
+     */
+    public synchronized double getXSlip()
+    {
+        return x[STATE_X_SLIP];
+    }   //getXSlip
+
+    /**
+     * This method returns the estimated y wheel slip, the part of the y wheel speed that is not moving the robot.
+     *
+     * @return y slip in drive base units per second.
+     */
+    public synchronized double getYSlip()
+    {
+        return x[STATE_Y_SLIP];
+    }   //getYSlip
+
+    /**
+     * This method returns the magnitude of the estimated wheel slip.
+     *
+     * @return slip speed in drive base units per second.
+     */
+    public synchronized double getSlipSpeed()
+    {
+        return Math.sqrt(x[STATE_X_SLIP]*x[STATE_X_SLIP] + x[STATE_Y_SLIP]*x[STATE_Y_SLIP]);
+    }   //getSlipSpeed
+
+    /**
+     * This method returns the variance of the specified state, useful for checking if the estimate has converged.
+     *
+     * @param state specifies the state index (e.g. STATE_HEADING).
+     * @return variance of the state.
+     */
+    public synchronized double getVariance(int state)
+    {
+        return p[state*NUM_STATES + state];
+    }   //getVariance
+
+    /**
+     * This method is called periodically to update the filter from the sensors.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the competition mode that is running.
+     */
+    private void estimatorTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    {
+        final String funcName = "estimatorTask";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "taskType=%s,runMode=%s", taskType, runMode);
+        }
+
+        double xAccel = 0.0, yAccel = 0.0;
+        if (accel != null)
+        {
+            xAccel = accel.getXAcceleration().value;
+            yAccel = accel.getYAcceleration().value;
+        }
+        update(TrcUtil.getCurrentTime(), gyro.getZHeading().value, gyro.getZRotationRate().value, xAccel, yAccel,
+            driveBase.getXSpeed(), driveBase.getYSpeed());
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.TASK);
+        }
+    }   //estimatorTask
+
+    /**
+     * This method initializes the states from the first set of measurements.
+     *
+     * @param heading specifies the gyro heading.
+     * @param turnRate specifies the gyro rotation rate.
+     * @param xWheelSpeed specifies the x wheel speed.
+     * @param yWheelSpeed specifies the y wheel speed.
+     */
+    private void initialize(double heading, double turnRate, double xWheelSpeed, double yWheelSpeed)
+    {
+        x[STATE_HEADING] = heading;
+        x[STATE_TURN_RATE] = turnRate;
+        x[STATE_X_VELOCITY] = xWheelSpeed;
+        x[STATE_Y_VELOCITY] = yWheelSpeed;
+        x[STATE_X_SLIP] = 0.0;
+        x[STATE_Y_SLIP] = 0.0;
+
+        for (int i = 0; i < p.length; i++)
+        {
+            p[i] = 0.0;
+        }
+        p[STATE_HEADING*NUM_STATES + STATE_HEADING] = headingVar;
+        p[STATE_TURN_RATE*NUM_STATES + STATE_TURN_RATE] = turnRateVar;
+        p[STATE_X_VELOCITY*NUM_STATES + STATE_X_VELOCITY] = wheelSpeedVar;
+        p[STATE_Y_VELOCITY*NUM_STATES + STATE_Y_VELOCITY] = wheelSpeedVar;
+        //
+        // Without an accelerometer, slip is not observable. Zero variance keeps it pinned at zero.
+        //
+        double slipInitVar = accel != null? DEF_INITIAL_VARIANCE: 0.0;
+        p[STATE_X_SLIP*NUM_STATES + STATE_X_SLIP] = slipInitVar;
+        p[STATE_Y_SLIP*NUM_STATES + STATE_Y_SLIP] = slipInitVar;
+    }   //initialize
+
+    /**
+     * This method propagates the states and the covariance forward by dt. The robot frame velocity obeys
+     * dv/dt = a - w x v, so with heading clockwise positive and x pointing right of y:
+     *      dxVel/dt = xAccel - w*yVel
+     *      dyVel/dt = yAccel + w*xVel
+     * where w is the turn rate in radians per second.
+     *
+     * @param dt specifies the time step in seconds.
+     * @param xAccel specifies the x acceleration.
+     * @param yAccel specifies the y acceleration.
+     */
+    private void predict(double dt, double xAccel, double yAccel)
+    {
+        final int n = NUM_STATES;
+        final double k = Math.PI/180.0;
+        double w = x[STATE_TURN_RATE]*k;
+        double vx = x[STATE_X_VELOCITY];
+        double vy = x[STATE_Y_VELOCITY];
+        //
+        // Jacobian of the transition, evaluated at the prior state.
+        //
+        for (int i = 0; i < f.length; i++)
+        {
+            f[i] = 0.0;
+        }
+
+        for (int i = 0; i < n; i++)
+        {
+            f[i*n + i] = 1.0;
+        }
+        f[STATE_HEADING*n + STATE_TURN_RATE] = dt;
+        f[STATE_X_VELOCITY*n + STATE_TURN_RATE] = -k*vy*dt;
+        f[STATE_X_VELOCITY*n + STATE_Y_VELOCITY] = -w*dt;
+        f[STATE_Y_VELOCITY*n + STATE_TURN_RATE] = k*vx*dt;
+        f[STATE_Y_VELOCITY*n + STATE_X_VELOCITY] = w*dt;
+
+        x[STATE_HEADING] += x[STATE_TURN_RATE]*dt;
+        x[STATE_X_VELOCITY] = vx + (xAccel - w*vy)*dt;
+        x[STATE_Y_VELOCITY] = vy + (yAccel + w*vx)*dt;
+        //
+        // P = F*P*F' + Q
+        //
+        multiply(f, p, fp);
+        multiplyTranspose(fp, f, p);
+        p[STATE_TURN_RATE*n + STATE_TURN_RATE] += turnAccelVar*dt;
+        p[STATE_X_VELOCITY*n + STATE_X_VELOCITY] += accelVar*dt;
+        p[STATE_Y_VELOCITY*n + STATE_Y_VELOCITY] += accelVar*dt;
+        if (accel != null)
+        {
+            p[STATE_X_SLIP*n + STATE_X_SLIP] += slipVar*dt;
+            p[STATE_Y_SLIP*n + STATE_Y_SLIP] += slipVar*dt;
+        }
+    }   //predict
+
+    /**
+     * This method applies a scalar measurement that is the sum of one or two states.
+     *
+     * @param state1 specifies the first state in the measurement.
+     * @param state2 specifies the second state in the measurement, -1 if none.
+     * @param z specifies the measured value.
+     * @param r specifies the variance of the measurement.
+     */
+    private void measure(int state1, int state2, double z, double r)
+    {
+        final int n = NUM_STATES;
+
+        for (int i = 0; i < n; i++)
+        {
+            h[i] = 0.0;
+        }
+        h[state1] = 1.0;
+        if (state2 >= 0)
+        {
+            h[state2] = 1.0;
+        }
+
+        double innovation = z;
+        for (int i = 0; i < n; i++)
+        {
+            innovation -= h[i]*x[i];
+        }
+        //
+        // ph = P*H', s = H*P*H' + R, K = ph/s, x += K*innovation, P -= K*ph'.
+        //
+        double s = r;
+        for (int i = 0; i < n; i++)
+        {
+            double sum = 0.0;
+            for (int j = 0; j < n; j++)
+            {
+                sum += p[i*n + j]*h[j];
+            }
+            ph[i] = sum;
+            s += h[i]*sum;
+        }
+
+        if (s > 0.0)
+        {
+            for (int i = 0; i < n; i++)
+            {
+                double gain = ph[i]/s;
+                x[i] += gain*innovation;
+                for (int j = 0; j < n; j++)
+                {
+                    p[i*n + j] -= gain*ph[j];
+                }
+            }
+        }
+    }   //measure
+
+    /**
+     * This method multiplies two square matrices, out = a*b.
+     *
+     * @param a specifies the left matrix.
+     * @param b specifies the right matrix.
+     * @param out specifies the result matrix, must not be a or b.
+     */
+    private static void multiply(double[] a, double[] b, double[] out)
+    {
+        final int n = NUM_STATES;
+
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = 0; j < n; j++)
+            {
+                double sum = 0.0;
+                for (int k = 0; k < n; k++)
+                {
+                    sum += a[i*n + k]*b[k*n + j];
+                }
+                out[i*n + j] = sum;
+            }
+        }
+    }   //multiply
+
+    /**
+     * This method multiplies a square matrix by the transpose of another, out = a*b'.
+     *
+     * @param a specifies the left matrix.
+     * @param b specifies the matrix to be transposed.
+     * @param out specifies the result matrix, must not be a or b.
+     */
+    private static void multiplyTranspose(double[] a, double[] b, double[] out)
+    {
+        final int n = NUM_STATES;
+
+        for (int i = 0; i < n; i++)
+        {
+            for (int j = 0; j < n; j++)
+            {
+                double sum = 0.0;
+                for (int k = 0; k < n; k++)
+                {
+                    sum += a[i*n + k]*b[j*n + k];
+                }
+                out[i*n + j] = sum;
+            }
+        }
+    }   //multiplyTranspose
+
+}   //class TrcDriveStateEstimator
@@ -22,9 +22,13 @@
 
 package trclib;
 
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 /**
  * This class implements the TrcEvent. TrcEvent is very important in our event driven architecture where things
- * only happen when an event is signaled.
+ * only happen when an event is signaled. Besides polling, a consumer can register a listener that is called when
+ * the event is signaled or canceled, or a thread can block on await until then.
  */
 public class TrcEvent
 {
@@ -36,7 +40,23 @@ public class TrcEvent
     private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     private TrcDbgTrace dbgTrace = null;
 
+    /**
+     * A class that wants to be notified when the event is signaled or canceled must implement this interface.
+     */
+    public interface Listener
+    {
+        /**
+         * This method is called when the event goes from neither signaled nor canceled to signaled or canceled.
+         * It is called on the thread that signaled or canceled the event, so it must be quick and thread safe.
+         *
+         * @param event specifies the event that was signaled or canceled.
+         */
+        void notifyEvent(TrcEvent event);
+
+    }   //interface Listener
+
     private final String instanceName;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
     private boolean signaled;
     private boolean canceled;
 
@@ -81,13 +101,15 @@ public class TrcEvent
     }   //toString
 
     /**
-     * This method sets the state of the event object.
+     * This method sets the state of the event object. Setting a pending event notifies the listeners and wakes up
+     * the threads waiting for it.
      *
      * @param signaled specifies the event state to be set.
      */
-    public synchronized void set(boolean signaled)
+    public void set(boolean signaled)
     {
         final String funcName = "set";
+        boolean notify;
 
         if (debugEnabled)
         {
@@ -95,7 +117,20 @@ public class TrcEvent
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        this.signaled = signaled;
+        synchronized (this)
+        {
+            notify = signaled && !this.signaled && !canceled;
+            this.signaled = signaled;
+            if (notify)
+            {
+                notifyAll();
+            }
+        }
+
+        if (notify)
+        {
+            notifyListeners();
+        }
     }   //set
 
     /**
@@ -104,9 +139,10 @@ public class TrcEvent
      * signal for this (i.e. set signal to true when canceled) but we like to be able to differentiate whether
      * the event was completed normally or aborted.
      */
-    public synchronized void cancel()
+    public void cancel()
     {
         final String funcName = "cancel";
+        boolean notify = false;
 
         if (debugEnabled)
         {
@@ -114,9 +150,22 @@ public class TrcEvent
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        if (!signaled)
+        synchronized (this)
         {
-            canceled = true;
+            if (!signaled)
+            {
+                notify = !canceled;
+                canceled = true;
+                if (notify)
+                {
+                    notifyAll();
+                }
+            }
+        }
+
+        if (notify)
+        {
+            notifyListeners();
         }
     }   //cancel
 
@@ -173,4 +222,80 @@ public class TrcEvent
         return canceled;
     }   //isCanceled
 
+    /**
+     * This method registers a listener to be called when the event is signaled or canceled. A listener is only
+     * called on the transition, so one registered on an event that is already signaled is not called until the
+     * event is cleared and signaled again.
+     *
+     * @param listener specifies the listener.
+     */
+    public void addListener(Listener listener)
+    {
+        listeners.addIfAbsent(listener);
+    }   //addListener
+
+    /**
+     * This method unregisters a listener.
+     *
+     * @param listener specifies the listener.
+     */
+    public void removeListener(Listener listener)
+    {
+        listeners.remove(listener);
+    }   //removeListener
+
+    /**
+     * This method calls all the registered listeners.
+     */
+    private void notifyListeners()
+    {
+        for (Listener listener: listeners)
+        {
+            listener.notifyEvent(this);
+        }
+    }   //notifyListeners
+
+    /**
+     * This method blocks the calling thread until the event is signaled or canceled or the timeout expires. It is
+     * for thread based consumers, code running in the robot loop must never block on it.
+     *
+     * @param timeout specifies the timeout in seconds, zero to wait without timeout.
+     * @return true if the event was signaled or canceled, false if the timeout expired.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public synchronized boolean await(double timeout) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + (long)(timeout*1000000000.0);
+
+        while (!signaled && !canceled)
+        {
+            if (timeout > 0.0)
+            {
+                long remainingTime = deadline - System.nanoTime();
+
+                if (remainingTime <= 0)
+                {
+                    break;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remainingTime);
+            }
+            else
+            {
+                wait();
+            }
+        }
+
+        return signaled || canceled;
+    }   //await
+
+    /**
+     * This method blocks the calling thread until the event is signaled or canceled.
+     *
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     */
+    public void await() throws InterruptedException
+    {
+        await(0.0);
+    }   //await
+
 }   //class TrcEvent
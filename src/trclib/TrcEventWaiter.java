@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * This class implements an event listener that waits for any or all of a set of events. It is notified on the
+ * thread that signals the event, so the state it shares with its owner is either final, atomic or volatile. It is
+ * used by TrcStateMachine and TrcCoroutine so that checking a waiting consumer costs nothing regardless of the
+ * number of events. A consumer that must react on the signaling thread, such as a state machine advancing to its
+ * next state, provides a ready handler.
+ */
+class TrcEventWaiter implements TrcEvent.Listener
+{
+    /**
+     * This interface is implemented by a consumer that wants to be called when the waiter goes ready.
+     */
+    interface ReadyHandler
+    {
+        /**
+         * This method is called on the thread that made the waiter ready, i.e. the thread signaling or canceling
+         * the last awaited event, or the thread registering the waiter if it was ready already. It may be called
+         * more than once if events are signaled concurrently, so the handler must be idempotent.
+         *
+         * @param waiter specifies the waiter that went ready.
+         */
+        void waiterReady(TrcEventWaiter waiter);
+
+    }   //interface ReadyHandler
+
+    private final TrcEvent[] events;
+    private final AtomicIntegerArray doneFlags;
+    private final AtomicInteger pendingCount;
+    private final boolean waitForAllEvents;
+    private final ReadyHandler readyHandler;
+    private volatile boolean ready = false;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param events specifies the events to wait for.
+     * @param waitForAllEvents specifies true if all events must be signaled for the waiter to go ready.
+     * @param readyHandler specifies the handler to call when the waiter goes ready, null if none.
+     */
+    TrcEventWaiter(TrcEvent[] events, boolean waitForAllEvents, ReadyHandler readyHandler)
+    {
+        this.events = events;
+        this.doneFlags = new AtomicIntegerArray(events.length);
+        this.pendingCount = new AtomicInteger(events.length);
+        this.waitForAllEvents = waitForAllEvents;
+        this.readyHandler = readyHandler;
+        if (waitForAllEvents && events.length == 0)
+        {
+            ready = true;
+        }
+    }   //TrcEventWaiter
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param events specifies the events to wait for.
+     * @param waitForAllEvents specifies true if all events must be signaled for the waiter to go ready.
+     */
+    TrcEventWaiter(TrcEvent[] events, boolean waitForAllEvents)
+    {
+        this(events, waitForAllEvents, null);
+    }   //TrcEventWaiter
+
+    /**
+     * This method checks if the waiter is ready, i.e. any or all of its events have been signaled or canceled.
+     *
+     * @return true if the waiter is ready, false otherwise.
+     */
+    boolean isReady()
+    {
+        return ready;
+    }   //isReady
+
+    /**
+     * This method registers the waiter with all its events. An event signaled before it was registered is
+     * picked up by checking its state after registration.
+     */
+    void register()
+    {
+        if (ready)
+        {
+            //
+            // Waiting for all of no events.
+            //
+            setReady();
+        }
+
+        for (TrcEvent event: events)
+        {
+            event.addListener(this);
+        }
+
+        for (TrcEvent event: events)
+        {
+            if (event.isSignaled() || event.isCanceled())
+            {
+                notifyEvent(event);
+            }
+        }
+    }   //register
+
+    /**
+     * This method unregisters the waiter from all its events.
+     */
+    void unregister()
+    {
+        for (TrcEvent event: events)
+        {
+            event.removeListener(this);
+        }
+    }   //unregister
+
+    //
+    // Implements TrcEvent.Listener interface.
+    //
+
+    @Override
+    public void notifyEvent(TrcEvent event)
+    {
+        for (int i = 0; i < events.length; i++)
+        {
+            //
+            // Each event is counted only once even if it is signaled again or notified by both the event and
+            // the registration check.
+            //
+            if (events[i] == event && doneFlags.compareAndSet(i, 0, 1))
+            {
+                if (!waitForAllEvents || pendingCount.decrementAndGet() == 0)
+                {
+                    setReady();
+                }
+                break;
+            }
+        }
+    }   //notifyEvent
+
+    /**
+     * This method marks the waiter ready and calls the ready handler, if any.
+     */
+    private void setReady()
+    {
+        ready = true;
+        if (readyHandler != null)
+        {
+            readyHandler.waiterReady(this);
+        }
+    }   //setReady
+
+}   //class TrcEventWaiter
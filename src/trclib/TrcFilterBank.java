@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+/**
+ * This class implements a bank of filters of the same type, one per channel, for filtering many channels such as
+ * the axes of a sensor or all the sonar sensors together. The state of all channels is kept in primitive arrays,
+ * one array per state variable, and filterData filters all channels in one loop without a virtual call per
+ * sample. Each channel behaves exactly like the corresponding TrcKalmanFilter, TrcIIRFilter or TrcSpuriousFilter.
+ * For code that filters one value at a time, getChannelFilter returns a TrcFilter view of a channel that can be
+ * passed to TrcSensor.
+ */
+public class TrcFilterBank
+{
+    private static final String moduleName = "TrcFilterBank";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    public enum FilterType
+    {
+        KALMAN,
+        IIR,
+        SPURIOUS
+    }   //enum FilterType
+
+    /**
+     * This class implements the TrcFilter view of a channel.
+     */
+    private class ChannelFilter extends TrcFilter
+    {
+        private final int channel;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param channel specifies the channel index.
+         */
+        ChannelFilter(int channel)
+        {
+            super(instanceName + "[" + channel + "]");
+            this.channel = channel;
+        }   //ChannelFilter
+
+        //
+        // Implements TrcFilter abstract methods.
+        //
+
+        @Override
+        public double filterData(double data)
+        {
+            return TrcFilterBank.this.filterData(channel, data);
+        }   //filterData
+
+    }   //class ChannelFilter
+
+    private final String instanceName;
+    private final FilterType filterType;
+    private final int numChannels;
+    private final ChannelFilter[] channelFilters;
+    //
+    // Kalman: kQ, kR, state P and X estimate. IIR: weight, state filtered value. Spurious: distance threshold,
+    // state previous value.
+    //
+    private final double param1;
+    private final double param2;
+    private final double[] state1;
+    private final double[] state2;
+    private final boolean[] initialized;
+    private final TrcDbgTrace tracer;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param filterType specifies the filter type of all channels.
+     * @param numChannels specifies the number of channels.
+     * @param param1 specifies kQ for Kalman, weight for IIR and distance threshold for spurious filters.
+     * @param param2 specifies kR for Kalman, ignored for the other filters.
+     * @param tracer specifies the tracer to report spurious data, null if none.
+     */
+    private TrcFilterBank(
+        final String instanceName, FilterType filterType, int numChannels, double param1, double param2,
+        TrcDbgTrace tracer)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (numChannels <= 0)
+        {
+            throw new IllegalArgumentException("numChannels must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        this.filterType = filterType;
+        this.numChannels = numChannels;
+        this.param1 = param1;
+        this.param2 = param2;
+        this.tracer = tracer;
+        state1 = new double[numChannels];
+        state2 = new double[numChannels];
+        initialized = new boolean[numChannels];
+        channelFilters = new ChannelFilter[numChannels];
+        for (int i = 0; i < numChannels; i++)
+        {
+            channelFilters[i] = new ChannelFilter(i);
+        }
+    }   //TrcFilterBank
+
+    /**
+     * This method creates a bank of Kalman filters.
+     *
+     * @param instanceName specifies the instance name.
+     * @param numChannels specifies the number of channels.
+     * @param kQ specifies the KQ constant.
+     * @param kR specifies the KR constant.
+     * @return filter bank.
+     */
+    public static TrcFilterBank createKalmanBank(final String instanceName, int numChannels, double kQ, double kR)
+    {
+        return new TrcFilterBank(instanceName, FilterType.KALMAN, numChannels, kQ, kR, null);
+    }   //createKalmanBank
+
+    /**
+     * This method creates a bank of IIR filters.
+     *
+     * @param instanceName specifies the instance name.
+     * @param numChannels specifies the number of channels.
+     * @param weight specifies the weight of the current data point.
+     * @return filter bank.
+     */
+    public static TrcFilterBank createIIRBank(final String instanceName, int numChannels, double weight)
+    {
+        if (weight < 0.0 || weight > 1.0)
+        {
+            throw new IllegalArgumentException("Weight must be a positive fraction within 1.0.");
+        }
+
+        return new TrcFilterBank(instanceName, FilterType.IIR, numChannels, weight, 0.0, null);
+    }   //createIIRBank
+
+    /**
+     * This method creates a bank of spurious data filters.
+     *
+     * @param instanceName specifies the instance name.
+     * @param numChannels specifies the number of channels.
+     * @param distanceThreshold specifies the distance threshold value.
+     * @param tracer specifies the tracer to report spurious data, null if none.
+     * @return filter bank.
+     */
+    public static TrcFilterBank createSpuriousBank(
+        final String instanceName, int numChannels, double distanceThreshold, TrcDbgTrace tracer)
+    {
+        return new TrcFilterBank(instanceName, FilterType.SPURIOUS, numChannels, distanceThreshold, 0.0, tracer);
+    }   //createSpuriousBank
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method returns the filter type of the bank.
+     *
+     * @return filter type.
+     */
+    public FilterType getFilterType()
+    {
+        return filterType;
+    }   //getFilterType
+
+    /**
+     * This method returns the number of channels.
+     *
+     * @return number of channels.
+     */
+    public int getNumChannels()
+    {
+        return numChannels;
+    }   //getNumChannels
+
+    /**
+     * This method returns the TrcFilter view of a channel.
+     *
+     * @param channel specifies the channel index.
+     * @return filter of the channel.
+     */
+    public TrcFilter getChannelFilter(int channel)
+    {
+        return channelFilters[channel];
+    }   //getChannelFilter
+
+    /**
+     * This method returns the TrcFilter views of all channels, for example to be passed to a sensor with one axis
+     * per channel.
+     *
+     * @return filters of all channels.
+     */
+    public TrcFilter[] getChannelFilters()
+    {
+        return channelFilters.clone();
+    }   //getChannelFilters
+
+    /**
+     * This method resets all channels to their initial state.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < numChannels; i++)
+        {
+            state1[i] = 0.0;
+            state2[i] = 0.0;
+            initialized[i] = false;
+        }
+    }   //reset
+
+    /**
+     * This method filters the data of all channels.
+     *
+     * @param data specifies the data of each channel.
+     * @param filteredData specifies the array to receive the filtered data, can be the data array.
+     */
+    public void filterData(double[] data, double[] filteredData)
+    {
+        if (data.length < numChannels || filteredData.length < numChannels)
+        {
+            throw new IllegalArgumentException("Arrays must have at least " + numChannels + " elements.");
+        }
+
+        switch (filterType)
+        {
+            case KALMAN:
+                for (int i = 0; i < numChannels; i++)
+                {
+                    filteredData[i] = kalmanFilter(i, data[i]);
+                }
+                break;
+
+            case IIR:
+                for (int i = 0; i < numChannels; i++)
+                {
+                    state1[i] = state1[i]*(1.0 - param1) + data[i]*param1;
+                    filteredData[i] = state1[i];
+                }
+                break;
+
+            case SPURIOUS:
+                for (int i = 0; i < numChannels; i++)
+                {
+                    filteredData[i] = spuriousFilter(i, data[i]);
+                }
+                break;
+        }
+    }   //filterData
+
+    /**
+     * This method filters the data of one channel.
+     *
+     * @param channel specifies the channel index.
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    public double filterData(int channel, double data)
+    {
+        final String funcName = "filterData";
+        double output;
+
+        switch (filterType)
+        {
+            case KALMAN:
+                output = kalmanFilter(channel, data);
+                break;
+
+            case IIR:
+                state1[channel] = state1[channel]*(1.0 - param1) + data*param1;
+                output = state1[channel];
+                break;
+
+            case SPURIOUS:
+            default:
+                output = spuriousFilter(channel, data);
+                break;
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "%s[%d]: data=%f, filtered=%f", instanceName, channel, data, output);
+        }
+
+        return output;
+    }   //filterData
+
+    /**
+     * This method runs the Kalman filter of a channel, see TrcKalmanFilter.
+     *
+     * @param i specifies the channel index.
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    private double kalmanFilter(int i, double data)
+    {
+        if (!initialized[i])
+        {
+            state2[i] = data;
+            initialized[i] = true;
+        }
+
+        double tempP = state1[i] + param1;
+        double k = tempP/(tempP + param2);
+
+        state2[i] += k*(data - state2[i]);
+        state1[i] = (1 - k)*tempP;
+
+        return state2[i];
+    }   //kalmanFilter
+
+    /**
+     * This method runs the spurious data filter of a channel, see TrcSpuriousFilter.
+     *
+     * @param i specifies the channel index.
+     * @param data specifies the data value to be filtered.
+     * @return filtered data.
+     */
+    private double spuriousFilter(int i, double data)
+    {
+        if (initialized[i] && Math.abs(data - state1[i]) >= param1)
+        {
+            if (tracer != null)
+            {
+                tracer.traceWarn(instanceName, "Spurious data detected on channel %d (data=%f, prev=%f)",
+                    i, data, state1[i]);
+            }
+            data = state1[i];
+        }
+        else
+        {
+            state1[i] = data;
+            initialized[i] = true;
+        }
+
+        return data;
+    }   //spuriousFilter
+
+}   //class TrcFilterBank
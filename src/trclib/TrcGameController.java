@@ -22,6 +22,8 @@
 
 package trclib;
 
+import java.util.Arrays;
+
 /**
  * This class implements the platform independent game controller and is extended by a platform dependent game
  * controller class providing methods to read various game controls. It also provides monitoring of the controller
@@ -63,10 +65,20 @@ public abstract class TrcGameController
     public abstract int getButtons();
 
     private static final double DEF_DEADBAND_THRESHOLD = 0.15;
+    //
+    // Axis index of the analog controls adjusted without an axis, they share one recorder channel.
+    //
+    private static final int SHARED_AXIS = -1;
 
     private final String instanceName;
     private final double deadbandThreshold;
     private final ButtonHandler buttonHandler;
+    private final TrcDataRecorder.Channel buttonsChannel;
+    //
+    // Recorder channels of the analog controls, indexed by axis, so that each axis is recorded separately.
+    //
+    private TrcDataRecorder.Channel[] analogChannels = new TrcDataRecorder.Channel[0];
+    private TrcDataRecorder.Channel sharedAnalogChannel = null;
     private int prevButtons;
     private int exponent = 2;
 
@@ -91,6 +103,7 @@ public abstract class TrcGameController
         this.instanceName = instanceName;
         this.deadbandThreshold = deadbandThreshold;
         this.buttonHandler = buttonHandler;
+        buttonsChannel = TrcDataRecorder.getChannel(instanceName + ".buttons", false);
 
         if (buttonHandler != null)
         {
@@ -118,7 +131,7 @@ public abstract class TrcGameController
      */
     public void init()
     {
-        prevButtons = getButtons();
+        prevButtons = buttonsChannel.input(getButtons());
     }   //init
 
     /**
@@ -151,6 +164,8 @@ public abstract class TrcGameController
 
     /**
      * This method adjusts the analog control value by raising it exponentially and adjusting the sign if appropriate.
+     * All analog controls adjusted by this method share one recorder channel, so a replay reproduces them only if
+     * they are read in the same order. Use the method taking the axis index to record each axis separately.
      *
      * @param value specifies the analog control value.
      * @param doExp specifies true if the value should be raised exponentially, false otherwise. If the value is
@@ -158,15 +173,30 @@ public abstract class TrcGameController
      * @return adjusted analog control value.
      */
     protected double adjustAnalogControl(double value, boolean doExp)
+    {
+        return adjustAnalogControl(SHARED_AXIS, value, doExp);
+    }   //adjustAnalogControl
+
+    /**
+     * This method adjusts the analog control value by raising it exponentially and adjusting the sign if appropriate.
+     *
+     * @param axis specifies the index of the analog control axis the value was read from.
+     * @param value specifies the analog control value.
+     * @param doExp specifies true if the value should be raised exponentially, false otherwise. If the value is
+     *              raised exponentially, it gives you more precise control on the low end values.
+     * @return adjusted analog control value.
+     */
+    protected double adjustAnalogControl(int axis, double value, boolean doExp)
     {
         final String funcName = "adjustAnalogControl";
 
         if (debugEnabled)
         {
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.FUNC,
-                    "value=%f,exp=%s", value, Boolean.toString(doExp));
+                    "axis=%d,value=%f,exp=%s", axis, value, Boolean.toString(doExp));
         }
 
+        value = getAnalogChannel(axis).input(value);
         value = (Math.abs(value) >= deadbandThreshold)? value: 0.0;
         value = expValue(value, doExp);
 
@@ -180,20 +210,35 @@ public abstract class TrcGameController
 
     /**
      * This method adjusts the analog control curve by using the cubic polynomial: coeff*value^3 + (1 - coeff)*value.
+     * All analog controls adjusted by this method share one recorder channel, so a replay reproduces them only if
+     * they are read in the same order. Use the method taking the axis index to record each axis separately.
      *
      * @param value specifies the analog control value.
      * @param cubicCoefficient specifies the cubic coefficient.
      */
     protected double adjustAnalogControl(double value, double cubicCoefficient)
+    {
+        return adjustAnalogControl(SHARED_AXIS, value, cubicCoefficient);
+    }   //adjustAnalogControl
+
+    /**
+     * This method adjusts the analog control curve by using the cubic polynomial: coeff*value^3 + (1 - coeff)*value.
+     *
+     * @param axis specifies the index of the analog control axis the value was read from.
+     * @param value specifies the analog control value.
+     * @param cubicCoefficient specifies the cubic coefficient.
+     */
+    protected double adjustAnalogControl(int axis, double value, double cubicCoefficient)
     {
         final String funcName = "adjustAnalogControl";
 
         if (debugEnabled)
         {
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.FUNC,
-                    "value=%f,cubicCoeff=%f", value, cubicCoefficient);
+                    "axis=%d,value=%f,cubicCoeff=%f", axis, value, cubicCoefficient);
         }
 
+        value = getAnalogChannel(axis).input(value);
         value = (Math.abs(value) >= deadbandThreshold)? value: 0.0;
         value = cubicCoefficient*Math.pow(value, 3) + (1 - cubicCoefficient)*value;
 
@@ -205,6 +250,41 @@ public abstract class TrcGameController
         return value;
     }   //adjustAnalogControl
 
+    /**
+     * This method returns the recorder channel of the given analog control axis, creating it on first use.
+     *
+     * @param axis specifies the index of the analog control axis, SHARED_AXIS for the shared channel.
+     * @return recorder channel of the axis.
+     */
+    private synchronized TrcDataRecorder.Channel getAnalogChannel(int axis)
+    {
+        if (axis == SHARED_AXIS)
+        {
+            if (sharedAnalogChannel == null)
+            {
+                sharedAnalogChannel = TrcDataRecorder.getChannel(instanceName + ".analog", false);
+            }
+
+            return sharedAnalogChannel;
+        }
+        else if (axis < 0)
+        {
+            throw new IllegalArgumentException("Axis index must not be negative.");
+        }
+
+        if (axis >= analogChannels.length)
+        {
+            analogChannels = Arrays.copyOf(analogChannels, axis + 1);
+        }
+
+        if (analogChannels[axis] == null)
+        {
+            analogChannels[axis] = TrcDataRecorder.getChannel(instanceName + ".axis" + axis, false);
+        }
+
+        return analogChannels[axis];
+    }   //getAnalogChannel
+
     /**
      * This method returns the stick direction in radians combining the x and y axes.
      *
@@ -324,7 +404,7 @@ public abstract class TrcGameController
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "taskType=%s,runMode=%s", taskType, runMode);
         }
 
-        int currButtons = getButtons();
+        int currButtons = buttonsChannel.input(getButtons());
         int changedButtons = prevButtons^currButtons;
         int buttonMask;
 
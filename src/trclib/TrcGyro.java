@@ -646,7 +646,7 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
         }
         else
         {
-            data = getRawXData(DataType.HEADING);
+            data = recordXData(DataType.HEADING, getRawXData(DataType.HEADING));
         }
 
         if (debugEnabled)
@@ -681,7 +681,7 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
         }
         else
         {
-            data = getRawYData(DataType.HEADING);
+            data = recordYData(DataType.HEADING, getRawYData(DataType.HEADING));
         }
 
         if (debugEnabled)
@@ -716,7 +716,7 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
         }
         else
         {
-            data = getRawZData(DataType.HEADING);
+            data = recordZData(DataType.HEADING, getRawZData(DataType.HEADING));
         }
 
         if (debugEnabled)
@@ -729,6 +729,63 @@ public abstract class TrcGyro extends TrcSensor<TrcGyro.DataType>
         return data;
     }   //getZHeading
 
+    /**
+     * This method returns the data recorder channel name of the given axis and data type. It names the axes by
+     * letter so that the recording of a 3-axis gyro can be replayed with a single axis gyro.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type.
+     * @return channel name.
+     */
+    @Override
+    protected String getRecorderChannelName(int index, DataType dataType)
+    {
+        String axis = index == xIndex? "x": index == yIndex? "y": "z";
+        return toString() + "." + axis + "." + dataType;
+    }   //getRecorderChannelName
+
+    /**
+     * This method passes x-axis data read from the gyro through the data recorder. It is for platform dependent
+     * gyros that override the heading or rotation rate methods and bypass the processed data.
+     *
+     * @param dataType specifies the data type.
+     * @param data specifies the data read from the gyro.
+     * @return data to use.
+     */
+    protected SensorData<Double> recordXData(DataType dataType, SensorData<Double> data)
+    {
+        data.value = recordInput(xIndex, dataType, data.value);
+        return data;
+    }   //recordXData
+
+    /**
+     * This method passes y-axis data read from the gyro through the data recorder. It is for platform dependent
+     * gyros that override the heading or rotation rate methods and bypass the processed data.
+     *
+     * @param dataType specifies the data type.
+     * @param data specifies the data read from the gyro.
+     * @return data to use.
+     */
+    protected SensorData<Double> recordYData(DataType dataType, SensorData<Double> data)
+    {
+        data.value = recordInput(yIndex, dataType, data.value);
+        return data;
+    }   //recordYData
+
+    /**
+     * This method passes z-axis data read from the gyro through the data recorder. It is for platform dependent
+     * gyros that override the heading or rotation rate methods and bypass the processed data.
+     *
+     * @param dataType specifies the data type.
+     * @param data specifies the data read from the gyro.
+     * @return data to use.
+     */
+    protected SensorData<Double> recordZData(DataType dataType, SensorData<Double> data)
+    {
+        data.value = recordInput(zIndex, dataType, data.value);
+        return data;
+    }   //recordZData
+
     //
     // The following methods can be overridden by a platform dependent gyro class.
     //
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * This class implements a robot initializer. The robot adds its initialization steps with the names of the steps
+ * each one depends on, then run() executes them on a thread pool: a step starts as soon as all its dependencies
+ * have completed, so independent subsystems are constructed in parallel. Deferred steps are not needed to start
+ * the robot and run one after the other on a background thread after run() returns. The time each step took is
+ * logged with the given tracer so slow devices are easy to find.
+ *
+ * The steps run on pool threads, so they must only touch their own subsystems and the subsystems they depend on.
+ * Sensor reads on pool threads are not recorded by TrcDataRecorder.
+ */
+public class TrcInitializer
+{
+    private static final String moduleName = "TrcInitializer";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This class holds an initialization step.
+     */
+    private static class Step
+    {
+        final String name;
+        final Runnable init;
+        final String[] dependencies;
+        final ArrayList<Step> dependents = new ArrayList<>();
+        int pendingDependencies;
+        double startTime;
+        double elapsedTime;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param name specifies the step name.
+         * @param init specifies the initialization code.
+         * @param dependencies specifies the names of the steps that must complete first.
+         */
+        Step(String name, Runnable init, String[] dependencies)
+        {
+            this.name = name;
+            this.init = init;
+            this.dependencies = dependencies;
+        }   //Step
+
+    }   //class Step
+
+    private final String instanceName;
+    private final TrcDbgTrace tracer;
+    private final int numThreads;
+    private final LinkedHashMap<String, Step> steps = new LinkedHashMap<>();
+    private final ArrayList<Step> deferredSteps = new ArrayList<>();
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param tracer specifies the tracer to log the step times with, can be null if not provided.
+     * @param numThreads specifies the number of threads to run the steps on, 1 to run them sequentially.
+     */
+    public TrcInitializer(final String instanceName, TrcDbgTrace tracer, int numThreads)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (numThreads < 1)
+        {
+            throw new IllegalArgumentException("Number of threads must be at least 1.");
+        }
+
+        this.instanceName = instanceName;
+        this.tracer = tracer;
+        this.numThreads = numThreads;
+    }   //TrcInitializer
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method adds an initialization step. The dependencies may be added later, they are resolved by run().
+     *
+     * @param name specifies the step name.
+     * @param init specifies the initialization code.
+     * @param dependencies specifies the names of the steps that must complete before this step starts.
+     * @return this initializer so that steps can be chained.
+     * @throws IllegalArgumentException if a step with the same name was already added.
+     */
+    public synchronized TrcInitializer addStep(String name, Runnable init, String... dependencies)
+    {
+        if (steps.containsKey(name))
+        {
+            throw new IllegalArgumentException("Step " + name + " already exists.");
+        }
+
+        steps.put(name, new Step(name, init, dependencies));
+
+        return this;
+    }   //addStep
+
+    /**
+     * This method adds a deferred step. Deferred steps run in the order added on a background thread after run()
+     * has completed all the other steps.
+     *
+     * @param name specifies the step name.
+     * @param init specifies the initialization code.
+     * @return this initializer so that steps can be chained.
+     */
+    public synchronized TrcInitializer addDeferredStep(String name, Runnable init)
+    {
+        deferredSteps.add(new Step(name, init, new String[0]));
+
+        return this;
+    }   //addDeferredStep
+
+    /**
+     * This method runs the given step and records its timing.
+     *
+     * @param step specifies the step.
+     * @return the step.
+     */
+    private static Step runStep(Step step)
+    {
+        step.startTime = TrcDataRecorder.getUnrecordedTime();
+        step.init.run();
+        step.elapsedTime = TrcDataRecorder.getUnrecordedTime() - step.startTime;
+
+        return step;
+    }   //runStep
+
+    /**
+     * This method runs all the steps in dependency order, independent steps in parallel, and returns when they
+     * have all completed. It then starts the deferred steps on a background thread.
+     *
+     * @throws IllegalArgumentException if a step depends on an unknown step or the dependencies form a cycle.
+     * @throws RuntimeException if a step threw, the exception is the cause. The steps that were already running
+     *         complete but no new step is started.
+     */
+    public synchronized void run()
+    {
+        final String funcName = "run";
+        //
+        // Resolve the dependencies, the steps without any are ready to run.
+        //
+        ArrayList<Step> readySteps = new ArrayList<>();
+        for (Step step: steps.values())
+        {
+            step.dependents.clear();
+        }
+
+        for (Step step: steps.values())
+        {
+            step.pendingDependencies = step.dependencies.length;
+            for (String dependency: step.dependencies)
+            {
+                Step dependencyStep = steps.get(dependency);
+
+                if (dependencyStep == null)
+                {
+                    throw new IllegalArgumentException(
+                        "Step " + step.name + " depends on unknown step " + dependency + ".");
+                }
+                dependencyStep.dependents.add(step);
+            }
+
+            if (step.pendingDependencies == 0)
+            {
+                readySteps.add(step);
+            }
+        }
+
+        double startTime = TrcDataRecorder.getUnrecordedTime();
+        double totalStepTime = 0.0;
+        int numCompleted = 0;
+        int numRunning = 0;
+        RuntimeException failure = null;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        ExecutorCompletionService<Step> completionService = new ExecutorCompletionService<>(executor);
+
+        try
+        {
+            while (failure == null && (numRunning > 0 || !readySteps.isEmpty()))
+            {
+                for (Step step: readySteps)
+                {
+                    completionService.submit(() -> runStep(step));
+                    numRunning++;
+                }
+                readySteps.clear();
+
+                if (numRunning > 0)
+                {
+                    try
+                    {
+                        Step step = completionService.take().get();
+
+                        numRunning--;
+                        numCompleted++;
+                        totalStepTime += step.elapsedTime;
+                        if (tracer != null)
+                        {
+                            tracer.traceInfo(
+                                funcName, "%s: %s took %.3fs (started at %.3fs)",
+                                instanceName, step.name, step.elapsedTime, step.startTime - startTime);
+                        }
+
+                        for (Step dependent: step.dependents)
+                        {
+                            if (--dependent.pendingDependencies == 0)
+                            {
+                                readySteps.add(dependent);
+                            }
+                        }
+                    }
+                    catch (ExecutionException e)
+                    {
+                        numRunning--;
+                        failure = new RuntimeException(instanceName + ": initialization step failed.", e.getCause());
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        failure = new RuntimeException(instanceName + ": initialization interrupted.", e);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        if (failure != null)
+        {
+            throw failure;
+        }
+        else if (numCompleted < steps.size())
+        {
+            throw new IllegalArgumentException(instanceName + ": initialization steps have a dependency cycle.");
+        }
+
+        if (tracer != null)
+        {
+            tracer.traceInfo(
+                funcName, "%s: %d steps took %.3fs on %d threads (%.3fs sequential)",
+                instanceName, numCompleted, TrcDataRecorder.getUnrecordedTime() - startTime, numThreads,
+                totalStepTime);
+        }
+
+        if (!deferredSteps.isEmpty())
+        {
+            ArrayList<Step> deferred = new ArrayList<>(deferredSteps);
+            Thread deferredThread = new Thread(() -> runDeferredSteps(deferred), instanceName + ".deferred");
+
+            deferredSteps.clear();
+            deferredThread.setDaemon(true);
+            deferredThread.start();
+        }
+    }   //run
+
+    /**
+     * This method runs on the background thread to run the deferred steps.
+     *
+     * @param deferred specifies the deferred steps.
+     */
+    private void runDeferredSteps(ArrayList<Step> deferred)
+    {
+        final String funcName = "runDeferredSteps";
+
+        for (Step step: deferred)
+        {
+            try
+            {
+                runStep(step);
+                if (tracer != null)
+                {
+                    tracer.traceInfo(funcName, "%s: deferred %s took %.3fs", instanceName, step.name, step.elapsedTime);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                if (tracer != null)
+                {
+                    tracer.traceWarn(funcName, "%s: deferred %s failed: %s", instanceName, step.name, e);
+                }
+            }
+        }
+    }   //runDeferredSteps
+
+    /**
+     * This class holds an object that is created on first use. It is for devices that are not needed to start the
+     * robot, so that creating them does not slow down the boot. The creation time is logged with the tracer.
+     *
+     * @param <T> specifies the object type.
+     */
+    public static class Lazy<T>
+    {
+        private final String name;
+        private final TrcDbgTrace tracer;
+        private final Supplier<T> factory;
+        private volatile T object = null;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param name specifies the object name used in the log.
+         * @param tracer specifies the tracer to log the creation time with, can be null if not provided.
+         * @param factory specifies the method creating the object.
+         */
+        public Lazy(String name, TrcDbgTrace tracer, Supplier<T> factory)
+        {
+            this.name = name;
+            this.tracer = tracer;
+            this.factory = factory;
+        }   //Lazy
+
+        /**
+         * This method returns the object, creating it on the first call.
+         *
+         * @return the object.
+         */
+        public T get()
+        {
+            T obj = object;
+
+            if (obj == null)
+            {
+                synchronized (this)
+                {
+                    obj = object;
+                    if (obj == null)
+                    {
+                        double startTime = TrcDataRecorder.getUnrecordedTime();
+
+                        obj = factory.get();
+                        object = obj;
+                        if (tracer != null)
+                        {
+                            tracer.traceInfo(
+                                "Lazy.get", "%s: created on first use in %.3fs",
+                                name, TrcDataRecorder.getUnrecordedTime() - startTime);
+                        }
+                    }
+                }
+            }
+
+            return obj;
+        }   //get
+
+        /**
+         * This method checks if the object has been created.
+         *
+         * @return true if the object has been created, false otherwise.
+         */
+        public boolean isCreated()
+        {
+            return object != null;
+        }   //isCreated
+
+    }   //class Lazy
+
+}   //class TrcInitializer
@@ -0,0 +1,631 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class implements a platform independent input service. It samples the buttons and axes of all its input
+ * devices in one PREPERIODIC task, which the robot loop runs once per driver station packet, instead of each
+ * controller diffing its own buttons in its own task. It turns the changes
+ * into timestamped input events (press, release, long press, chord and axis crossing) in a queue and dispatches
+ * them to the handlers in batches of bounded size. Each device is sampled at its own sampling period. The event
+ * objects are preallocated and reused, a handler must not keep a reference to the event it is called with. When
+ * the queue overflows, other events are dropped before a release, so a handler never misses the release of a
+ * button it saw pressed. It is extended by a platform dependent class that reads the devices.
+ */
+public abstract class TrcInputService
+{
+    protected static final String moduleName = "TrcInputService";
+    protected static final boolean debugEnabled = false;
+    protected static final boolean tracingEnabled = false;
+    protected static final boolean useGlobalTracer = false;
+    protected static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    protected static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    protected TrcDbgTrace dbgTrace = null;
+
+    public enum EventType
+    {
+        BUTTON_PRESSED,
+        BUTTON_RELEASED,
+        BUTTON_LONG_PRESSED,
+        CHORD_PRESSED,
+        AXIS_CROSSED
+    }   //enum EventType
+
+    /**
+     * This class contains an input event.
+     */
+    public static class InputEvent
+    {
+        public EventType type;
+        //
+        // Device index as returned by addDevice.
+        //
+        public int device;
+        //
+        // Button mask for button events, chord index for chord events, axis index for axis events.
+        //
+        public int id;
+        //
+        // Axis value for axis events, press duration for release and long press events.
+        //
+        public double value;
+        public double timestamp;
+
+        /**
+         * This method returns the event info in string form.
+         *
+         * @return event info in string form.
+         */
+        @Override
+        public String toString()
+        {
+            return String.format("%s(device=%d,id=0x%x,value=%.3f,time=%.3f)", type, device, id, value, timestamp);
+        }   //toString
+
+    }   //class InputEvent
+
+    /**
+     * This interface is implemented by the handlers of input events.
+     */
+    public interface InputHandler
+    {
+        /**
+         * This method is called to handle an input event. The event object is reused after the call returns.
+         *
+         * @param event specifies the input event.
+         */
+        void inputEvent(InputEvent event);
+
+    }   //interface InputHandler
+
+    /**
+     * This method is provided by the platform dependent class to read the buttons of a device.
+     *
+     * @param device specifies the device index.
+     * @return buttons state bit mask.
+     */
+    protected abstract int readButtons(int device);
+
+    /**
+     * This method is provided by the platform dependent class to read an axis of a device.
+     *
+     * @param device specifies the device index.
+     * @param axis specifies the axis index.
+     * @return axis value.
+     */
+    protected abstract double readAxis(int device, int axis);
+
+    /**
+     * This method is called to get the sampling period of a device. The platform dependent class overrides it if
+     * its devices have a sampling period, the default samples the devices every loop.
+     *
+     * @param device specifies the device index.
+     * @return sampling period in seconds, zero to sample every loop.
+     */
+    protected double getSamplingPeriod(int device)
+    {
+        return 0.0;
+    }   //getSamplingPeriod
+
+    private static final int DEF_QUEUE_SIZE = 64;
+    private static final int DEF_MAX_EVENTS_PER_LOOP = 16;
+    private static final double DEF_LONG_PRESS_TIME = 0.5;
+
+    /**
+     * This class keeps the state of a device.
+     */
+    private static class Device
+    {
+        final String name;
+        final TrcDataRecorder.Channel buttonsChannel;
+        final double[] pressTimes = new double[Integer.SIZE];
+        int buttons = 0;
+        int longPressPending = 0;
+        double nextSampleTime = 0.0;
+        boolean sampled = false;
+        //
+        // Releases that did not fit in the queue, they are queued as soon as there is room.
+        //
+        int unqueuedReleases = 0;
+
+        Device(String name)
+        {
+            this.name = name;
+            buttonsChannel = TrcDataRecorder.getChannel(name + ".buttons", false);
+        }   //Device
+
+    }   //class Device
+
+    /**
+     * This class keeps the state of a chord.
+     */
+    private static class Chord
+    {
+        final int device;
+        final int buttonMask;
+        boolean pressed = false;
+
+        Chord(int device, int buttonMask)
+        {
+            this.device = device;
+            this.buttonMask = buttonMask;
+        }   //Chord
+
+    }   //class Chord
+
+    /**
+     * This class keeps the state of an axis threshold.
+     */
+    private static class AxisThreshold
+    {
+        final int device;
+        final int axis;
+        final double threshold;
+        final TrcDataRecorder.Channel axisChannel;
+        Boolean above = null;
+
+        AxisThreshold(int device, int axis, double threshold, String name)
+        {
+            this.device = device;
+            this.axis = axis;
+            this.threshold = threshold;
+            axisChannel = TrcDataRecorder.getChannel(name, false);
+        }   //AxisThreshold
+
+    }   //class AxisThreshold
+
+    private final String instanceName;
+    private final ArrayList<Device> devices = new ArrayList<>();
+    private final ArrayList<Chord> chords = new ArrayList<>();
+    private final ArrayList<AxisThreshold> axisThresholds = new ArrayList<>();
+    private final CopyOnWriteArrayList<InputHandler> handlers = new CopyOnWriteArrayList<>();
+    private final InputEvent[] eventQueue;
+    private int queueHead = 0;
+    private int queueCount = 0;
+    private int droppedEventCount = 0;
+    private int maxEventsPerLoop = DEF_MAX_EVENTS_PER_LOOP;
+    private double longPressTime = DEF_LONG_PRESS_TIME;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param queueSize specifies the maximum number of events waiting to be dispatched.
+     */
+    public TrcInputService(final String instanceName, int queueSize)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (queueSize <= 0)
+        {
+            throw new IllegalArgumentException("queueSize must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        eventQueue = new InputEvent[queueSize];
+        for (int i = 0; i < eventQueue.length; i++)
+        {
+            eventQueue[i] = new InputEvent();
+        }
+
+        TrcTaskMgr.TaskObject inputTaskObj = TrcTaskMgr.getInstance().createTask(
+            instanceName + ".inputTask", this::inputTask);
+        inputTaskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
+    }   //TrcInputService
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     */
+    public TrcInputService(final String instanceName)
+    {
+        this(instanceName, DEF_QUEUE_SIZE);
+    }   //TrcInputService
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method adds an input device to be sampled at the period returned by getSamplingPeriod. Devices must be
+     * added before the robot loop starts.
+     *
+     * @param name specifies the device name, used to name the recorder channels.
+     * @return device index used in the input events.
+     */
+    protected int addDevice(String name)
+    {
+        devices.add(new Device(name));
+        return devices.size() - 1;
+    }   //addDevice
+
+    /**
+     * This method returns the name of a device.
+     *
+     * @param device specifies the device index.
+     * @return device name.
+     */
+    public String getDeviceName(int device)
+    {
+        return devices.get(device).name;
+    }   //getDeviceName
+
+    /**
+     * This method adds a chord, i.e. a set of buttons on a device pressed together. A CHORD_PRESSED event is
+     * generated when the last button of the chord is pressed.
+     *
+     * @param device specifies the device index.
+     * @param buttonMask specifies the buttons of the chord.
+     * @return chord index used in the input events.
+     */
+    public int addChord(int device, int buttonMask)
+    {
+        if (device < 0 || device >= devices.size() || Integer.bitCount(buttonMask) < 2)
+        {
+            throw new IllegalArgumentException("Chord must have a valid device and at least two buttons.");
+        }
+
+        chords.add(new Chord(device, buttonMask));
+        return chords.size() - 1;
+    }   //addChord
+
+    /**
+     * This method adds an axis threshold. An AXIS_CROSSED event is generated when the axis value crosses the
+     * threshold in either direction.
+     *
+     * @param device specifies the device index.
+     * @param axis specifies the axis index.
+     * @param threshold specifies the threshold value.
+     */
+    public void addAxisThreshold(int device, int axis, double threshold)
+    {
+        if (device < 0 || device >= devices.size())
+        {
+            throw new IllegalArgumentException("Invalid device " + device + ".");
+        }
+
+        axisThresholds.add(
+            new AxisThreshold(device, axis, threshold, devices.get(device).name + ".axis" + axis + "@" + threshold));
+    }   //addAxisThreshold
+
+    /**
+     * This method sets the time a button must be held to generate a BUTTON_LONG_PRESSED event.
+     *
+     * @param time specifies the long press time in seconds.
+     */
+    public void setLongPressTime(double time)
+    {
+        longPressTime = time;
+    }   //setLongPressTime
+
+    /**
+     * This method sets the maximum number of events dispatched in one loop. The remaining events are dispatched
+     * in the following loops.
+     *
+     * @param maxEvents specifies the maximum number of events per loop.
+     */
+    public void setMaxEventsPerLoop(int maxEvents)
+    {
+        if (maxEvents <= 0)
+        {
+            throw new IllegalArgumentException("maxEvents must be positive.");
+        }
+
+        maxEventsPerLoop = maxEvents;
+    }   //setMaxEventsPerLoop
+
+    /**
+     * This method adds a handler that is called for every input event.
+     *
+     * @param handler specifies the handler.
+     */
+    public void addHandler(InputHandler handler)
+    {
+        handlers.addIfAbsent(handler);
+    }   //addHandler
+
+    /**
+     * This method removes a handler.
+     *
+     * @param handler specifies the handler.
+     */
+    public void removeHandler(InputHandler handler)
+    {
+        handlers.remove(handler);
+    }   //removeHandler
+
+    /**
+     * This method returns the last sampled buttons of a device.
+     *
+     * @param device specifies the device index.
+     * @return buttons state bit mask.
+     */
+    public int getButtons(int device)
+    {
+        return devices.get(device).buttons;
+    }   //getButtons
+
+    /**
+     * This method returns the number of events dropped because the queue was full.
+     *
+     * @return number of dropped events.
+     */
+    public int getDroppedEventCount()
+    {
+        return droppedEventCount;
+    }   //getDroppedEventCount
+
+    /**
+     * This method dispatches an event to the handlers. A platform dependent class may override it to also deliver
+     * the event to its own handlers.
+     *
+     * @param event specifies the input event.
+     * @param runMode specifies the current robot run mode.
+     */
+    protected void dispatchEvent(InputEvent event, TrcRobot.RunMode runMode)
+    {
+        for (InputHandler handler: handlers)
+        {
+            handler.inputEvent(event);
+        }
+    }   //dispatchEvent
+
+    /**
+     * This method runs at the start of every periodic loop. It samples the devices, generates the long press
+     * events and dispatches a batch of events.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the current robot run mode.
+     */
+    public void inputTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    {
+        final String funcName = "inputTask";
+        double currTime = TrcUtil.getCurrentTime();
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "taskType=%s,runMode=%s", taskType, runMode);
+        }
+
+        queueUnqueuedReleases(currTime);
+        sampleDevices(currTime);
+        checkLongPresses(currTime);
+
+        for (int i = 0; i < maxEventsPerLoop && queueCount > 0; i++)
+        {
+            InputEvent event = eventQueue[queueHead];
+
+            queueHead = (queueHead + 1)%eventQueue.length;
+            queueCount--;
+            if (debugEnabled)
+            {
+                dbgTrace.traceInfo(funcName, "%s: %s", instanceName, event);
+            }
+            dispatchEvent(event, runMode);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.TASK);
+        }
+    }   //inputTask
+
+    /**
+     * This method queues the releases that did not fit in the queue, as far as there is room now.
+     *
+     * @param currTime specifies the current time.
+     */
+    private void queueUnqueuedReleases(double currTime)
+    {
+        for (int device = 0; device < devices.size(); device++)
+        {
+            Device dev = devices.get(device);
+
+            while (dev.unqueuedReleases != 0 && queueCount < eventQueue.length)
+            {
+                int buttonMask = Integer.lowestOneBit(dev.unqueuedReleases);
+
+                dev.unqueuedReleases &= ~buttonMask;
+                queueEvent(
+                    EventType.BUTTON_RELEASED, device, buttonMask,
+                    currTime - dev.pressTimes[Integer.numberOfTrailingZeros(buttonMask)], currTime);
+            }
+        }
+    }   //queueUnqueuedReleases
+
+    /**
+     * This method samples the devices that are due and queues the events for the changes.
+     *
+     * @param currTime specifies the current time.
+     */
+    private void sampleDevices(double currTime)
+    {
+        for (int device = 0; device < devices.size(); device++)
+        {
+            Device dev = devices.get(device);
+
+            dev.sampled = currTime >= dev.nextSampleTime;
+            if (!dev.sampled)
+            {
+                continue;
+            }
+            dev.nextSampleTime = currTime + getSamplingPeriod(device);
+
+            int currButtons = dev.buttonsChannel.input(readButtons(device));
+            int changedButtons = dev.buttons ^ currButtons;
+
+            while (changedButtons != 0)
+            {
+                int buttonMask = Integer.lowestOneBit(changedButtons);
+                int bit = Integer.numberOfTrailingZeros(buttonMask);
+
+                if ((currButtons & buttonMask) != 0)
+                {
+                    dev.pressTimes[bit] = currTime;
+                    dev.longPressPending |= buttonMask;
+                    queueEvent(EventType.BUTTON_PRESSED, device, buttonMask, 0.0, currTime);
+                }
+                else
+                {
+                    dev.longPressPending &= ~buttonMask;
+                    queueEvent(EventType.BUTTON_RELEASED, device, buttonMask, currTime - dev.pressTimes[bit], currTime);
+                }
+                changedButtons &= ~buttonMask;
+            }
+            dev.buttons = currButtons;
+        }
+
+        for (int i = 0; i < chords.size(); i++)
+        {
+            Chord chord = chords.get(i);
+            boolean pressed = (devices.get(chord.device).buttons & chord.buttonMask) == chord.buttonMask;
+
+            if (pressed && !chord.pressed)
+            {
+                queueEvent(EventType.CHORD_PRESSED, chord.device, i, 0.0, currTime);
+            }
+            chord.pressed = pressed;
+        }
+
+        for (int i = 0; i < axisThresholds.size(); i++)
+        {
+            AxisThreshold axisThreshold = axisThresholds.get(i);
+
+            if (!devices.get(axisThreshold.device).sampled)
+            {
+                continue;
+            }
+
+            double value = axisThreshold.axisChannel.input(readAxis(axisThreshold.device, axisThreshold.axis));
+            boolean above = value >= axisThreshold.threshold;
+
+            if (axisThreshold.above != null && above != axisThreshold.above)
+            {
+                queueEvent(EventType.AXIS_CROSSED, axisThreshold.device, axisThreshold.axis, value, currTime);
+            }
+            axisThreshold.above = above;
+        }
+    }   //sampleDevices
+
+    /**
+     * This method queues the long press events of the buttons held long enough. It costs nothing when no button
+     * is held.
+     *
+     * @param currTime specifies the current time.
+     */
+    private void checkLongPresses(double currTime)
+    {
+        for (int device = 0; device < devices.size(); device++)
+        {
+            Device dev = devices.get(device);
+            int pending = dev.longPressPending;
+
+            while (pending != 0)
+            {
+                int buttonMask = Integer.lowestOneBit(pending);
+                double heldTime = currTime - dev.pressTimes[Integer.numberOfTrailingZeros(buttonMask)];
+
+                if (heldTime >= longPressTime)
+                {
+                    dev.longPressPending &= ~buttonMask;
+                    queueEvent(EventType.BUTTON_LONG_PRESSED, device, buttonMask, heldTime, currTime);
+                }
+                pending &= ~buttonMask;
+            }
+        }
+    }   //checkLongPresses
+
+    /**
+     * This method adds an event to the queue. If the queue is full, the oldest event that is not a release is
+     * dropped, or the new event if all queued events are releases. A release is never dropped: if it does not fit,
+     * it is kept with the device and queued as soon as there is room.
+     *
+     * @param type specifies the event type.
+     * @param device specifies the device index.
+     * @param id specifies the button mask, chord index or axis index.
+     * @param value specifies the event value.
+     * @param timestamp specifies the event time.
+     */
+    private void queueEvent(EventType type, int device, int id, double value, double timestamp)
+    {
+        if (queueCount == eventQueue.length)
+        {
+            int dropIndex = 0;
+
+            while (dropIndex < queueCount &&
+                   eventQueue[(queueHead + dropIndex)%eventQueue.length].type == EventType.BUTTON_RELEASED)
+            {
+                dropIndex++;
+            }
+
+            if (dropIndex == queueCount)
+            {
+                if (type == EventType.BUTTON_RELEASED)
+                {
+                    devices.get(device).unqueuedReleases |= id;
+                }
+                else
+                {
+                    droppedEventCount++;
+                }
+                return;
+            }
+            //
+            // Close the gap by moving the newer events forward, the dropped event object goes to the end.
+            //
+            InputEvent droppedEvent = eventQueue[(queueHead + dropIndex)%eventQueue.length];
+            for (int i = dropIndex; i < queueCount - 1; i++)
+            {
+                eventQueue[(queueHead + i)%eventQueue.length] = eventQueue[(queueHead + i + 1)%eventQueue.length];
+            }
+            eventQueue[(queueHead + queueCount - 1)%eventQueue.length] = droppedEvent;
+            queueCount--;
+            droppedEventCount++;
+        }
+
+        InputEvent event = eventQueue[(queueHead + queueCount)%eventQueue.length];
+        event.type = type;
+        event.device = device;
+        event.id = id;
+        event.value = value;
+        event.timestamp = timestamp;
+        queueCount++;
+    }   //queueEvent
+
+}   //class TrcInputService
@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class implements a JVM health monitor. It runs as a periodic task that samples the garbage collectors, the
+ * heap, the JIT compiler and the thread CPU times at a fixed interval and logs one compact line per interval. The
+ * robot loop also reports the start and end of every time slice to it so that it can tell whether a slice that ran
+ * too long overlapped a garbage collection or JIT compilation. That tells apart the overruns that call for heap
+ * tuning or allocation hunting from the ones caused by the robot code itself.
+ */
+public class TrcJvmMonitor
+{
+    private static final String moduleName = "TrcJvmMonitor";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private static final double MEGABYTE = 1024.0*1024.0;
+
+    /**
+     * This interface provides the JVM management beans the monitor samples. The platform beans are used by
+     * default, tests provide beans with known counters.
+     */
+    public interface BeanSource
+    {
+        /**
+         * This method returns the garbage collector beans.
+         *
+         * @return garbage collector beans.
+         */
+        List<GarbageCollectorMXBean> getGarbageCollectorMXBeans();
+
+        /**
+         * This method returns the memory bean.
+         *
+         * @return memory bean.
+         */
+        MemoryMXBean getMemoryMXBean();
+
+        /**
+         * This method returns the compilation bean.
+         *
+         * @return compilation bean, null if the JVM has no JIT compiler.
+         */
+        CompilationMXBean getCompilationMXBean();
+
+        /**
+         * This method returns the thread bean.
+         *
+         * @return thread bean, null if thread CPU times are not sampled.
+         */
+        ThreadMXBean getThreadMXBean();
+
+    }   //interface BeanSource
+
+    /**
+     * This class implements the bean source of the running JVM.
+     */
+    private static class PlatformBeanSource implements BeanSource
+    {
+        @Override
+        public List<GarbageCollectorMXBean> getGarbageCollectorMXBeans()
+        {
+            return ManagementFactory.getGarbageCollectorMXBeans();
+        }   //getGarbageCollectorMXBeans
+
+        @Override
+        public MemoryMXBean getMemoryMXBean()
+        {
+            return ManagementFactory.getMemoryMXBean();
+        }   //getMemoryMXBean
+
+        @Override
+        public CompilationMXBean getCompilationMXBean()
+        {
+            return ManagementFactory.getCompilationMXBean();
+        }   //getCompilationMXBean
+
+        @Override
+        public ThreadMXBean getThreadMXBean()
+        {
+            return ManagementFactory.getThreadMXBean();
+        }   //getThreadMXBean
+
+    }   //class PlatformBeanSource
+
+    private final String instanceName;
+    private final TrcDbgTrace tracer;
+    private final double sampleInterval;
+    private final double overrunThreshold;
+    private final TrcTaskMgr.TaskObject monitorTaskObj;
+    private final GarbageCollectorMXBean[] gcBeans;
+    private final MemoryMXBean memoryBean;
+    private final CompilationMXBean compilationBean;
+    private final ThreadMXBean threadBean;
+    private HashMap<Long, Long> prevThreadCpuTimes = new HashMap<>();
+    private long loopThreadId = -1;
+    //
+    // Snapshot taken at the start of every time slice.
+    //
+    private long loopGcCount = 0;
+    private long loopGcTime = 0;
+    private long loopCompilationTime = 0;
+    //
+    // Snapshot taken at the last sample.
+    //
+    private double nextSampleTime = 0.0;
+    private long sampleNanoTime = 0;
+    private long sampleGcCount = 0;
+    private long sampleGcTime = 0;
+    private long sampleCompilationTime = 0;
+    private int sampleOverrunCount = 0;
+    private int sampleGcOverrunCount = 0;
+    private int sampleJitOverrunCount = 0;
+    //
+    // Totals since the monitor was created.
+    //
+    private int overrunCount = 0;
+    private int gcOverrunCount = 0;
+    private int jitOverrunCount = 0;
+
+    /**
+     * Constructor: Create an instance of the object. The sample times come from TrcUtil's time source.
+     *
+     * @param instanceName specifies the instance name.
+     * @param tracer specifies the tracer to log the samples and overruns with.
+     * @param sampleInterval specifies the sampling interval in seconds.
+     * @param overrunThreshold specifies the time slice length in seconds above which a slice is an overrun.
+     * @param beanSource specifies the source of the JVM management beans to sample.
+     */
+    public TrcJvmMonitor(
+        final String instanceName, TrcDbgTrace tracer, double sampleInterval, double overrunThreshold,
+        BeanSource beanSource)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (sampleInterval <= 0.0)
+        {
+            throw new IllegalArgumentException("Sample interval must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        this.tracer = tracer;
+        this.sampleInterval = sampleInterval;
+        this.overrunThreshold = overrunThreshold;
+
+        List<GarbageCollectorMXBean> gcBeanList = beanSource.getGarbageCollectorMXBeans();
+        gcBeans = gcBeanList.toArray(new GarbageCollectorMXBean[gcBeanList.size()]);
+        memoryBean = beanSource.getMemoryMXBean();
+        CompilationMXBean compilation = beanSource.getCompilationMXBean();
+        compilationBean = compilation != null && compilation.isCompilationTimeMonitoringSupported()?
+            compilation: null;
+        threadBean = beanSource.getThreadMXBean();
+        if (threadBean != null && threadBean.isThreadCpuTimeSupported() && !threadBean.isThreadCpuTimeEnabled())
+        {
+            threadBean.setThreadCpuTimeEnabled(true);
+        }
+
+        monitorTaskObj = TrcTaskMgr.getInstance().createTask(instanceName + ".monitorTask", this::monitorTask);
+    }   //TrcJvmMonitor
+
+    /**
+     * Constructor: Create an instance of the object that samples the running JVM.
+     *
+     * @param instanceName specifies the instance name.
+     * @param tracer specifies the tracer to log the samples and overruns with.
+     * @param sampleInterval specifies the sampling interval in seconds.
+     * @param overrunThreshold specifies the time slice length in seconds above which a slice is an overrun.
+     */
+    public TrcJvmMonitor(
+        final String instanceName, TrcDbgTrace tracer, double sampleInterval, double overrunThreshold)
+    {
+        this(instanceName, tracer, sampleInterval, overrunThreshold, new PlatformBeanSource());
+    }   //TrcJvmMonitor
+
+    /**
+     * Constructor: Create an instance of the object that samples every second and treats time slices longer than
+     * 0.1 second as overruns.
+     *
+     * @param instanceName specifies the instance name.
+     * @param tracer specifies the tracer to log the samples and overruns with.
+     */
+    public TrcJvmMonitor(final String instanceName, TrcDbgTrace tracer)
+    {
+        this(instanceName, tracer, 1.0, 0.1);
+    }   //TrcJvmMonitor
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method enables/disables the monitor task. When the task is enabled, the current counters become the
+     * baseline of the first sample.
+     *
+     * @param enabled specifies true to enable the task, false to disable.
+     */
+    public synchronized void setTaskEnabled(boolean enabled)
+    {
+        final String funcName = "setTaskEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%b", enabled);
+        }
+
+        if (enabled)
+        {
+            takeSample(false);
+            monitorTaskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
+        }
+        else
+        {
+            monitorTaskObj.unregisterTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //setTaskEnabled
+
+    /**
+     * This method returns the number of time slice overruns since the monitor was created.
+     *
+     * @return number of overruns.
+     */
+    public synchronized int getOverrunCount()
+    {
+        return overrunCount;
+    }   //getOverrunCount
+
+    /**
+     * This method returns the number of time slice overruns that overlapped a garbage collection.
+     *
+     * @return number of overruns with garbage collection.
+     */
+    public synchronized int getGcOverrunCount()
+    {
+        return gcOverrunCount;
+    }   //getGcOverrunCount
+
+    /**
+     * This method returns the number of time slice overruns that overlapped a JIT compilation but no garbage
+     * collection.
+     *
+     * @return number of overruns with JIT compilation.
+     */
+    public synchronized int getJitOverrunCount()
+    {
+        return jitOverrunCount;
+    }   //getJitOverrunCount
+
+    /**
+     * This method is called by the robot loop at the start of every time slice. It must be called on the robot
+     * loop thread.
+     */
+    public synchronized void startTimeSlice()
+    {
+        loopThreadId = Thread.currentThread().getId();
+        loopGcCount = getGcCount();
+        loopGcTime = getGcTime();
+        loopCompilationTime = getCompilationTime();
+    }   //startTimeSlice
+
+    /**
+     * This method is called by the robot loop at the end of every time slice. If the slice ran longer than the
+     * overrun threshold, it logs the overrun with the garbage collection and JIT compilation that happened during
+     * the slice.
+     *
+     * @param timeSliceUsed specifies the length of the time slice in seconds.
+     */
+    public synchronized void endTimeSlice(double timeSliceUsed)
+    {
+        final String funcName = "endTimeSlice";
+
+        if (timeSliceUsed > overrunThreshold)
+        {
+            long gcCount = getGcCount() - loopGcCount;
+            long gcTime = getGcTime() - loopGcTime;
+            long compilationTime = getCompilationTime() - loopCompilationTime;
+            String cause;
+
+            overrunCount++;
+            sampleOverrunCount++;
+            if (gcCount > 0)
+            {
+                gcOverrunCount++;
+                sampleGcOverrunCount++;
+                cause = "GC";
+            }
+            else if (compilationTime > 0)
+            {
+                jitOverrunCount++;
+                sampleJitOverrunCount++;
+                cause = "JIT";
+            }
+            else
+            {
+                cause = "code";
+            }
+
+            tracer.traceWarn(
+                funcName, "%s: %.3fs slice overrun (%s): gc=%d/%dms, jit=%dms",
+                instanceName, timeSliceUsed, cause, gcCount, gcTime, compilationTime);
+        }
+    }   //endTimeSlice
+
+    /**
+     * This method returns the total number of garbage collections of all collectors.
+     *
+     * @return total collection count.
+     */
+    private long getGcCount()
+    {
+        long count = 0;
+
+        for (GarbageCollectorMXBean gcBean: gcBeans)
+        {
+            count += Math.max(gcBean.getCollectionCount(), 0);
+        }
+
+        return count;
+    }   //getGcCount
+
+    /**
+     * This method returns the total time spent in garbage collections of all collectors.
+     *
+     * @return total collection time in msec.
+     */
+    private long getGcTime()
+    {
+        long time = 0;
+
+        for (GarbageCollectorMXBean gcBean: gcBeans)
+        {
+            time += Math.max(gcBean.getCollectionTime(), 0);
+        }
+
+        return time;
+    }   //getGcTime
+
+    /**
+     * This method returns the total time spent in JIT compilation.
+     *
+     * @return total compilation time in msec, zero if not supported.
+     */
+    private long getCompilationTime()
+    {
+        return compilationBean != null? compilationBean.getTotalCompilationTime(): 0;
+    }   //getCompilationTime
+
+    /**
+     * This method takes a sample of the JVM counters and logs the difference from the previous sample.
+     *
+     * @param log specifies true to log the sample, false to only take the baseline.
+     */
+    private void takeSample(boolean log)
+    {
+        final String funcName = "takeSample";
+        long currNanoTime = TrcDataRecorder.getUnrecordedTimeNanos();
+        long gcCount = getGcCount();
+        long gcTime = getGcTime();
+        long compilationTime = getCompilationTime();
+        HashMap<Long, Long> threadCpuTimes = new HashMap<>();
+        long loopCpuTime = 0;
+        long otherCpuTime = 0;
+        long topThreadId = -1;
+        long topCpuTime = 0;
+
+        if (threadBean != null && threadBean.isThreadCpuTimeEnabled())
+        {
+            for (long threadId: threadBean.getAllThreadIds())
+            {
+                long cpuTime = threadBean.getThreadCpuTime(threadId);
+
+                if (cpuTime >= 0)
+                {
+                    Long prevCpuTime = prevThreadCpuTimes.get(threadId);
+                    long deltaCpuTime = cpuTime - (prevCpuTime != null? prevCpuTime: 0);
+
+                    threadCpuTimes.put(threadId, cpuTime);
+                    if (threadId == loopThreadId)
+                    {
+                        loopCpuTime = deltaCpuTime;
+                    }
+                    else
+                    {
+                        otherCpuTime += deltaCpuTime;
+                        if (deltaCpuTime > topCpuTime)
+                        {
+                            topThreadId = threadId;
+                            topCpuTime = deltaCpuTime;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (log)
+        {
+            double elapsedNanos = Math.max(currNanoTime - sampleNanoTime, 1);
+            MemoryUsage heap = memoryBean.getHeapMemoryUsage();
+            ThreadInfo topThread = topThreadId != -1? threadBean.getThreadInfo(topThreadId): null;
+
+            tracer.traceInfo(
+                funcName,
+                "%s: gc=%d/%dms, heap=%.1f/%.1fMB, jit=%dms, cpu(loop=%.0f%%,other=%.0f%%,top=%s %.0f%%), " +
+                "overruns=%d(gc=%d,jit=%d)",
+                instanceName, gcCount - sampleGcCount, gcTime - sampleGcTime,
+                heap.getUsed()/MEGABYTE, heap.getCommitted()/MEGABYTE, compilationTime - sampleCompilationTime,
+                loopCpuTime*100.0/elapsedNanos, otherCpuTime*100.0/elapsedNanos,
+                topThread != null? topThread.getThreadName(): "none", topCpuTime*100.0/elapsedNanos,
+                sampleOverrunCount, sampleGcOverrunCount, sampleJitOverrunCount);
+        }
+
+        prevThreadCpuTimes = threadCpuTimes;
+        sampleNanoTime = currNanoTime;
+        sampleGcCount = gcCount;
+        sampleGcTime = gcTime;
+        sampleCompilationTime = compilationTime;
+        sampleOverrunCount = 0;
+        sampleGcOverrunCount = 0;
+        sampleJitOverrunCount = 0;
+        nextSampleTime = currNanoTime/1000000000.0 + sampleInterval;
+    }   //takeSample
+
+    /**
+     * This method is called periodically to take and log a sample once every sampling interval.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the competition mode that is running.
+     */
+    private synchronized void monitorTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    {
+        final String funcName = "monitorTask";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "taskType=%s,runMode=%s", taskType, runMode);
+        }
+
+        if (TrcDataRecorder.getUnrecordedTime() >= nextSampleTime)
+        {
+            takeSample(true);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.TASK);
+        }
+    }   //monitorTask
+
+}   //class TrcJvmMonitor
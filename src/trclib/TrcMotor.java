@@ -43,7 +43,22 @@ public abstract class TrcMotor implements TrcMotorController
     protected static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
     protected TrcDbgTrace dbgTrace = null;
 
+    /**
+     * This specifies the motor controller data that is passed through the data recorder.
+     */
+    protected enum RecordedData
+    {
+        POSITION,
+        SPEED,
+        POWER,
+        LOWER_LIMIT_SWITCH,
+        UPPER_LIMIT_SWITCH,
+        SET_POWER
+    }   //enum RecordedData
+
     private final String instanceName;
+    private final TrcDataRecorder.Channel[] recorderChannels =
+        new TrcDataRecorder.Channel[RecordedData.values().length];
     private final TrcTaskMgr.TaskObject motorTaskObj;
     private TrcDigitalTrigger digitalTrigger = null;
     private boolean speedTaskEnabled = false;
@@ -80,6 +95,69 @@ public abstract class TrcMotor implements TrcMotorController
         return instanceName;
     }   //toString
 
+    /**
+     * This method returns the data recorder channel of the given motor controller data.
+     *
+     * @param data specifies the motor controller data.
+     * @return data recorder channel.
+     */
+    private TrcDataRecorder.Channel getRecorderChannel(RecordedData data)
+    {
+        synchronized (recorderChannels)
+        {
+            TrcDataRecorder.Channel channel = recorderChannels[data.ordinal()];
+
+            if (channel == null)
+            {
+                channel = TrcDataRecorder.getChannel(
+                    instanceName + "." + data, data == RecordedData.SET_POWER);
+                recorderChannels[data.ordinal()] = channel;
+            }
+
+            return channel;
+        }
+    }   //getRecorderChannel
+
+    /**
+     * This method passes a value read from the motor controller through the data recorder. While replaying a
+     * match, it returns the recorded value instead.
+     *
+     * @param data specifies the motor controller data.
+     * @param value specifies the value read from the motor controller.
+     * @return value to use.
+     */
+    protected double recordInput(RecordedData data, double value)
+    {
+        return TrcDataRecorder.isActive()? getRecorderChannel(data).input(value): value;
+    }   //recordInput
+
+    /**
+     * This method passes a limit switch state read from the motor controller through the data recorder.
+     *
+     * @param data specifies the motor controller data.
+     * @param active specifies the state read from the motor controller.
+     * @return state to use.
+     */
+    protected boolean recordInput(RecordedData data, boolean active)
+    {
+        return TrcDataRecorder.isActive()? getRecorderChannel(data).input(active): active;
+    }   //recordInput
+
+    /**
+     * This method passes a value sent to the motor controller through the data recorder so that a replay can be
+     * compared with the match.
+     *
+     * @param data specifies the motor controller data.
+     * @param value specifies the value sent to the motor controller.
+     */
+    protected void recordOutput(RecordedData data, double value)
+    {
+        if (TrcDataRecorder.isActive())
+        {
+            getRecorderChannel(data).output(value);
+        }
+    }   //recordOutput
+
     /**
      * This method creates a digital trigger on the given digital input sensor. It resets the position sensor
      * reading when the digital input is triggered.
@@ -96,7 +174,7 @@ public abstract class TrcMotor implements TrcMotorController
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        digitalTrigger = new TrcDigitalTrigger(instanceName, digitalInput, this::triggerEvent);
+        digitalTrigger = digitalInput.createTrigger(instanceName, this::triggerEvent);
         digitalTrigger.setTaskEnabled(true);
     }   //resetPositionOnDigitalInput
 
@@ -22,8 +22,10 @@
 
 package trclib;
 
+import java.util.Arrays;
 import java.util.EmptyStackException;
 import java.util.Stack;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 import hallib.HalDashboard;
@@ -103,14 +105,276 @@ public class TrcPidController
 
     }   //class PidCoefficients
 
+    /**
+     * This class encapsulates the feed forward coefficients of a motor model. Unlike the kF term in PidCoefficients
+     * which is proportional to the set point, these model the power needed to move the mechanism: kS is the power
+     * needed to overcome static friction, kV is the power per unit of velocity and kA is the power per unit of
+     * acceleration. All coefficients are in units of motor power at nominal battery voltage.
+     */
+    public static class FeedForwardCoefficients
+    {
+        public double kS = 0.0;
+        public double kV = 0.0;
+        public double kA = 0.0;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param kS specifies the Static friction constant.
+         * @param kV specifies the Velocity constant.
+         * @param kA specifies the Acceleration constant.
+         */
+        public FeedForwardCoefficients(double kS, double kV, double kA)
+        {
+            this.kS = Math.abs(kS);
+            this.kV = Math.abs(kV);
+            this.kA = Math.abs(kA);
+        }   //FeedForwardCoefficients
+
+        /**
+         * This method returns all feed forward coefficients in string form.
+         *
+         * @return feed forward coefficients string.
+         */
+        public String toString()
+        {
+            return String.format("(%f,%f,%f)", kS, kV, kA);
+        }   //toString
+
+    }   //class FeedForwardCoefficients
+
+    /**
+     * This class implements a gain schedule. A gain schedule is a table of PID coefficients keyed on a schedule
+     * variable. The schedule variable can be the error magnitude, the speed of the input or an external variable
+     * such as elevator height or battery voltage. When the schedule is evaluated, the coefficients are linearly
+     * interpolated between the two entries bracketing the schedule variable. Beyond the first or the last entry,
+     * the coefficients of that entry are used. This allows a single PID controller to use aggressive gains far from
+     * target and gentle gains for the final approach without the caller switching coefficients between moves.
+     * Entries are added at setup time; evaluating the schedule does not allocate any memory.
+     */
+    public static class GainSchedule
+    {
+        /**
+         * This specifies the variable the gain schedule is keyed on.
+         */
+        public enum ScheduleVariable
+        {
+            /**
+             * Absolute value of the PID error.
+             */
+            ERROR_MAGNITUDE,
+            /**
+             * Absolute value of the rate of change of the PID input per second.
+             */
+            SPEED,
+            /**
+             * Value returned by an external supplier.
+             */
+            EXTERNAL
+        }   //enum ScheduleVariable
+
+        private final ScheduleVariable scheduleVariable;
+        private final DoubleSupplier externalVariable;
+        private final PidCoefficients scheduledCoefficients = new PidCoefficients(0.0);
+        private double[] keys = new double[0];
+        private PidCoefficients[] entries = new PidCoefficients[0];
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param scheduleVariable specifies the variable the schedule is keyed on.
+         * @param externalVariable specifies the supplier of the schedule variable, only used if scheduleVariable
+         *                         is EXTERNAL.
+         */
+        public GainSchedule(ScheduleVariable scheduleVariable, DoubleSupplier externalVariable)
+        {
+            if (scheduleVariable == ScheduleVariable.EXTERNAL && externalVariable == null)
+            {
+                throw new IllegalArgumentException("External schedule variable must have a supplier.");
+            }
+
+            this.scheduleVariable = scheduleVariable;
+            this.externalVariable = externalVariable;
+        }   //GainSchedule
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param scheduleVariable specifies the variable the schedule is keyed on, ERROR_MAGNITUDE or SPEED.
+         */
+        public GainSchedule(ScheduleVariable scheduleVariable)
+        {
+            this(scheduleVariable, null);
+        }   //GainSchedule
+
+        /**
+         * This method adds an entry to the gain schedule. Entries can be added in any order. If an entry with the
+         * same key already exists, it is replaced.
+         *
+         * @param key specifies the value of the schedule variable for this entry.
+         * @param pidCoefficients specifies the PID coefficients to use at this value.
+         * @return this gain schedule so that calls can be chained.
+         */
+        public GainSchedule addEntry(double key, PidCoefficients pidCoefficients)
+        {
+            int index = Arrays.binarySearch(keys, key);
+
+            if (index >= 0)
+            {
+                entries[index] = pidCoefficients;
+            }
+            else
+            {
+                index = -(index + 1);
+                double[] newKeys = new double[keys.length + 1];
+                PidCoefficients[] newEntries = new PidCoefficients[entries.length + 1];
+
+                System.arraycopy(keys, 0, newKeys, 0, index);
+                System.arraycopy(entries, 0, newEntries, 0, index);
+                newKeys[index] = key;
+                newEntries[index] = pidCoefficients;
+                System.arraycopy(keys, index, newKeys, index + 1, keys.length - index);
+                System.arraycopy(entries, index, newEntries, index + 1, entries.length - index);
+                keys = newKeys;
+                entries = newEntries;
+            }
+
+            return this;
+        }   //addEntry
+
+        /**
+         * This method returns the variable the schedule is keyed on.
+         *
+         * @return schedule variable.
+         */
+        public ScheduleVariable getScheduleVariable()
+        {
+            return scheduleVariable;
+        }   //getScheduleVariable
+
+        /**
+         * This method returns the number of entries in the schedule.
+         *
+         * @return number of entries.
+         */
+        public int getNumEntries()
+        {
+            return keys.length;
+        }   //getNumEntries
+
+        /**
+         * This method evaluates the gain schedule at the given value of the schedule variable. The returned object
+         * is owned by the schedule and is overwritten by the next evaluation, so the caller must not keep it.
+         *
+         * @param value specifies the value of the schedule variable.
+         * @return interpolated PID coefficients, null if the schedule has no entry.
+         */
+        public PidCoefficients getPidCoefficients(double value)
+        {
+            int numEntries = keys.length;
+
+            if (numEntries == 0)
+            {
+                return null;
+            }
+            else if (value <= keys[0])
+            {
+                interpolateCoefficients(entries[0], entries[0], 0.0);
+            }
+            else if (value >= keys[numEntries - 1])
+            {
+                interpolateCoefficients(entries[numEntries - 1], entries[numEntries - 1], 0.0);
+            }
+            else
+            {
+                //
+                // Binary search for the first key greater than value, the entries bracketing value are at
+                // upper - 1 and upper.
+                //
+                int lower = 0;
+                int upper = numEntries - 1;
+
+                while (upper - lower > 1)
+                {
+                    int mid = (lower + upper) >>> 1;
+
+                    if (keys[mid] <= value)
+                    {
+                        lower = mid;
+                    }
+                    else
+                    {
+                        upper = mid;
+                    }
+                }
+
+                interpolateCoefficients(
+                    entries[lower], entries[upper], (value - keys[lower])/(keys[upper] - keys[lower]));
+            }
+
+            return scheduledCoefficients;
+        }   //getPidCoefficients
+
+        /**
+         * This method evaluates the gain schedule for the given PID state.
+         *
+         * @param error specifies the current PID error.
+         * @param speed specifies the current rate of change of the PID input.
+         * @return interpolated PID coefficients, null if the schedule has no entry.
+         */
+        private PidCoefficients getPidCoefficients(double error, double speed)
+        {
+            double value;
+
+            switch (scheduleVariable)
+            {
+                case ERROR_MAGNITUDE:
+                    value = Math.abs(error);
+                    break;
+
+                case SPEED:
+                    value = Math.abs(speed);
+                    break;
+
+                default:
+                    value = externalVariable.getAsDouble();
+                    break;
+            }
+
+            return getPidCoefficients(value);
+        }   //getPidCoefficients
+
+        /**
+         * This method interpolates between two sets of coefficients into the scheduled coefficients object.
+         *
+         * @param from specifies the coefficients at the lower key.
+         * @param to specifies the coefficients at the upper key.
+         * @param fraction specifies the fractional distance from the lower key to the upper key.
+         */
+        private void interpolateCoefficients(PidCoefficients from, PidCoefficients to, double fraction)
+        {
+            scheduledCoefficients.kP = from.kP + (to.kP - from.kP)*fraction;
+            scheduledCoefficients.kI = from.kI + (to.kI - from.kI)*fraction;
+            scheduledCoefficients.kD = from.kD + (to.kD - from.kD)*fraction;
+            scheduledCoefficients.kF = from.kF + (to.kF - from.kF)*fraction;
+        }   //interpolateCoefficients
+
+    }   //class GainSchedule
+
     public static final double DEF_SETTLING_TIME = 0.2;
+    public static final double DEF_NOMINAL_VOLTAGE = 12.0;
 
     private HalDashboard dashboard;
     private String instanceName;
     private PidCoefficients pidCoefficients;
+    private GainSchedule gainSchedule = null;
+    private FeedForwardCoefficients ffCoefficients = null;
+    private TrcRobotBattery compensationBattery = null;
+    private double nominalVoltage = DEF_NOMINAL_VOLTAGE;
     private double tolerance;
     private double settlingTime;
     private Supplier<Double> pidInput;
+    private Supplier<Double> pidInputRate = null;
 
     private boolean inverted = false;
     private boolean absSetPoint = false;
@@ -129,13 +393,17 @@ public class TrcPidController
     private double setPoint = 0.0;
     private double setPointSign = 1.0;
     private double input = 0.0;
+    private double inputSpeed = 0.0;
     private double output = 0.0;
+    private double targetVelocity = 0.0;
+    private double targetAcceleration = 0.0;
 
     private TrcDbgTrace debugTracer = null;
     private double pTerm;
     private double iTerm;
     private double dTerm;
     private double fTerm;
+    private double ffTerm;
 
     /**
      * Constructor: Create an instance of the object.
@@ -239,6 +507,11 @@ public class TrcPidController
                 instanceName, setPoint, input, currError,
                 pTerm, iTerm, dTerm, fTerm, output, minOutput, maxOutput);
 
+            if (ffCoefficients != null)
+            {
+                msg += String.format(", FF=%6.3f", ffTerm);
+            }
+
             if (battery != null)
             {
                 msg += String.format(", Volt=%.1f(%.1f)", battery.getVoltage(), battery.getLowestVoltage());
@@ -373,6 +646,27 @@ public class TrcPidController
         this.noOscillation = noOscillation;
     }   //setNoOscillation
 
+    /**
+     * This method sets a provider of the rate of change of the input, e.g. the gyro rotation rate or a filtered
+     * turn rate estimate. When set, the D term is computed from the measured rate instead of differencing the
+     * error between loops, which is less noisy and does not kick when the set point changes, so the gains can
+     * be more aggressive and the controller settles faster.
+     *
+     * @param pidInputRate specifies the input rate provider, null to differentiate the error.
+     */
+    public void setInputRate(Supplier<Double> pidInputRate)
+    {
+        final String funcName = "setInputRate";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "inputRate=%s", pidInputRate);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.pidInputRate = pidInputRate;
+    }   //setInputRate
+
     /**
      * This method returns the current PID coefficients.
      *
@@ -412,6 +706,156 @@ public class TrcPidController
         this.pidCoefficients = pidCoefficients;
     }   //setPidCoefficients
 
+    /**
+     * This method sets a gain schedule. When a gain schedule with at least one entry is set, the PID coefficients
+     * are taken from the schedule on every output calculation and the coefficients set by setPidCoefficients are
+     * ignored.
+     *
+     * @param gainSchedule specifies the gain schedule, null to use fixed PID coefficients.
+     */
+    public void setGainSchedule(GainSchedule gainSchedule)
+    {
+        final String funcName = "setGainSchedule";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "schedule=%s",
+                    gainSchedule != null? gainSchedule.getScheduleVariable().toString(): "null");
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.gainSchedule = gainSchedule;
+    }   //setGainSchedule
+
+    /**
+     * This method returns the current gain schedule.
+     *
+     * @return current gain schedule, null if none.
+     */
+    public GainSchedule getGainSchedule()
+    {
+        return gainSchedule;
+    }   //getGainSchedule
+
+    /**
+     * This method returns the current feed forward coefficients.
+     *
+     * @return current feed forward coefficients, null if feed forward is not enabled.
+     */
+    public FeedForwardCoefficients getFeedForwardCoefficients()
+    {
+        final String funcName = "getFeedForwardCoefficients";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", ffCoefficients);
+        }
+
+        return ffCoefficients;
+    }   //getFeedForwardCoefficients
+
+    /**
+     * This method sets the feed forward coefficients. The feed forward term is calculated from the target velocity
+     * and acceleration set by setTargetVelocity. If there is no target velocity, only the static friction term is
+     * applied in the direction of the error until the error is within tolerance.
+     *
+     * @param ffCoefficients specifies the feed forward coefficients, null to disable feed forward.
+     */
+    public void setFeedForwardCoefficients(FeedForwardCoefficients ffCoefficients)
+    {
+        final String funcName = "setFeedForwardCoefficients";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "ff=%s", ffCoefficients);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.ffCoefficients = ffCoefficients;
+    }   //setFeedForwardCoefficients
+
+    /**
+     * This method sets the target velocity and acceleration for the feed forward calculation. It is typically called
+     * by a motion profile every time it advances the set point. The values are cleared when a new target is set or
+     * the controller is reset.
+     *
+     * @param velocity specifies the target velocity in input units per second.
+     * @param acceleration specifies the target acceleration in input units per second squared.
+     */
+    public void setTargetVelocity(double velocity, double acceleration)
+    {
+        final String funcName = "setTargetVelocity";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "vel=%f,accel=%f", velocity, acceleration);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.targetVelocity = velocity;
+        this.targetAcceleration = acceleration;
+    }   //setTargetVelocity
+
+    /**
+     * This method enables/disables voltage compensation. When enabled, the calculated output is scaled by the ratio
+     * of the nominal voltage to the current battery voltage so that the effective gain of the controller does not
+     * change as the battery sags.
+     *
+     * @param battery specifies the battery object to get the voltage from, null to disable voltage compensation.
+     * @param nominalVoltage specifies the voltage the PID and feed forward coefficients were tuned at.
+     */
+    public void setVoltageCompensation(TrcRobotBattery battery, double nominalVoltage)
+    {
+        final String funcName = "setVoltageCompensation";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                    "battery=%s,nominalVolt=%.1f", battery, nominalVoltage);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (battery != null && nominalVoltage <= 0.0)
+        {
+            throw new IllegalArgumentException("nominalVoltage must be positive.");
+        }
+
+        this.compensationBattery = battery;
+        this.nominalVoltage = nominalVoltage;
+    }   //setVoltageCompensation
+
+    /**
+     * This method enables/disables voltage compensation with the default nominal voltage.
+     *
+     * @param battery specifies the battery object to get the voltage from, null to disable voltage compensation.
+     */
+    public void setVoltageCompensation(TrcRobotBattery battery)
+    {
+        setVoltageCompensation(battery, DEF_NOMINAL_VOLTAGE);
+    }   //setVoltageCompensation
+
+    /**
+     * This method returns the voltage compensation scale to be applied to an output calculated at nominal voltage.
+     *
+     * @return voltage compensation scale, 1.0 if voltage compensation is disabled.
+     */
+    public double getVoltageCompensationScale()
+    {
+        double scale = 1.0;
+
+        if (compensationBattery != null)
+        {
+            double voltage = compensationBattery.getVoltage();
+            if (voltage > 0.0)
+            {
+                scale = nominalVoltage/voltage;
+            }
+        }
+
+        return scale;
+    }   //getVoltageCompensationScale
+
     /**
      * This method sets a new target tolerance.
      *
@@ -609,7 +1053,12 @@ public class TrcPidController
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "target=%f,warpSpace=%s", target, warpSpace);
         }
 
-        double input = pidInput.get();
+        //
+        // Keep the reading so that the input speed of the next output calculation is measured from it and not from
+        // a reading taken before the target changed, e.g. before the sensor was reset.
+        //
+        input = pidInput.get();
+        inputSpeed = 0.0;
         if (!absSetPoint)
         {
             //
@@ -654,6 +1103,7 @@ public class TrcPidController
         }
 
         totalError = 0.0;
+        targetVelocity = targetAcceleration = 0.0;
         prevTime = settlingStartTime = TrcUtil.getCurrentTime();
 
         if (debugEnabled)
@@ -672,6 +1122,50 @@ public class TrcPidController
         setTarget(target, null);
     }   //setTarget
 
+    /**
+     * This method moves the set point to a new absolute position without resetting the accumulated error or the
+     * settling timer, and sets the target velocity and acceleration for the feed forward calculation. It is meant
+     * for a motion profile that advances the set point every loop. Unlike setTarget, the target is always treated
+     * as absolute.
+     *
+     * @param target specifies the new absolute set point.
+     * @param velocity specifies the target velocity in input units per second.
+     * @param acceleration specifies the target acceleration in input units per second squared.
+     */
+    public void updateTarget(double target, double velocity, double acceleration)
+    {
+        final String funcName = "updateTarget";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                    "target=%f,vel=%f,accel=%f", target, velocity, acceleration);
+        }
+
+        setPoint = target;
+        if (maxTarget > minTarget)
+        {
+            setPoint = TrcUtil.clipRange(setPoint, minTarget, maxTarget);
+        }
+        targetVelocity = velocity;
+        targetAcceleration = acceleration;
+        //
+        // Keep the direction of travel current so that a profiled move that crosses zero still checks for passing
+        // the target in the right direction. Use the profile velocity, or the error to the new set point once the
+        // profile has stopped.
+        //
+        double direction = velocity != 0.0? velocity: setPoint - input;
+        if (direction != 0.0)
+        {
+            setPointSign = Math.signum(inverted? -direction: direction);
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //updateTarget
+
     /**
      * This method returns the error of a previous output calculation.
      *
@@ -709,6 +1203,8 @@ public class TrcPidController
         setPoint = 0.0;
         setPointSign = 1.0;
         output = 0.0;
+        targetVelocity = 0.0;
+        targetAcceleration = 0.0;
     }   //reset
 
     /**
@@ -772,25 +1268,41 @@ public class TrcPidController
         }
 
         double prevError = currError;
+        double prevInput = input;
+        boolean firstSample = prevTime == 0.0;
         double currTime = TrcUtil.getCurrentTime();
         double deltaTime = currTime - prevTime;
         prevTime = currTime;
         input = pidInput.get();
+        if (pidInputRate != null)
+        {
+            inputSpeed = pidInputRate.get();
+        }
+        else
+        {
+            inputSpeed = !firstSample && deltaTime > 0.0? (input - prevInput)/deltaTime: 0.0;
+        }
         currError = setPoint - input;
         if (inverted)
         {
             currError = -currError;
         }
 
-        if (pidCoefficients.kI != 0.0)
+        PidCoefficients coeffs = gainSchedule != null? gainSchedule.getPidCoefficients(currError, inputSpeed): null;
+        if (coeffs == null)
+        {
+            coeffs = pidCoefficients;
+        }
+
+        if (coeffs.kI != 0.0)
         {
             //
             // Make sure the total error doesn't get wound up too much exceeding maxOutput.
             //
-            double potentialGain = (totalError + currError * deltaTime) * pidCoefficients.kI;
+            double potentialGain = (totalError + currError * deltaTime) * coeffs.kI;
             if (potentialGain >= maxOutput)
             {
-                totalError = maxOutput / pidCoefficients.kI;
+                totalError = maxOutput / coeffs.kI;
             }
             else if (potentialGain > minOutput)
             {
@@ -798,15 +1310,48 @@ public class TrcPidController
             }
             else
             {
-                totalError = minOutput / pidCoefficients.kI;
+                totalError = minOutput / coeffs.kI;
             }
         }
 
-        pTerm = pidCoefficients.kP*currError;
-        iTerm = pidCoefficients.kI*totalError;
-        dTerm = deltaTime > 0.0? pidCoefficients.kD*(currError - prevError)/deltaTime: 0.0;
-        fTerm = pidCoefficients.kF*setPoint;
-        output = pTerm + iTerm + dTerm + fTerm;
+        pTerm = coeffs.kP*currError;
+        iTerm = coeffs.kI*totalError;
+        if (pidInputRate != null)
+        {
+            //
+            // Error rate is the negative of the input rate for a fixed set point, flipped if inverted.
+            //
+            dTerm = coeffs.kD*(inverted? inputSpeed: -inputSpeed);
+        }
+        else
+        {
+            dTerm = deltaTime > 0.0? coeffs.kD*(currError - prevError)/deltaTime: 0.0;
+        }
+        fTerm = coeffs.kF*setPoint;
+        ffTerm = 0.0;
+        if (ffCoefficients != null)
+        {
+            if (targetVelocity != 0.0 || targetAcceleration != 0.0)
+            {
+                //
+                // Target velocity and acceleration are in input units, flip them if the error is inverted.
+                //
+                ffTerm = ffCoefficients.kS*Math.signum(targetVelocity) +
+                         ffCoefficients.kV*targetVelocity + ffCoefficients.kA*targetAcceleration;
+                if (inverted)
+                {
+                    ffTerm = -ffTerm;
+                }
+            }
+            else if (Math.abs(currError) > tolerance)
+            {
+                //
+                // No motion reference, just apply enough power to overcome static friction toward the target.
+                //
+                ffTerm = ffCoefficients.kS*Math.signum(currError);
+            }
+        }
+        output = (pTerm + iTerm + dTerm + fTerm + ffTerm)*getVoltageCompensationScale();
 
         if (output > maxOutput)
         {
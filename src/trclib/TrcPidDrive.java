@@ -32,6 +32,11 @@ import trclib.TrcTaskMgr.TaskType;
  * runs into an obstacle in low power or the robot is very close to target and doesn't have enough power to overcome
  * steady state error. When stall condition is detected, PID drive will be aborted so that the robot won't get stuck
  * waiting forever trying to reach target.
+ * <p>
+ * PID drive owns the drive base while isActive() returns true. All PID drive methods, including the task that
+ * writes the drive base, synchronize on this object, so pidDriveTask may run on a control loop thread. Code on
+ * another thread that writes the drive base directly must hold this object's lock and check isActive() first.
+ * </p>
  */
 public class TrcPidDrive
 {
@@ -63,6 +68,24 @@ public class TrcPidDrive
 
     }   //interface StuckWheelHandler
 
+    /**
+     * This interface provides a wheel slip notification handler. Slip is detected by a TrcDriveStateEstimator
+     * when the wheel speeds disagree with the robot motion measured by the accelerometer, for example when the
+     * robot is pushing against another robot or a wall.
+     */
+    public interface WheelSlipHandler
+    {
+        /**
+         * This method is called every loop while wheel slip is detected.
+         *
+         * @param pidDrive specifies this TrcPidDrive instance.
+         * @param xSlip specifies the estimated x wheel slip in drive base units per second.
+         * @param ySlip specifies the estimated y wheel slip in drive base units per second.
+         */
+        void wheelSlip(TrcPidDrive pidDrive, double xSlip, double ySlip);
+
+    }   //interface WheelSlipHandler
+
     /**
      * Turn mode specifies how PID controlled drive is turning the robot.
      */
@@ -86,6 +109,10 @@ public class TrcPidDrive
     private TrcWarpSpace warpSpace = null;
     private StuckWheelHandler stuckWheelHandler = null;
     private double stuckTimeout = 0.0;
+    private TrcDriveStateEstimator stateEstimator = null;
+    private WheelSlipHandler wheelSlipHandler = null;
+    private double slipThreshold = 0.0;
+    private boolean wheelSlipping = false;
     private TurnMode turnMode = TurnMode.IN_PLACE;
     private TrcTone beepDevice = null;
     private double beepFrequency = DEF_BEEP_FREQUENCY;
@@ -180,6 +207,39 @@ public class TrcPidDrive
         setMsgTracer(tracer, false, null);
     }   //setMsgTracer
 
+    /**
+     * This method enables/disables battery voltage compensation on all the PID controllers of the drive.
+     *
+     * @param battery specifies the battery object to get the voltage from, null to disable voltage compensation.
+     * @param nominalVoltage specifies the voltage the PID coefficients were tuned at.
+     */
+    public void setVoltageCompensation(TrcRobotBattery battery, double nominalVoltage)
+    {
+        final String funcName = "setVoltageCompensation";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                    "battery=%s,nominalVolt=%.1f", battery, nominalVoltage);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (xPidCtrl != null)
+        {
+            xPidCtrl.setVoltageCompensation(battery, nominalVoltage);
+        }
+
+        if (yPidCtrl != null)
+        {
+            yPidCtrl.setVoltageCompensation(battery, nominalVoltage);
+        }
+
+        if (turnPidCtrl != null)
+        {
+            turnPidCtrl.setVoltageCompensation(battery, nominalVoltage);
+        }
+    }   //setVoltageCompensation
+
     /**
      * This method returns the X PID controller if any.
      *
@@ -258,6 +318,51 @@ public class TrcPidDrive
         this.stallTimeout = stuckTimeout;
     }   //setStuckWheelHandler
 
+    /**
+     * This method enables wheel slip detection using the given state estimator. The estimator must be enabled
+     * separately.
+     *
+     * @param stateEstimator specifies the state estimator, null to disable slip detection.
+     * @param slipThreshold specifies the slip speed in drive base units per second above which the wheels are
+     *                      considered slipping.
+     * @param wheelSlipHandler specifies the handler to call while slipping, can be null if only tracing is needed.
+     */
+    public synchronized void setWheelSlipDetection(
+        TrcDriveStateEstimator stateEstimator, double slipThreshold, WheelSlipHandler wheelSlipHandler)
+    {
+        final String funcName = "setWheelSlipDetection";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "estimator=%s,threshold=%f,handler=%s",
+                stateEstimator, slipThreshold, wheelSlipHandler);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.stateEstimator = stateEstimator;
+        this.slipThreshold = slipThreshold;
+        this.wheelSlipHandler = wheelSlipHandler;
+        wheelSlipping = false;
+    }   //setWheelSlipDetection
+
+    /**
+     * This method checks if wheel slip was detected in the last loop of the active PID drive operation.
+     *
+     * @return true if the wheels are slipping, false otherwise.
+     */
+    public synchronized boolean isWheelSlipping()
+    {
+        final String funcName = "isWheelSlipping";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", Boolean.toString(wheelSlipping));
+        }
+
+        return wheelSlipping;
+    }   //isWheelSlipping
+
     /**
      * This methods sets the turn mode. Supported modes are in-place (default), pivot and curve.
      *
@@ -357,7 +462,7 @@ public class TrcPidDrive
      * @param ySpeed specifies the robot speed in the Y direction.
      * @param turnSpeed specifies the robot turn speed.
      */
-    public void setSpeed(double xSpeed, double ySpeed, double turnSpeed)
+    public synchronized void setSpeed(double xSpeed, double ySpeed, double turnSpeed)
     {
         final String funcName = "setSpeed";
 
@@ -387,7 +492,7 @@ public class TrcPidDrive
      *                timeout, the operation will be canceled and the event will be signaled. If no timeout is
      *                specified, it should be set to zero.
      */
-    public void setTarget(
+    public synchronized void setTarget(
             double xTarget, double yTarget, double turnTarget, boolean holdTarget, TrcEvent event, double timeout)
     {
         final String funcName = "setTarget";
@@ -488,7 +593,7 @@ public class TrcPidDrive
      * @param yPower specifies the Y drive power.
      * @param headingTarget specifies the heading to maintain.
      */
-    public void driveMaintainHeading(double xPower, double yPower, double headingTarget)
+    public synchronized void driveMaintainHeading(double xPower, double yPower, double headingTarget)
     {
         final String funcName = "driveMaintainHeading";
 
@@ -521,7 +626,7 @@ public class TrcPidDrive
      *
      * @return true if PID drive is active, false otherwise.
      */
-    public boolean isActive()
+    public synchronized boolean isActive()
     {
         final String funcName = "isActive";
 
@@ -537,7 +642,7 @@ public class TrcPidDrive
     /**
      * This method cancels an active PID drive operation.
      */
-    public void cancel()
+    public synchronized void cancel()
     {
         final String funcName = "cancel";
 
@@ -615,6 +720,7 @@ public class TrcPidDrive
         turnOnly = false;
         maintainHeading = false;
         canceled = false;
+        wheelSlipping = false;
 
         if (debugEnabled)
         {
@@ -639,12 +745,13 @@ public class TrcPidDrive
         if (enabled)
         {
             pidDriveTaskObj.registerTask(TaskType.STOP_TASK);
-            pidDriveTaskObj.registerTask(TaskType.POSTCONTINUOUS_TASK);
+            pidDriveTaskObj.registerTask(TrcControlLoop.getControlTaskType());
         }
         else
         {
             pidDriveTaskObj.unregisterTask(TaskType.STOP_TASK);
             pidDriveTaskObj.unregisterTask(TaskType.POSTCONTINUOUS_TASK);
+            pidDriveTaskObj.unregisterTask(TaskType.CONTROL_TASK);
         }
         active = enabled;
 
@@ -661,7 +768,7 @@ public class TrcPidDrive
      * @param taskType specifies the type of task being run.
      * @param runMode specifies the competition mode that is about to end (e.g. Autonomous, TeleOp, Test).
      */
-    public void pidDriveTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    public synchronized void pidDriveTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
     {
         final String funcName = "pidDriveTask";
 
@@ -670,7 +777,7 @@ public class TrcPidDrive
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "taskType=%s,runMode=%s", taskType, runMode);
         }
 
-        if (taskType == TaskType.POSTCONTINUOUS_TASK)
+        if (taskType == TaskType.POSTCONTINUOUS_TASK || taskType == TaskType.CONTROL_TASK)
         {
             double xPower = turnOnly || xPidCtrl == null? 0.0: xPidCtrl.getOutput();
             double yPower = turnOnly || yPidCtrl == null? 0.0: yPidCtrl.getOutput();
@@ -708,6 +815,28 @@ public class TrcPidDrive
                 }
             }
 
+            if (stateEstimator != null)
+            {
+                boolean slipping = stateEstimator.getSlipSpeed() > slipThreshold;
+
+                if (slipping)
+                {
+                    double xSlip = stateEstimator.getXSlip();
+                    double ySlip = stateEstimator.getYSlip();
+
+                    if (!wheelSlipping && msgTracer != null)
+                    {
+                        msgTracer.traceInfo(funcName, "%s: Wheel slip=(%.1f,%.1f)", instanceName, xSlip, ySlip);
+                    }
+
+                    if (wheelSlipHandler != null)
+                    {
+                        wheelSlipHandler.wheelSlip(this, xSlip, ySlip);
+                    }
+                }
+                wheelSlipping = slipping;
+            }
+
             if ((stalled || expired) && (beepDevice != null || msgTracer != null))
             {
                 if (beepDevice != null)
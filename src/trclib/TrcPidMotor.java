@@ -28,7 +28,8 @@ import trclib.TrcTaskMgr.TaskType;
  * This class implements a platform independent PID controlled motor. A PID controlled motor may consist of one or
  * two physical motors, a position sensor, typically an encoder (or could be a potentiometer). Optionally, it supports
  * a lower limit switch or even an upper limit switch. In addition, it has stall protection support which will detect
- * motor stall condition and will cut power to the motor preventing it from burning out.
+ * motor stall condition and will cut power to the motor preventing it from burning out. For position dependent
+ * gains, give the PID controller a TrcPidController.GainSchedule keyed on the EXTERNAL variable getPosition.
  */
 public class TrcPidMotor
 {
@@ -42,6 +43,7 @@ public class TrcPidMotor
     private TrcDbgTrace msgTracer = null;
     private TrcRobotBattery battery = null;
     private boolean tracePidInfo = false;
+    private boolean voltageCompensation = false;
 
     /**
      * Some actuators are non-linear. The load may vary depending on the position. For example, raising an arm
@@ -77,6 +79,8 @@ public class TrcPidMotor
     private final TrcPidController pidCtrl;
     private final PowerCompensation powerCompensation;
     private final TrcTaskMgr.TaskObject pidMotorTaskObj;
+    private TrcTrapezoidProfile motionProfile = null;
+    private boolean profiledMove = false;
     private boolean active = false;
     private double syncGain = 0.0;
     private double positionScale = 1.0;
@@ -268,6 +272,28 @@ public class TrcPidMotor
         setMsgTracer(tracer, false, null);
     }   //setMsgTracer
 
+    /**
+     * This method enables/disables battery voltage compensation. When enabled, both the PID output and the power
+     * compensation are scaled by the ratio of the nominal voltage to the current battery voltage.
+     *
+     * @param battery specifies the battery object to get the voltage from, null to disable voltage compensation.
+     * @param nominalVoltage specifies the voltage the PID coefficients and power compensation were tuned at.
+     */
+    public void setVoltageCompensation(TrcRobotBattery battery, double nominalVoltage)
+    {
+        final String funcName = "setVoltageCompensation";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                    "battery=%s,nominalVolt=%.1f", battery, nominalVoltage);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        pidCtrl.setVoltageCompensation(battery, nominalVoltage);
+        voltageCompensation = battery != null;
+    }   //setVoltageCompensation
+
     /**
      * This method returns the specified motor object.
      *
@@ -303,7 +329,7 @@ public class TrcPidMotor
      *
      * @return true if PID motor is active, false otherwise.
      */
-    public boolean isActive()
+    public synchronized boolean isActive()
     {
         final String funcName = "isActive";
 
@@ -319,7 +345,7 @@ public class TrcPidMotor
     /**
      * This method cancels a previous active PID motor operation.
      */
-    public void cancel()
+    public synchronized void cancel()
     {
         final String funcName = "cancel";
 
@@ -477,6 +503,46 @@ public class TrcPidMotor
         this.resetTimeout = resetTimeout;
     }   //setStallProtection
 
+    /**
+     * This method enables profiled moves. When enabled, setTarget moves the PID set point along a trapezoid motion
+     * profile from the current position to the target instead of stepping it to the target. The profile velocity
+     * and acceleration are passed to the PID controller for feed forward. Setting a new target while a profiled move
+     * is in progress or holding target continues from the current profile state so there is no jump in the set point.
+     * Profiled moves require the PID controller to have absolute set points.
+     *
+     * @param maxVelocity specifies the maximum velocity in scaled position units per second, zero to disable
+     *                    profiled moves.
+     * @param maxAcceleration specifies the maximum acceleration in scaled position units per second squared.
+     */
+    public void setMotionProfile(double maxVelocity, double maxAcceleration)
+    {
+        final String funcName = "setMotionProfile";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
+                                "maxVel=%f,maxAccel=%f", maxVelocity, maxAcceleration);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (maxVelocity == 0.0)
+        {
+            motionProfile = null;
+        }
+        else if (!pidCtrl.hasAbsoluteSetPoint())
+        {
+            throw new IllegalStateException("Motion profile requires PID controller with absolute set point.");
+        }
+        else if (motionProfile == null)
+        {
+            motionProfile = new TrcTrapezoidProfile(instanceName + ".profile", maxVelocity, maxAcceleration);
+        }
+        else
+        {
+            motionProfile.setConstraints(maxVelocity, maxAcceleration);
+        }
+    }   //setMotionProfile
+
     /**
      * This method starts a PID operation by setting the PID target.
      *
@@ -486,16 +552,19 @@ public class TrcPidMotor
      * @param timeout specifies a timeout value in seconds. If the operation is not completed without the specified
      *                timeout, the operation will be canceled and the event will be signaled. If no timeout is
      *                specified, it should be set to zero.
+     * @param profiled specifies true to follow the motion profile if there is one, false to step to the target.
      */
-    private void setTarget(double target, boolean holdTarget, TrcEvent event, double timeout)
+    private synchronized void setTarget(double target, boolean holdTarget, TrcEvent event, double timeout, boolean profiled)
     {
         final String funcName = "setTarget";
+        boolean profileInProgress = active && profiledMove;
 
         if (debugEnabled)
         {
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API,
-                                "target=%f,hold=%s,event=%s,timeout=%f",
-                                target, Boolean.toString(holdTarget), event != null? event.toString(): "null", timeout);
+                                "target=%f,hold=%s,event=%s,timeout=%f,profiled=%s",
+                                target, Boolean.toString(holdTarget), event != null? event.toString(): "null", timeout,
+                                Boolean.toString(profiled));
         }
 
         if (active)
@@ -507,9 +576,23 @@ public class TrcPidMotor
         }
 
         //
-        // Set a new PID target.
+        // Set a new PID target. For a profiled move, the PID target starts at the profile position and the PID motor
+        // task will advance it towards the target.
         //
-        pidCtrl.setTarget(target);
+        profiledMove = profiled && motionProfile != null && calPower == 0.0;
+        if (profiledMove)
+        {
+            if (!profileInProgress)
+            {
+                motionProfile.reset(getPosition());
+            }
+            motionProfile.setGoal(target);
+            pidCtrl.setTarget(motionProfile.getPosition());
+        }
+        else
+        {
+            pidCtrl.setTarget(target);
+        }
 
         //
         // If a notification event is provided, clear it.
@@ -552,7 +635,7 @@ public class TrcPidMotor
      */
     public void setTarget(double target, TrcEvent event, double timeout)
     {
-        setTarget(target, false, event, timeout);
+        setTarget(target, false, event, timeout, true);
     }   //setTarget
 
     /**
@@ -563,7 +646,7 @@ public class TrcPidMotor
      */
     public void setTarget(double target, boolean holdTarget)
     {
-        setTarget(target, holdTarget, null, 0.0);
+        setTarget(target, holdTarget, null, 0.0, true);
     }   //setTarget
 
     /**
@@ -624,7 +707,12 @@ public class TrcPidMotor
             {
                 if (powerCompensation != null)
                 {
-                    power += powerCompensation.getCompensation();
+                    double compensation = powerCompensation.getCompensation();
+                    if (voltageCompensation)
+                    {
+                        compensation *= pidCtrl.getVoltageCompensationScale();
+                    }
+                    power += compensation;
                 }
                 power = TrcUtil.clipRange(power, rangeLow, rangeHigh);
 
@@ -682,7 +770,7 @@ public class TrcPidMotor
      * @param rangeLow specifies the range low limit.
      * @param rangeHigh specifies the range high limit.
      */
-    public void setPower(double power, double rangeLow, double rangeHigh)
+    public synchronized void setPower(double power, double rangeLow, double rangeHigh)
     {
         setPower(power, rangeLow, rangeHigh, true);
     }   //setPower
@@ -713,7 +801,7 @@ public class TrcPidMotor
      * @param maxPos specifies the maximum of the position range.
      * @param holdTarget specifies true to hold target when speed is set to 0, false otherwise.
      */
-    public void setPowerWithinPosRange(double power, double minPos, double maxPos, boolean holdTarget)
+    public synchronized void setPowerWithinPosRange(double power, double minPos, double maxPos, boolean holdTarget)
     {
         final String funcName = "setPowerWithinPosRange";
 
@@ -743,7 +831,7 @@ public class TrcPidMotor
                     //
                     // Hold target at current position.
                     //
-                    setTarget(getPosition(), true, null, 0.0);
+                    setTarget(getPosition(), true, null, 0.0, false);
                 }
                 else
                 {
@@ -760,7 +848,7 @@ public class TrcPidMotor
                 //
                 power = Math.abs(power);
                 pidCtrl.setOutputRange(-power, power);
-                setTarget(currTarget, holdTarget, null, 0.0);
+                setTarget(currTarget, holdTarget, null, 0.0, false);
             }
             prevTarget = currTarget;
         }
@@ -792,7 +880,7 @@ public class TrcPidMotor
      *
      * @param calPower specifies calibration power.
      */
-    public void zeroCalibrate(double calPower)
+    public synchronized void zeroCalibrate(double calPower)
     {
         final String funcName = "zeroCalibrate";
 
@@ -938,12 +1026,13 @@ public class TrcPidMotor
         if (enabled)
         {
             pidMotorTaskObj.registerTask(TrcTaskMgr.TaskType.STOP_TASK);
-            pidMotorTaskObj.registerTask(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK);
+            pidMotorTaskObj.registerTask(TrcControlLoop.getControlTaskType());
         }
         else
         {
             pidMotorTaskObj.unregisterTask(TrcTaskMgr.TaskType.STOP_TASK);
             pidMotorTaskObj.unregisterTask(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK);
+            pidMotorTaskObj.unregisterTask(TrcTaskMgr.TaskType.CONTROL_TASK);
         }
         this.active = enabled;
 
@@ -964,7 +1053,7 @@ public class TrcPidMotor
      * @param taskType specifies the type of task being run.
      * @param runMode specifies the competition mode that is running.
      */
-    public void pidMotorTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    public synchronized void pidMotorTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
     {
         final String funcName = "pidMotorTask";
 
@@ -973,7 +1062,7 @@ public class TrcPidMotor
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.TASK, "taskType=%s,runMode=%s", taskType, runMode);
         }
 
-        if (taskType == TaskType.POSTCONTINUOUS_TASK)
+        if (taskType == TaskType.POSTCONTINUOUS_TASK || taskType == TaskType.CONTROL_TASK)
         {
             if (calPower != 0.0)
             {
@@ -1004,9 +1093,11 @@ public class TrcPidMotor
             {
                 //
                 // If we are not holding target and has reached target or we set a timeout and it has expired, we are
-                // done with the operation. Stop the motor and if there is a notification event, signal it.
+                // done with the operation. Stop the motor and if there is a notification event, signal it. A profiled
+                // move is not on target until the profile has arrived at the goal.
                 //
-                if (!holdTarget && (pidCtrl.isOnTarget() || stalled) ||
+                boolean onTarget = pidCtrl.isOnTarget() && (!profiledMove || motionProfile.isDone());
+                if (!holdTarget && (onTarget || stalled) ||
                     expiredTime != 0.0 && TrcUtil.getCurrentTime() >= expiredTime)
                 {
                     stop(true);
@@ -1019,8 +1110,16 @@ public class TrcPidMotor
                 else
                 {
                     //
-                    // We are still in business. Call PID controller to calculate the motor power and set it.
+                    // We are still in business. Advance the profile if any, then call PID controller to calculate the
+                    // motor power and set it. When holding target, the profile stays at the goal with zero velocity.
                     //
+                    if (profiledMove)
+                    {
+                        motionProfile.update();
+                        pidCtrl.updateTarget(
+                            motionProfile.getPosition(), motionProfile.getVelocity(), motionProfile.getAcceleration());
+                    }
+
                     motorPower = pidCtrl.getOutput();
                     setPower(motorPower, MIN_MOTOR_POWER, MAX_MOTOR_POWER, false);
     
@@ -123,6 +123,9 @@ public abstract class TrcPixyCam implements TrcSerialBusDevice.CompletionHandler
     private final boolean msbFirst;
     private ArrayList<ObjectBlock> objects = new ArrayList<>();
     private ObjectBlock[] detectedObjects = null;
+    private double frameTimestamp = 0.0;
+    private double detectedObjectsTimestamp = 0.0;
+    private double lastObjectsTimestamp = 0.0;
     private ObjectBlock currBlock = null;
     private Object objectLock = new Object();
     private int runningChecksum = 0;
@@ -298,6 +301,10 @@ public abstract class TrcPixyCam implements TrcSerialBusDevice.CompletionHandler
         {
             objectBlocks = detectedObjects;
             detectedObjects = null;
+            if (objectBlocks != null)
+            {
+                lastObjectsTimestamp = detectedObjectsTimestamp;
+            }
         }
 
         if (debugEnabled)
@@ -308,6 +315,21 @@ public abstract class TrcPixyCam implements TrcSerialBusDevice.CompletionHandler
         return objectBlocks;
     }   //getDetectedObjects
 
+    /**
+     * This method returns the time the last array returned by getDetectedObjects started arriving from the camera.
+     * The frame was captured somewhat before that, so callers should subtract the camera processing latency to
+     * align the objects with other sensor data.
+     *
+     * @return timestamp of the last detected objects in seconds, 0.0 if none yet.
+     */
+    public double getDetectedObjectsTimestamp()
+    {
+        synchronized (objectLock)
+        {
+            return lastObjectsTimestamp;
+        }
+    }   //getDetectedObjectsTimestamp
+
     /**
      * This method processes the data from the read completion handler.
      *
@@ -448,6 +470,7 @@ public abstract class TrcPixyCam implements TrcSerialBusDevice.CompletionHandler
                             {
                                 ObjectBlock[] array = new ObjectBlock[objects.size()];
                                 detectedObjects = objects.toArray(array);
+                                detectedObjectsTimestamp = frameTimestamp;
                                 objects.clear();
                                 if (debugEnabled)
                                 {
@@ -551,8 +574,12 @@ public abstract class TrcPixyCam implements TrcSerialBusDevice.CompletionHandler
                     if (runningChecksum == currBlock.checksum)
                     {
                         //
-                        // Checksum is correct, add the object block.
+                        // Checksum is correct, add the object block. The first block of a frame timestamps it.
                         //
+                        if (objects.isEmpty())
+                        {
+                            frameTimestamp = TrcUtil.getCurrentTime();
+                        }
                         objects.add(currBlock);
                         currBlock = null;
                     }
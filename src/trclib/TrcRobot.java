@@ -119,6 +119,15 @@ public class TrcRobot
          */
         boolean cmdPeriodic(double elapsedTime);
 
+        /**
+         * This method is called to stop the robot command before it is done, for example by a command group when
+         * another command wins a race. Commands that drive actuators should override it to stop them. The default
+         * does nothing.
+         */
+        default void cancel()
+        {
+        }   //cancel
+
     }   //interface RobotCommand
 
 }   //class TrcRobot
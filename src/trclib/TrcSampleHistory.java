@@ -0,0 +1,330 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.function.Supplier;
+
+/**
+ * This class keeps a short history of timestamped samples of a value in a ring buffer and looks up the value at
+ * an earlier time by linear interpolation. It is useful for fusing a measurement that arrives late, such as a
+ * vision target found in a camera frame, with the robot state (e.g. heading) at the time the frame was captured
+ * instead of the current state. The history can be fed manually with addSample or sampled every loop from a
+ * supplier by enabling its task. The buffer is preallocated so adding samples does not create garbage.
+ */
+public class TrcSampleHistory
+{
+    private static final String moduleName = "TrcSampleHistory";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private final Supplier<Double> source;
+    private final TrcTaskMgr.TaskObject sampleTaskObj;
+    private final double[] timestamps;
+    private final double[] values;
+    private int head = 0;
+    private int count = 0;
+    private double samplePeriod = 0.0;
+    private double nextSampleTime = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param capacity specifies the number of samples to keep, the oldest sample is dropped when full.
+     * @param source specifies the supplier sampled every loop when the task is enabled, null if samples are only
+     *               added with addSample.
+     */
+    public TrcSampleHistory(final String instanceName, int capacity, Supplier<Double> source)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (capacity < 2)
+        {
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+        }
+
+        this.instanceName = instanceName;
+        this.source = source;
+        timestamps = new double[capacity];
+        values = new double[capacity];
+        sampleTaskObj = source != null?
+            TrcTaskMgr.getInstance().createTask(instanceName + ".sampleTask", this::sampleTask): null;
+    }   //TrcSampleHistory
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param capacity specifies the number of samples to keep, the oldest sample is dropped when full.
+     */
+    public TrcSampleHistory(final String instanceName, int capacity)
+    {
+        this(instanceName, capacity, null);
+    }   //TrcSampleHistory
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    @Override
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method enables/disables sampling the source every loop. The task runs as a pre-continuous task, so the
+     * history should be created after the object supplying the value if that object also updates in a
+     * pre-continuous task.
+     *
+     * @param enabled specifies true to enable, false to disable.
+     */
+    public void setTaskEnabled(boolean enabled)
+    {
+        final String funcName = "setTaskEnabled";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "enabled=%s", Boolean.toString(enabled));
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (sampleTaskObj == null)
+        {
+            throw new IllegalStateException("History has no sample source.");
+        }
+
+        if (enabled)
+        {
+            sampleTaskObj.registerTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+        }
+        else
+        {
+            sampleTaskObj.unregisterTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+        }
+    }   //setTaskEnabled
+
+    /**
+     * This method sets the minimum time between samples taken by the task. The robot loop runs as fast as it can,
+     * so without a sample period the time span covered by the history depends on the loop load. With a period,
+     * the history covers about capacity*period seconds.
+     *
+     * @param period specifies the sample period in seconds, 0.0 to sample every loop.
+     */
+    public synchronized void setSamplePeriod(double period)
+    {
+        final String funcName = "setSamplePeriod";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "period=%.3f", period);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (period < 0.0)
+        {
+            throw new IllegalArgumentException("Sample period must not be negative.");
+        }
+
+        samplePeriod = period;
+        nextSampleTime = 0.0;
+    }   //setSamplePeriod
+
+    /**
+     * This method adds a sample to the history. Samples must be added in time order, a sample older than the
+     * newest one is ignored.
+     *
+     * @param timestamp specifies the time of the sample in seconds.
+     * @param value specifies the sample value.
+     */
+    public synchronized void addSample(double timestamp, double value)
+    {
+        if (count > 0 && timestamp < timestamps[(head + count - 1) % timestamps.length])
+        {
+            return;
+        }
+
+        int index;
+        if (count < timestamps.length)
+        {
+            index = (head + count) % timestamps.length;
+            count++;
+        }
+        else
+        {
+            index = head;
+            head = (head + 1) % timestamps.length;
+        }
+        timestamps[index] = timestamp;
+        values[index] = value;
+    }   //addSample
+
+    /**
+     * This method adds a timestamped sensor sample to the history.
+     *
+     * @param data specifies the sensor data.
+     */
+    public void addSample(TrcSensor.SensorData<Double> data)
+    {
+        addSample(data.timestamp, data.value);
+    }   //addSample
+
+    /**
+     * This method returns the value at the given time, linearly interpolated between the two samples around it.
+     * If the time is before the oldest sample or after the newest sample, the oldest or newest value is returned.
+     *
+     * @param time specifies the time in seconds.
+     * @return value at the given time, NaN if the history is empty.
+     */
+    public synchronized double lookupAt(double time)
+    {
+        final String funcName = "lookupAt";
+        double value;
+
+        if (count == 0)
+        {
+            value = Double.NaN;
+        }
+        else if (time <= timestamps[head])
+        {
+            value = values[head];
+        }
+        else
+        {
+            int newest = (head + count - 1) % timestamps.length;
+
+            if (time >= timestamps[newest])
+            {
+                value = values[newest];
+            }
+            else
+            {
+                //
+                // Binary search for the last sample at or before time. The oldest sample qualifies and the newest
+                // does not, so low ends up with a following sample to interpolate with.
+                //
+                int low = 0;
+                int high = count - 1;
+                while (high - low > 1)
+                {
+                    int mid = (low + high) >>> 1;
+                    if (timestamps[(head + mid) % timestamps.length] <= time)
+                    {
+                        low = mid;
+                    }
+                    else
+                    {
+                        high = mid;
+                    }
+                }
+
+                int i0 = (head + low) % timestamps.length;
+                int i1 = (head + high) % timestamps.length;
+                double span = timestamps[i1] - timestamps[i0];
+                value = span > 0.0?
+                    values[i0] + (values[i1] - values[i0])*(time - timestamps[i0])/span: values[i1];
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "time=%.3f", time);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%f", value);
+        }
+
+        return value;
+    }   //lookupAt
+
+    /**
+     * This method returns the newest value in the history.
+     *
+     * @return newest value, NaN if the history is empty.
+     */
+    public synchronized double getLatest()
+    {
+        return count > 0? values[(head + count - 1) % timestamps.length]: Double.NaN;
+    }   //getLatest
+
+    /**
+     * This method returns the time of the oldest sample, i.e. how far back lookupAt can interpolate.
+     *
+     * @return oldest timestamp, NaN if the history is empty.
+     */
+    public synchronized double getOldestTimestamp()
+    {
+        return count > 0? timestamps[head]: Double.NaN;
+    }   //getOldestTimestamp
+
+    /**
+     * This method returns the number of samples in the history.
+     *
+     * @return number of samples.
+     */
+    public synchronized int getNumSamples()
+    {
+        return count;
+    }   //getNumSamples
+
+    /**
+     * This method clears the history.
+     */
+    public synchronized void clear()
+    {
+        head = 0;
+        count = 0;
+        nextSampleTime = 0.0;
+    }   //clear
+
+    /**
+     * This method is called periodically to sample the source.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the competition mode that is running.
+     */
+    private void sampleTask(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    {
+        double currTime = TrcUtil.getCurrentTime();
+
+        synchronized (this)
+        {
+            if (currTime < nextSampleTime)
+            {
+                return;
+            }
+            nextSampleTime = currTime + samplePeriod;
+        }
+        addSample(currTime, source.get());
+    }   //sampleTask
+
+}   //class TrcSampleHistory
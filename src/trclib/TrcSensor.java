@@ -22,6 +22,8 @@
 
 package trclib;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Locale;
 
 /**
@@ -109,6 +111,10 @@ public abstract class TrcSensor<D>
     private double[] scales;
     private double[] offsets;
     private TrcSensorCalibrator<D> calibrator = null;
+    //
+    // Recorder channels of each data type, indexed by axis, so that the channel name is only built once.
+    //
+    private final HashMap<D, TrcDataRecorder.Channel[]> recorderChannels = new HashMap<>();
 
     /**
      * Constructor: Creates an instance of the object.
@@ -185,6 +191,59 @@ public abstract class TrcSensor<D>
         return instanceName;
     }   //toString
 
+    /**
+     * This method returns the data recorder channel name of the given axis and data type. A subclass can override
+     * this to use names that do not depend on the number of axes.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type.
+     * @return channel name.
+     */
+    protected String getRecorderChannelName(int index, D dataType)
+    {
+        return instanceName + "." + index + "." + dataType;
+    }   //getRecorderChannelName
+
+    /**
+     * This method passes a value read from the sensor through the data recorder. While replaying a match, it
+     * returns the recorded value instead.
+     *
+     * @param index specifies the axis index.
+     * @param dataType specifies the data type.
+     * @param value specifies the value read from the sensor.
+     * @return value to use.
+     */
+    protected double recordInput(int index, D dataType, double value)
+    {
+        if (TrcDataRecorder.isActive())
+        {
+            TrcDataRecorder.Channel channel;
+
+            synchronized (recorderChannels)
+            {
+                TrcDataRecorder.Channel[] channels = recorderChannels.get(dataType);
+
+                if (channels == null || index >= channels.length)
+                {
+                    channels = channels == null?
+                        new TrcDataRecorder.Channel[Math.max(numAxes, index + 1)]:
+                        Arrays.copyOf(channels, index + 1);
+                    recorderChannels.put(dataType, channels);
+                }
+
+                channel = channels[index];
+                if (channel == null)
+                {
+                    channel = TrcDataRecorder.getChannel(getRecorderChannelName(index, dataType), false);
+                    channels[index] = channel;
+                }
+            }
+            value = channel.input(value);
+        }
+
+        return value;
+    }   //recordInput
+
     /**
      * This method returns the number of axes of the sensor.
      *
@@ -311,7 +370,7 @@ public abstract class TrcSensor<D>
 
         if (data != null)
         {
-            double value = (double)data.value;
+            double value = recordInput(index, dataType, (double)data.value);
 
             if (debugEnabled) dbgTrace.traceInfo(funcName, "raw=%.3f", value);
             if (filters[index] != null)
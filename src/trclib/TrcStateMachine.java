@@ -27,7 +27,9 @@ import java.util.ArrayList;
 /**
  * This class implements an event driven state machine. The caller can add multiple events for the state machine
  * to monitor. If one or more events are signaled, the state machine will automatically advance to the specified
- * next state.
+ * next state. The state machine registers itself as a listener of the events it is waiting for, so it advances to
+ * the next state on the thread signaling the event, in the loop iteration the event fires, and checking a waiting
+ * state machine costs nothing regardless of the number of events. Only the timeout is checked by isReady().
  *
  * @param <T> specifies the State enum type that list all possible states.
  */
@@ -42,13 +44,18 @@ public class TrcStateMachine<T>
     private TrcDbgTrace dbgTrace = null;
 
     private final String instanceName;
+    //
+    // The state machine may be advanced by the thread signaling an event, so the state it changes is only changed
+    // while holding the lock and the state read without the lock is volatile.
+    //
     private ArrayList<TrcEvent> eventList = new ArrayList<>();
-    private T currState = null;
+    private TrcEventWaiter waiter = null;
+    private volatile T currState = null;
     private T nextState = null;
-    private boolean enabled = false;
-    private boolean ready = false;
-    private boolean expired = false;
-    private double expiredTime = 0.0;
+    private volatile boolean enabled = false;
+    private volatile boolean ready = false;
+    private volatile boolean expired = false;
+    private volatile double expiredTime = 0.0;
     private boolean waitForAllEvents = false;
 
     /**
@@ -81,7 +88,7 @@ public class TrcStateMachine<T>
      *
      * @param state specifies the starting state.
      */
-    public void start(T state)
+    public synchronized void start(T state)
     {
         final String funcName = "start";
 
@@ -92,6 +99,7 @@ public class TrcStateMachine<T>
                 new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
         }
 
+        cancelWaiter();
         eventList.clear();
         currState = state;
         nextState = state;
@@ -110,7 +118,7 @@ public class TrcStateMachine<T>
     /**
      * This method stops the state machine by disabling it.
      */
-    public void stop()
+    public synchronized void stop()
     {
         final String funcName = "stop";
 
@@ -119,6 +127,7 @@ public class TrcStateMachine<T>
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
+        cancelWaiter();
         eventList.clear();
         currState = null;
         nextState = null;
@@ -186,7 +195,7 @@ public class TrcStateMachine<T>
      *
      * @param state specifies the state to set the state machine to.
      */
-    public void setState(T state)
+    public synchronized void setState(T state)
     {
         final String funcName = "setState";
 
@@ -222,9 +231,9 @@ public class TrcStateMachine<T>
     }   //isEnabled
 
     /**
-     * This method checks if the state machine is in ready mode. If not, it will enumerate all the events it is
-     * monitoring and make sure if any or all of them are signaled as the condition for putting the state machine
-     * back in ready mode.
+     * This method checks if the state machine is in ready mode. The events it is waiting for advance it to the
+     * next state when they are signaled, so this only checks whether a timeout was set and has expired, and if so
+     * advances to the next state. Without a timeout, checking a waiting state machine takes no lock.
      *
      * @return true if the state machine is in ready mode, false otherwise.
      */
@@ -237,57 +246,9 @@ public class TrcStateMachine<T>
             dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
         }
 
-        //
-        // If the state machine is enabled but not ready, check all events if the state machine should be put back
-        // in ready mode.
-        //
-        if (enabled && !ready)
+        if (enabled && !ready && expiredTime > 0.0)
         {
-            //
-            // If a timeout was specifies and we have past the timeout time, we will put the state machine back to
-            // ready mode but indicate the timeout had expired.
-            //
-            if (expiredTime > 0.0 && TrcUtil.getCurrentTime() >= expiredTime)
-            {
-                expiredTime = 0.0;
-                ready = true;
-                expired = true;
-            }
-            else
-            {
-                //
-                // Count the number of signaled events.
-                //
-                int count = 0;
-                for (int i = 0; i < eventList.size(); i++)
-                {
-                    TrcEvent event = eventList.get(i);
-                    if (event.isSignaled() || event.isCanceled())
-                    {
-                        count++;
-                    }
-                }
-
-                //
-                // If waitForAllEvents is true, the number of signaled events must equal to the size of the event
-                // list (i.e. all events have signaled). If waitForAllEvents is false, then we just need a non-zero
-                // count in order to put the state machine back to ready mode.
-                //
-                if (!waitForAllEvents && count > 0 || waitForAllEvents && count == eventList.size())
-                {
-                    ready = true;
-                }
-            }
-
-            //
-            // If we put the state machine back to ready mode, we need to clear all events and the event list to
-            // monitor. Then we move the state from the current state to the next state.
-            //
-            if (ready)
-            {
-                eventList.clear();
-                currState = nextState;
-            }
+            checkTimeout();
         }
 
         if (debugEnabled)
@@ -317,11 +278,13 @@ public class TrcStateMachine<T>
     }   //isTimedout
 
     /**
-     * This method adds an event to the event list to be monitored.
+     * This method adds an event to the event list to be monitored. Events must be added before calling
+     * waitForEvents, an event added while the state machine is already waiting is not monitored until the next
+     * waitForEvents.
      *
      * @param event specifies the vent to be added to the list.
      */
-    public void addEvent(TrcEvent event)
+    public synchronized void addEvent(TrcEvent event)
     {
         final String funcName = "addEvent";
 
@@ -356,7 +319,7 @@ public class TrcStateMachine<T>
      * @param waitForAllEvents specifies true if all events must be signaled for the state machine to go ready.
      *                         If false, any signaled event will cause the state machine to go ready.
      */
-    public void waitForEvents(T nextState, double timeout, boolean waitForAllEvents)
+    public synchronized void waitForEvents(T nextState, double timeout, boolean waitForAllEvents)
     {
         final String funcName = "waitForEvents";
 
@@ -376,6 +339,10 @@ public class TrcStateMachine<T>
         this.waitForAllEvents = waitForAllEvents;
         ready = false;
         clearAllEvents();
+        cancelWaiter();
+        waiter = new TrcEventWaiter(
+            eventList.toArray(new TrcEvent[eventList.size()]), waitForAllEvents, this::waiterReady);
+        waiter.register();
 
         if (debugEnabled)
         {
@@ -419,7 +386,7 @@ public class TrcStateMachine<T>
      * @param nextState specifies the next state when the state machine becomes ready.
      * @param timeout specifies a timeout value. A zero value means there is no timeout.
      */
-    public void waitForSingleEvent(TrcEvent event, T nextState, double timeout)
+    public synchronized void waitForSingleEvent(TrcEvent event, T nextState, double timeout)
     {
         final String funcName =  "waitForSingleEvent";
 
@@ -454,6 +421,47 @@ public class TrcStateMachine<T>
         waitForSingleEvent(event, nextState, 0.0);
     }   //waitForSingleEvent
 
+    /**
+     * This method is called by the event waiter on the thread that signaled or canceled the awaited event(s). It
+     * puts the state machine back to ready mode and advances it to the next state, unless the state machine has
+     * stopped waiting for this waiter in the meantime.
+     *
+     * @param readyWaiter specifies the waiter that went ready.
+     */
+    private synchronized void waiterReady(TrcEventWaiter readyWaiter)
+    {
+        if (enabled && !ready && readyWaiter == waiter)
+        {
+            advanceToNextState();
+        }
+    }   //waiterReady
+
+    /**
+     * This method checks if the timeout has expired while waiting. If so, it puts the state machine back to ready
+     * mode, indicates the timeout had expired and advances it to the next state.
+     */
+    private synchronized void checkTimeout()
+    {
+        if (enabled && !ready && expiredTime > 0.0 && TrcUtil.getCurrentTime() >= expiredTime)
+        {
+            expired = true;
+            advanceToNextState();
+        }
+    }   //checkTimeout
+
+    /**
+     * This method stops monitoring the events, clears the event list and moves the state from the current state
+     * to the next state. It must be called while holding the lock.
+     */
+    private void advanceToNextState()
+    {
+        cancelWaiter();
+        eventList.clear();
+        expiredTime = 0.0;
+        currState = nextState;
+        ready = true;
+    }   //advanceToNextState
+
     /**
      * This method clears the signaled state of all the events in the list.
      */
@@ -478,4 +486,16 @@ public class TrcStateMachine<T>
         }
     }   //clearAllEvents
 
+    /**
+     * This method unregisters the current waiter from its events, if any.
+     */
+    private void cancelWaiter()
+    {
+        if (waiter != null)
+        {
+            waiter.unregister();
+            waiter = null;
+        }
+    }   //cancelWaiter
+
 }   //class TrcStateMachine
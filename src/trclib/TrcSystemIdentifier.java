@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.util.ArrayList;
+
+/**
+ * This class implements an offline system identifier for a motor driven mechanism. It collects samples of applied
+ * motor power, battery voltage and position, estimates velocity and acceleration by finite differences and fits the
+ * feed forward model voltage = kG + kS*sgn(velocity) + kV*velocity + kA*acceleration by least squares. The dead time
+ * between the applied power and the resulting motion is found by scanning for the delay that best fits the model.
+ * Samples do not have to be evenly spaced. A gap in the timestamps larger than the maximum sample gap starts a new
+ * segment so samples from different operations are never differentiated against each other.
+ */
+public class TrcSystemIdentifier
+{
+    private static final String moduleName = "TrcSystemIdentifier";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    /**
+     * This class contains the identified model of the mechanism. The voltage coefficients are in volts, the
+     * position unit is whatever unit the samples were in (e.g. inches or degrees).
+     */
+    public static class Model
+    {
+        public double kG = 0.0;
+        public double kS = 0.0;
+        public double kV = 0.0;
+        public double kA = 0.0;
+        public double deadTime = 0.0;
+        public double samplePeriod = 0.0;
+        public double rSquared = 0.0;
+        public int numSamples = 0;
+
+        /**
+         * This method returns the feed forward coefficients in motor power units at the given nominal voltage.
+         *
+         * @param nominalVoltage specifies the nominal battery voltage.
+         * @return feed forward coefficients.
+         */
+        public TrcPidController.FeedForwardCoefficients getFeedForwardCoefficients(double nominalVoltage)
+        {
+            return new TrcPidController.FeedForwardCoefficients(
+                kS/nominalVoltage, kV/nominalVoltage, kA/nominalVoltage);
+        }   //getFeedForwardCoefficients
+
+        /**
+         * This method returns the gravity compensation in motor power units at the given nominal voltage.
+         *
+         * @param nominalVoltage specifies the nominal battery voltage.
+         * @return gravity compensation power.
+         */
+        public double getGravityCompensation(double nominalVoltage)
+        {
+            return kG/nominalVoltage;
+        }   //getGravityCompensation
+
+        /**
+         * This method suggests position PID coefficients for the identified model. The mechanism is treated as an
+         * integrating process with a first order lag (time constant kA/kV) and dead time. The gains follow the SIMC
+         * rule with the closed loop time constant set to the effective dead time, which includes half of the
+         * control sample period.
+         *
+         * @param nominalVoltage specifies the nominal battery voltage.
+         * @return suggested PID coefficients, null if the model is not valid.
+         */
+        public TrcPidController.PidCoefficients getSuggestedPidCoefficients(double nominalVoltage)
+        {
+            TrcPidController.PidCoefficients pidCoefficients = null;
+
+            if (kV > 0.0)
+            {
+                double effectiveDeadTime = Math.max(deadTime + samplePeriod/2.0, MIN_DEAD_TIME);
+                double kP = (kV/nominalVoltage)/(2.0*effectiveDeadTime);
+                double kD = kP*Math.max(kA, 0.0)/kV;
+                pidCoefficients = new TrcPidController.PidCoefficients(kP, 0.0, kD);
+            }
+
+            return pidCoefficients;
+        }   //getSuggestedPidCoefficients
+
+        /**
+         * This method returns the model in string form.
+         *
+         * @return model string.
+         */
+        public String toString()
+        {
+            return String.format(
+                "kG=%.4f, kS=%.4f, kV=%.5f, kA=%.5f (volts), deadTime=%.3f, samplePeriod=%.3f, R2=%.3f, n=%d",
+                kG, kS, kV, kA, deadTime, samplePeriod, rSquared, numSamples);
+        }   //toString
+
+    }   //class Model
+
+    public static final double DEF_MAX_SAMPLE_GAP = 0.2;
+    public static final double DEF_MIN_VELOCITY = 0.5;
+    public static final double DEF_MAX_DEAD_TIME = 0.3;
+    public static final double DEF_DEAD_TIME_STEP = 0.005;
+    private static final double MIN_DEAD_TIME = 0.01;
+
+    private final String instanceName;
+    private final boolean hasGravity;
+    private final ArrayList<double[]> samples = new ArrayList<>();
+    private final ArrayList<Integer> segmentStarts = new ArrayList<>();
+    private double maxSampleGap = DEF_MAX_SAMPLE_GAP;
+    private double minVelocity = DEF_MIN_VELOCITY;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param hasGravity specifies true if the mechanism works against gravity (e.g. an elevator), so a constant
+     *                   kG term is fitted.
+     */
+    public TrcSystemIdentifier(final String instanceName, boolean hasGravity)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        this.hasGravity = hasGravity;
+    }   //TrcSystemIdentifier
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the maximum time between two samples of the same segment.
+     *
+     * @param maxSampleGap specifies the maximum sample gap in seconds.
+     */
+    public void setMaxSampleGap(double maxSampleGap)
+    {
+        this.maxSampleGap = maxSampleGap;
+    }   //setMaxSampleGap
+
+    /**
+     * This method sets the minimum velocity for a sample to be used in the fit. Samples slower than this are
+     * dominated by static friction and are excluded.
+     *
+     * @param minVelocity specifies the minimum velocity in position units per second.
+     */
+    public void setMinVelocity(double minVelocity)
+    {
+        this.minVelocity = Math.abs(minVelocity);
+    }   //setMinVelocity
+
+    /**
+     * This method returns the number of samples collected.
+     *
+     * @return number of samples.
+     */
+    public int getNumSamples()
+    {
+        return samples.size();
+    }   //getNumSamples
+
+    /**
+     * This method forces the next sample to start a new segment.
+     */
+    public void startSegment()
+    {
+        if (segmentStarts.isEmpty() || segmentStarts.get(segmentStarts.size() - 1) != samples.size())
+        {
+            segmentStarts.add(samples.size());
+        }
+    }   //startSegment
+
+    /**
+     * This method adds a sample.
+     *
+     * @param timestamp specifies the time the sample was taken in seconds.
+     * @param power specifies the motor power applied from this time on.
+     * @param voltage specifies the battery voltage.
+     * @param position specifies the mechanism position at this time.
+     */
+    public void addSample(double timestamp, double power, double voltage, double position)
+    {
+        int n = samples.size();
+
+        if (n == 0 || timestamp <= samples.get(n - 1)[0] || timestamp - samples.get(n - 1)[0] > maxSampleGap)
+        {
+            startSegment();
+        }
+
+        samples.add(new double[] {timestamp, power*voltage, position});
+    }   //addSample
+
+    /**
+     * This method fits the model for the given dead time.
+     *
+     * @param deadTime specifies the dead time in seconds.
+     * @return fitted model, null if there is not enough data.
+     */
+    public Model identify(double deadTime)
+    {
+        final String funcName = "identify";
+        int numParams = hasGravity? 4: 3;
+        double[][] xtx = new double[numParams][numParams];
+        double[] xty = new double[numParams];
+        double[] x = new double[numParams];
+        double sumY = 0.0, sumYY = 0.0, sumPeriod = 0.0;
+        int numSamples = 0, numPeriods = 0;
+
+        for (int seg = 0; seg < segmentStarts.size(); seg++)
+        {
+            int start = segmentStarts.get(seg);
+            int end = seg + 1 < segmentStarts.size()? segmentStarts.get(seg + 1): samples.size();
+
+            for (int i = start + 1; i < end; i++)
+            {
+                sumPeriod += samples.get(i)[0] - samples.get(i - 1)[0];
+                numPeriods++;
+            }
+
+            for (int i = start + 2; i < end - 2; i++)
+            {
+                double t = samples.get(i)[0];
+                double vPrev = getVelocity(i - 1);
+                double v = getVelocity(i);
+                double vNext = getVelocity(i + 1);
+                double a = (vNext - vPrev)/(samples.get(i + 1)[0] - samples.get(i - 1)[0]);
+                //
+                // Find the voltage that was applied dead time before this sample (zero-order hold).
+                //
+                int j = i - 1;
+                while (j >= start && samples.get(j)[0] >= t - deadTime)
+                {
+                    j--;
+                }
+
+                if (j < start || Math.abs(v) < minVelocity)
+                {
+                    continue;
+                }
+
+                double y = samples.get(j)[1];
+                x[0] = Math.signum(v);
+                x[1] = v;
+                x[2] = a;
+                if (hasGravity)
+                {
+                    x[3] = 1.0;
+                }
+
+                for (int r = 0; r < numParams; r++)
+                {
+                    for (int c = 0; c < numParams; c++)
+                    {
+                        xtx[r][c] += x[r]*x[c];
+                    }
+                    xty[r] += x[r]*y;
+                }
+                sumY += y;
+                sumYY += y*y;
+                numSamples++;
+            }
+        }
+
+        double[] b = numSamples > numParams? solve(xtx, xty): null;
+        Model model = null;
+
+        if (b != null)
+        {
+            //
+            // SSres = y'y - 2b'X'y + b'X'Xb
+            //
+            double ssRes = sumYY;
+            for (int r = 0; r < numParams; r++)
+            {
+                ssRes -= 2.0*b[r]*xty[r];
+                for (int c = 0; c < numParams; c++)
+                {
+                    ssRes += b[r]*xtx[r][c]*b[c];
+                }
+            }
+            double ssTot = sumYY - sumY*sumY/numSamples;
+
+            model = new Model();
+            model.kS = b[0];
+            model.kV = b[1];
+            model.kA = b[2];
+            model.kG = hasGravity? b[3]: 0.0;
+            model.deadTime = deadTime;
+            model.samplePeriod = numPeriods > 0? sumPeriod/numPeriods: 0.0;
+            model.rSquared = ssTot > 0.0? 1.0 - ssRes/ssTot: 0.0;
+            model.numSamples = numSamples;
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "%s: deadTime=%.3f, model=%s", instanceName, deadTime, model);
+        }
+
+        return model;
+    }   //identify
+
+    /**
+     * This method fits the model scanning the dead time from zero to the given maximum and returns the model with
+     * the best fit.
+     *
+     * @param maxDeadTime specifies the maximum dead time in seconds.
+     * @param deadTimeStep specifies the dead time scan step in seconds.
+     * @return best fitted model, null if there is not enough data.
+     */
+    public Model identify(double maxDeadTime, double deadTimeStep)
+    {
+        Model bestModel = null;
+
+        for (double deadTime = 0.0; deadTime <= maxDeadTime; deadTime += deadTimeStep)
+        {
+            Model model = identify(deadTime);
+            if (model != null && (bestModel == null || model.rSquared > bestModel.rSquared))
+            {
+                bestModel = model;
+            }
+        }
+
+        return bestModel;
+    }   //identify
+
+    /**
+     * This method fits the model scanning the dead time with default parameters.
+     *
+     * @return best fitted model, null if there is not enough data.
+     */
+    public Model identify()
+    {
+        return identify(DEF_MAX_DEAD_TIME, DEF_DEAD_TIME_STEP);
+    }   //identify
+
+    /**
+     * This method calculates the central difference velocity at the given sample.
+     *
+     * @param index specifies the sample index, must have a sample on each side in the same segment.
+     * @return velocity at the sample.
+     */
+    private double getVelocity(int index)
+    {
+        double[] prev = samples.get(index - 1);
+        double[] next = samples.get(index + 1);
+
+        return (next[2] - prev[2])/(next[0] - prev[0]);
+    }   //getVelocity
+
+    /**
+     * This method solves the linear system A*x = b with Gaussian elimination and partial pivoting. The arguments
+     * are not modified.
+     *
+     * @param a specifies the square matrix.
+     * @param b specifies the right hand side vector.
+     * @return solution vector, null if the matrix is singular.
+     */
+    private static double[] solve(double[][] a, double[] b)
+    {
+        int n = b.length;
+        double[][] m = new double[n][n + 1];
+
+        for (int r = 0; r < n; r++)
+        {
+            System.arraycopy(a[r], 0, m[r], 0, n);
+            m[r][n] = b[r];
+        }
+
+        for (int col = 0; col < n; col++)
+        {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++)
+            {
+                if (Math.abs(m[r][col]) > Math.abs(m[pivot][col]))
+                {
+                    pivot = r;
+                }
+            }
+
+            if (Math.abs(m[pivot][col]) < 1.0e-12)
+            {
+                return null;
+            }
+
+            double[] tmp = m[col];
+            m[col] = m[pivot];
+            m[pivot] = tmp;
+
+            for (int r = col + 1; r < n; r++)
+            {
+                double factor = m[r][col]/m[col][col];
+                for (int c = col; c <= n; c++)
+                {
+                    m[r][c] -= factor*m[col][c];
+                }
+            }
+        }
+
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--)
+        {
+            double sum = m[r][n];
+            for (int c = r + 1; c < n; c++)
+            {
+                sum -= m[r][c]*x[c];
+            }
+            x[r] = sum/m[r][r];
+        }
+
+        return x;
+    }   //solve
+
+}   //class TrcSystemIdentifier
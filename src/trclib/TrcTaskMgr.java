@@ -22,8 +22,11 @@
 
 package trclib;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class provides methods for the callers to register/unregister cooperative multi-tasking tasks. It manages
@@ -76,7 +79,13 @@ public class TrcTaskMgr
          * POSTCONTINUOUS_TASK is called periodically at a rate as fast as the schedule is able to loop and is run
          * after runContinuous() typically 10 msec interval.
          */
-        POSTCONTINUOUS_TASK(5);
+        POSTCONTINUOUS_TASK(5),
+
+        /**
+         * CONTROL_TASK is called at a fixed rate by the TrcControlLoop thread independent of the main robot loop.
+         * It is typically used by closed loop control code that needs a consistent sampling interval.
+         */
+        CONTROL_TASK(6);
 
         public int value;
 
@@ -127,6 +136,11 @@ public class TrcTaskMgr
          *  This contains code that will run after runContinuous() is called. Typically, you will put code that deals
          *  with actions that requires more frequent processing.
          *
+         * ControlTask:
+         *  This contains code that will run at a fixed rate on the control loop thread. Typically, you will put
+         *  closed loop control code here. Since it runs on a different thread from the other task types, any state
+         *  shared with them must be synchronized.
+         *
          * @param taskType specifies the type of task being run. This may be useful for handling multiple task types.
          * @param runMode specifies the competition mode that is about to end (e.g. Autonomous, TeleOp, Test).
          */
@@ -141,11 +155,16 @@ public class TrcTaskMgr
      */
     public static class TaskObject
     {
-        private HashSet<TaskType> taskTypes;
+        //
+        // Bit mask of the registered task types, one bit per TaskType value. Writers update it under the task object
+        // lock, the scheduler reads the volatile snapshot without locking.
+        //
+        private volatile int taskTypeMask = 0;
         private final String taskName;
         private Task task;
         private long[] taskTotalNanoTimes = new long[TaskType.values().length];
         private int[] taskTimeSlotCounts = new int[TaskType.values().length];
+        private long[] taskAllocatedBytes = new long[TaskType.values().length];
 
         /**
          * Constructor: Creates an instance of the task object with the given name
@@ -156,13 +175,13 @@ public class TrcTaskMgr
          */
         private TaskObject(final String taskName, Task task)
         {
-            taskTypes = new HashSet<>();
             this.taskName = taskName;
             this.task = task;
             for (int i = 0; i < TaskType.values().length; i++)
             {
                 taskTotalNanoTimes[i] = 0;
                 taskTimeSlotCounts[i] = 0;
+                taskAllocatedBytes[i] = 0;
             }
         }   //TaskObject
 
@@ -182,13 +201,14 @@ public class TrcTaskMgr
          * @param type specifies the task type.
          * @return true if successful, false if the task with that task type is already registered in the task list.
          */
-        public boolean registerTask(TaskType type)
+        public synchronized boolean registerTask(TaskType type)
         {
-            boolean added = false;
+            int typeBit = 1 << type.value;
+            boolean added = (taskTypeMask & typeBit) == 0;
 
-            if (!taskTypes.contains(type))
+            if (added)
             {
-                added = taskTypes.add(type);
+                taskTypeMask |= typeBit;
             }
 
             return added;
@@ -200,9 +220,17 @@ public class TrcTaskMgr
          * @param type specifies the task type.
          * @return true if successful, false if the task with that type is not found the task list.
          */
-        public boolean unregisterTask(TaskType type)
+        public synchronized boolean unregisterTask(TaskType type)
         {
-            return taskTypes.remove(type);
+            int typeBit = 1 << type.value;
+            boolean removed = (taskTypeMask & typeBit) != 0;
+
+            if (removed)
+            {
+                taskTypeMask &= ~typeBit;
+            }
+
+            return removed;
         }   //unregisterTask
 
         /**
@@ -224,7 +252,7 @@ public class TrcTaskMgr
          */
         public boolean hasType(TaskType type)
         {
-            return taskTypes.contains(type);
+            return (taskTypeMask & (1 << type.value)) != 0;
         }   //hasType
 
         /**
@@ -234,7 +262,7 @@ public class TrcTaskMgr
          */
         public boolean hasNoType()
         {
-            return taskTypes.isEmpty();
+            return taskTypeMask == 0;
         }   //hasNoType
 
         /**
@@ -247,10 +275,74 @@ public class TrcTaskMgr
             return task;
         }   //getTask
 
+        /**
+         * This method returns the number of times the task of the given type has been called since the performance
+         * metrics were last reset.
+         *
+         * @param type specifies the task type.
+         * @return number of calls.
+         */
+        public int getTimeSlotCount(TaskType type)
+        {
+            return taskTimeSlotCounts[type.value];
+        }   //getTimeSlotCount
+
+        /**
+         * This method returns the total time spent in the task of the given type since the performance metrics were
+         * last reset.
+         *
+         * @param type specifies the task type.
+         * @return total time in nanoseconds.
+         */
+        public long getTotalNanoTime(TaskType type)
+        {
+            return taskTotalNanoTimes[type.value];
+        }   //getTotalNanoTime
+
+        /**
+         * This method returns the total number of bytes allocated by the task of the given type while allocation
+         * tracking was enabled.
+         *
+         * @param type specifies the task type.
+         * @return total allocated bytes.
+         */
+        public long getAllocatedBytes(TaskType type)
+        {
+            return taskAllocatedBytes[type.value];
+        }   //getAllocatedBytes
+
+        /**
+         * This method clears the performance metrics of the task.
+         */
+        private void resetPerformanceMetrics()
+        {
+            for (int i = 0; i < TaskType.values().length; i++)
+            {
+                taskTotalNanoTimes[i] = 0;
+                taskTimeSlotCounts[i] = 0;
+                taskAllocatedBytes[i] = 0;
+            }
+        }   //resetPerformanceMetrics
+
     }   //class TaskObject
 
     private static TrcTaskMgr instance = null;
-    private ArrayList<TaskObject> taskList = new ArrayList<>();
+    //
+    // The task list is iterated by both the main robot loop and the control loop thread but is rarely modified, so
+    // a copy-on-write list gives us lock-free iteration.
+    //
+    private CopyOnWriteArrayList<TaskObject> taskList = new CopyOnWriteArrayList<>();
+    //
+    // Tasks created by each thread while it is capturing them (see startTaskCapture).
+    //
+    private final ThreadLocal<List<TaskObject>> capturedTasks = new ThreadLocal<>();
+    //
+    // Allocation tracking uses the HotSpot extension of ThreadMXBean which counts the bytes allocated by a thread.
+    // On JDK 8 the query itself allocates a couple of small arrays, so that overhead is measured when tracking is
+    // enabled and subtracted from every sample.
+    //
+    private volatile com.sun.management.ThreadMXBean allocationMXBean = null;
+    private long allocationQueryOverhead = 0;
 
     /**
      * Constructor: Creates an instance of the task manager. Typically, there is only one global instance of
@@ -291,6 +383,12 @@ public class TrcTaskMgr
         taskObj = new TaskObject(taskName, task);
         taskList.add(taskObj);
 
+        List<TaskObject> captured = capturedTasks.get();
+        if (captured != null)
+        {
+            captured.add(taskObj);
+        }
+
         if (debugEnabled)
         {
             dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API, "=%s", taskObj);
@@ -304,6 +402,117 @@ public class TrcTaskMgr
         return taskList.remove(taskObj);
     }   //removeTask
 
+    /**
+     * This method starts capturing the tasks created by the calling thread. It lets an object that builds other
+     * objects find out which tasks they created, without being affected by tasks that other threads create
+     * meanwhile.
+     */
+    public void startTaskCapture()
+    {
+        capturedTasks.set(new ArrayList<>());
+    }   //startTaskCapture
+
+    /**
+     * This method stops capturing the tasks created by the calling thread.
+     *
+     * @return tasks created by the calling thread since startTaskCapture was called, empty if not capturing.
+     */
+    public List<TaskObject> stopTaskCapture()
+    {
+        List<TaskObject> captured = capturedTasks.get();
+
+        capturedTasks.remove();
+
+        return captured != null? captured: Collections.<TaskObject>emptyList();
+    }   //stopTaskCapture
+
+    /**
+     * This method returns a read-only view of the task list.
+     *
+     * @return list of task objects.
+     */
+    public List<TaskObject> getTaskList()
+    {
+        return Collections.unmodifiableList(taskList);
+    }   //getTaskList
+
+    /**
+     * This method enables or disables tracking the bytes allocated by each task invocation. Tracking costs a
+     * thread allocation counter query before and after every task, so it is meant for desktop profiling runs and
+     * is off by default.
+     *
+     * @param enabled specifies true to enable allocation tracking, false to disable.
+     * @return true if allocation tracking is enabled, false if disabled or not supported by the JVM.
+     */
+    public synchronized boolean setAllocationTrackingEnabled(boolean enabled)
+    {
+        final String funcName = "setAllocationTrackingEnabled";
+        com.sun.management.ThreadMXBean mxBean = null;
+
+        if (enabled)
+        {
+            try
+            {
+                java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+                if (threadMXBean instanceof com.sun.management.ThreadMXBean &&
+                    ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported())
+                {
+                    mxBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                    mxBean.setThreadAllocatedMemoryEnabled(true);
+                    //
+                    // Take the smallest of a few back to back readings so a one-time allocation (e.g. class
+                    // loading on the first call) is not counted as overhead.
+                    //
+                    long threadId = Thread.currentThread().getId();
+                    long overhead = Long.MAX_VALUE;
+                    for (int i = 0; i < 10; i++)
+                    {
+                        long startBytes = mxBean.getThreadAllocatedBytes(threadId);
+                        overhead = Math.min(overhead, mxBean.getThreadAllocatedBytes(threadId) - startBytes);
+                    }
+                    allocationQueryOverhead = overhead;
+                }
+            }
+            catch (LinkageError | UnsupportedOperationException e)
+            {
+                mxBean = null;
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "enabled=%s, supported=%s, overhead=%d",
+                enabled, mxBean != null, allocationQueryOverhead);
+        }
+
+        allocationMXBean = mxBean;
+
+        return mxBean != null;
+    }   //setAllocationTrackingEnabled
+
+    /**
+     * This method checks if allocation tracking is enabled.
+     *
+     * @return true if allocation tracking is enabled, false otherwise.
+     */
+    public boolean isAllocationTrackingEnabled()
+    {
+        return allocationMXBean != null;
+    }   //isAllocationTrackingEnabled
+
+    /**
+     * This method clears the performance metrics of all tasks, typically after a warm-up period so that the metrics
+     * reflect the steady state.
+     */
+    public void resetTaskPerformanceMetrics()
+    {
+        for (TaskObject taskObj: taskList)
+        {
+            taskObj.resetPerformanceMetrics();
+        }
+    }   //resetTaskPerformanceMetrics
+
     /**
      * This method enumerates the task list and calls all the tasks that matches the given task type.
      *
@@ -313,6 +522,8 @@ public class TrcTaskMgr
     public void executeTaskType(TaskType type, TrcRobot.RunMode mode)
     {
         final String funcName = "executeTaskType";
+        com.sun.management.ThreadMXBean mxBean = allocationMXBean;
+        long threadId = mxBean != null? Thread.currentThread().getId(): 0;
 
         for (int i = 0; i < taskList.size(); i++)
         {
@@ -320,7 +531,8 @@ public class TrcTaskMgr
             if (taskObj.hasType(type))
             {
                 Task task = taskObj.getTask();
-                long startNanoTime = TrcUtil.getCurrentTimeNanos();
+                long startAllocatedBytes = mxBean != null? mxBean.getThreadAllocatedBytes(threadId): 0;
+                long startNanoTime = TrcDataRecorder.getUnrecordedTimeNanos();
 
                 switch (type)
                 {
@@ -371,11 +583,24 @@ public class TrcTaskMgr
                         }
                         task.runTask(TaskType.POSTCONTINUOUS_TASK, mode);
                         break;
+
+                    case CONTROL_TASK:
+                        if (debugEnabled)
+                        {
+                            dbgTrace.traceInfo(funcName, "Executing ControlTask %s", taskObj.toString());
+                        }
+                        task.runTask(TaskType.CONTROL_TASK, mode);
+                        break;
                 }
 
-                long elapsedTime = TrcUtil.getCurrentTimeNanos() - startNanoTime;
+                long elapsedTime = TrcDataRecorder.getUnrecordedTimeNanos() - startNanoTime;
                 taskObj.taskTotalNanoTimes[type.value] += elapsedTime;
                 taskObj.taskTimeSlotCounts[type.value]++;
+                if (mxBean != null)
+                {
+                    taskObj.taskAllocatedBytes[type.value] += Math.max(
+                        mxBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes - allocationQueryOverhead, 0);
+                }
 
                 if (debugEnabled)
                 {
@@ -400,7 +625,8 @@ public class TrcTaskMgr
         {
             tracer.traceInfo(
                     "TaskPerformance",
-                    "%16s: PrePeriodic=%.6f, PostPeriodic=%.6f, PreContinuous=%.6f, PostContinous=%.6f",
+                    "%16s: PrePeriodic=%.6f, PostPeriodic=%.6f, PreContinuous=%.6f, PostContinous=%.6f, " +
+                    "Control=%.6f",
                     taskObj.taskName,
                     (double)taskObj.taskTotalNanoTimes[TaskType.PREPERIODIC_TASK.value]/
                             taskObj.taskTimeSlotCounts[TaskType.PREPERIODIC_TASK.value]/1000000000,
@@ -409,8 +635,35 @@ public class TrcTaskMgr
                     (double)taskObj.taskTotalNanoTimes[TaskType.PRECONTINUOUS_TASK.value]/
                             taskObj.taskTimeSlotCounts[TaskType.PRECONTINUOUS_TASK.value]/1000000000,
                     (double)taskObj.taskTotalNanoTimes[TaskType.POSTCONTINUOUS_TASK.value]/
-                            taskObj.taskTimeSlotCounts[TaskType.POSTCONTINUOUS_TASK.value]/1000000000);
+                            taskObj.taskTimeSlotCounts[TaskType.POSTCONTINUOUS_TASK.value]/1000000000,
+                    (double)taskObj.taskTotalNanoTimes[TaskType.CONTROL_TASK.value]/
+                            taskObj.taskTimeSlotCounts[TaskType.CONTROL_TASK.value]/1000000000);
         }
     }   //printTaskPerformanceMetrics
 
+    /**
+     * This method prints the average number of bytes allocated per call by each task type of all tasks with the
+     * given tracer. Allocation tracking must have been enabled for the numbers to be meaningful.
+     *
+     * @param tracer specifies the tracer to be used for printing the task allocation metrics.
+     */
+    public void printTaskAllocationMetrics(TrcDbgTrace tracer)
+    {
+        for (TaskObject taskObj: taskList)
+        {
+            StringBuilder msg = new StringBuilder();
+
+            for (TaskType type: TaskType.values())
+            {
+                int count = taskObj.taskTimeSlotCounts[type.value];
+
+                if (count > 0)
+                {
+                    msg.append(String.format(" %s=%.1f", type, (double)taskObj.taskAllocatedBytes[type.value]/count));
+                }
+            }
+            tracer.traceInfo("TaskAllocation", "%16s:%s", taskObj.taskName, msg.toString());
+        }
+    }   //printTaskAllocationMetrics
+
 }   //class TaskMgr
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+/**
+ * This class implements a trapezoid motion profile. It generates a set point that moves from the current position
+ * to a goal position with the velocity limited to the maximum velocity and the change of velocity limited to the
+ * maximum acceleration, decelerating so that it arrives at the goal with zero velocity. The profile state is kept
+ * between calls so a new goal can be set while the profile is moving without a jump in the set point.
+ */
+public class TrcTrapezoidProfile
+{
+    private static final String moduleName = "TrcTrapezoidProfile";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private final String instanceName;
+    private double maxVelocity;
+    private double maxAcceleration;
+    private double goal = 0.0;
+    private double position = 0.0;
+    private double velocity = 0.0;
+    private double acceleration = 0.0;
+    private double prevTime = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param instanceName specifies the instance name.
+     * @param maxVelocity specifies the maximum velocity in position units per second.
+     * @param maxAcceleration specifies the maximum acceleration in position units per second squared.
+     */
+    public TrcTrapezoidProfile(final String instanceName, double maxVelocity, double maxAcceleration)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        this.instanceName = instanceName;
+        setConstraints(maxVelocity, maxAcceleration);
+    }   //TrcTrapezoidProfile
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method sets the velocity and acceleration constraints of the profile.
+     *
+     * @param maxVelocity specifies the maximum velocity in position units per second.
+     * @param maxAcceleration specifies the maximum acceleration in position units per second squared.
+     */
+    public void setConstraints(double maxVelocity, double maxAcceleration)
+    {
+        if (maxVelocity <= 0.0 || maxAcceleration <= 0.0)
+        {
+            throw new IllegalArgumentException("maxVelocity and maxAcceleration must be positive.");
+        }
+
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+    }   //setConstraints
+
+    /**
+     * This method resets the profile state to be stationary at the given position.
+     *
+     * @param position specifies the current position.
+     */
+    public void reset(double position)
+    {
+        final String funcName = "reset";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "pos=%f", position);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.goal = position;
+        this.position = position;
+        this.velocity = 0.0;
+        this.acceleration = 0.0;
+        this.prevTime = TrcUtil.getCurrentTime();
+    }   //reset
+
+    /**
+     * This method sets a new goal. The profile continues from its current state.
+     *
+     * @param goal specifies the goal position.
+     */
+    public void setGoal(double goal)
+    {
+        final String funcName = "setGoal";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API, "goal=%f", goal);
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        this.goal = goal;
+        this.prevTime = TrcUtil.getCurrentTime();
+    }   //setGoal
+
+    /**
+     * This method returns the goal position.
+     *
+     * @return goal position.
+     */
+    public double getGoal()
+    {
+        return goal;
+    }   //getGoal
+
+    /**
+     * This method returns the profile set point position.
+     *
+     * @return set point position.
+     */
+    public double getPosition()
+    {
+        return position;
+    }   //getPosition
+
+    /**
+     * This method returns the profile set point velocity.
+     *
+     * @return set point velocity.
+     */
+    public double getVelocity()
+    {
+        return velocity;
+    }   //getVelocity
+
+    /**
+     * This method returns the profile set point acceleration of the last step.
+     *
+     * @return set point acceleration.
+     */
+    public double getAcceleration()
+    {
+        return acceleration;
+    }   //getAcceleration
+
+    /**
+     * This method checks if the profile has arrived at the goal.
+     *
+     * @return true if the set point is at the goal and stationary, false otherwise.
+     */
+    public boolean isDone()
+    {
+        return position == goal && velocity == 0.0;
+    }   //isDone
+
+    /**
+     * This method advances the profile to the current time.
+     */
+    public void update()
+    {
+        double currTime = TrcUtil.getCurrentTime();
+        update(currTime - prevTime);
+        prevTime = currTime;
+    }   //update
+
+    /**
+     * This method advances the profile by the given time step.
+     *
+     * @param deltaTime specifies the time step in seconds.
+     */
+    public void update(double deltaTime)
+    {
+        final String funcName = "update";
+        double distance = goal - position;
+        double maxDeltaVel = maxAcceleration*deltaTime;
+
+        if (deltaTime <= 0.0)
+        {
+            acceleration = 0.0;
+        }
+        else if (Math.abs(distance) <= Math.abs(velocity)*deltaTime && Math.abs(velocity) <= maxDeltaVel)
+        {
+            //
+            // Close enough to stop at the goal within this step.
+            //
+            acceleration = -velocity/deltaTime;
+            position = goal;
+            velocity = 0.0;
+        }
+        else
+        {
+            //
+            // The fastest velocity at the end of this step that can still stop at the goal at maximum deceleration,
+            // limited by the maximum velocity. The distance covered in this step is (velocity + newVelocity)/2 times
+            // deltaTime, so newVelocity must satisfy newVelocity^2/(2*maxAcceleration) <= distance - (velocity +
+            // newVelocity)*deltaTime/2, whose largest root is the discrete form of sqrt(2*maxAcceleration*distance).
+            //
+            double remaining = Math.max(Math.abs(distance) - Math.signum(distance)*velocity*deltaTime/2.0, 0.0);
+            double stopVelocity =
+                maxDeltaVel*(Math.sqrt(0.25 + 2.0*remaining/(maxDeltaVel*deltaTime)) - 0.5);
+            double targetVelocity = Math.signum(distance)*Math.min(maxVelocity, stopVelocity);
+            double newVelocity = velocity + TrcUtil.clipRange(targetVelocity - velocity, -maxDeltaVel, maxDeltaVel);
+            double newPosition = position + (velocity + newVelocity)*deltaTime/2.0;
+
+            acceleration = (newVelocity - velocity)/deltaTime;
+            if (Math.signum(goal - newPosition) != Math.signum(distance) && Math.abs(newVelocity) <= maxDeltaVel)
+            {
+                //
+                // Passed the goal at the end of deceleration, snap to it.
+                //
+                position = goal;
+                velocity = 0.0;
+            }
+            else
+            {
+                position = newPosition;
+                velocity = newVelocity;
+            }
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceInfo(funcName, "%s: goal=%.2f, pos=%.2f, vel=%.2f, accel=%.2f",
+                instanceName, goal, position, velocity, acceleration);
+        }
+    }   //update
+
+}   //class TrcTrapezoidProfile
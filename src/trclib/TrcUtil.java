@@ -34,6 +34,52 @@ public class TrcUtil
 {
     public static final double INCHES_PER_CM = 0.393701;
 
+    /**
+     * This interface provides the time for all the time methods in this class. Normally, the time comes from the
+     * system clock. A simulation can install its own time source so that the robot code runs on simulated time,
+     * which may run faster or slower than real time.
+     */
+    public interface TimeSource
+    {
+        /**
+         * This method returns the current time in nano seconds.
+         *
+         * @return current time in nano seconds.
+         */
+        long getNanoTime();
+
+        /**
+         * This method puts the current thread to sleep until the given amount of time has passed on this time
+         * source.
+         *
+         * @param milliTime specifies sleep time in msec.
+         */
+        void sleep(long milliTime);
+
+    }   //interface TimeSource
+
+    private static volatile TimeSource timeSource = null;
+
+    /**
+     * This method sets the time source for all time methods in this class.
+     *
+     * @param source specifies the time source, null to use the system clock.
+     */
+    public static void setTimeSource(TimeSource source)
+    {
+        timeSource = source;
+    }   //setTimeSource
+
+    /**
+     * This method returns the current time source.
+     *
+     * @return current time source, null if using the system clock.
+     */
+    public static TimeSource getTimeSource()
+    {
+        return timeSource;
+    }   //getTimeSource
+
     /**
      * This method returns the current time in seconds with nano-second precision.
      *
@@ -41,7 +87,7 @@ public class TrcUtil
      */
     public static double getCurrentTime()
     {
-        return System.nanoTime()/1000000000.0;
+        return getCurrentTimeNanos()/1000000000.0;
     }   //getCurrentTime
 
     /**
@@ -51,7 +97,8 @@ public class TrcUtil
      */
     public static long getCurrentTimeMillis()
     {
-        return System.currentTimeMillis();
+        TimeSource source = timeSource;
+        return source != null? source.getNanoTime()/1000000: System.currentTimeMillis();
     }   //getCurrentTimeMillis
 
     /**
@@ -61,7 +108,8 @@ public class TrcUtil
      */
     public static long getCurrentTimeNanos()
     {
-        return System.nanoTime();
+        TimeSource source = timeSource;
+        return source != null? source.getNanoTime(): System.nanoTime();
     }   //getCurrentTimeNanos
 
     /**
@@ -94,18 +142,27 @@ public class TrcUtil
      */
     public static void sleep(long milliTime)
     {
-        long wakeupTime = System.currentTimeMillis() + milliTime;
+        TimeSource source = timeSource;
 
-        while (milliTime > 0)
+        if (source != null)
         {
-            try
-            {
-                Thread.sleep(milliTime);
-                break;
-            }
-            catch (InterruptedException e)
+            source.sleep(milliTime);
+        }
+        else
+        {
+            long wakeupTime = System.currentTimeMillis() + milliTime;
+
+            while (milliTime > 0)
             {
-                milliTime = wakeupTime - System.currentTimeMillis();
+                try
+                {
+                    Thread.sleep(milliTime);
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    milliTime = wakeupTime - System.currentTimeMillis();
+                }
             }
         }
     }   //sleep
@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class implements a JIT warm-up facility. Right after boot, the control code runs in the interpreter until
+ * the JIT has compiled it, which makes the first seconds of autonomous slow and irregular. This class builds a
+ * private shadow drive train out of in-memory motors (a mecanum drive base, a PID drive with X, Y and turn PID
+ * controllers, a state machine and filters) and drives it with synthetic targets and inputs on a background
+ * thread while the robot is disabled, so that the shared library code is compiled before the robot is enabled.
+ * Nothing is sent to the hardware and the shadow objects are not in the task manager's task list, so the robot
+ * loop never sees them. The warm-up runs for a minimum number of iterations, then until the JIT stops compiling
+ * or the maximum duration has passed, and reports its completion with the given tracer.
+ *
+ * The warm-up thread competes with the robot loop for the CPU: Java thread priorities are not honored by Linux
+ * for normal threads, so the thread priority does not protect the loop. The warm-up must therefore be canceled
+ * when disabled mode ends, and it should only be enabled after checking that the disabled loop keeps its period
+ * while it runs.
+ */
+public class TrcWarmup
+{
+    private static final String moduleName = "TrcWarmup";
+    private static final boolean debugEnabled = false;
+    private static final boolean tracingEnabled = false;
+    private static final boolean useGlobalTracer = false;
+    private static final TrcDbgTrace.TraceLevel traceLevel = TrcDbgTrace.TraceLevel.API;
+    private static final TrcDbgTrace.MsgLevel msgLevel = TrcDbgTrace.MsgLevel.INFO;
+    private TrcDbgTrace dbgTrace = null;
+
+    private static final int DEF_MIN_ITERATIONS = 20000;
+    private static final double DEF_MAX_DURATION = 20.0;
+    private static final int CHECK_INTERVAL = 2000;
+    private static final int MANUAL_DRIVE_STEPS = 500;
+    private static final int MAX_PID_STEPS = 2000;
+    private static final double TICKS_PER_STEP = 2.0;
+    private static final double DRIVE_TARGET = 100.0;
+    private static final double TURN_TARGET = 90.0;
+
+    private enum State
+    {
+        DRIVE_X,
+        DRIVE_Y,
+        TURN,
+        MANUAL_DRIVE
+    }   //enum State
+
+    /**
+     * This class implements an in-memory motor. Its position follows the applied power so the shadow drive base
+     * closes its PID loops, it never talks to hardware.
+     */
+    private static class WarmupMotor extends TrcMotor
+    {
+        private boolean inverted = false;
+        private double power = 0.0;
+        private double position = 0.0;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param instanceName specifies the instance name.
+         */
+        WarmupMotor(final String instanceName)
+        {
+            super(instanceName);
+        }   //WarmupMotor
+
+        /**
+         * This method advances the motor position by one step at the applied power.
+         */
+        void step()
+        {
+            position += power*TICKS_PER_STEP;
+        }   //step
+
+        @Override
+        public boolean getInverted()
+        {
+            return inverted;
+        }   //getInverted
+
+        @Override
+        public double getPosition()
+        {
+            return position;
+        }   //getPosition
+
+        @Override
+        public double getPower()
+        {
+            return power;
+        }   //getPower
+
+        @Override
+        public boolean isLowerLimitSwitchActive()
+        {
+            return false;
+        }   //isLowerLimitSwitchActive
+
+        @Override
+        public boolean isUpperLimitSwitchActive()
+        {
+            return false;
+        }   //isUpperLimitSwitchActive
+
+        @Override
+        public void resetPosition(boolean hardware)
+        {
+            position = 0.0;
+        }   //resetPosition
+
+        @Override
+        public void setBrakeModeEnabled(boolean enabled)
+        {
+        }   //setBrakeModeEnabled
+
+        @Override
+        public void setInverted(boolean inverted)
+        {
+            this.inverted = inverted;
+        }   //setInverted
+
+        @Override
+        public void setPositionSensorInverted(boolean inverted)
+        {
+        }   //setPositionSensorInverted
+
+        @Override
+        public void setPower(double power)
+        {
+            this.power = TrcUtil.clipRange(power, -1.0, 1.0);
+        }   //setPower
+
+        @Override
+        public void setSoftLimitEnabled(boolean lowerLimitEnabled, boolean upperLimitEnabled)
+        {
+        }   //setSoftLimitEnabled
+
+        @Override
+        public void setSoftLowerLimit(double position)
+        {
+        }   //setSoftLowerLimit
+
+        @Override
+        public void setSoftUpperLimit(double position)
+        {
+        }   //setSoftUpperLimit
+
+    }   //class WarmupMotor
+
+    private final String instanceName;
+    private final TrcDbgTrace tracer;
+    private final int minIterations;
+    private final double maxDuration;
+    private final CompilationMXBean compilationBean;
+    private final WarmupMotor[] motors;
+    private final TrcDriveBase driveBase;
+    private final TrcPidDrive pidDrive;
+    private final TrcStateMachine<State> sm;
+    private final TrcEvent event;
+    private final TrcKalmanFilter kalmanFilter;
+    private final TrcIIRFilter iirFilter;
+    private final List<TrcTaskMgr.TaskObject> shadowTasks = new ArrayList<>();
+    private Thread warmupThread = null;
+    private volatile boolean canceled = false;
+    private volatile boolean completed = false;
+    private int stateSteps = 0;
+    private double direction = 1.0;
+    private double filteredHeading = 0.0;
+
+    /**
+     * Constructor: Create an instance of the object. It must be called after the task manager is created.
+     *
+     * @param instanceName specifies the instance name.
+     * @param tracer specifies the tracer to report the completion with, can be null if not provided.
+     * @param minIterations specifies the minimum number of iterations to run.
+     * @param maxDuration specifies the maximum duration of the warm-up in seconds.
+     */
+    public TrcWarmup(final String instanceName, TrcDbgTrace tracer, int minIterations, double maxDuration)
+    {
+        if (debugEnabled)
+        {
+            dbgTrace = useGlobalTracer?
+                TrcDbgTrace.getGlobalTracer():
+                new TrcDbgTrace(moduleName + "." + instanceName, tracingEnabled, traceLevel, msgLevel);
+        }
+
+        if (minIterations <= 0)
+        {
+            throw new IllegalArgumentException("Minimum iterations must be positive.");
+        }
+
+        this.instanceName = instanceName;
+        this.tracer = tracer;
+        this.minIterations = minIterations;
+        this.maxDuration = maxDuration;
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        compilationBean = compilation != null && compilation.isCompilationTimeMonitoringSupported()?
+            compilation: null;
+        //
+        // Build the shadow drive train and take the tasks it created out of the task manager's list. The warm-up
+        // thread calls them directly.
+        //
+        TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+        taskMgr.startTaskCapture();
+        try
+        {
+            motors = new WarmupMotor[] {
+                new WarmupMotor(instanceName + ".leftFront"), new WarmupMotor(instanceName + ".leftRear"),
+                new WarmupMotor(instanceName + ".rightFront"), new WarmupMotor(instanceName + ".rightRear")};
+            for (WarmupMotor motor: motors)
+            {
+                motor.setSpeedTaskEnabled(true);
+            }
+            driveBase = new TrcDriveBase(motors[0], motors[1], motors[2], motors[3]);
+
+            TrcPidController xPidCtrl = new TrcPidController(
+                instanceName + ".xPid", new TrcPidController.PidCoefficients(0.02, 0.0, 0.002), 1.0,
+                driveBase::getXPosition);
+            TrcPidController yPidCtrl = new TrcPidController(
+                instanceName + ".yPid", new TrcPidController.PidCoefficients(0.02, 0.0, 0.002), 1.0,
+                driveBase::getYPosition);
+            TrcPidController turnPidCtrl = new TrcPidController(
+                instanceName + ".turnPid", new TrcPidController.PidCoefficients(0.02, 0.0, 0.002), 1.0,
+                driveBase::getHeading);
+            pidDrive = new TrcPidDrive(instanceName + ".pidDrive", driveBase, xPidCtrl, yPidCtrl, turnPidCtrl);
+            sm = new TrcStateMachine<>(instanceName + ".sm");
+            event = new TrcEvent(instanceName + ".event");
+            kalmanFilter = new TrcKalmanFilter(instanceName + ".kalman");
+            iirFilter = new TrcIIRFilter(instanceName + ".iir");
+        }
+        finally
+        {
+            //
+            // Only the tasks created by this thread are taken, so tasks created by other threads meanwhile stay.
+            //
+            shadowTasks.addAll(taskMgr.stopTaskCapture());
+            for (TrcTaskMgr.TaskObject taskObj: shadowTasks)
+            {
+                taskMgr.removeTask(taskObj);
+            }
+        }
+    }   //TrcWarmup
+
+    /**
+     * Constructor: Create an instance of the object with the default iteration count and duration limit.
+     *
+     * @param instanceName specifies the instance name.
+     * @param tracer specifies the tracer to report the completion with, can be null if not provided.
+     */
+    public TrcWarmup(final String instanceName, TrcDbgTrace tracer)
+    {
+        this(instanceName, tracer, DEF_MIN_ITERATIONS, DEF_MAX_DURATION);
+    }   //TrcWarmup
+
+    /**
+     * This method returns the instance name.
+     *
+     * @return instance name.
+     */
+    public String toString()
+    {
+        return instanceName;
+    }   //toString
+
+    /**
+     * This method starts the warm-up thread if the warm-up has not completed and is not already running. It is
+     * typically called when disabled mode starts.
+     */
+    public synchronized void start()
+    {
+        final String funcName = "start";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        if (!completed && (warmupThread == null || !warmupThread.isAlive()))
+        {
+            canceled = false;
+            warmupThread = new Thread(this::warmupThread, instanceName);
+            warmupThread.setDaemon(true);
+            warmupThread.setPriority(Thread.MIN_PRIORITY);
+            warmupThread.start();
+        }
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //start
+
+    /**
+     * This method stops the warm-up if it is running so that it does not compete with the robot code for the CPU.
+     * It is typically called when disabled mode ends. A canceled warm-up starts over on the next start call.
+     */
+    public synchronized void cancel()
+    {
+        final String funcName = "cancel";
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceEnter(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+
+        canceled = true;
+
+        if (debugEnabled)
+        {
+            dbgTrace.traceExit(funcName, TrcDbgTrace.TraceLevel.API);
+        }
+    }   //cancel
+
+    /**
+     * This method checks if the warm-up has completed.
+     *
+     * @return true if the warm-up has completed, false otherwise.
+     */
+    public boolean isCompleted()
+    {
+        return completed;
+    }   //isCompleted
+
+    /**
+     * This method returns the total time spent in JIT compilation.
+     *
+     * @return total compilation time in msec, zero if not supported.
+     */
+    private long getCompilationTime()
+    {
+        return compilationBean != null? compilationBean.getTotalCompilationTime(): 0;
+    }   //getCompilationTime
+
+    /**
+     * This method runs one iteration of the shadow drive train: it filters a synthetic heading, advances the state
+     * machine, runs the shadow tasks as the robot loop would and advances the motors.
+     *
+     * @param iteration specifies the iteration number.
+     */
+    private void step(int iteration)
+    {
+        double noisyHeading = driveBase.getHeading() + Math.sin(iteration*0.37);
+
+        filteredHeading = kalmanFilter.filterData(noisyHeading) + iirFilter.filterData(noisyHeading);
+
+        State state = sm.checkReadyAndGetState();
+        if (state == null)
+        {
+            if (++stateSteps > MAX_PID_STEPS)
+            {
+                pidDrive.cancel();
+            }
+        }
+        else
+        {
+            stateSteps = 0;
+            switch (state)
+            {
+                case DRIVE_X:
+                    pidDrive.setTarget(direction*DRIVE_TARGET, 0.0, 0.0, false, event);
+                    sm.waitForSingleEvent(event, State.DRIVE_Y);
+                    break;
+
+                case DRIVE_Y:
+                    pidDrive.setTarget(0.0, direction*DRIVE_TARGET, 0.0, false, event);
+                    sm.waitForSingleEvent(event, State.TURN);
+                    break;
+
+                case TURN:
+                    pidDrive.setTarget(0.0, 0.0, direction*TURN_TARGET, false, event);
+                    sm.waitForSingleEvent(event, State.MANUAL_DRIVE);
+                    break;
+
+                case MANUAL_DRIVE:
+                    double x = Math.sin(iteration*0.01);
+                    double y = Math.cos(iteration*0.013);
+                    double rot = 0.5*Math.sin(iteration*0.007);
+
+                    switch (iteration%4)
+                    {
+                        case 0:
+                            driveBase.mecanumDrive_Cartesian(x, y, rot);
+                            break;
+
+                        case 1:
+                            driveBase.mecanumDrive_Polar(Math.hypot(x, y), Math.toDegrees(Math.atan2(x, y)), rot);
+                            break;
+
+                        case 2:
+                            driveBase.arcadeDrive(y, rot);
+                            break;
+
+                        default:
+                            driveBase.tankDrive(y, x);
+                            break;
+                    }
+
+                    if (++stateSteps >= MANUAL_DRIVE_STEPS)
+                    {
+                        driveBase.stop();
+                        direction = -direction;
+                        sm.setState(State.DRIVE_X);
+                    }
+                    break;
+            }
+        }
+
+        for (int i = 0; i < shadowTasks.size(); i++)
+        {
+            TrcTaskMgr.TaskObject taskObj = shadowTasks.get(i);
+
+            if (taskObj.hasType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK))
+            {
+                taskObj.getTask().runTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, TrcRobot.RunMode.AUTO_MODE);
+            }
+        }
+
+        for (int i = 0; i < shadowTasks.size(); i++)
+        {
+            TrcTaskMgr.TaskObject taskObj = shadowTasks.get(i);
+
+            if (taskObj.hasType(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK))
+            {
+                taskObj.getTask().runTask(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, TrcRobot.RunMode.AUTO_MODE);
+            }
+
+            if (taskObj.hasType(TrcTaskMgr.TaskType.CONTROL_TASK))
+            {
+                taskObj.getTask().runTask(TrcTaskMgr.TaskType.CONTROL_TASK, TrcRobot.RunMode.AUTO_MODE);
+            }
+        }
+
+        for (WarmupMotor motor: motors)
+        {
+            motor.step();
+        }
+    }   //step
+
+    /**
+     * This method runs on the warm-up thread. It runs the minimum number of iterations, then keeps going until an
+     * interval of iterations passes without JIT compilation, the maximum duration has passed or it is canceled.
+     */
+    private void warmupThread()
+    {
+        final String funcName = "warmupThread";
+        double startTime = TrcUtil.getCurrentTime();
+        long startCompilationTime = getCompilationTime();
+        long checkCompilationTime = startCompilationTime;
+        int iteration = 0;
+
+        try
+        {
+            sm.start(State.DRIVE_X);
+            while (!canceled)
+            {
+                step(iteration);
+                iteration++;
+
+                if (iteration%CHECK_INTERVAL == 0)
+                {
+                    long compilationTime = getCompilationTime();
+
+                    if (TrcUtil.getCurrentTime() - startTime >= maxDuration ||
+                        iteration >= minIterations && compilationTime == checkCompilationTime)
+                    {
+                        completed = true;
+                        break;
+                    }
+                    checkCompilationTime = compilationTime;
+                }
+            }
+        }
+        catch (RuntimeException e)
+        {
+            if (tracer != null)
+            {
+                tracer.traceWarn(funcName, "%s: warm-up failed after %d iterations: %s", instanceName, iteration, e);
+            }
+        }
+        finally
+        {
+            pidDrive.cancel();
+            sm.stop();
+            driveBase.stop();
+        }
+
+        if (tracer != null)
+        {
+            tracer.traceInfo(
+                funcName, "%s: %s after %d iterations in %.3fs, JIT compilation %dms (heading=%.1f)",
+                instanceName, completed? "completed": "stopped", iteration, TrcUtil.getCurrentTime() - startTime,
+                getCompilationTime() - startCompilationTime, filteredHeading);
+        }
+    }   //warmupThread
+
+}   //class TrcWarmup
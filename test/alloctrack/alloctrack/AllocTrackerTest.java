@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package alloctrack;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import simlib.SimAutoScenario;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcTaskMgr;
+
+public class AllocTrackerTest
+{
+    private static final int WARMUP_LOOPS = 500;
+    private static final int MEASURED_LOOPS = 200;
+    private static final int BYTES_PER_LOOP = 4096;
+
+    private boolean runTracker(long bytesBudget)
+    {
+        AllocatingRobot robot = new AllocatingRobot(BYTES_PER_LOOP);
+
+        robot.robotInit();
+        try
+        {
+            boolean withinBudget = new AllocTracker(robot).run(
+                RunMode.TELEOP_MODE, WARMUP_LOOPS, MEASURED_LOOPS, bytesBudget);
+            assertNotNull(robot.getGarbage());
+            return withinBudget;
+        }
+        finally
+        {
+            robot.shutdown();
+        }
+    }   //runTracker
+
+    @Test
+    public void loopWithinBudgetPasses()
+    {
+        assertTrue(runTracker(Long.MAX_VALUE));
+    }   //loopWithinBudgetPasses
+
+    @Test
+    public void loopOverBudgetFails()
+    {
+        //
+        // The task alone allocates more than this every loop.
+        //
+        assertFalse(runTracker(BYTES_PER_LOOP/2));
+    }   //loopOverBudgetFails
+
+    @Test
+    public void team492SubsystemTasksAreMeasured()
+    {
+        team492.Robot robot = new team492.Robot();
+        HashSet<String> measuredTasks = new HashSet<>();
+
+        robot.robotInit();
+        robot.setupScenario(new SimAutoScenario("AUTO_SIDE", "LEFT_POS", SimAutoScenario.Alliance.RED, "LLL"));
+        try
+        {
+            //
+            // Measure while the routine drives to the switch and raises the elevator.
+            //
+            assertTrue(new AllocTracker(robot).run(RunMode.AUTO_MODE, 20, MEASURED_LOOPS, Long.MAX_VALUE));
+            for (TrcTaskMgr.TaskObject taskObj: TrcTaskMgr.getInstance().getTaskList())
+            {
+                for (TrcTaskMgr.TaskType type: TrcTaskMgr.TaskType.values())
+                {
+                    if (taskObj.getTimeSlotCount(type) > 0)
+                    {
+                        measuredTasks.add(taskObj.toString());
+                    }
+                }
+            }
+        }
+        finally
+        {
+            robot.shutdown();
+        }
+
+        assertTrue(measuredTasks.containsAll(
+            Arrays.asList("TrcDriveBase.driveBaseTask", "pidDrive.pidDriveTask", "elevator.pidMotorTask")));
+    }   //team492SubsystemTasksAreMeasured
+
+}   //class AllocTrackerTest
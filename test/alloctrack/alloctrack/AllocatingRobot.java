@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package alloctrack;
+
+import simlib.SimRobotBase;
+import trclib.TrcRobot;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class implements a minimal simulated robot for testing the allocation tracker. Its TeleOp mode allocates
+ * the given number of bytes per loop in a pre-continuous task and nothing else.
+ */
+public class AllocatingRobot extends SimRobotBase
+{
+    private final int bytesPerLoop;
+    private TrcTaskMgr.TaskObject garbageTaskObj;
+    //
+    // Keeps the last allocation reachable so that the JIT cannot remove it.
+    //
+    private byte[] garbage;
+
+    public AllocatingRobot(int bytesPerLoop)
+    {
+        super("allocatingRobot");
+        this.bytesPerLoop = bytesPerLoop;
+    }   //AllocatingRobot
+
+    public AllocatingRobot()
+    {
+        this(0);
+    }   //AllocatingRobot
+
+    @Override
+    public void robotInit()
+    {
+        garbageTaskObj = TrcTaskMgr.getInstance().createTask("garbageTask", this::garbageTask);
+
+        setupRobotModes(new TrcRobot.RobotMode()
+        {
+            @Override
+            public void startMode(RunMode prevMode)
+            {
+                garbageTaskObj.registerTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }   //startMode
+
+            @Override
+            public void stopMode(RunMode nextMode)
+            {
+                garbageTaskObj.unregisterTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            }   //stopMode
+
+            @Override
+            public void runPeriodic(double elapsedTime)
+            {
+            }   //runPeriodic
+
+            @Override
+            public void runContinuous(double elapsedTime)
+            {
+            }   //runContinuous
+        }, null, null, null);
+    }   //robotInit
+
+    @Override
+    public void robotStartMode(RunMode runMode, RunMode prevMode)
+    {
+    }   //robotStartMode
+
+    @Override
+    public void robotStopMode(RunMode runMode, RunMode nextMode)
+    {
+    }   //robotStopMode
+
+    /**
+     * This method is called every loop to allocate the garbage.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the competition mode that is running.
+     */
+    private void garbageTask(TrcTaskMgr.TaskType taskType, RunMode runMode)
+    {
+        if (bytesPerLoop > 0)
+        {
+            garbage = new byte[bytesPerLoop];
+        }
+    }   //garbageTask
+
+    /**
+     * This method returns the last allocated block.
+     *
+     * @return last allocated block, null if none.
+     */
+    public byte[] getGarbage()
+    {
+        return garbage;
+    }   //getGarbage
+
+}   //class AllocatingRobot
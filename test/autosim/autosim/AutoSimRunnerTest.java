@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package autosim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import simlib.SimAutoResult;
+import simlib.SimAutoScenario;
+
+public class AutoSimRunnerTest
+{
+    @Test
+    public void scenarioRunsToCompletion()
+    {
+        SimAutoResult result = new DriveToTargetRobot().runScenario(
+            new SimAutoScenario("forward", "left", SimAutoScenario.Alliance.RED, "LRL"));
+
+        assertTrue(result.completed);
+        assertTrue(result.completionTime < 5.0);
+        assertTrue(result.poseError < 2.0);
+        assertTrue(result.getStateDurationsString().contains("drive"));
+    }   //scenarioRunsToCompletion
+
+    @Test
+    public void runnerPassesAllScenarios() throws Exception
+    {
+        //
+        // Each scenario runs in a child JVM on the test class path.
+        //
+        AutoSimRunner runner = new AutoSimRunner(
+            DriveToTargetRobot.class.getName(), 2, 2.0, Arrays.asList("strafe"));
+
+        assertEquals(0, runner.runAll());
+    }   //runnerPassesAllScenarios
+
+    @Test
+    public void team492SideSwitchDeliversCube()
+    {
+        SimAutoResult result = new team492.Robot().runScenario(
+            new SimAutoScenario("AUTO_SIDE", "LEFT_POS", SimAutoScenario.Alliance.BLUE, "LLL"));
+
+        assertTrue(result.completed);
+        assertEquals(0.0, result.poseError, 0.0);
+        assertTrue(result.getStateDurationsString().contains("DROP_CUBE"));
+    }   //team492SideSwitchDeliversCube
+
+    @Test
+    public void team492ScaleScenariosPass() throws Exception
+    {
+        AutoSimRunner runner = new AutoSimRunner(
+            team492.Robot.class.getName(), 2, 6.0, Arrays.asList("AUTO_SCALE"));
+
+        assertEquals(0, runner.runAll());
+    }   //team492ScaleScenariosPass
+
+}   //class AutoSimRunnerTest
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package autosim;
+
+import simlib.SimAutoRobot;
+import simlib.SimAutoScenario;
+import simlib.SimDcMotor;
+import simlib.SimGyro;
+import simlib.SimMecanumDrive;
+import simlib.SimMotor;
+import trclib.TrcDriveBase;
+import trclib.TrcEvent;
+import trclib.TrcPidController;
+import trclib.TrcPidDrive;
+import trclib.TrcRobot;
+import trclib.TrcRobot.RunMode;
+
+/**
+ * This class implements a minimal simulated robot for testing the autonomous runner: a mecanum drive base that
+ * drives to a target with TrcPidDrive. The routines drive forward or strafe right from either start position.
+ */
+public class DriveToTargetRobot extends SimAutoRobot
+{
+    private static final String[] ROUTINES = {"forward", "strafe"};
+    private static final String[] START_POSITIONS = {"left", "right"};
+    private static final double INCHES_PER_COUNT = Math.PI*6.0/1440.0;
+    private static final double FORWARD_DISTANCE = 100.0;
+    private static final double STRAFE_DISTANCE = 48.0;
+
+    private SimMecanumDrive simDrive;
+    private TrcDriveBase driveBase;
+    private TrcPidDrive pidDrive;
+    private TrcEvent event;
+    private double xTarget, yTarget;
+    private double expectedX, expectedY;
+
+    public DriveToTargetRobot()
+    {
+        super("driveToTargetRobot");
+    }   //DriveToTargetRobot
+
+    @Override
+    public void robotInit()
+    {
+        SimMotor lfMotor = new SimMotor("lfMotor");
+        SimMotor rfMotor = new SimMotor("rfMotor");
+        SimMotor lrMotor = new SimMotor("lrMotor");
+        SimMotor rrMotor = new SimMotor("rrMotor");
+
+        simDrive = new SimMecanumDrive(
+            "simDrive", lfMotor, rfMotor, lrMotor, rrMotor, SimDcMotor.CIM, 1, 12.0, 6.0, 1440.0, 22.0, 24.0,
+            120.0);
+        addMechanism(simDrive);
+        SimGyro gyro = new SimGyro("gyro", simDrive::getHeading, simDrive::getTurnRate);
+        driveBase = new TrcDriveBase(lfMotor, lrMotor, rfMotor, rrMotor, gyro);
+        driveBase.setXPositionScale(INCHES_PER_COUNT);
+        driveBase.setYPositionScale(INCHES_PER_COUNT);
+
+        TrcPidController xPidCtrl = new TrcPidController(
+            "xPidCtrl", new TrcPidController.PidCoefficients(0.1, 0.0, 0.01), 1.0, driveBase::getXPosition);
+        TrcPidController yPidCtrl = new TrcPidController(
+            "yPidCtrl", new TrcPidController.PidCoefficients(0.05, 0.0, 0.005), 1.0, driveBase::getYPosition);
+        TrcPidController turnPidCtrl = new TrcPidController(
+            "turnPidCtrl", new TrcPidController.PidCoefficients(0.02, 0.0, 0.002), 2.0, driveBase::getHeading);
+        pidDrive = new TrcPidDrive("pidDrive", driveBase, xPidCtrl, yPidCtrl, turnPidCtrl);
+        event = new TrcEvent("driveEvent");
+
+        setupRobotModes(null, new TrcRobot.RobotMode()
+        {
+            @Override
+            public void startMode(RunMode prevMode)
+            {
+                driveBase.resetPosition();
+                pidDrive.setTarget(xTarget, yTarget, 0.0, false, event);
+            }   //startMode
+
+            @Override
+            public void stopMode(RunMode nextMode)
+            {
+                pidDrive.cancel();
+            }   //stopMode
+
+            @Override
+            public void runPeriodic(double elapsedTime)
+            {
+            }   //runPeriodic
+
+            @Override
+            public void runContinuous(double elapsedTime)
+            {
+            }   //runContinuous
+        }, null, null);
+    }   //robotInit
+
+    @Override
+    public void robotStartMode(RunMode runMode, RunMode prevMode)
+    {
+    }   //robotStartMode
+
+    @Override
+    public void robotStopMode(RunMode runMode, RunMode nextMode)
+    {
+    }   //robotStopMode
+
+    @Override
+    public String[] getAutoRoutines()
+    {
+        return ROUTINES;
+    }   //getAutoRoutines
+
+    @Override
+    public String[] getStartPositions()
+    {
+        return START_POSITIONS;
+    }   //getStartPositions
+
+    @Override
+    public void setupScenario(SimAutoScenario scenario)
+    {
+        double startX = scenario.startPosition.equals("left")? 48.0: 276.0;
+        double startY = 20.0;
+
+        simDrive.setPose(startX, startY, 0.0);
+        xTarget = scenario.routine.equals("strafe")? STRAFE_DISTANCE: 0.0;
+        yTarget = scenario.routine.equals("forward")? FORWARD_DISTANCE: 0.0;
+        expectedX = startX + xTarget;
+        expectedY = startY + yTarget;
+    }   //setupScenario
+
+    @Override
+    public boolean isAutoCompleted()
+    {
+        return event.isSignaled();
+    }   //isAutoCompleted
+
+    @Override
+    public Object getAutoState()
+    {
+        return pidDrive.isActive()? "drive": null;
+    }   //getAutoState
+
+    @Override
+    public double getPoseError()
+    {
+        double dx = simDrive.getXPosition() - expectedX;
+        double dy = simDrive.getYPosition() - expectedY;
+
+        return Math.sqrt(dx*dx + dy*dy);
+    }   //getPoseError
+
+}   //class DriveToTargetRobot
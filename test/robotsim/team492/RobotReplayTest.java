@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package team492;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import simlib.SimAutoResult;
+import simlib.SimAutoScenario;
+import trclib.TrcDataRecorder;
+
+public class RobotReplayTest
+{
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        logFile = File.createTempFile("robotReplayTest", ".rec");
+        logFile.deleteOnExit();
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+        logFile.delete();
+    }   //tearDown
+
+    @Test
+    public void replayReproducesRecordedAutonomous()
+    {
+        SimAutoScenario scenario = new SimAutoScenario("AUTO_SIDE", "LEFT_POS", SimAutoScenario.Alliance.RED, "LLL");
+        Robot robot = new Robot();
+
+        assertTrue(TrcDataRecorder.startRecording(logFile.getPath()));
+        SimAutoResult result = robot.runScenario(scenario);
+        TrcDataRecorder.getInstance().close();
+        assertTrue(result.completed);
+        //
+        // The replaying robot gets its sensor values, times and the cube pickup's inputs from the log, so it
+        // must set the same motor powers.
+        //
+        TrcDataRecorder replay = new Robot().replay(logFile.getPath(), true, scenario);
+        assertNotNull(replay);
+        assertTrue(replay.getFrameCount() > 0);
+        assertEquals(0, replay.getInputMismatchCount());
+        assertEquals(0, replay.getOutputMismatchCount());
+    }   //replayReproducesRecordedAutonomous
+
+}   //class RobotReplayTest
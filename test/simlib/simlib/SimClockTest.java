@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package simlib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import trclib.TrcUtil;
+
+public class SimClockTest
+{
+    private final SimClock clock = new SimClock(10.0);
+
+    @After
+    public void tearDown()
+    {
+        clock.uninstall();
+    }   //tearDown
+
+    @Test
+    public void installDrivesTrcUtilTime()
+    {
+        clock.install();
+        assertSame(clock, TrcUtil.getTimeSource());
+        assertEquals(10.0, TrcUtil.getCurrentTime(), 0.0);
+
+        clock.advance(0.02);
+        assertEquals(10.02, TrcUtil.getCurrentTime(), 1e-9);
+        //
+        // The driver thread sleeping advances the clock instead of blocking.
+        //
+        TrcUtil.sleep(500);
+        assertEquals(10.52, clock.getTime(), 1e-9);
+
+        clock.uninstall();
+        assertNull(TrcUtil.getTimeSource());
+    }   //installDrivesTrcUtilTime
+
+    @Test
+    public void otherThreadsSleepInSimulatedTime() throws InterruptedException
+    {
+        clock.install();
+        Thread sleeper = new Thread(() -> TrcUtil.sleep(100));
+        sleeper.start();
+        while (sleeper.getState() != Thread.State.WAITING)
+        {
+            Thread.sleep(1);
+        }
+
+        for (int i = 0; i < 9; i++)
+        {
+            clock.advance(0.01);
+        }
+        sleeper.join(50);
+        assertTrue(sleeper.isAlive());
+
+        clock.advance(0.01);
+        sleeper.join(2000);
+        assertFalse(sleeper.isAlive());
+    }   //otherThreadsSleepInSimulatedTime
+
+    @Test(expected = IllegalArgumentException.class)
+    public void timeCannotGoBackward()
+    {
+        clock.advance(-1.0);
+    }   //timeCannotGoBackward
+
+}   //class SimClockTest
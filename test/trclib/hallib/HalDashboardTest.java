@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package hallib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+public class HalDashboardTest
+{
+    private static HalDashboard dashboard;
+
+    @BeforeClass
+    public static void setUpClass()
+    {
+        dashboard = HalDashboard.getInstance() != null? HalDashboard.getInstance(): new HalDashboard();
+    }   //setUpClass
+
+    @AfterClass
+    public static void tearDownClass()
+    {
+        //
+        // The publisher sleeps with TrcUtil, stop it so it does not advance the fake clocks of other tests.
+        //
+        assertTrue(dashboard.stopPublisher());
+    }   //tearDownClass
+
+    /**
+     * This method waits for the publisher thread to send the expected string.
+     */
+    private static String waitForString(String key, String expected) throws InterruptedException
+    {
+        long giveUpTime = System.currentTimeMillis() + 2000;
+        String value = SmartDashboard.getString(key, null);
+
+        while (!expected.equals(value) && System.currentTimeMillis() < giveUpTime)
+        {
+            Thread.sleep(5);
+            value = SmartDashboard.getString(key, null);
+        }
+
+        return value;
+    }   //waitForString
+
+    @Test
+    public void displayLineIsFormattedWhenPut() throws InterruptedException
+    {
+        StringBuilder arg = new StringBuilder("before");
+
+        dashboard.displayPrintf(3, "value=%s, %d", arg, 7);
+        arg.replace(0, arg.length(), "after");
+
+        assertEquals("value=before, 7", waitForString("03", "value=before, 7"));
+    }   //displayLineIsFormattedWhenPut
+
+    @Test
+    public void badFormatIsDisplayedAsIs() throws InterruptedException
+    {
+        dashboard.displayPrintf(4, "bad %d", "text");
+
+        assertEquals("bad %d", waitForString("04", "bad %d"));
+    }   //badFormatIsDisplayedAsIs
+
+    @Test
+    public void getReturnsPendingValues() throws InterruptedException
+    {
+        HalDashboard.putNumber("test.number", 1.5);
+        HalDashboard.putString("test.string", "pending");
+        //
+        // Whether or not the publisher got to them yet, the values just put are returned.
+        //
+        assertEquals(1.5, HalDashboard.getNumber("test.number", 0.0), 0.0);
+        assertEquals("pending", HalDashboard.getString("test.string", "default"));
+
+        assertEquals("pending", waitForString("test.string", "pending"));
+        assertEquals(1.5, HalDashboard.getNumber("test.number", 0.0), 0.0);
+    }   //getReturnsPendingValues
+
+    /**
+     * This method waits for the publisher thread to send the expected number.
+     */
+    private static double waitForNumber(String key, double expected) throws InterruptedException
+    {
+        long giveUpTime = System.currentTimeMillis() + 2000;
+        double value = SmartDashboard.getNumber(key, Double.NaN);
+
+        while (value != expected && System.currentTimeMillis() < giveUpTime)
+        {
+            Thread.sleep(5);
+            value = SmartDashboard.getNumber(key, Double.NaN);
+        }
+
+        return value;
+    }   //waitForNumber
+
+    @Test
+    public void unchangedValueIsSentAgainAfterRemoteEdit() throws InterruptedException
+    {
+        HalDashboard.putNumber("test.edited", 1.0);
+        assertEquals(1.0, waitForNumber("test.edited", 1.0), 0.0);
+        //
+        // Edit the value on the dashboard and give the publisher a few cycles to notice.
+        //
+        SmartDashboard.putNumber("test.edited", 5.0);
+        Thread.sleep(200);
+
+        HalDashboard.putNumber("test.edited", 1.0);
+        assertEquals(1.0, waitForNumber("test.edited", 1.0), 0.0);
+    }   //unchangedValueIsSentAgainAfterRemoteEdit
+
+    @Test
+    public void displayLineIsSentAgainAfterRemoteEdit() throws InterruptedException
+    {
+        dashboard.displayPrintf(5, "count=%d", 42);
+        assertEquals("count=42", waitForString("05", "count=42"));
+
+        SmartDashboard.putString("05", "edited");
+        Thread.sleep(200);
+
+        dashboard.displayPrintf(5, "count=%d", 42);
+        assertEquals("count=42", waitForString("05", "count=42"));
+    }   //displayLineIsSentAgainAfterRemoteEdit
+
+    @Test
+    public void getCreatesMissingKey()
+    {
+        assertEquals(2.5, HalDashboard.getNumber("test.missing", 2.5), 0.0);
+        assertEquals(2.5, SmartDashboard.getNumber("test.missing", 0.0), 0.0);
+    }   //getCreatesMissingKey
+
+}   //class HalDashboardTest
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcAnalogTriggerTest
+{
+    private static final double[] TRIGGER_POINTS = {0.0, 10.0, 20.0, 30.0, 40.0, 50.0};
+
+    /**
+     * This class implements a sensor returning the value and timestamp set by the test.
+     */
+    private static class FakeSensor extends TrcSensor<Object>
+    {
+        double timestamp = 0.0;
+        double value = 0.0;
+
+        FakeSensor()
+        {
+            super("fakeSensor", 1);
+        }   //FakeSensor
+
+        @Override
+        public SensorData<?> getRawData(int index, Object dataType)
+        {
+            return new SensorData<>(timestamp, value);
+        }   //getRawData
+
+    }   //class FakeSensor
+
+    private final List<int[]> events = new ArrayList<>();
+    private FakeSensor sensor;
+    private TrcAnalogTrigger<Object> trigger;
+
+    @Before
+    public void setUp()
+    {
+        new TrcTaskMgr();
+        sensor = new FakeSensor();
+        events.clear();
+        trigger = new TrcAnalogTrigger<>(
+            "trigger", sensor, 0, null, TRIGGER_POINTS,
+            (currZone, prevZone, zoneValue) -> events.add(new int[] {currZone, prevZone}));
+        trigger.setTaskEnabled(true);
+    }   //setUp
+
+    private int sample(double timestamp, double value)
+    {
+        sensor.timestamp = timestamp;
+        sensor.value = value;
+        trigger.triggerTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        return trigger.getZone();
+    }   //sample
+
+    private void assertEvent(int index, int currZone, int prevZone)
+    {
+        assertEquals(currZone, events.get(index)[0]);
+        assertEquals(prevZone, events.get(index)[1]);
+    }   //assertEvent
+
+    @Test
+    public void binarySearchMatchesLinearScan()
+    {
+        double[] thresholds = {5.0, 15.0, 25.0, 35.0, 45.0};
+
+        for (double value = -10.0; value <= 60.0; value += 0.5)
+        {
+            int expectedZone = 0;
+
+            while (expectedZone < thresholds.length && value >= thresholds[expectedZone])
+            {
+                expectedZone++;
+            }
+            //
+            // Restart the trigger so that every value is looked up without a current zone.
+            //
+            trigger.setTaskEnabled(true);
+            assertEquals("value=" + value, expectedZone, sample(0.0, value));
+        }
+    }   //binarySearchMatchesLinearScan
+
+    @Test
+    public void equalTriggerPointsSkipEmptyZone()
+    {
+        //
+        // The thresholds are 5, 10, 10 and 15, so zone 2 is empty.
+        //
+        trigger.setTriggerPoints(new double[] {0.0, 10.0, 10.0, 10.0, 20.0});
+
+        assertEquals(0, sample(0.0, 4.9));
+        assertEquals(1, sample(0.1, 9.9));
+        assertEquals(3, sample(0.2, 10.0));
+        assertEquals(4, sample(0.3, 15.0));
+    }   //equalTriggerPointsSkipEmptyZone
+
+    @Test
+    public void hysteresisHoldsZone()
+    {
+        trigger.setHysteresis(2.0);
+
+        assertEquals(0, sample(0.0, 0.0));
+        assertEquals(0, sample(0.1, 6.9));
+        assertEquals(1, sample(0.2, 7.0));
+        assertEquals(1, sample(0.3, 3.1));
+        assertEquals(0, sample(0.4, 2.9));
+        //
+        // A large jump crosses several thresholds at once.
+        //
+        assertEquals(4, sample(0.5, 40.0));
+
+        assertEquals(4, events.size());
+        assertEvent(0, 0, -1);
+        assertEvent(1, 1, 0);
+        assertEvent(2, 0, 1);
+        assertEvent(3, 4, 0);
+    }   //hysteresisHoldsZone
+
+    @Test
+    public void debounceRequiresStableZone()
+    {
+        trigger.setDebounceTime(0.1);
+
+        assertEquals(0, sample(0.0, 0.0));
+        assertEquals(0, sample(0.02, 20.0));
+        assertEquals(0, sample(0.08, 20.0));
+        assertEquals(2, sample(0.13, 20.0));
+        //
+        // A bounce back to the current zone restarts the debounce.
+        //
+        assertEquals(2, sample(0.2, 0.0));
+        assertEquals(2, sample(0.25, 20.0));
+        assertEquals(2, sample(0.3, 0.0));
+        assertEquals(2, sample(0.39, 0.0));
+        assertEquals(0, sample(0.41, 0.0));
+
+        assertEquals(3, events.size());
+        assertEvent(1, 2, 0);
+        assertEvent(2, 0, 2);
+    }   //debounceRequiresStableZone
+
+    @Test
+    public void notificationsAreBatched()
+    {
+        trigger.setNotificationInterval(0.5);
+
+        sample(0.0, 0.0);
+        sample(0.6, 10.0);
+        sample(0.7, 20.0);
+        sample(0.8, 30.0);
+        assertEquals(2, events.size());
+        assertEvent(1, 1, 0);
+        //
+        // The changes within the interval are combined into one call from the last notified zone.
+        //
+        sample(1.1, 30.0);
+        assertEquals(3, events.size());
+        assertEvent(2, 3, 1);
+        //
+        // No call if the sensor is back in the last notified zone at the end of the interval.
+        //
+        sample(1.2, 40.0);
+        sample(1.7, 30.0);
+        assertEquals(3, events.size());
+    }   //notificationsAreBatched
+
+}   //class TrcAnalogTriggerTest
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrcCommandGroupTest
+{
+    /**
+     * This class implements a command that is done after the given number of steps and can be re-armed.
+     */
+    private static class CountingCommand implements TrcRobot.RobotCommand
+    {
+        final int numSteps;
+        int steps = 0;
+        int cancelCount = 0;
+
+        CountingCommand(int numSteps)
+        {
+            this.numSteps = numSteps;
+        }   //CountingCommand
+
+        @Override
+        public boolean cmdPeriodic(double elapsedTime)
+        {
+            return ++steps >= numSteps;
+        }   //cmdPeriodic
+
+        @Override
+        public void cancel()
+        {
+            cancelCount++;
+        }   //cancel
+
+    }   //class CountingCommand
+
+    private static int runToDone(TrcCommandGroup group)
+    {
+        int loops = 1;
+
+        while (!group.cmdPeriodic(0.0))
+        {
+            loops++;
+        }
+
+        return loops;
+    }   //runToDone
+
+    @Test
+    public void startRunsGroupAgain()
+    {
+        final int[] routineRuns = {0};
+        TrcCoroutine coroutine = new TrcCoroutine("coroutine", co ->
+        {
+            routineRuns[0]++;
+            co.yieldLoop();
+        });
+        CountingCommand first = new CountingCommand(2);
+        CountingCommand second = new CountingCommand(3);
+        TrcCommandGroup inner = TrcCommandGroup.parallel("inner", coroutine, second);
+        TrcCommandGroup group = TrcCommandGroup.sequence("group", first, inner);
+        TrcEvent event = new TrcEvent("done");
+
+        group.start(event);
+        assertEquals(0, first.cancelCount);
+        assertEquals(0, second.cancelCount);
+        runToDone(group);
+        assertTrue(group.isDone());
+        assertTrue(inner.isDone());
+        assertTrue(event.isSignaled());
+        assertEquals(1, routineRuns[0]);
+
+        first.steps = 0;
+        second.steps = 0;
+        group.start();
+        assertFalse(group.isDone());
+        assertFalse(inner.isDone());
+        assertFalse(group.isCommandDone(0));
+        assertFalse(event.isSignaled());
+
+        runToDone(group);
+        assertTrue(group.isDone());
+        assertTrue(event.isSignaled());
+        assertEquals(2, routineRuns[0]);
+    }   //startRunsGroupAgain
+
+    @Test
+    public void startCancelsRunningGroup()
+    {
+        CountingCommand first = new CountingCommand(5);
+        CountingCommand second = new CountingCommand(1);
+        TrcCommandGroup group = TrcCommandGroup.sequence("group", first, second);
+
+        group.cmdPeriodic(0.0);
+        group.start();
+        assertEquals(1, first.cancelCount);
+        assertEquals(0, second.cancelCount);
+
+        first.steps = 0;
+        assertEquals(5, runToDone(group));
+    }   //startCancelsRunningGroup
+
+    @Test
+    public void startOrCancelBeforeRunningCancelsNothing()
+    {
+        CountingCommand deadline = new CountingCommand(2);
+        CountingCommand other = new CountingCommand(5);
+        TrcCommandGroup group = TrcCommandGroup.deadline("group", deadline, other);
+
+        group.start();
+        assertEquals(0, deadline.cancelCount);
+        assertEquals(0, other.cancelCount);
+
+        group.cancel();
+        assertTrue(group.isDone());
+        assertEquals(0, deadline.cancelCount);
+        assertEquals(0, other.cancelCount);
+        //
+        // Once it has run, the deadline cancels the command still running.
+        //
+        group.start();
+        assertEquals(2, runToDone(group));
+        assertEquals(0, deadline.cancelCount);
+        assertEquals(1, other.cancelCount);
+    }   //startOrCancelBeforeRunningCancelsNothing
+
+}   //class TrcCommandGroupTest
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TrcControlLoopTest
+{
+    @Test
+    public void survivesTaskExceptionsAndStops() throws InterruptedException
+    {
+        TrcTaskMgr taskMgr = new TrcTaskMgr();
+        TrcControlLoop controlLoop = new TrcControlLoop("controlLoop", 1000.0, () -> TrcRobot.RunMode.TELEOP_MODE);
+        AtomicInteger count = new AtomicInteger();
+        TrcTaskMgr.TaskObject taskObj = taskMgr.createTask("failingTask", (taskType, runMode) ->
+        {
+            count.incrementAndGet();
+            throw new IllegalStateException("fail");
+        });
+
+        taskObj.registerTask(TrcTaskMgr.TaskType.CONTROL_TASK);
+        controlLoop.start();
+        assertTrue(controlLoop.isRunning());
+
+        long giveUpTime = System.currentTimeMillis() + 5000;
+        while (count.get() < 10 && System.currentTimeMillis() < giveUpTime)
+        {
+            Thread.sleep(1);
+        }
+        //
+        // The loop kept calling the task after it threw.
+        //
+        assertTrue(count.get() >= 10);
+
+        assertTrue(controlLoop.stop());
+        assertFalse(controlLoop.isRunning());
+        assertNull(TrcControlLoop.getInstance());
+        assertEquals(TrcTaskMgr.TaskType.POSTCONTINUOUS_TASK, TrcControlLoop.getControlTaskType());
+        assertTrue(controlLoop.getExceptionCount() >= 9);
+
+        int stoppedCount = count.get();
+        Thread.sleep(20);
+        assertEquals(stoppedCount, count.get());
+        taskObj.unregisterTask(TrcTaskMgr.TaskType.CONTROL_TASK);
+    }   //survivesTaskExceptionsAndStops
+
+}   //class TrcControlLoopTest
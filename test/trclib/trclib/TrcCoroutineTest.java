@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrcCoroutineTest
+{
+    @Test
+    public void routineRunsToCompletion()
+    {
+        TrcEvent event = new TrcEvent("finished");
+        final int[] steps = {0};
+        TrcCoroutine coroutine = new TrcCoroutine("counter", co ->
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                steps[0]++;
+                co.yieldLoop();
+            }
+        });
+
+        coroutine.start(event);
+        int loops = 0;
+        while (!coroutine.cmdPeriodic(0.0))
+        {
+            loops++;
+        }
+
+        assertEquals(3, loops);
+        assertEquals(3, steps[0]);
+        assertTrue(event.isSignaled());
+        assertNull(coroutine.getFailure());
+    }   //routineRunsToCompletion
+
+    @Test
+    public void failureIsReportedNotThrown()
+    {
+        TrcEvent event = new TrcEvent("finished");
+        final IllegalStateException error = new IllegalStateException("routine error");
+        TrcCoroutine coroutine = new TrcCoroutine("failing", co ->
+        {
+            co.yieldLoop();
+            throw error;
+        });
+
+        coroutine.start(event);
+        assertFalse(coroutine.cmdPeriodic(0.0));
+        assertTrue(coroutine.cmdPeriodic(0.0));
+
+        assertFalse(coroutine.isActive());
+        assertTrue(event.isCanceled());
+        assertFalse(event.isSignaled());
+        assertSame(error, coroutine.getFailure());
+    }   //failureIsReportedNotThrown
+
+    @Test
+    public void interruptWithoutCancelIsFailure()
+    {
+        TrcEvent event = new TrcEvent("finished");
+        final InterruptedException interrupt = new InterruptedException("not canceled");
+        TrcCoroutine coroutine = new TrcCoroutine("interrupted", co ->
+        {
+            co.yieldLoop();
+            throw interrupt;
+        });
+
+        coroutine.start(event);
+        assertFalse(coroutine.cmdPeriodic(0.0));
+        assertTrue(coroutine.cmdPeriodic(0.0));
+
+        assertTrue(event.isCanceled());
+        assertFalse(event.isSignaled());
+        assertSame(interrupt, coroutine.getFailure());
+    }   //interruptWithoutCancelIsFailure
+
+    @Test
+    public void cancelIsNotFailure()
+    {
+        TrcEvent event = new TrcEvent("finished");
+        final boolean[] unwound = {false};
+        TrcCoroutine coroutine = new TrcCoroutine("canceled", co ->
+        {
+            try
+            {
+                co.awaitEvent(new TrcEvent("never"));
+            }
+            finally
+            {
+                unwound[0] = true;
+            }
+        });
+
+        coroutine.start(event);
+        assertFalse(coroutine.cmdPeriodic(0.0));
+        coroutine.cancel();
+
+        assertTrue(unwound[0]);
+        assertFalse(coroutine.isActive());
+        assertFalse(event.isSignaled());
+        assertNull(coroutine.getFailure());
+    }   //cancelIsNotFailure
+
+    @Test
+    public void nestedCoroutineRestoresLoopDelegate()
+    {
+        final Thread[] delegates = new Thread[2];
+        TrcCoroutine inner = new TrcCoroutine("inner", co -> co.yieldLoop());
+        TrcCoroutine outer = new TrcCoroutine("outer", co ->
+        {
+            inner.start();
+            inner.cmdPeriodic(0.0);
+            //
+            // Stepping the inner routine must leave this routine acting for the loop thread.
+            //
+            delegates[0] = TrcDataRecorder.setLoopDelegate(null);
+            TrcDataRecorder.setLoopDelegate(delegates[0]);
+            delegates[1] = Thread.currentThread();
+            co.runCommand(inner);
+        });
+
+        Thread prevDelegate = TrcDataRecorder.setLoopDelegate(null);
+        outer.start();
+        while (!outer.cmdPeriodic(0.0))
+        {
+        }
+
+        assertSame(delegates[1], delegates[0]);
+        assertNull(TrcDataRecorder.setLoopDelegate(prevDelegate));
+    }   //nestedCoroutineRestoresLoopDelegate
+
+}   //class TrcCoroutineTest
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcDataRecorderTest
+{
+    private static final int NUM_FRAMES = 3000;
+    private static final long FRAME_NANOS = 20000000;
+
+    private static class StepTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 1000000000;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class StepTimeSource
+
+    /**
+     * This class is a game controller that adjusts its sticks without an axis index, like the controllers written
+     * before the analog controls were recorded per axis.
+     */
+    private static class SharedChannelController extends TrcGameController
+    {
+        SharedChannelController()
+        {
+            super("recorderTest.controller", null);
+        }   //SharedChannelController
+
+        @Override
+        public int getButtons()
+        {
+            return 0;
+        }   //getButtons
+
+        double getX(double rawValue)
+        {
+            return adjustAnalogControl(rawValue, false);
+        }   //getX
+
+        double getY(double rawValue)
+        {
+            return adjustAnalogControl(rawValue, 0.5);
+        }   //getY
+
+    }   //class SharedChannelController
+
+    private final TrcDataRecorder.Channel sensor = TrcDataRecorder.getChannel("recorderTest.sensor", false);
+    private final TrcDataRecorder.Channel button = TrcDataRecorder.getChannel("recorderTest.button", false);
+    private final TrcDataRecorder.Channel motor = TrcDataRecorder.getChannel("recorderTest.motor", true);
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        logFile = File.createTempFile("recorderTest", ".rec");
+        logFile.deleteOnExit();
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+        TrcUtil.setTimeSource(null);
+        logFile.delete();
+    }   //tearDown
+
+    /**
+     * This method runs one frame of robot code: it reads the time and two inputs and sets a motor output that
+     * depends on all of them.
+     *
+     * @param frame specifies the frame number.
+     * @param gain specifies the output gain, used to make the replayed code diverge.
+     * @return motor output.
+     */
+    private double runFrame(int frame, double gain)
+    {
+        double time = TrcUtil.getCurrentTime();
+        double value = sensor.input(Math.sin(frame*0.01)*100.0);
+        boolean pressed = button.input(frame%50 < 10);
+        double output = gain*(value*0.01 + time) + (pressed? 1.0: 0.0);
+
+        motor.output(output);
+
+        return output;
+    }   //runFrame
+
+    private double[] record()
+    {
+        StepTimeSource timeSource = new StepTimeSource();
+        double[] outputs = new double[NUM_FRAMES];
+
+        TrcUtil.setTimeSource(timeSource);
+        assertTrue(TrcDataRecorder.startRecording(logFile.getPath()));
+        for (int i = 0; i < NUM_FRAMES; i++)
+        {
+            TrcDataRecorder.markFrame(TrcRobot.RunMode.TELEOP_MODE);
+            if (i%2 == 0)
+            {
+                TrcDataRecorder.markPeriodic();
+            }
+            outputs[i] = runFrame(i, 1.0);
+            timeSource.nanoTime += FRAME_NANOS;
+        }
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+        recorder.flush();
+        assertEquals(NUM_FRAMES, recorder.getFrameCount());
+        recorder.close();
+
+        assertFalse(TrcDataRecorder.isActive());
+        assertTrue(TrcUtil.getTimeSource() == timeSource);
+        TrcUtil.setTimeSource(null);
+
+        return outputs;
+    }   //record
+
+    @Test
+    public void replayReproducesRecording()
+    {
+        double[] outputs = record();
+        //
+        // The log spans several writer blocks, so this also checks that blocks are written in order.
+        //
+        assertTrue(logFile.length() > 65536);
+
+        assertTrue(TrcDataRecorder.startReplay(logFile.getPath()));
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+        int frame = 0;
+
+        while (recorder.nextFrame())
+        {
+            assertEquals(TrcRobot.RunMode.TELEOP_MODE, recorder.getFrameMode());
+            assertEquals(frame%2 == 0, recorder.isFramePeriodic());
+            //
+            // The frame number no longer drives the inputs: the replayed values come from the log.
+            //
+            assertEquals(outputs[frame], runFrame(-1, 1.0), 0.0);
+            frame++;
+        }
+        recorder.close();
+
+        assertEquals(NUM_FRAMES, frame);
+        assertEquals(0, recorder.getOutputMismatchCount());
+        assertEquals(0, recorder.getInputMismatchCount());
+    }   //replayReproducesRecording
+
+    @Test
+    public void replayReportsDivergedOutputs()
+    {
+        record();
+
+        assertTrue(TrcDataRecorder.startReplay(logFile.getPath()));
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+
+        while (recorder.nextFrame())
+        {
+            runFrame(-1, 1.5);
+        }
+        recorder.close();
+
+        assertEquals(NUM_FRAMES, recorder.getOutputMismatchCount());
+        assertTrue(recorder.getMaxOutputError() > 0.0);
+        assertEquals(0, recorder.getInputMismatchCount());
+    }   //replayReportsDivergedOutputs
+
+    @Test
+    public void otherThreadsAreNotRecorded() throws InterruptedException
+    {
+        StepTimeSource timeSource = new StepTimeSource();
+
+        TrcUtil.setTimeSource(timeSource);
+        assertTrue(TrcDataRecorder.startRecording(logFile.getPath()));
+        TrcDataRecorder.markFrame(TrcRobot.RunMode.TELEOP_MODE);
+        runFrame(0, 1.0);
+
+        Thread thread = new Thread(() ->
+        {
+            TrcUtil.getCurrentTime();
+            sensor.input(42.0);
+        });
+        thread.start();
+        thread.join();
+
+        TrcDataRecorder.getInstance().close();
+        TrcUtil.setTimeSource(null);
+
+        assertTrue(TrcDataRecorder.startReplay(logFile.getPath()));
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+        assertNotNull(recorder);
+        assertTrue(recorder.nextFrame());
+        runFrame(-1, 1.0);
+        assertFalse(recorder.nextFrame());
+        recorder.close();
+
+        assertEquals(0, recorder.getOutputMismatchCount());
+        assertEquals(0, recorder.getInputMismatchCount());
+    }   //otherThreadsAreNotRecorded
+
+    @Test
+    public void analogControlsWithoutAxisShareOneChannel()
+    {
+        SharedChannelController controller = new SharedChannelController();
+        StepTimeSource timeSource = new StepTimeSource();
+
+        TrcUtil.setTimeSource(timeSource);
+        assertTrue(TrcDataRecorder.startRecording(logFile.getPath()));
+        TrcDataRecorder.markFrame(TrcRobot.RunMode.TELEOP_MODE);
+        double x = controller.getX(0.8);
+        double y = controller.getY(-0.6);
+        TrcDataRecorder.getInstance().close();
+        TrcUtil.setTimeSource(null);
+
+        assertEquals(0.8, x, 0.0);
+        assertEquals(0.5*Math.pow(-0.6, 3) + 0.5*-0.6, y, 1e-12);
+        //
+        // Both sticks replay from the shared channel in the order they were read.
+        //
+        assertTrue(TrcDataRecorder.startReplay(logFile.getPath()));
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+        assertTrue(recorder.nextFrame());
+        assertEquals(x, controller.getX(0.0), 0.0);
+        assertEquals(y, controller.getY(0.0), 0.0);
+        recorder.close();
+
+        assertEquals(0, recorder.getInputMismatchCount());
+    }   //analogControlsWithoutAxisShareOneChannel
+
+    @Test(expected = IllegalArgumentException.class)
+    public void overlongChannelNameIsRejected()
+    {
+        char[] name = new char[2000];
+        Arrays.fill(name, 'x');
+        TrcDataRecorder.getChannel(new String(name), false);
+    }   //overlongChannelNameIsRejected
+
+}   //class TrcDataRecorderTest
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcDiagnosticsTest
+{
+    private static final long FRAME_NANOS = 20000000;
+    private static final double BUDGETED_INTERVAL = 0.001;
+
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 1000000000;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    /**
+     * This class implements a test that logs its runs and takes the given time to run.
+     */
+    private class FakeTest extends TrcDiagnostics.Test<String>
+    {
+        boolean failing;
+        long runNanos;
+
+        FakeTest(String name, boolean failing, long runNanos)
+        {
+            super(name, "group");
+            this.failing = failing;
+            this.runNanos = runNanos;
+        }   //FakeTest
+
+        @Override
+        protected String runTest()
+        {
+            runs.add(getTestName());
+            timeSource.nanoTime += runNanos;
+            return failing? "failed": null;
+        }   //runTest
+
+    }   //class FakeTest
+
+    private final FixedTimeSource timeSource = new FixedTimeSource();
+    private final List<String> runs = new ArrayList<>();
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        TrcUtil.setTimeSource(timeSource);
+        logFile = File.createTempFile("diagnosticsTest", ".rec");
+        logFile.deleteOnExit();
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+        TrcUtil.setTimeSource(null);
+        logFile.delete();
+    }   //tearDown
+
+    @Test
+    public void likelyFailureRunsFirst()
+    {
+        TrcDiagnostics<String> diagnostics = new TrcDiagnostics<>();
+
+        diagnostics.setDefaultRefreshInterval(BUDGETED_INTERVAL);
+        diagnostics.addTest(new FakeTest("passing", false, 0));
+        diagnostics.addTest(new FakeTest("failing", true, 0));
+        diagnostics.runAllTests();
+        runs.clear();
+        timeSource.nanoTime += FRAME_NANOS;
+
+        assertEquals(2, diagnostics.runTests(1.0));
+        assertEquals("failing", runs.get(0));
+        assertEquals("passing", runs.get(1));
+    }   //likelyFailureRunsFirst
+
+    @Test
+    public void firstDueTestAlwaysRuns()
+    {
+        TrcDiagnostics<String> diagnostics = new TrcDiagnostics<>();
+
+        diagnostics.setDefaultRefreshInterval(BUDGETED_INTERVAL);
+        diagnostics.addTest(new FakeTest("slow", false, 500000000));
+        diagnostics.runAllTests();
+        //
+        // The average run time does not fit in the budget, but the call still makes progress.
+        //
+        assertEquals(1, diagnostics.runTests(0.001));
+    }   //firstDueTestAlwaysRuns
+
+    @Test
+    public void agingRunsRarelyFailingTest()
+    {
+        TrcDiagnostics<String> diagnostics = new TrcDiagnostics<>();
+        //
+        // Each test takes longer than the budget so only one test runs per call. Without aging, the failing test
+        // would win every call once the passing test has run once.
+        //
+        diagnostics.setDefaultRefreshInterval(BUDGETED_INTERVAL);
+        diagnostics.addTest(new FakeTest("failing", true, 100000000));
+        diagnostics.addTest(new FakeTest("passing", false, 100000000));
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals(1, diagnostics.runTests(0.05));
+        }
+
+        int passingRuns = Collections.frequency(runs, "passing");
+        assertTrue(passingRuns >= 3);
+        assertTrue(Collections.frequency(runs, "failing") > 5*passingRuns);
+    }   //agingRunsRarelyFailingTest
+
+    @Test
+    public void replayRunsSameTests()
+    {
+        final int numFrames = 50;
+        List<FakeTest> tests = new ArrayList<>();
+        TrcDiagnostics<String> diagnostics = createRecordedDiagnostics(tests);
+
+        assertTrue(TrcDataRecorder.startRecording(logFile.getPath()));
+        for (int i = 0; i < numFrames; i++)
+        {
+            TrcDataRecorder.markFrame(TrcRobot.RunMode.TELEOP_MODE);
+            //
+            // The time budget would fit every test, the recorded test budget limits each call to two.
+            //
+            assertEquals(2, diagnostics.runTests(1.0));
+            timeSource.nanoTime += FRAME_NANOS;
+        }
+        TrcDataRecorder.getInstance().close();
+
+        List<String> recordedRuns = new ArrayList<>(runs);
+        runs.clear();
+        diagnostics = createRecordedDiagnostics(tests);
+        //
+        // On replay the tests take a different time to run, which must not change what runs.
+        //
+        for (FakeTest test: tests)
+        {
+            test.runNanos *= 3;
+        }
+
+        assertTrue(TrcDataRecorder.startReplay(logFile.getPath()));
+        TrcDataRecorder recorder = TrcDataRecorder.getInstance();
+        while (recorder.nextFrame())
+        {
+            diagnostics.runTests(1.0);
+        }
+        recorder.close();
+
+        assertEquals(2*numFrames, recordedRuns.size());
+        assertEquals(recordedRuns, runs);
+    }   //replayRunsSameTests
+
+    private TrcDiagnostics<String> createRecordedDiagnostics(List<FakeTest> tests)
+    {
+        TrcDiagnostics<String> diagnostics = new TrcDiagnostics<>();
+
+        tests.clear();
+        for (int i = 0; i < 5; i++)
+        {
+            FakeTest test = new FakeTest("test" + i, i%2 == 0, (i + 1)*3000000);
+            test.setRefreshInterval(0.01*(i + 1));
+            tests.add(test);
+            diagnostics.addTest(test);
+        }
+        diagnostics.setRecordedTestBudget(2);
+
+        return diagnostics;
+    }   //createRecordedDiagnostics
+
+    @Test
+    public void everyCallTestsRunOutsideBudget()
+    {
+        TrcDiagnostics<String> diagnostics = new TrcDiagnostics<>();
+        FakeTest slow = new FakeTest("slow", true, 100000000);
+
+        slow.setRefreshInterval(BUDGETED_INTERVAL);
+        diagnostics.addTest(slow);
+        diagnostics.addTest(new FakeTest("state1", false, 100000000));
+        diagnostics.addTest(new FakeTest("state2", false, 100000000));
+        //
+        // The interval 0 tests take longer than the budget but run on every call, and the budget still fits
+        // one other test.
+        //
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(3, diagnostics.runTests(0.05));
+            timeSource.nanoTime += FRAME_NANOS;
+        }
+        assertEquals(5, Collections.frequency(runs, "state1"));
+        assertEquals(5, Collections.frequency(runs, "state2"));
+        assertEquals(5, Collections.frequency(runs, "slow"));
+        //
+        // Also while recording, when the recorded test budget applies.
+        //
+        runs.clear();
+        assertTrue(TrcDataRecorder.startRecording(logFile.getPath()));
+        TrcDataRecorder.markFrame(TrcRobot.RunMode.TELEOP_MODE);
+        assertEquals(3, diagnostics.runTests(0.05));
+        TrcDataRecorder.getInstance().close();
+        assertEquals(1, Collections.frequency(runs, "state1"));
+        assertEquals(1, Collections.frequency(runs, "state2"));
+    }   //everyCallTestsRunOutsideBudget
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recordedTestBudgetMustBePositive()
+    {
+        new TrcDiagnostics<String>().setRecordedTestBudget(0);
+    }   //recordedTestBudgetMustBePositive
+
+}   //class TrcDiagnosticsTest
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcDriveStateEstimatorTest
+{
+    private static final double LOOP_PERIOD = 0.02;
+
+    /**
+     * This class implements an in-memory motor, the estimator only needs the drive base to exist.
+     */
+    private static class FakeMotor extends TrcMotor
+    {
+        private boolean inverted = false;
+        private double power = 0.0;
+
+        FakeMotor(final String instanceName)
+        {
+            super(instanceName);
+        }   //FakeMotor
+
+        @Override
+        public boolean getInverted()
+        {
+            return inverted;
+        }   //getInverted
+
+        @Override
+        public double getPosition()
+        {
+            return 0.0;
+        }   //getPosition
+
+        @Override
+        public double getPower()
+        {
+            return power;
+        }   //getPower
+
+        @Override
+        public boolean isLowerLimitSwitchActive()
+        {
+            return false;
+        }   //isLowerLimitSwitchActive
+
+        @Override
+        public boolean isUpperLimitSwitchActive()
+        {
+            return false;
+        }   //isUpperLimitSwitchActive
+
+        @Override
+        public void resetPosition(boolean hardware)
+        {
+        }   //resetPosition
+
+        @Override
+        public void setBrakeModeEnabled(boolean enabled)
+        {
+        }   //setBrakeModeEnabled
+
+        @Override
+        public void setInverted(boolean inverted)
+        {
+            this.inverted = inverted;
+        }   //setInverted
+
+        @Override
+        public void setPositionSensorInverted(boolean inverted)
+        {
+        }   //setPositionSensorInverted
+
+        @Override
+        public void setPower(double power)
+        {
+            this.power = power;
+        }   //setPower
+
+        @Override
+        public void setSoftLimitEnabled(boolean lowerLimitEnabled, boolean upperLimitEnabled)
+        {
+        }   //setSoftLimitEnabled
+
+        @Override
+        public void setSoftLowerLimit(double position)
+        {
+        }   //setSoftLowerLimit
+
+        @Override
+        public void setSoftUpperLimit(double position)
+        {
+        }   //setSoftUpperLimit
+
+    }   //class FakeMotor
+
+    /**
+     * This class implements a z-axis gyro that is never read, the test feeds the measurements to update().
+     */
+    private static class FakeGyro extends TrcGyro
+    {
+        FakeGyro(final String instanceName)
+        {
+            super(instanceName, 1, GYRO_HAS_Z_AXIS);
+        }   //FakeGyro
+
+        @Override
+        public SensorData<Double> getRawXData(DataType dataType)
+        {
+            return new SensorData<>(TrcUtil.getCurrentTime(), 0.0);
+        }   //getRawXData
+
+        @Override
+        public SensorData<Double> getRawYData(DataType dataType)
+        {
+            return new SensorData<>(TrcUtil.getCurrentTime(), 0.0);
+        }   //getRawYData
+
+        @Override
+        public SensorData<Double> getRawZData(DataType dataType)
+        {
+            return new SensorData<>(TrcUtil.getCurrentTime(), 0.0);
+        }   //getRawZData
+
+    }   //class FakeGyro
+
+    /**
+     * This class implements an x/y accelerometer that is never read, its presence enables slip estimation.
+     */
+    private static class FakeAccel extends TrcAccelerometer
+    {
+        FakeAccel(final String instanceName)
+        {
+            super(instanceName, 2, ACCEL_HAS_X_AXIS | ACCEL_HAS_Y_AXIS);
+        }   //FakeAccel
+
+        @Override
+        public SensorData<Double> getRawXData(DataType dataType)
+        {
+            return new SensorData<>(TrcUtil.getCurrentTime(), 0.0);
+        }   //getRawXData
+
+        @Override
+        public SensorData<Double> getRawYData(DataType dataType)
+        {
+            return new SensorData<>(TrcUtil.getCurrentTime(), 0.0);
+        }   //getRawYData
+
+        @Override
+        public SensorData<Double> getRawZData(DataType dataType)
+        {
+            return new SensorData<>(TrcUtil.getCurrentTime(), 0.0);
+        }   //getRawZData
+
+    }   //class FakeAccel
+
+    private TrcDriveBase driveBase;
+    private TrcGyro gyro;
+
+    @Before
+    public void setUp()
+    {
+        new TrcTaskMgr();
+        driveBase = new TrcDriveBase(new FakeMotor("leftMotor"), new FakeMotor("rightMotor"));
+        gyro = new FakeGyro("gyro");
+    }   //setUp
+
+    @Test
+    public void tracksHeadingAndTurnRate()
+    {
+        TrcDriveStateEstimator estimator = new TrcDriveStateEstimator("estimator", driveBase, gyro, null);
+        final double turnRate = 90.0;
+        double time = 0.0;
+
+        for (int i = 1; i <= 100; i++)
+        {
+            time = i*LOOP_PERIOD;
+            estimator.update(time, turnRate*time, turnRate, 0.0, 0.0, 0.0, 0.0);
+        }
+
+        assertEquals(turnRate*time, estimator.getHeading(), 0.1);
+        assertEquals(turnRate, estimator.getTurnRate(), 0.1);
+        assertTrue(estimator.getVariance(TrcDriveStateEstimator.STATE_HEADING) < 0.5*0.5);
+    }   //tracksHeadingAndTurnRate
+
+    @Test
+    public void velocityFollowsWheelsWithoutAccelerometer()
+    {
+        TrcDriveStateEstimator estimator = new TrcDriveStateEstimator("estimator", driveBase, gyro, null);
+
+        estimator.update(LOOP_PERIOD, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        for (int i = 2; i <= 100; i++)
+        {
+            estimator.update(i*LOOP_PERIOD, 0.0, 0.0, 100.0, 100.0, 10.0, 40.0);
+        }
+        //
+        // Without an accelerometer the accelerations are ignored and slip stays pinned at zero.
+        //
+        assertEquals(10.0, estimator.getXVelocity(), 0.5);
+        assertEquals(40.0, estimator.getYVelocity(), 0.5);
+        assertEquals(0.0, estimator.getXSlip(), 0.0);
+        assertEquals(0.0, estimator.getYSlip(), 0.0);
+    }   //velocityFollowsWheelsWithoutAccelerometer
+
+    @Test
+    public void noSlipWhenAccelerometerAgrees()
+    {
+        TrcDriveStateEstimator estimator = new TrcDriveStateEstimator(
+            "estimator", driveBase, gyro, new FakeAccel("accel"));
+        final double accel = 50.0;
+
+        for (int i = 1; i <= 50; i++)
+        {
+            double time = i*LOOP_PERIOD;
+            estimator.update(time, 0.0, 0.0, 0.0, accel, 0.0, accel*(time - LOOP_PERIOD));
+        }
+
+        assertEquals(accel*49*LOOP_PERIOD, estimator.getYVelocity(), 1.0);
+        assertEquals(0.0, estimator.getSlipSpeed(), 1.0);
+    }   //noSlipWhenAccelerometerAgrees
+
+    @Test
+    public void detectsSlipWhenAccelerometerDisagrees()
+    {
+        TrcDriveStateEstimator estimator = new TrcDriveStateEstimator(
+            "estimator", driveBase, gyro, new FakeAccel("accel"));
+        //
+        // The wheels spin up to 40 units/s but the accelerometer says the robot never moves.
+        //
+        estimator.update(LOOP_PERIOD, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        for (int i = 2; i <= 100; i++)
+        {
+            estimator.update(i*LOOP_PERIOD, 0.0, 0.0, 0.0, 0.0, 0.0, 40.0);
+        }
+
+        assertTrue(estimator.getYSlip() > 30.0);
+        assertTrue(estimator.getYVelocity() < 10.0);
+        assertEquals(estimator.getYSlip(), estimator.getSlipSpeed(), 1.0);
+        assertEquals(40.0, estimator.getYVelocity() + estimator.getYSlip(), 1.0);
+    }   //detectsSlipWhenAccelerometerDisagrees
+
+    @Test
+    public void resetReinitializesFromMeasurements()
+    {
+        TrcDriveStateEstimator estimator = new TrcDriveStateEstimator(
+            "estimator", driveBase, gyro, new FakeAccel("accel"));
+
+        estimator.update(LOOP_PERIOD, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        for (int i = 2; i <= 100; i++)
+        {
+            estimator.update(i*LOOP_PERIOD, 45.0, 10.0, 0.0, 0.0, 0.0, 40.0);
+        }
+        assertTrue(estimator.getYSlip() > 30.0);
+
+        estimator.reset();
+        estimator.update(101*LOOP_PERIOD, -30.0, -5.0, 0.0, 0.0, 3.0, 20.0);
+
+        assertEquals(-30.0, estimator.getHeading(), 0.0);
+        assertEquals(-5.0, estimator.getTurnRate(), 0.0);
+        assertEquals(3.0, estimator.getXVelocity(), 0.0);
+        assertEquals(20.0, estimator.getYVelocity(), 0.0);
+        assertEquals(0.0, estimator.getSlipSpeed(), 0.0);
+    }   //resetReinitializesFromMeasurements
+
+}   //class TrcDriveStateEstimatorTest
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TrcFilterBankTest
+{
+    private static final int NUM_CHANNELS = 3;
+    private static final int NUM_SAMPLES = 500;
+
+    /**
+     * This method returns a noisy signal with occasional spikes, different for each channel.
+     *
+     * @param random specifies the random number generator.
+     * @param channel specifies the channel index.
+     * @param sample specifies the sample index.
+     * @return signal value.
+     */
+    private static double signal(Random random, int channel, int sample)
+    {
+        double value = 10.0*Math.sin(sample*0.05 + channel) + random.nextGaussian();
+
+        return random.nextInt(20) == 0? value + 50.0: value;
+    }   //signal
+
+    /**
+     * This method checks that the bank filters every channel exactly like the single-channel filters, through
+     * the array method, the per-channel method and the channel views, and again after a reset.
+     *
+     * @param bank specifies the filter bank.
+     * @param filters specifies the reference single-channel filters, two per channel: one for the array method
+     *        and one for the per-channel method and channel view after the reset.
+     */
+    private static void assertSameOutput(TrcFilterBank bank, TrcFilter[][] filters)
+    {
+        TrcFilter[] views = bank.getChannelFilters();
+        Random random = new Random(1234);
+        double[] data = new double[NUM_CHANNELS];
+        double[] filtered = new double[NUM_CHANNELS];
+
+        for (int n = 0; n < NUM_SAMPLES; n++)
+        {
+            for (int i = 0; i < NUM_CHANNELS; i++)
+            {
+                data[i] = signal(random, i, n);
+            }
+
+            bank.filterData(data, filtered);
+            for (int i = 0; i < NUM_CHANNELS; i++)
+            {
+                assertEquals("sample " + n + ", channel " + i, filters[i][0].filterData(data[i]), filtered[i], 0.0);
+            }
+        }
+
+        bank.reset();
+        random = new Random(1234);
+        for (int n = 0; n < NUM_SAMPLES; n++)
+        {
+            for (int i = 0; i < NUM_CHANNELS; i++)
+            {
+                double value = signal(random, i, n);
+                TrcFilter[] refFilters = filters[i];
+                //
+                // Channels are independent, so alternating the access paths must not matter.
+                //
+                double output = n%2 == 0? bank.filterData(i, value): views[i].filterData(value);
+
+                assertEquals("sample " + n + ", channel " + i, refFilters[1].filterData(value), output, 0.0);
+            }
+        }
+    }   //assertSameOutput
+
+    @Test
+    public void kalmanBankMatchesKalmanFilters()
+    {
+        TrcFilter[][] filters = new TrcFilter[NUM_CHANNELS][2];
+
+        for (int i = 0; i < NUM_CHANNELS; i++)
+        {
+            filters[i][0] = new TrcKalmanFilter("kalman" + i, 0.02, 0.5);
+            filters[i][1] = new TrcKalmanFilter("kalman" + i, 0.02, 0.5);
+        }
+
+        assertSameOutput(TrcFilterBank.createKalmanBank("kalmanBank", NUM_CHANNELS, 0.02, 0.5), filters);
+    }   //kalmanBankMatchesKalmanFilters
+
+    @Test
+    public void iirBankMatchesIIRFilters()
+    {
+        TrcFilter[][] filters = new TrcFilter[NUM_CHANNELS][2];
+
+        for (int i = 0; i < NUM_CHANNELS; i++)
+        {
+            filters[i][0] = new TrcIIRFilter("iir" + i, 0.3);
+            filters[i][1] = new TrcIIRFilter("iir" + i, 0.3);
+        }
+
+        assertSameOutput(TrcFilterBank.createIIRBank("iirBank", NUM_CHANNELS, 0.3), filters);
+    }   //iirBankMatchesIIRFilters
+
+    @Test
+    public void spuriousBankMatchesSpuriousFilters()
+    {
+        TrcFilter[][] filters = new TrcFilter[NUM_CHANNELS][2];
+
+        for (int i = 0; i < NUM_CHANNELS; i++)
+        {
+            filters[i][0] = new TrcSpuriousFilter("spurious" + i, 20.0);
+            filters[i][1] = new TrcSpuriousFilter("spurious" + i, 20.0);
+        }
+
+        assertSameOutput(TrcFilterBank.createSpuriousBank("spuriousBank", NUM_CHANNELS, 20.0, null), filters);
+    }   //spuriousBankMatchesSpuriousFilters
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shortArrayIsRejected()
+    {
+        TrcFilterBank.createIIRBank("iirBank", NUM_CHANNELS, 0.3).filterData(new double[2], new double[3]);
+    }   //shortArrayIsRejected
+
+}   //class TrcFilterBankTest
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TrcInitializerTest
+{
+    private final List<String> completed = Collections.synchronizedList(new ArrayList<>());
+
+    private Runnable record(String name)
+    {
+        return () -> completed.add(name);
+    }   //record
+
+    @Test
+    public void stepsRunAfterTheirDependencies()
+    {
+        TrcInitializer initializer = new TrcInitializer("test", null, 4);
+        //
+        // Dependencies may be added after the steps that need them.
+        //
+        initializer.addStep("autoChooser", record("autoChooser"), "elevator", "driveBase")
+                   .addStep("elevator", record("elevator"), "pdp")
+                   .addStep("driveBase", record("driveBase"), "pdp")
+                   .addStep("pdp", record("pdp"));
+        initializer.run();
+
+        assertEquals(4, completed.size());
+        assertEquals("pdp", completed.get(0));
+        assertEquals("autoChooser", completed.get(3));
+        assertTrue(completed.contains("elevator"));
+        assertTrue(completed.contains("driveBase"));
+    }   //stepsRunAfterTheirDependencies
+
+    @Test
+    public void independentStepsRunInParallel()
+    {
+        CountDownLatch latch = new CountDownLatch(2);
+        Runnable meet = () ->
+        {
+            latch.countDown();
+            try
+            {
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+            }
+            catch (InterruptedException e)
+            {
+                throw new RuntimeException(e);
+            }
+        };
+        TrcInitializer initializer = new TrcInitializer("test", null, 2);
+
+        initializer.addStep("left", meet).addStep("right", meet);
+        initializer.run();
+        assertEquals(0, latch.getCount());
+    }   //independentStepsRunInParallel
+
+    @Test
+    public void failureStopsDependents()
+    {
+        IllegalStateException error = new IllegalStateException("no CAN bus");
+        TrcInitializer initializer = new TrcInitializer("test", null, 1);
+
+        initializer.addStep("elevator", () -> { throw error; })
+                   .addStep("elevatorCommand", record("elevatorCommand"), "elevator")
+                   .addStep("autoChooser", record("autoChooser"), "elevatorCommand");
+        try
+        {
+            initializer.run();
+            fail("run should rethrow the step failure.");
+        }
+        catch (IllegalArgumentException e)
+        {
+            fail("a step failure is not a dependency error.");
+        }
+        catch (RuntimeException e)
+        {
+            assertSame(error, e.getCause());
+        }
+
+        assertFalse(completed.contains("elevatorCommand"));
+        assertFalse(completed.contains("autoChooser"));
+    }   //failureStopsDependents
+
+    @Test
+    public void cycleIsDetected()
+    {
+        TrcInitializer initializer = new TrcInitializer("test", null, 2);
+
+        initializer.addStep("pdp", record("pdp"))
+                   .addStep("driveBase", record("driveBase"), "pdp", "pidDrive")
+                   .addStep("pidDrive", record("pidDrive"), "driveBase");
+        try
+        {
+            initializer.run();
+            fail("run should detect the cycle.");
+        }
+        catch (IllegalArgumentException e)
+        {
+            assertTrue(e.getMessage().contains("cycle"));
+        }
+        //
+        // Only the steps outside the cycle ran.
+        //
+        assertEquals(Collections.singletonList("pdp"), completed);
+    }   //cycleIsDetected
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDependencyIsRejected()
+    {
+        new TrcInitializer("test", null, 1).addStep("driveBase", record("driveBase"), "pdp").run();
+    }   //unknownDependencyIsRejected
+
+}   //class TrcInitializerTest
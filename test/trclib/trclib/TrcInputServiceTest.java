@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcInputServiceTest
+{
+    /**
+     * This class implements an input service with one device whose buttons and sampling period are set by the
+     * test.
+     */
+    private static class FakeInputService extends TrcInputService
+    {
+        int buttons = 0;
+        double samplingPeriod = 0.0;
+
+        FakeInputService(int queueSize)
+        {
+            super("fakeInputService", queueSize);
+            addDevice("fakeDevice");
+        }   //FakeInputService
+
+        @Override
+        protected int readButtons(int device)
+        {
+            return buttons;
+        }   //readButtons
+
+        @Override
+        protected double readAxis(int device, int axis)
+        {
+            return 0.0;
+        }   //readAxis
+
+        @Override
+        protected double getSamplingPeriod(int device)
+        {
+            return samplingPeriod;
+        }   //getSamplingPeriod
+
+    }   //class FakeInputService
+
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 0;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    private final FixedTimeSource timeSource = new FixedTimeSource();
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp()
+    {
+        new TrcTaskMgr();
+        TrcUtil.setTimeSource(timeSource);
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        TrcUtil.setTimeSource(null);
+    }   //tearDown
+
+    private FakeInputService createService(int queueSize)
+    {
+        FakeInputService service = new FakeInputService(queueSize);
+
+        service.setLongPressTime(100.0);
+        service.addHandler(event -> events.add(event.type + ":" + event.id));
+
+        return service;
+    }   //createService
+
+    private void runLoop(FakeInputService service, double time, int buttons)
+    {
+        timeSource.nanoTime = (long)(time*1000000000.0);
+        service.buttons = buttons;
+        service.inputTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+    }   //runLoop
+
+    @Test
+    public void samplingPeriodIsHonored()
+    {
+        FakeInputService service = createService(16);
+        service.samplingPeriod = 0.1;
+
+        runLoop(service, 0.0, 0x1);
+        runLoop(service, 0.05, 0x0);
+        assertEquals(1, events.size());
+        assertEquals(0x1, service.getButtons(0));
+
+        runLoop(service, 0.1, 0x0);
+        assertEquals(2, events.size());
+        assertEquals("BUTTON_RELEASED:1", events.get(1));
+    }   //samplingPeriodIsHonored
+
+    @Test
+    public void overflowDropsPressBeforeRelease()
+    {
+        FakeInputService service = createService(2);
+        service.setMaxEventsPerLoop(1);
+
+        runLoop(service, 0.0, 0x3);
+        runLoop(service, 0.02, 0x0);
+        runLoop(service, 0.04, 0x0);
+        runLoop(service, 0.06, 0x0);
+
+        assertEquals(3, events.size());
+        assertEquals("BUTTON_PRESSED:1", events.get(0));
+        assertEquals("BUTTON_RELEASED:1", events.get(1));
+        assertEquals("BUTTON_RELEASED:2", events.get(2));
+        assertEquals(1, service.getDroppedEventCount());
+    }   //overflowDropsPressBeforeRelease
+
+    @Test
+    public void releaseIsQueuedWhenThereIsRoom()
+    {
+        FakeInputService service = createService(1);
+
+        runLoop(service, 0.0, 0x3);
+        runLoop(service, 0.02, 0x0);
+        runLoop(service, 0.04, 0x0);
+        runLoop(service, 0.06, 0x0);
+
+        assertEquals(3, events.size());
+        assertEquals("BUTTON_PRESSED:2", events.get(0));
+        assertEquals("BUTTON_RELEASED:1", events.get(1));
+        assertEquals("BUTTON_RELEASED:2", events.get(2));
+        assertEquals(1, service.getDroppedEventCount());
+    }   //releaseIsQueuedWhenThereIsRoom
+
+}   //class TrcInputServiceTest
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcJvmMonitorTest
+{
+    private static final long MEGABYTE = 1024*1024;
+
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 1000000000;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    private static class FakeGcBean implements GarbageCollectorMXBean
+    {
+        long count = 0;
+        long time = 0;
+
+        @Override
+        public long getCollectionCount()
+        {
+            return count;
+        }   //getCollectionCount
+
+        @Override
+        public long getCollectionTime()
+        {
+            return time;
+        }   //getCollectionTime
+
+        @Override
+        public String getName()
+        {
+            return "fakeGc";
+        }   //getName
+
+        @Override
+        public boolean isValid()
+        {
+            return true;
+        }   //isValid
+
+        @Override
+        public String[] getMemoryPoolNames()
+        {
+            return new String[0];
+        }   //getMemoryPoolNames
+
+        @Override
+        public ObjectName getObjectName()
+        {
+            return null;
+        }   //getObjectName
+
+    }   //class FakeGcBean
+
+    private static class FakeMemoryBean implements MemoryMXBean
+    {
+        MemoryUsage heap = new MemoryUsage(0, 0, 0, -1);
+
+        @Override
+        public MemoryUsage getHeapMemoryUsage()
+        {
+            return heap;
+        }   //getHeapMemoryUsage
+
+        @Override
+        public MemoryUsage getNonHeapMemoryUsage()
+        {
+            return new MemoryUsage(0, 0, 0, -1);
+        }   //getNonHeapMemoryUsage
+
+        @Override
+        public int getObjectPendingFinalizationCount()
+        {
+            return 0;
+        }   //getObjectPendingFinalizationCount
+
+        @Override
+        public boolean isVerbose()
+        {
+            return false;
+        }   //isVerbose
+
+        @Override
+        public void setVerbose(boolean value)
+        {
+        }   //setVerbose
+
+        @Override
+        public void gc()
+        {
+        }   //gc
+
+        @Override
+        public ObjectName getObjectName()
+        {
+            return null;
+        }   //getObjectName
+
+    }   //class FakeMemoryBean
+
+    private final FixedTimeSource timeSource = new FixedTimeSource();
+    private final FakeGcBean gcBean = new FakeGcBean();
+    private final FakeMemoryBean memoryBean = new FakeMemoryBean();
+    private final TrcJvmMonitor.BeanSource beanSource = new TrcJvmMonitor.BeanSource()
+    {
+        @Override
+        public List<GarbageCollectorMXBean> getGarbageCollectorMXBeans()
+        {
+            return Collections.singletonList(gcBean);
+        }   //getGarbageCollectorMXBeans
+
+        @Override
+        public MemoryMXBean getMemoryMXBean()
+        {
+            return memoryBean;
+        }   //getMemoryMXBean
+
+        @Override
+        public CompilationMXBean getCompilationMXBean()
+        {
+            return null;
+        }   //getCompilationMXBean
+
+        @Override
+        public ThreadMXBean getThreadMXBean()
+        {
+            return null;
+        }   //getThreadMXBean
+    };
+    private TrcTaskMgr taskMgr;
+    private TrcDbgTrace tracer;
+    private File logFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        TrcUtil.setTimeSource(timeSource);
+        taskMgr = new TrcTaskMgr();
+        logFile = File.createTempFile("jvmMonitorTest", ".log");
+        logFile.deleteOnExit();
+        tracer = new TrcDbgTrace("test", false, TrcDbgTrace.TraceLevel.API, TrcDbgTrace.MsgLevel.INFO);
+        assertTrue(tracer.openTraceLog(logFile.getPath()));
+        tracer.setTraceLogEnabled(true);
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        tracer.closeTraceLog();
+        TrcUtil.setTimeSource(null);
+        logFile.delete();
+    }   //tearDown
+
+    private List<String> readLog() throws IOException
+    {
+        return Files.readAllLines(logFile.toPath());
+    }   //readLog
+
+    @Test
+    public void overrunDuringGcIsCountedAsGcPause() throws IOException
+    {
+        TrcJvmMonitor monitor = new TrcJvmMonitor("monitor", tracer, 1.0, 0.1, beanSource);
+        //
+        // A long slice with a collection in it.
+        //
+        monitor.startTimeSlice();
+        gcBean.count++;
+        gcBean.time += 150;
+        monitor.endTimeSlice(0.2);
+        //
+        // A long slice without one is the robot code's own overrun.
+        //
+        monitor.startTimeSlice();
+        monitor.endTimeSlice(0.3);
+        //
+        // A collection in a short slice is not an overrun.
+        //
+        monitor.startTimeSlice();
+        gcBean.count++;
+        gcBean.time += 5;
+        monitor.endTimeSlice(0.05);
+
+        assertEquals(2, monitor.getOverrunCount());
+        assertEquals(1, monitor.getGcOverrunCount());
+        assertEquals(0, monitor.getJitOverrunCount());
+
+        List<String> log = readLog();
+        assertEquals(2, log.size());
+        assertTrue(log.get(0), log.get(0).endsWith("monitor: 0.200s slice overrun (GC): gc=1/150ms, jit=0ms"));
+        assertTrue(log.get(1), log.get(1).endsWith("monitor: 0.300s slice overrun (code): gc=0/0ms, jit=0ms"));
+    }   //overrunDuringGcIsCountedAsGcPause
+
+    @Test
+    public void heapAndGcSampledEveryInterval() throws IOException
+    {
+        TrcJvmMonitor monitor = new TrcJvmMonitor("monitor", tracer, 1.0, 0.1, beanSource);
+
+        gcBean.count = 10;
+        gcBean.time = 500;
+        monitor.setTaskEnabled(true);
+        //
+        // Counters change during the interval, only the difference from the baseline is logged.
+        //
+        gcBean.count += 2;
+        gcBean.time += 30;
+        memoryBean.heap = new MemoryUsage(0, 64*MEGABYTE, 128*MEGABYTE, -1);
+        timeSource.nanoTime += 500000000;
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        assertEquals(0, readLog().size());
+
+        timeSource.nanoTime += 500000000;
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        //
+        // The next sample starts from the new baseline.
+        //
+        memoryBean.heap = new MemoryUsage(0, 32*MEGABYTE, 128*MEGABYTE, -1);
+        timeSource.nanoTime += 1000000000;
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        monitor.setTaskEnabled(false);
+
+        List<String> log = readLog();
+        assertEquals(2, log.size());
+        assertTrue(log.get(0), log.get(0).contains("monitor: gc=2/30ms, heap=64.0/128.0MB, jit=0ms"));
+        assertTrue(log.get(1), log.get(1).contains("monitor: gc=0/0ms, heap=32.0/128.0MB, jit=0ms"));
+    }   //heapAndGcSampledEveryInterval
+
+}   //class TrcJvmMonitorTest
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TrcPidControllerGainScheduleTest
+{
+    private static final double TOLERANCE = 1e-12;
+
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 1000000000;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    @After
+    public void tearDown()
+    {
+        TrcUtil.setTimeSource(null);
+    }   //tearDown
+
+    private static TrcPidController.GainSchedule createSchedule(TrcPidController.GainSchedule.ScheduleVariable var)
+    {
+        //
+        // Entries are added out of order on purpose.
+        //
+        return new TrcPidController.GainSchedule(var)
+            .addEntry(10.0, new TrcPidController.PidCoefficients(0.02, 0.0, 0.2, 0.1))
+            .addEntry(2.0, new TrcPidController.PidCoefficients(0.1, 0.01, 0.0, 0.0))
+            .addEntry(6.0, new TrcPidController.PidCoefficients(0.05, 0.0, 0.1, 0.0));
+    }   //createSchedule
+
+    @Test
+    public void emptyScheduleReturnsNull()
+    {
+        TrcPidController.GainSchedule schedule =
+            new TrcPidController.GainSchedule(TrcPidController.GainSchedule.ScheduleVariable.ERROR_MAGNITUDE);
+
+        assertEquals(0, schedule.getNumEntries());
+        assertNull(schedule.getPidCoefficients(1.0));
+    }   //emptyScheduleReturnsNull
+
+    @Test
+    public void interpolatesBetweenEntries()
+    {
+        TrcPidController.GainSchedule schedule =
+            createSchedule(TrcPidController.GainSchedule.ScheduleVariable.ERROR_MAGNITUDE);
+        assertEquals(3, schedule.getNumEntries());
+
+        TrcPidController.PidCoefficients coeffs = schedule.getPidCoefficients(4.0);
+        assertEquals(0.075, coeffs.kP, TOLERANCE);
+        assertEquals(0.005, coeffs.kI, TOLERANCE);
+        assertEquals(0.05, coeffs.kD, TOLERANCE);
+        assertEquals(0.0, coeffs.kF, TOLERANCE);
+
+        coeffs = schedule.getPidCoefficients(9.0);
+        assertEquals(0.0275, coeffs.kP, TOLERANCE);
+        assertEquals(0.175, coeffs.kD, TOLERANCE);
+        assertEquals(0.075, coeffs.kF, TOLERANCE);
+        //
+        // Exactly on an entry.
+        //
+        coeffs = schedule.getPidCoefficients(6.0);
+        assertEquals(0.05, coeffs.kP, TOLERANCE);
+        assertEquals(0.1, coeffs.kD, TOLERANCE);
+        //
+        // The returned object is reused and not the entry itself.
+        //
+        assertSame(coeffs, schedule.getPidCoefficients(3.0));
+    }   //interpolatesBetweenEntries
+
+    @Test
+    public void clampsBeyondEnds()
+    {
+        TrcPidController.GainSchedule schedule =
+            createSchedule(TrcPidController.GainSchedule.ScheduleVariable.ERROR_MAGNITUDE);
+
+        assertEquals(0.1, schedule.getPidCoefficients(-5.0).kP, TOLERANCE);
+        assertEquals(0.1, schedule.getPidCoefficients(2.0).kP, TOLERANCE);
+        assertEquals(0.02, schedule.getPidCoefficients(10.0).kP, TOLERANCE);
+        assertEquals(0.02, schedule.getPidCoefficients(1000.0).kP, TOLERANCE);
+    }   //clampsBeyondEnds
+
+    @Test
+    public void replacesEntryWithSameKey()
+    {
+        TrcPidController.GainSchedule schedule =
+            createSchedule(TrcPidController.GainSchedule.ScheduleVariable.ERROR_MAGNITUDE);
+        schedule.addEntry(6.0, new TrcPidController.PidCoefficients(0.07));
+
+        assertEquals(3, schedule.getNumEntries());
+        assertEquals(0.07, schedule.getPidCoefficients(6.0).kP, TOLERANCE);
+    }   //replacesEntryWithSameKey
+
+    @Test(expected = IllegalArgumentException.class)
+    public void externalNeedsSupplier()
+    {
+        new TrcPidController.GainSchedule(TrcPidController.GainSchedule.ScheduleVariable.EXTERNAL);
+    }   //externalNeedsSupplier
+
+    @Test
+    public void controllerUsesScheduledGains()
+    {
+        double[] input = {0.0};
+        double[] external = {0.0};
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(1.0), 0.5, () -> input[0]);
+        pidCtrl.setTarget(4.0);
+        //
+        // Keyed on error magnitude: error 4 gives kP 0.075.
+        //
+        pidCtrl.setGainSchedule(new TrcPidController.GainSchedule(
+            TrcPidController.GainSchedule.ScheduleVariable.ERROR_MAGNITUDE)
+            .addEntry(2.0, new TrcPidController.PidCoefficients(0.1))
+            .addEntry(6.0, new TrcPidController.PidCoefficients(0.05)));
+        assertEquals(0.3, pidCtrl.getOutput(), TOLERANCE);
+        //
+        // Keyed on an external variable: value 10 gives kP 0.02 and kF 0.1 on the set point.
+        //
+        external[0] = 10.0;
+        pidCtrl.setGainSchedule(new TrcPidController.GainSchedule(
+            TrcPidController.GainSchedule.ScheduleVariable.EXTERNAL, () -> external[0])
+            .addEntry(10.0, new TrcPidController.PidCoefficients(0.02, 0.0, 0.0, 0.1)));
+        assertEquals(0.02*4.0 + 0.1*4.0, pidCtrl.getOutput(), TOLERANCE);
+        //
+        // Without a schedule the fixed coefficients are used.
+        //
+        pidCtrl.setGainSchedule(null);
+        input[0] = 3.5;
+        assertEquals(0.5, pidCtrl.getOutput(), TOLERANCE);
+    }   //controllerUsesScheduledGains
+
+    @Test
+    public void speedScheduleIgnoresReadingBeforeRetarget()
+    {
+        FixedTimeSource timeSource = new FixedTimeSource();
+        double[] input = {0.0};
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(1.0), 0.5, () -> input[0]);
+
+        TrcUtil.setTimeSource(timeSource);
+        pidCtrl.setGainSchedule(new TrcPidController.GainSchedule(
+            TrcPidController.GainSchedule.ScheduleVariable.SPEED)
+            .addEntry(0.0, new TrcPidController.PidCoefficients(0.05))
+            .addEntry(100.0, new TrcPidController.PidCoefficients(0.01)));
+        //
+        // Drive to 100 and settle there, then the sensor is reset to zero and a new relative target is set.
+        //
+        input[0] = 100.0;
+        pidCtrl.setTarget(0.0);
+        timeSource.nanoTime += 20000000;
+        pidCtrl.getOutput();
+        input[0] = 0.0;
+        timeSource.nanoTime += 20000000;
+        pidCtrl.setTarget(10.0);
+        timeSource.nanoTime += 20000000;
+        //
+        // The input did not move since the retarget, so the speed is 0 and kP is 0.05, not the 0.01 a made up
+        // speed of 100/0.04 would pick.
+        //
+        assertEquals(0.05*10.0, pidCtrl.getOutput(), TOLERANCE);
+        //
+        // Moving 1 unit in 20 msec is 50 units/s, half way between the entries.
+        //
+        input[0] = 1.0;
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.03*9.0, pidCtrl.getOutput(), TOLERANCE);
+    }   //speedScheduleIgnoresReadingBeforeRetarget
+
+}   //class TrcPidControllerGainScheduleTest
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcPidControllerTest
+{
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 1000000000;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    private static class FixedBattery extends TrcRobotBattery
+    {
+        double voltage;
+
+        FixedBattery(double voltage)
+        {
+            super(true, false, false);
+            this.voltage = voltage;
+        }   //FixedBattery
+
+        @Override
+        public double getVoltage()
+        {
+            return voltage;
+        }   //getVoltage
+
+        @Override
+        public double getCurrent()
+        {
+            return 0.0;
+        }   //getCurrent
+
+        @Override
+        public double getPower()
+        {
+            return 0.0;
+        }   //getPower
+
+    }   //class FixedBattery
+
+    private static final double EPSILON = 1.0e-9;
+
+    private final FixedTimeSource timeSource = new FixedTimeSource();
+    private final double[] input = {0.0};
+
+    @Before
+    public void setUp()
+    {
+        TrcUtil.setTimeSource(timeSource);
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        TrcUtil.setTimeSource(null);
+    }   //tearDown
+
+    @Test
+    public void profiledMoveAcrossZeroKeepsDirection()
+    {
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(0.1), 0.5, () -> input[0]);
+
+        pidCtrl.setAbsoluteSetPoint(true);
+        pidCtrl.setNoOscillation(true);
+        pidCtrl.setTarget(5.0);
+        //
+        // The profile turns around and heads for -10. Still short of it at 0, the move is not on target.
+        //
+        pidCtrl.updateTarget(-10.0, -5.0, 0.0);
+        timeSource.nanoTime += 20000000;
+        pidCtrl.getOutput();
+        assertFalse(pidCtrl.isOnTarget());
+        //
+        // Passing the set point in the new direction is on target.
+        //
+        input[0] = -10.5;
+        timeSource.nanoTime += 20000000;
+        pidCtrl.getOutput();
+        assertTrue(pidCtrl.isOnTarget());
+    }   //profiledMoveAcrossZeroKeepsDirection
+
+    @Test
+    public void feedForwardFollowsTargetVelocity()
+    {
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(0.1), 0.5, () -> input[0]);
+
+        pidCtrl.setAbsoluteSetPoint(true);
+        pidCtrl.setFeedForwardCoefficients(new TrcPidController.FeedForwardCoefficients(0.05, 0.02, 0.01));
+        input[0] = 8.0;
+        pidCtrl.setTarget(10.0);
+        //
+        // kP*2 + kS + kV*5 + kA*2 = 0.2 + 0.05 + 0.1 + 0.02.
+        //
+        pidCtrl.updateTarget(10.0, 5.0, 2.0);
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.37, pidCtrl.getOutput(), EPSILON);
+        //
+        // Moving the other way flips kS, kV and kA but not the error term.
+        //
+        pidCtrl.updateTarget(10.0, -5.0, -2.0);
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.03, pidCtrl.getOutput(), EPSILON);
+        //
+        // Inverted controllers flip the feed forward with the error.
+        //
+        pidCtrl.setInverted(true);
+        pidCtrl.updateTarget(10.0, 5.0, 2.0);
+        timeSource.nanoTime += 20000000;
+        assertEquals(-0.37, pidCtrl.getOutput(), EPSILON);
+    }   //feedForwardFollowsTargetVelocity
+
+    @Test
+    public void staticFrictionWithoutMotionReference()
+    {
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(0.1), 0.5, () -> input[0]);
+
+        pidCtrl.setAbsoluteSetPoint(true);
+        pidCtrl.setFeedForwardCoefficients(new TrcPidController.FeedForwardCoefficients(0.05, 0.02, 0.01));
+        input[0] = 8.0;
+        pidCtrl.setTarget(10.0);
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.25, pidCtrl.getOutput(), EPSILON);
+        //
+        // Within tolerance there is no static friction term.
+        //
+        input[0] = 9.9;
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.01, pidCtrl.getOutput(), EPSILON);
+        //
+        // Overshooting the target pushes back.
+        //
+        input[0] = 12.0;
+        timeSource.nanoTime += 20000000;
+        assertEquals(-0.25, pidCtrl.getOutput(), EPSILON);
+    }   //staticFrictionWithoutMotionReference
+
+    @Test
+    public void voltageCompensationScalesOutput()
+    {
+        FixedBattery battery = new FixedBattery(10.0);
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(0.1), 0.5, () -> input[0]);
+
+        pidCtrl.setAbsoluteSetPoint(true);
+        pidCtrl.setFeedForwardCoefficients(new TrcPidController.FeedForwardCoefficients(0.05, 0.0, 0.0));
+        pidCtrl.setVoltageCompensation(battery, 12.0);
+        input[0] = 8.0;
+        pidCtrl.setTarget(10.0);
+        timeSource.nanoTime += 20000000;
+        assertEquals(1.2, pidCtrl.getVoltageCompensationScale(), EPSILON);
+        assertEquals(0.3, pidCtrl.getOutput(), EPSILON);
+        //
+        // A battery above nominal scales the output down.
+        //
+        battery.voltage = 13.0;
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.25*12.0/13.0, pidCtrl.getOutput(), EPSILON);
+        //
+        // A missing voltage reading leaves the output unscaled.
+        //
+        battery.voltage = 0.0;
+        timeSource.nanoTime += 20000000;
+        assertEquals(0.25, pidCtrl.getOutput(), EPSILON);
+
+        battery.voltage = 10.0;
+        pidCtrl.setVoltageCompensation(null);
+        timeSource.nanoTime += 20000000;
+        assertEquals(1.0, pidCtrl.getVoltageCompensationScale(), EPSILON);
+        assertEquals(0.25, pidCtrl.getOutput(), EPSILON);
+    }   //voltageCompensationScalesOutput
+
+    @Test(expected = IllegalArgumentException.class)
+    public void voltageCompensationRejectsZeroNominal()
+    {
+        TrcPidController pidCtrl = new TrcPidController(
+            "test", new TrcPidController.PidCoefficients(0.1), 0.5, () -> input[0]);
+
+        pidCtrl.setVoltageCompensation(new FixedBattery(12.0), 0.0);
+    }   //voltageCompensationRejectsZeroNominal
+
+}   //class TrcPidControllerTest
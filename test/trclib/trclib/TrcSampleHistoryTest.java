@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcSampleHistoryTest
+{
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 0;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    private final FixedTimeSource timeSource = new FixedTimeSource();
+    private TrcTaskMgr taskMgr;
+
+    @Before
+    public void setUp()
+    {
+        taskMgr = new TrcTaskMgr();
+        TrcUtil.setTimeSource(timeSource);
+    }   //setUp
+
+    @After
+    public void tearDown()
+    {
+        TrcUtil.setTimeSource(null);
+    }   //tearDown
+
+    @Test
+    public void interpolatesBetweenSamples()
+    {
+        TrcSampleHistory history = new TrcSampleHistory("history", 8);
+
+        assertTrue(Double.isNaN(history.lookupAt(1.0)));
+
+        history.addSample(1.0, 10.0);
+        history.addSample(2.0, 20.0);
+        history.addSample(4.0, 0.0);
+
+        assertEquals(10.0, history.lookupAt(1.0), 1e-9);
+        assertEquals(15.0, history.lookupAt(1.5), 1e-9);
+        assertEquals(20.0, history.lookupAt(2.0), 1e-9);
+        assertEquals(15.0, history.lookupAt(2.5), 1e-9);
+        assertEquals(5.0, history.lookupAt(3.5), 1e-9);
+        //
+        // Outside the history the oldest or newest value is returned.
+        //
+        assertEquals(10.0, history.lookupAt(0.0), 0.0);
+        assertEquals(0.0, history.lookupAt(5.0), 0.0);
+        assertEquals(0.0, history.getLatest(), 0.0);
+    }   //interpolatesBetweenSamples
+
+    @Test
+    public void ignoresOutOfOrderSamples()
+    {
+        TrcSampleHistory history = new TrcSampleHistory("history", 4);
+
+        history.addSample(1.0, 10.0);
+        history.addSample(2.0, 20.0);
+        history.addSample(1.5, 100.0);
+
+        assertEquals(2, history.getNumSamples());
+        assertEquals(15.0, history.lookupAt(1.5), 1e-9);
+    }   //ignoresOutOfOrderSamples
+
+    @Test
+    public void wrapsAroundWhenFull()
+    {
+        TrcSampleHistory history = new TrcSampleHistory("history", 4);
+        //
+        // Ten samples through a ring of four, so the head has wrapped more than once. Only 7..10 remain.
+        //
+        for (int i = 1; i <= 10; i++)
+        {
+            history.addSample(i, 10.0*i);
+        }
+
+        assertEquals(4, history.getNumSamples());
+        assertEquals(7.0, history.getOldestTimestamp(), 0.0);
+        assertEquals(100.0, history.getLatest(), 0.0);
+        assertEquals(70.0, history.lookupAt(3.0), 0.0);
+        assertEquals(75.0, history.lookupAt(7.5), 1e-9);
+        assertEquals(85.0, history.lookupAt(8.5), 1e-9);
+        assertEquals(95.0, history.lookupAt(9.5), 1e-9);
+        assertEquals(100.0, history.lookupAt(11.0), 0.0);
+    }   //wrapsAroundWhenFull
+
+    @Test
+    public void clearEmptiesHistory()
+    {
+        TrcSampleHistory history = new TrcSampleHistory("history", 4);
+
+        for (int i = 1; i <= 6; i++)
+        {
+            history.addSample(i, i);
+        }
+        history.clear();
+
+        assertEquals(0, history.getNumSamples());
+        assertTrue(Double.isNaN(history.lookupAt(5.0)));
+        //
+        // After a clear, the ring starts over and earlier timestamps are accepted again.
+        //
+        history.addSample(1.0, -1.0);
+        history.addSample(2.0, -3.0);
+        assertEquals(-2.0, history.lookupAt(1.5), 1e-9);
+    }   //clearEmptiesHistory
+
+    @Test
+    public void samplePeriodIsHonored()
+    {
+        final double[] value = {0.0};
+        TrcSampleHistory history = new TrcSampleHistory("history", 8, () -> value[0]);
+
+        history.setSamplePeriod(0.02);
+        history.setTaskEnabled(true);
+        //
+        // The loop runs every 5 msec but only every fourth loop is sampled.
+        //
+        for (int i = 1; i <= 16; i++)
+        {
+            timeSource.nanoTime = i*5000000L;
+            value[0] = i;
+            taskMgr.executeTaskType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        }
+
+        assertEquals(4, history.getNumSamples());
+        assertEquals(0.005, history.getOldestTimestamp(), 1e-9);
+        assertEquals(13.0, history.getLatest(), 0.0);
+        assertEquals(7.0, history.lookupAt(0.035), 1e-9);
+    }   //samplePeriodIsHonored
+
+}   //class TrcSampleHistoryTest
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TrcStateMachineTest
+{
+    private enum State
+    {
+        START, NEXT, OTHER
+    }   //enum State
+
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 0;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    private final TrcStateMachine<State> sm = new TrcStateMachine<>("testSM");
+
+    @After
+    public void tearDown()
+    {
+        TrcUtil.setTimeSource(null);
+    }   //tearDown
+
+    @Test
+    public void signalAdvancesStateWithoutPolling()
+    {
+        TrcEvent event = new TrcEvent("event");
+
+        sm.start(State.START);
+        sm.waitForSingleEvent(event, State.NEXT);
+        assertFalse(sm.isReady());
+        assertEquals(State.START, sm.getState());
+
+        event.set(true);
+        //
+        // The listener advanced the state machine when the event was signaled, before any poll.
+        //
+        assertEquals(State.NEXT, sm.getState());
+        assertTrue(sm.isReady());
+        assertFalse(sm.isTimedout());
+    }   //signalAdvancesStateWithoutPolling
+
+    @Test
+    public void cancelAdvancesState()
+    {
+        TrcEvent event = new TrcEvent("event");
+
+        sm.start(State.START);
+        sm.waitForSingleEvent(event, State.NEXT);
+        event.cancel();
+
+        assertEquals(State.NEXT, sm.getState());
+        assertTrue(sm.isReady());
+    }   //cancelAdvancesState
+
+    @Test
+    public void waitForAllEventsAdvancesOnLastEvent()
+    {
+        TrcEvent event1 = new TrcEvent("event1");
+        TrcEvent event2 = new TrcEvent("event2");
+
+        sm.start(State.START);
+        sm.addEvent(event1);
+        sm.addEvent(event2);
+        sm.waitForEvents(State.NEXT, 0.0, true);
+
+        event1.set(true);
+        event1.set(false);
+        event1.set(true);
+        assertEquals(State.START, sm.getState());
+        assertFalse(sm.isReady());
+
+        event2.set(true);
+        assertEquals(State.NEXT, sm.getState());
+        assertTrue(sm.isReady());
+    }   //waitForAllEventsAdvancesOnLastEvent
+
+    @Test
+    public void signalFromOtherThreadAdvancesState() throws InterruptedException
+    {
+        TrcEvent event = new TrcEvent("event");
+
+        sm.start(State.START);
+        sm.waitForSingleEvent(event, State.NEXT);
+
+        Thread thread = new Thread(() -> event.set(true));
+        thread.start();
+        thread.join();
+
+        assertEquals(State.NEXT, sm.getState());
+        assertTrue(sm.isReady());
+    }   //signalFromOtherThreadAdvancesState
+
+    @Test
+    public void replacedWaitIgnoresOldEvent()
+    {
+        TrcEvent oldEvent = new TrcEvent("oldEvent");
+        TrcEvent newEvent = new TrcEvent("newEvent");
+
+        sm.start(State.START);
+        sm.waitForSingleEvent(oldEvent, State.NEXT);
+        sm.waitForSingleEvent(newEvent, State.OTHER);
+
+        oldEvent.set(true);
+        assertEquals(State.START, sm.getState());
+        assertFalse(sm.isReady());
+
+        newEvent.set(true);
+        assertEquals(State.OTHER, sm.getState());
+    }   //replacedWaitIgnoresOldEvent
+
+    @Test
+    public void stoppedStateMachineIgnoresEvent()
+    {
+        TrcEvent event = new TrcEvent("event");
+
+        sm.start(State.START);
+        sm.waitForSingleEvent(event, State.NEXT);
+        sm.stop();
+        event.set(true);
+
+        assertNull(sm.getState());
+        assertFalse(sm.isEnabled());
+        assertFalse(sm.isReady());
+    }   //stoppedStateMachineIgnoresEvent
+
+    @Test
+    public void timeoutAdvancesStateWhenPolled()
+    {
+        FixedTimeSource source = new FixedTimeSource();
+        TrcEvent event = new TrcEvent("event");
+
+        TrcUtil.setTimeSource(source);
+        sm.start(State.START);
+        sm.waitForSingleEvent(event, State.NEXT, 1.0);
+
+        source.nanoTime = 500000000L;
+        assertFalse(sm.isReady());
+        source.nanoTime = 1000000000L;
+        assertTrue(sm.isReady());
+        assertTrue(sm.isTimedout());
+        assertEquals(State.NEXT, sm.getState());
+        //
+        // The event no longer affects the state machine after the timeout.
+        //
+        sm.setState(State.OTHER);
+        event.set(true);
+        assertEquals(State.OTHER, sm.getState());
+    }   //timeoutAdvancesStateWhenPolled
+
+}   //class TrcStateMachineTest
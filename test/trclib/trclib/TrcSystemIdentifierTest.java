@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrcSystemIdentifierTest
+{
+    private static final double KS = 1.0;
+    private static final double KV = 0.1;
+    private static final double KA = 0.02;
+    private static final double KG = 1.5;
+    private static final double DEAD_TIME = 0.05;
+    private static final double PERIOD = 0.01;
+    private static final double BATTERY = 12.0;
+
+    /**
+     * This method fills the identifier with the motion of a mechanism following the exact model, with the voltage
+     * applied at each sample taking effect dead time later. The motion is the sum of two sinusoids, a single one
+     * would let a delayed voltage be fitted just as well by a different mix of kV and kA.
+     */
+    private static void addSamples(TrcSystemIdentifier sysId, double kG, double startTime, double duration)
+    {
+        for (int i = 0; i*PERIOD <= duration; i++)
+        {
+            double t = i*PERIOD;
+            double effectTime = t + DEAD_TIME;
+            double vel = 40.0*Math.cos(2.0*effectTime) + 25.0*Math.cos(5.0*effectTime);
+            double accel = -80.0*Math.sin(2.0*effectTime) - 125.0*Math.sin(5.0*effectTime);
+            double voltage = kG + KS*Math.signum(vel) + KV*vel + KA*accel;
+
+            sysId.addSample(startTime + t, voltage/BATTERY, BATTERY, 20.0*Math.sin(2.0*t) + 5.0*Math.sin(5.0*t));
+        }
+    }   //addSamples
+
+    @Test
+    public void recoversKnownCoefficients()
+    {
+        TrcSystemIdentifier sysId = new TrcSystemIdentifier("test", false);
+        addSamples(sysId, 0.0, 0.0, 10.0);
+
+        TrcSystemIdentifier.Model model = sysId.identify();
+        assertNotNull(model);
+        assertEquals(KS, model.kS, 0.02*KS);
+        assertEquals(KV, model.kV, 0.02*KV);
+        assertEquals(KA, model.kA, 0.05*KA);
+        assertEquals(0.0, model.kG, 0.0);
+        assertEquals(DEAD_TIME, model.deadTime, PERIOD);
+        assertEquals(PERIOD, model.samplePeriod, 1e-9);
+        assertTrue(model.rSquared > 0.999);
+    }   //recoversKnownCoefficients
+
+    @Test
+    public void recoversGravityAcrossSegments()
+    {
+        TrcSystemIdentifier sysId = new TrcSystemIdentifier("test", true);
+        //
+        // Two runs far apart in time must be split into segments and never differentiated against each other.
+        //
+        addSamples(sysId, KG, 0.0, 5.0);
+        addSamples(sysId, KG, 100.0, 5.0);
+
+        TrcSystemIdentifier.Model model = sysId.identify();
+        assertNotNull(model);
+        assertEquals(KG, model.kG, 0.02*KG);
+        assertEquals(KS, model.kS, 0.02*KS);
+        assertEquals(KV, model.kV, 0.02*KV);
+        assertEquals(KA, model.kA, 0.05*KA);
+        assertEquals(PERIOD, model.samplePeriod, 1e-9);
+    }   //recoversGravityAcrossSegments
+
+    @Test
+    public void notEnoughData()
+    {
+        TrcSystemIdentifier sysId = new TrcSystemIdentifier("test", false);
+        sysId.addSample(0.0, 0.5, BATTERY, 0.0);
+        sysId.addSample(0.01, 0.5, BATTERY, 1.0);
+
+        assertNull(sysId.identify());
+    }   //notEnoughData
+
+}   //class TrcSystemIdentifierTest
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrcTaskMgrTest
+{
+    @Test
+    public void taskRunsOnlyForRegisteredTypes()
+    {
+        TrcTaskMgr taskMgr = new TrcTaskMgr();
+        final int[] calls = new int[TrcTaskMgr.TaskType.values().length];
+        TrcTaskMgr.TaskObject taskObj = taskMgr.createTask(
+            "testTask", (taskType, runMode) -> calls[taskType.value]++);
+
+        assertTrue(taskObj.hasNoType());
+        assertTrue(taskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK));
+        assertFalse(taskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK));
+        assertTrue(taskObj.registerTask(TrcTaskMgr.TaskType.CONTROL_TASK));
+        assertTrue(taskObj.hasType(TrcTaskMgr.TaskType.PREPERIODIC_TASK));
+        assertTrue(taskObj.hasType(TrcTaskMgr.TaskType.CONTROL_TASK));
+        assertFalse(taskObj.hasType(TrcTaskMgr.TaskType.POSTPERIODIC_TASK));
+
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.POSTPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        assertEquals(1, calls[TrcTaskMgr.TaskType.PREPERIODIC_TASK.value]);
+        assertEquals(0, calls[TrcTaskMgr.TaskType.POSTPERIODIC_TASK.value]);
+
+        assertTrue(taskObj.unregisterTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK));
+        assertFalse(taskObj.unregisterTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK));
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        assertEquals(1, calls[TrcTaskMgr.TaskType.PREPERIODIC_TASK.value]);
+        assertFalse(taskObj.hasNoType());
+
+        assertTrue(taskObj.unregisterTask(TrcTaskMgr.TaskType.CONTROL_TASK));
+        assertTrue(taskObj.hasNoType());
+    }   //taskRunsOnlyForRegisteredTypes
+
+}   //class TrcTaskMgrTest
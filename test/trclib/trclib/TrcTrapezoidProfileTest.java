@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrcTrapezoidProfileTest
+{
+    private static final double MAX_VELOCITY = 50.0;
+    private static final double MAX_ACCELERATION = 100.0;
+    private static final double PERIOD = 0.02;
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * This method runs the profile to its goal checking the constraints on every step.
+     *
+     * @return time taken to reach the goal.
+     */
+    private static double runToGoal(TrcTrapezoidProfile profile)
+    {
+        double start = profile.getPosition();
+        double goal = profile.getGoal();
+        double time = 0.0;
+
+        while (!profile.isDone())
+        {
+            double prevVelocity = profile.getVelocity();
+
+            profile.update(PERIOD);
+            time += PERIOD;
+
+            assertTrue(Math.abs(profile.getVelocity()) <= MAX_VELOCITY + TOLERANCE);
+            assertTrue(Math.abs(profile.getAcceleration()) <= MAX_ACCELERATION + TOLERANCE);
+            assertEquals(profile.getAcceleration(), (profile.getVelocity() - prevVelocity)/PERIOD, TOLERANCE);
+            //
+            // Never leaves the segment between the start and the goal.
+            //
+            assertTrue(profile.getPosition() >= Math.min(start, goal) - TOLERANCE);
+            assertTrue(profile.getPosition() <= Math.max(start, goal) + TOLERANCE);
+            assertTrue("profile did not finish", time < 10.0);
+        }
+
+        return time;
+    }   //runToGoal
+
+    @Test
+    public void trapezoidMove()
+    {
+        TrcTrapezoidProfile profile = new TrcTrapezoidProfile("test", MAX_VELOCITY, MAX_ACCELERATION);
+        profile.reset(0.0);
+        profile.setGoal(100.0);
+        assertFalse(profile.isDone());
+
+        boolean reachedMaxVelocity = false;
+        double time = 0.0;
+        while (!profile.isDone() && time < 10.0)
+        {
+            profile.update(PERIOD);
+            time += PERIOD;
+            reachedMaxVelocity |= profile.getVelocity() == MAX_VELOCITY;
+        }
+
+        assertTrue(reachedMaxVelocity);
+        assertEquals(100.0, profile.getPosition(), 0.0);
+        assertEquals(0.0, profile.getVelocity(), 0.0);
+        //
+        // Ideal time is distance/maxVelocity + maxVelocity/maxAcceleration.
+        //
+        assertEquals(2.5, time, 2*PERIOD);
+
+        profile.reset(0.0);
+        profile.setGoal(100.0);
+        runToGoal(profile);
+    }   //trapezoidMove
+
+    @Test
+    public void triangleMove()
+    {
+        TrcTrapezoidProfile profile = new TrcTrapezoidProfile("test", MAX_VELOCITY, MAX_ACCELERATION);
+        profile.reset(10.0);
+        profile.setGoal(0.0);
+        //
+        // Too short to reach the maximum velocity, the ideal time is 2*sqrt(distance/maxAcceleration).
+        //
+        assertEquals(2.0*Math.sqrt(0.1), runToGoal(profile), 2*PERIOD);
+        assertEquals(0.0, profile.getPosition(), 0.0);
+    }   //triangleMove
+
+    @Test
+    public void goalChangeWhileMoving()
+    {
+        TrcTrapezoidProfile profile = new TrcTrapezoidProfile("test", MAX_VELOCITY, MAX_ACCELERATION);
+        profile.reset(0.0);
+        profile.setGoal(100.0);
+        for (int i = 0; i < 40; i++)
+        {
+            profile.update(PERIOD);
+        }
+        assertTrue(profile.getVelocity() > 0.0);
+        //
+        // Reverse: the profile must decelerate within the acceleration limit before heading back.
+        //
+        double prevVelocity = profile.getVelocity();
+        profile.setGoal(0.0);
+        double time = 0.0;
+        while (!profile.isDone() && time < 10.0)
+        {
+            profile.update(PERIOD);
+            time += PERIOD;
+            assertTrue(Math.abs(profile.getVelocity() - prevVelocity) <= MAX_ACCELERATION*PERIOD + TOLERANCE);
+            assertTrue(Math.abs(profile.getVelocity()) <= MAX_VELOCITY + TOLERANCE);
+            prevVelocity = profile.getVelocity();
+        }
+        assertTrue(profile.isDone());
+        assertEquals(0.0, profile.getPosition(), 0.0);
+    }   //goalChangeWhileMoving
+
+    @Test
+    public void zeroTimeStepHoldsState()
+    {
+        TrcTrapezoidProfile profile = new TrcTrapezoidProfile("test", MAX_VELOCITY, MAX_ACCELERATION);
+        profile.reset(5.0);
+        profile.setGoal(20.0);
+        profile.update(PERIOD);
+        double position = profile.getPosition();
+        profile.update(0.0);
+        assertEquals(position, profile.getPosition(), 0.0);
+        assertEquals(0.0, profile.getAcceleration(), 0.0);
+    }   //zeroTimeStepHoldsState
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidConstraints()
+    {
+        new TrcTrapezoidProfile("test", MAX_VELOCITY, 0.0);
+    }   //invalidConstraints
+
+}   //class TrcTrapezoidProfileTest
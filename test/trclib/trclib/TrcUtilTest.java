@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TrcUtilTest
+{
+    private static class FixedTimeSource implements TrcUtil.TimeSource
+    {
+        long nanoTime = 0;
+
+        @Override
+        public long getNanoTime()
+        {
+            return nanoTime;
+        }   //getNanoTime
+
+        @Override
+        public void sleep(long milliTime)
+        {
+            nanoTime += milliTime*1000000;
+        }   //sleep
+
+    }   //class FixedTimeSource
+
+    @After
+    public void tearDown()
+    {
+        TrcUtil.setTimeSource(null);
+    }   //tearDown
+
+    @Test
+    public void timeSourceDrivesAllTimeMethods()
+    {
+        FixedTimeSource source = new FixedTimeSource();
+        source.nanoTime = 1500000000L;
+        TrcUtil.setTimeSource(source);
+
+        assertEquals(1500000000L, TrcUtil.getCurrentTimeNanos());
+        assertEquals(1500L, TrcUtil.getCurrentTimeMillis());
+        assertEquals(1.5, TrcUtil.getCurrentTime(), 0.0);
+
+        TrcUtil.sleep(250);
+        assertEquals(1.75, TrcUtil.getCurrentTime(), 0.0);
+
+        TrcUtil.setTimeSource(null);
+        assertNull(TrcUtil.getTimeSource());
+    }   //timeSourceDrivesAllTimeMethods
+
+    @Test
+    public void clipAndScaleRange()
+    {
+        assertEquals(1.0, TrcUtil.clipRange(1.2), 0.0);
+        assertEquals(-1.0, TrcUtil.clipRange(-3.0), 0.0);
+        assertEquals(0.3, TrcUtil.clipRange(0.3), 0.0);
+        assertEquals(5, TrcUtil.clipRange(7, 0, 5));
+        assertEquals(50.0, TrcUtil.scaleRange(0.0, -1.0, 1.0, 0.0, 100.0), 1e-9);
+        assertEquals(0.0, TrcUtil.applyDeadband(0.05, 0.1), 0.0);
+        assertEquals(-0.2, TrcUtil.applyDeadband(-0.2, 0.1), 0.0);
+    }   //clipAndScaleRange
+
+}   //class TrcUtilTest
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package trclib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrcWarmupTest
+{
+    private TrcTaskMgr taskMgr;
+
+    @Before
+    public void setUp()
+    {
+        taskMgr = new TrcTaskMgr();
+    }   //setUp
+
+    @Test
+    public void warmupRemovesOnlyItsOwnTasks()
+    {
+        TrcTaskMgr.TaskObject robotTask = taskMgr.createTask("robotTask", (taskType, runMode) -> {});
+        List<TrcTaskMgr.TaskObject> tasksBefore = new ArrayList<>(taskMgr.getTaskList());
+
+        new TrcWarmup("warmup", null);
+
+        assertEquals(tasksBefore, taskMgr.getTaskList());
+        assertTrue(taskMgr.getTaskList().contains(robotTask));
+    }   //warmupRemovesOnlyItsOwnTasks
+
+    @Test
+    public void captureIgnoresOtherThreads() throws InterruptedException
+    {
+        final TrcTaskMgr.TaskObject[] otherTask = new TrcTaskMgr.TaskObject[1];
+
+        taskMgr.startTaskCapture();
+        TrcTaskMgr.TaskObject ownTask = taskMgr.createTask("ownTask", (taskType, runMode) -> {});
+        Thread thread = new Thread(() -> otherTask[0] = taskMgr.createTask("otherTask", (taskType, runMode) -> {}));
+        thread.start();
+        thread.join();
+        List<TrcTaskMgr.TaskObject> captured = taskMgr.stopTaskCapture();
+
+        assertEquals(1, captured.size());
+        assertTrue(captured.contains(ownTask));
+        assertFalse(captured.contains(otherTask[0]));
+        assertTrue(taskMgr.getTaskList().contains(otherTask[0]));
+        assertTrue(taskMgr.stopTaskCapture().isEmpty());
+    }   //captureIgnoresOtherThreads
+
+}   //class TrcWarmupTest
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package alloctrack;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import simlib.SimAutoRobot;
+import simlib.SimAutoScenario;
+import simlib.SimRobotBase;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class implements the main loop allocation tracker. It runs a simulated robot (a SimRobotBase subclass) in
+ * the given mode long enough for the JIT to settle, then runs a number of loop iterations with allocation tracking
+ * enabled in the task manager and reports the bytes allocated per loop by every task, by the rest of the loop
+ * (robot mode code, loop bookkeeping and simulation) and in total. It exits with a non-zero status if a loop
+ * allocates more than the budget on average, so a build can hold the loop to an allocation-free target.
+ *
+ * Allocations are counted with the thread allocated bytes of the HotSpot ThreadMXBean, so only code running on the
+ * loop thread is counted. In simulation that includes the control tasks.
+ *
+ * The team492 robot is measured as team492.Robot from robotsim. It registers the drive base, PID drive, elevator,
+ * cube pickup and sonar tasks of the robot and runs the robot's own autonomous commands, so it is measured in auto
+ * mode, e.g. -mode=auto -scenario=AUTO_SIDE,LEFT_POS,RED,LLL team492.Robot. It has no TeleOp mode object.
+ *
+ * Usage: java -cp alloctrack.jar:robot-classes alloctrack.AllocTracker [-mode=auto|teleop|test] [-warmup=loops]
+ *                                                                      [-loops=n] [-budget=bytes]
+ *                                                                      [-scenario=scenario] robotClass
+ */
+public class AllocTracker
+{
+    private static final int DEF_WARMUP_LOOPS = 20000;
+    private static final int DEF_MEASURED_LOOPS = 2000;
+    private static final long DEF_BYTES_BUDGET = 0;
+
+    private final SimRobotBase robot;
+    private final com.sun.management.ThreadMXBean mxBean;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param robot specifies the simulated robot, it must not have been initialized.
+     */
+    public AllocTracker(SimRobotBase robot)
+    {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean) ||
+            !((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported())
+        {
+            throw new UnsupportedOperationException("This JVM does not support thread allocation counters.");
+        }
+
+        this.robot = robot;
+        this.mxBean = (com.sun.management.ThreadMXBean) threadMXBean;
+    }   //AllocTracker
+
+    /**
+     * This method runs the robot in the given mode for the given number of loop iterations.
+     *
+     * @param runMode specifies the run mode.
+     * @param numLoops specifies the number of loop iterations.
+     */
+    private void runLoops(RunMode runMode, int numLoops)
+    {
+        final int[] loopCount = {0};
+
+        robot.runMode(runMode, Double.MAX_VALUE, () -> loopCount[0]++ >= numLoops);
+    }   //runLoops
+
+    /**
+     * This method warms up the robot code, runs the measured loops and prints the report.
+     *
+     * @param runMode specifies the run mode to measure.
+     * @param warmupLoops specifies the number of loop iterations to run before measuring.
+     * @param measuredLoops specifies the number of loop iterations to measure.
+     * @param bytesBudget specifies the maximum average number of bytes a loop may allocate.
+     * @return true if the loop is within budget, false otherwise.
+     */
+    public boolean run(RunMode runMode, int warmupLoops, int measuredLoops, long bytesBudget)
+    {
+        TrcTaskMgr taskMgr = TrcTaskMgr.getInstance();
+        long threadId = Thread.currentThread().getId();
+
+        runLoops(RunMode.DISABLED_MODE, 20);
+        runLoops(runMode, warmupLoops);
+
+        if (!taskMgr.setAllocationTrackingEnabled(true))
+        {
+            throw new UnsupportedOperationException("Task manager allocation tracking is not supported.");
+        }
+        taskMgr.resetTaskPerformanceMetrics();
+
+        long startBytes = mxBean.getThreadAllocatedBytes(threadId);
+        runLoops(runMode, measuredLoops);
+        long totalBytes = mxBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+        taskMgr.setAllocationTrackingEnabled(false);
+
+        long taskBytes = 0;
+        System.out.printf("%-32s %-20s %10s %12s %12s\n", "Task", "Type", "Calls", "Bytes/Call", "Bytes/Loop");
+        for (TrcTaskMgr.TaskObject taskObj: taskMgr.getTaskList())
+        {
+            for (TrcTaskMgr.TaskType type: TrcTaskMgr.TaskType.values())
+            {
+                int calls = taskObj.getTimeSlotCount(type);
+
+                if (calls > 0 && type != TrcTaskMgr.TaskType.START_TASK && type != TrcTaskMgr.TaskType.STOP_TASK)
+                {
+                    long bytes = taskObj.getAllocatedBytes(type);
+
+                    taskBytes += bytes;
+                    System.out.printf(
+                        Locale.US, "%-32s %-20s %10d %12.1f %12.1f\n", taskObj, type, calls,
+                        (double)bytes/calls, (double)bytes/measuredLoops);
+                }
+            }
+        }
+
+        double bytesPerLoop = (double)totalBytes/measuredLoops;
+        boolean withinBudget = bytesPerLoop <= bytesBudget;
+        System.out.printf(Locale.US, "%-77s %12.1f\n", "All tasks", (double)taskBytes/measuredLoops);
+        System.out.printf(
+            Locale.US, "%-77s %12.1f\n", "Robot mode, loop and simulation",
+            (double)Math.max(totalBytes - taskBytes, 0)/measuredLoops);
+        System.out.printf(
+            Locale.US, "%-77s %12.1f\n%s: %d loops in %s after %d warm-up loops, budget %d bytes/loop.\n",
+            "Loop total", bytesPerLoop, withinBudget? "PASS": "FAIL", measuredLoops, runMode, warmupLoops,
+            bytesBudget);
+
+        return withinBudget;
+    }   //run
+
+    /**
+     * This method creates an instance of the simulated robot.
+     *
+     * @param robotClassName specifies the fully qualified name of the SimRobotBase subclass.
+     * @return simulated robot.
+     */
+    private static SimRobotBase createRobot(String robotClassName)
+    {
+        try
+        {
+            return Class.forName(robotClassName).asSubclass(SimRobotBase.class).newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalArgumentException("Cannot create robot " + robotClassName + ": " + e);
+        }
+    }   //createRobot
+
+    /**
+     * This method converts a run mode option to a run mode.
+     *
+     * @param mode specifies the run mode option.
+     * @return run mode.
+     */
+    private static RunMode parseRunMode(String mode)
+    {
+        switch (mode)
+        {
+            case "auto":
+                return RunMode.AUTO_MODE;
+
+            case "teleop":
+                return RunMode.TELEOP_MODE;
+
+            case "test":
+                return RunMode.TEST_MODE;
+
+            default:
+                throw new IllegalArgumentException("Invalid run mode " + mode);
+        }
+    }   //parseRunMode
+
+    /**
+     * This method is the entry point of the tracker.
+     *
+     * @param args specifies the command line arguments.
+     */
+    public static void main(String[] args)
+    {
+        RunMode runMode = RunMode.TELEOP_MODE;
+        int warmupLoops = DEF_WARMUP_LOOPS;
+        int measuredLoops = DEF_MEASURED_LOOPS;
+        long bytesBudget = DEF_BYTES_BUDGET;
+        String scenario = null;
+        String robotClassName = null;
+
+        for (String arg: args)
+        {
+            if (arg.startsWith("-mode="))
+            {
+                runMode = parseRunMode(arg.substring(6));
+            }
+            else if (arg.startsWith("-warmup="))
+            {
+                warmupLoops = Integer.parseInt(arg.substring(8));
+            }
+            else if (arg.startsWith("-loops="))
+            {
+                measuredLoops = Integer.parseInt(arg.substring(7));
+            }
+            else if (arg.startsWith("-budget="))
+            {
+                bytesBudget = Long.parseLong(arg.substring(8));
+            }
+            else if (arg.startsWith("-scenario="))
+            {
+                scenario = arg.substring(10);
+            }
+            else
+            {
+                robotClassName = arg;
+            }
+        }
+
+        if (robotClassName == null || measuredLoops <= 0)
+        {
+            System.out.println(
+                "Usage: AllocTracker [-mode=auto|teleop|test] [-warmup=loops] [-loops=n] [-budget=bytes] " +
+                "[-scenario=scenario] robotClass");
+            System.exit(2);
+        }
+
+        SimRobotBase robot = createRobot(robotClassName);
+        robot.robotInit();
+        if (robot instanceof SimAutoRobot)
+        {
+            //
+            // An autonomous robot needs a scenario to run, default to the first one.
+            //
+            SimAutoRobot autoRobot = (SimAutoRobot) robot;
+            autoRobot.setupScenario(
+                scenario != null? SimAutoScenario.parse(scenario):
+                SimAutoScenario.enumerate(autoRobot.getAutoRoutines(), autoRobot.getStartPositions()).get(0));
+        }
+
+        boolean withinBudget = new AllocTracker(robot).run(runMode, warmupLoops, measuredLoops, bytesBudget);
+        robot.shutdown();
+        System.exit(withinBudget? 0: 1);
+    }   //main
+
+}   //class AllocTracker
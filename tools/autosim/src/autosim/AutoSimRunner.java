@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package autosim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import simlib.SimAutoResult;
+import simlib.SimAutoRobot;
+import simlib.SimAutoScenario;
+
+/**
+ * This class implements a headless autonomous regression runner. It runs every autonomous routine of a simulated
+ * robot (a SimAutoRobot subclass) from every start position, on both alliances and with every game specific
+ * message, faster than real time on a simulated clock. It reports the completion time, the final pose error and
+ * the time spent in each state, and exits with a non-zero status if any scenario did not complete, took longer
+ * than its time budget or ended too far from the expected pose.
+ *
+ * trclib keeps global state (the task manager and the time source), so each scenario runs in its own JVM. The
+ * scenarios are spread over all cores.
+ *
+ * The team492 robot runs as team492.Robot from robotsim, which builds the robot's own autonomous commands
+ * against desktop stand-ins of its Robot, Elevator and CubePickup classes on simlib devices.
+ *
+ * Usage: java -cp autosim.jar:robot-classes autosim.AutoSimRunner [-jobs=n] [-tolerance=inches]
+ *                                                                  [-routines=name,...] robotClass
+ *
+ *        e.g. java -cp autosim.jar:robotsim.jar:simlib.jar:trclib.jar:halstub.jar autosim.AutoSimRunner team492.Robot
+ */
+public class AutoSimRunner
+{
+    private static final String SCENARIO_OPTION = "-scenario=";
+    private static final double DEF_POSE_TOLERANCE = 6.0;
+
+    private final String robotClassName;
+    private final int numJobs;
+    private final double poseTolerance;
+    private final List<String> routineFilter;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param robotClassName specifies the fully qualified name of the SimAutoRobot subclass.
+     * @param numJobs specifies the number of scenarios to run in parallel.
+     * @param poseTolerance specifies the maximum final pose error in inches.
+     * @param routineFilter specifies the routines to run, null to run all.
+     */
+    public AutoSimRunner(String robotClassName, int numJobs, double poseTolerance, List<String> routineFilter)
+    {
+        this.robotClassName = robotClassName;
+        this.numJobs = numJobs;
+        this.poseTolerance = poseTolerance;
+        this.routineFilter = routineFilter;
+    }   //AutoSimRunner
+
+    /**
+     * This method creates an instance of the simulated robot.
+     *
+     * @param robotClassName specifies the fully qualified name of the SimAutoRobot subclass.
+     * @return simulated robot.
+     */
+    private static SimAutoRobot createRobot(String robotClassName)
+    {
+        try
+        {
+            return Class.forName(robotClassName).asSubclass(SimAutoRobot.class).newInstance();
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalArgumentException("Cannot create robot " + robotClassName + ": " + e);
+        }
+    }   //createRobot
+
+    /**
+     * This method runs one scenario in a child JVM and returns its result.
+     *
+     * @param scenario specifies the scenario.
+     * @return result of the scenario, null if the child process failed.
+     * @throws IOException if the child process cannot be started.
+     * @throws InterruptedException if interrupted while waiting for the child process.
+     */
+    private SimAutoResult runChild(SimAutoScenario scenario) throws IOException, InterruptedException
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(
+            java, "-cp", System.getProperty("java.class.path"), AutoSimRunner.class.getName(),
+            SCENARIO_OPTION + scenario, robotClassName);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        SimAutoResult result = null;
+        StringBuilder output = new StringBuilder();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream())))
+        {
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                SimAutoResult lineResult = SimAutoResult.decode(line);
+
+                if (lineResult != null)
+                {
+                    result = lineResult;
+                }
+                else
+                {
+                    output.append("    ").append(line).append('\n');
+                }
+            }
+        }
+
+        if (process.waitFor() != 0 || result == null)
+        {
+            System.out.printf("%s: child process failed (exit=%d)\n%s", scenario, process.exitValue(), output);
+            result = null;
+        }
+
+        return result;
+    }   //runChild
+
+    /**
+     * This method runs all scenarios and prints the report.
+     *
+     * @return number of failed scenarios.
+     * @throws Exception if a scenario could not be run.
+     */
+    public int runAll() throws Exception
+    {
+        SimAutoRobot robot = createRobot(robotClassName);
+        String[] routines = robot.getAutoRoutines();
+        ArrayList<SimAutoScenario> scenarios = new ArrayList<>();
+        ArrayList<Double> budgets = new ArrayList<>();
+
+        for (SimAutoScenario scenario: SimAutoScenario.enumerate(routines, robot.getStartPositions()))
+        {
+            if (routineFilter == null || routineFilter.contains(scenario.routine))
+            {
+                scenarios.add(scenario);
+                budgets.add(robot.getTimeBudget(scenario));
+            }
+        }
+        robot.shutdown();
+
+        ExecutorService executor = Executors.newFixedThreadPool(numJobs);
+        ArrayList<Future<SimAutoResult>> futures = new ArrayList<>();
+        long startNanos = System.nanoTime();
+
+        for (SimAutoScenario scenario: scenarios)
+        {
+            futures.add(executor.submit(() -> runChild(scenario)));
+        }
+
+        int numFailures = 0;
+        System.out.printf("%-40s %-6s %8s %8s %8s  %s\n", "Scenario", "Status", "Time", "Budget", "PoseErr",
+            "StateDurations");
+        for (int i = 0; i < scenarios.size(); i++)
+        {
+            SimAutoScenario scenario = scenarios.get(i);
+            SimAutoResult result = futures.get(i).get();
+            double budget = budgets.get(i);
+
+            if (result == null)
+            {
+                numFailures++;
+                System.out.printf("%-40s %-6s\n", scenario, "ERROR");
+            }
+            else
+            {
+                String status = !result.completed? "DNF":
+                                result.completionTime > budget? "SLOW":
+                                result.poseError > poseTolerance? "POSE": "PASS";
+
+                if (!status.equals("PASS"))
+                {
+                    numFailures++;
+                }
+                System.out.printf(
+                    Locale.US, "%-40s %-6s %8.2f %8.2f %8.1f  %s\n", scenario, status, result.completionTime,
+                    budget, result.poseError, result.getStateDurationsString());
+            }
+        }
+        executor.shutdown();
+
+        System.out.printf(
+            Locale.US, "%d scenarios, %d failed, %.1f seconds using %d jobs.\n",
+            scenarios.size(), numFailures, (System.nanoTime() - startNanos)/1000000000.0, numJobs);
+
+        return numFailures;
+    }   //runAll
+
+    /**
+     * This method is the entry point of the runner. Without -scenario, it runs all scenarios in child processes.
+     * With -scenario, it is a child process that runs the given scenario and prints its result line.
+     *
+     * @param args specifies the command line arguments.
+     * @throws Exception if the runner failed.
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int numJobs = Runtime.getRuntime().availableProcessors();
+        double poseTolerance = DEF_POSE_TOLERANCE;
+        List<String> routineFilter = null;
+        String scenario = null;
+        String robotClassName = null;
+
+        for (String arg: args)
+        {
+            if (arg.startsWith("-jobs="))
+            {
+                numJobs = Integer.parseInt(arg.substring(6));
+            }
+            else if (arg.startsWith("-tolerance="))
+            {
+                poseTolerance = Double.parseDouble(arg.substring(11));
+            }
+            else if (arg.startsWith("-routines="))
+            {
+                routineFilter = Arrays.asList(arg.substring(10).split(","));
+            }
+            else if (arg.startsWith(SCENARIO_OPTION))
+            {
+                scenario = arg.substring(SCENARIO_OPTION.length());
+            }
+            else
+            {
+                robotClassName = arg;
+            }
+        }
+
+        if (robotClassName == null)
+        {
+            System.out.println("Usage: AutoSimRunner [-jobs=n] [-tolerance=inches] [-routines=name,...] robotClass");
+            System.exit(2);
+        }
+        else if (scenario != null)
+        {
+            SimAutoResult result = createRobot(robotClassName).runScenario(SimAutoScenario.parse(scenario));
+            System.out.println(result.encode());
+            System.exit(0);
+        }
+        else
+        {
+            int numFailures = new AutoSimRunner(robotClassName, numJobs, poseTolerance, routineFilter).runAll();
+            System.exit(numFailures > 0? 1: 0);
+        }
+    }   //main
+
+}   //class AutoSimRunner
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * This class provides a repeatable, noisy input signal for the benchmarks so that the JIT cannot fold the
+ * computations into constants and every run sees the same data.
+ */
+public class BenchmarkInputs
+{
+    private static final int NUM_SAMPLES = 1024;
+    private static final long SEED = 492;
+
+    private final double[] samples = new double[NUM_SAMPLES];
+    private int index = 0;
+
+    /**
+     * Constructor: Create an instance of the object.
+     *
+     * @param amplitude specifies the amplitude of the signal.
+     * @param noise specifies the standard deviation of the noise added to the signal.
+     */
+    public BenchmarkInputs(double amplitude, double noise)
+    {
+        Random random = new Random(SEED);
+
+        for (int i = 0; i < NUM_SAMPLES; i++)
+        {
+            samples[i] = amplitude*Math.sin(2.0*Math.PI*i/NUM_SAMPLES) + noise*random.nextGaussian();
+        }
+    }   //BenchmarkInputs
+
+    /**
+     * This method returns the next sample of the signal.
+     *
+     * @return next sample.
+     */
+    public double next()
+    {
+        index = (index + 1) & (NUM_SAMPLES - 1);
+        return samples[index];
+    }   //next
+
+}   //class BenchmarkInputs
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simlib.SimGyro;
+import trclib.TrcDataIntegrator;
+import trclib.TrcGyro;
+import trclib.TrcRobot;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class benchmarks one step of the data integrator task, integrating the rotation rate of a gyro twice like
+ * it does for a gyro that has no heading of its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DataIntegratorBenchmark
+{
+    private final BenchmarkInputs rateInputs = new BenchmarkInputs(90.0, 2.0);
+    private TrcDataIntegrator<TrcGyro.DataType> integrator;
+
+    @Setup
+    public void setup()
+    {
+        new TrcTaskMgr();
+        SimGyro gyro = new SimGyro("gyro", () -> 0.0, rateInputs::next);
+        integrator = new TrcDataIntegrator<>("integrator", gyro, TrcGyro.DataType.ROTATION_RATE, true);
+    }   //setup
+
+    @Benchmark
+    public double integratorTask()
+    {
+        integrator.integratorTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        return integrator.getDoubleIntegratedData(0).value;
+    }   //integratorTask
+
+}   //class DataIntegratorBenchmark
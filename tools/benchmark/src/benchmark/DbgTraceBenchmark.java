@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import trclib.TrcDbgTrace;
+
+/**
+ * This class benchmarks formatting a trace message, both when it is printed and when it is filtered out by the
+ * message level (which still pays for the varargs array and the boxing). The console output is discarded so that
+ * only the tracing cost is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DbgTraceBenchmark
+{
+    private final BenchmarkInputs inputs = new BenchmarkInputs(100.0, 1.0);
+    private PrintStream stdout;
+    private TrcDbgTrace infoTracer;
+    private TrcDbgTrace errTracer;
+
+    @Setup
+    public void setup()
+    {
+        stdout = System.out;
+        System.setOut(new PrintStream(new OutputStream()
+        {
+            @Override
+            public void write(int b)
+            {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len)
+            {
+            }
+        }));
+        infoTracer = new TrcDbgTrace(
+            "infoTracer", false, TrcDbgTrace.TraceLevel.API, TrcDbgTrace.MsgLevel.INFO);
+        errTracer = new TrcDbgTrace(
+            "errTracer", false, TrcDbgTrace.TraceLevel.API, TrcDbgTrace.MsgLevel.ERR);
+    }   //setup
+
+    @TearDown
+    public void tearDown()
+    {
+        System.setOut(stdout);
+    }   //tearDown
+
+    @Benchmark
+    public void traceInfo()
+    {
+        infoTracer.traceInfo("traceInfo", "x=%.1f,y=%.1f,heading=%.1f", inputs.next(), inputs.next(), inputs.next());
+    }   //traceInfo
+
+    @Benchmark
+    public void traceInfoFiltered()
+    {
+        errTracer.traceInfo("traceInfo", "x=%.1f,y=%.1f,heading=%.1f", inputs.next(), inputs.next(), inputs.next());
+    }   //traceInfoFiltered
+
+}   //class DbgTraceBenchmark
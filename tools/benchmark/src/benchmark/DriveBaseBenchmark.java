@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simlib.SimMotor;
+import trclib.TrcDriveBase;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class benchmarks the mecanum drive calculation with field oriented inputs, driving simulated motors so that
+ * only the drive base and the motor controller bookkeeping are measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DriveBaseBenchmark
+{
+    private final BenchmarkInputs xInputs = new BenchmarkInputs(1.0, 0.05);
+    private final BenchmarkInputs yInputs = new BenchmarkInputs(0.8, 0.05);
+    private final BenchmarkInputs headingInputs = new BenchmarkInputs(180.0, 1.0);
+    private SimMotor leftFrontMotor;
+    private TrcDriveBase driveBase;
+
+    @Setup
+    public void setup()
+    {
+        new TrcTaskMgr();
+        leftFrontMotor = new SimMotor("leftFrontMotor");
+        driveBase = new TrcDriveBase(
+            leftFrontMotor, new SimMotor("leftRearMotor"), new SimMotor("rightFrontMotor"),
+            new SimMotor("rightRearMotor"));
+    }   //setup
+
+    @Benchmark
+    public double mecanumDriveCartesian()
+    {
+        double x = xInputs.next();
+        double y = yInputs.next();
+
+        driveBase.mecanumDrive_Cartesian(x, y, 0.25*x, false, headingInputs.next());
+        return leftFrontMotor.getMotorOutput();
+    }   //mecanumDriveCartesian
+
+}   //class DriveBaseBenchmark
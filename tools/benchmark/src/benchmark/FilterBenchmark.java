@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import trclib.TrcFilter;
+import trclib.TrcFilterBank;
+import trclib.TrcIIRFilter;
+import trclib.TrcKalmanFilter;
+
+/**
+ * This class benchmarks filtering one sample with the filters used on the analog sensors, and filtering a sample
+ * of each of a dozen channels with one filter object per channel versus one filter bank.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FilterBenchmark
+{
+    private final BenchmarkInputs inputs = new BenchmarkInputs(50.0, 3.0);
+    private static final int NUM_CHANNELS = 12;
+    private final double[] channelData = new double[NUM_CHANNELS];
+    private final double[] filteredData = new double[NUM_CHANNELS];
+    private TrcKalmanFilter kalmanFilter;
+    private TrcIIRFilter iirFilter;
+    private TrcFilter[] channelFilters;
+    private TrcFilterBank filterBank;
+
+    @Setup
+    public void setup()
+    {
+        kalmanFilter = new TrcKalmanFilter("kalmanFilter");
+        iirFilter = new TrcIIRFilter("iirFilter");
+        channelFilters = new TrcFilter[NUM_CHANNELS];
+        for (int i = 0; i < NUM_CHANNELS; i++)
+        {
+            channelFilters[i] = new TrcKalmanFilter("kalmanFilter" + i);
+        }
+        filterBank = TrcFilterBank.createKalmanBank("kalmanBank", NUM_CHANNELS, 0.022, 0.617);
+    }   //setup
+
+    @Benchmark
+    public double kalmanFilterData()
+    {
+        return kalmanFilter.filterData(inputs.next());
+    }   //kalmanFilterData
+
+    @Benchmark
+    public double iirFilterData()
+    {
+        return iirFilter.filterData(inputs.next());
+    }   //iirFilterData
+
+    @Benchmark
+    public double kalmanFilterChannels()
+    {
+        for (int i = 0; i < NUM_CHANNELS; i++)
+        {
+            filteredData[i] = channelFilters[i].filterData(inputs.next());
+        }
+        return filteredData[NUM_CHANNELS - 1];
+    }   //kalmanFilterChannels
+
+    @Benchmark
+    public double kalmanFilterBank()
+    {
+        for (int i = 0; i < NUM_CHANNELS; i++)
+        {
+            channelData[i] = inputs.next();
+        }
+        filterBank.filterData(channelData, filteredData);
+        return filteredData[NUM_CHANNELS - 1];
+    }   //kalmanFilterBank
+
+}   //class FilterBenchmark
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import trclib.TrcPixyCam;
+
+/**
+ * This class benchmarks parsing one pixy camera frame. The camera is fed from a recorded byte stream instead of
+ * a serial bus, and each read request is completed by the benchmark loop, the same way the device thread
+ * completes them on the robot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PixyCamBenchmark
+{
+    private static final int SYNC_WORD = 0xaa55;
+
+    /**
+     * This class implements a pixy camera reading from a byte stream that holds a whole number of frames.
+     */
+    private static class StreamPixyCam extends TrcPixyCam
+    {
+        private final byte[] stream;
+        private final byte[][] buffers = new byte[16][];
+        private int streamIndex = 0;
+        private RequestTag pendingTag = null;
+        private int pendingLength = 0;
+
+        /**
+         * Constructor: Create an instance of the object.
+         *
+         * @param stream specifies the byte stream.
+         */
+        public StreamPixyCam(byte[] stream)
+        {
+            super("pixy", false);
+            this.stream = stream;
+            for (int i = 0; i < buffers.length; i++)
+            {
+                buffers[i] = new byte[i];
+            }
+        }   //StreamPixyCam
+
+        /**
+         * This method completes the pending read requests until the whole stream has been consumed once.
+         */
+        public void parseStream()
+        {
+            do
+            {
+                RequestTag tag = pendingTag;
+                byte[] data = buffers[pendingLength];
+
+                for (int i = 0; i < data.length; i++)
+                {
+                    data[i] = stream[streamIndex];
+                    streamIndex = (streamIndex + 1)%stream.length;
+                }
+                readCompletion(tag, -1, data, false);
+            } while (streamIndex != 0);
+        }   //parseStream
+
+        @Override
+        public void asyncReadData(RequestTag requestTag, int length)
+        {
+            pendingTag = requestTag;
+            pendingLength = length;
+        }   //asyncReadData
+
+        @Override
+        public void asyncWriteData(RequestTag requestTag, byte[] data)
+        {
+        }   //asyncWriteData
+
+    }   //class StreamPixyCam
+
+    @Param({"1", "4"})
+    public int numObjects;
+
+    private StreamPixyCam pixyCam;
+
+    /**
+     * This method writes a 16-bit word in LSB first order.
+     *
+     * @param out specifies the output stream.
+     * @param word specifies the word.
+     */
+    private static void writeWord(ByteArrayOutputStream out, int word)
+    {
+        out.write(word & 0xff);
+        out.write((word >> 8) & 0xff);
+    }   //writeWord
+
+    /**
+     * This method creates a frame with the given number of normal object blocks. Each object block starts with a
+     * sync word and the frame starts with an extra sync word, so two sync words in a row mark the frame start.
+     *
+     * @param numObjects specifies the number of object blocks.
+     * @return frame bytes.
+     */
+    private static byte[] createFrame(int numObjects)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writeWord(out, SYNC_WORD);
+        for (int i = 0; i < numObjects; i++)
+        {
+            int[] block = {1, 100 + 20*i, 80 + 5*i, 30, 20};
+            int checksum = 0;
+
+            writeWord(out, SYNC_WORD);
+            for (int word: block)
+            {
+                checksum += word;
+            }
+            writeWord(out, checksum);
+            for (int word: block)
+            {
+                writeWord(out, word);
+            }
+        }
+
+        return out.toByteArray();
+    }   //createFrame
+
+    @Setup
+    public void setup()
+    {
+        pixyCam = new StreamPixyCam(createFrame(numObjects));
+        pixyCam.start();
+        //
+        // Prime the parser so that every benchmark invocation parses exactly one frame.
+        //
+        pixyCam.parseStream();
+        pixyCam.getDetectedObjects();
+    }   //setup
+
+    @Benchmark
+    public TrcPixyCam.ObjectBlock[] parseFrame()
+    {
+        pixyCam.parseStream();
+        return pixyCam.getDetectedObjects();
+    }   //parseFrame
+
+}   //class PixyCamBenchmark
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import trclib.TrcRobot;
+import trclib.TrcTaskMgr;
+
+/**
+ * This class benchmarks the task manager dispatching one task type to the registered tasks. The robot registers
+ * a few dozen tasks (motors, sensors, PID drives, button handlers), so the task counts cover a small robot, the
+ * competition robot and a robot with every subsystem enabled.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskMgrBenchmark
+{
+    @Param({"10", "40", "100"})
+    public int numTasks;
+
+    private TrcTaskMgr taskMgr;
+    private long counter = 0;
+
+    /**
+     * This method creates the task manager and registers the tasks. Every task is a continuous task and every
+     * other task is also a periodic task, so dispatching a type also skips the tasks not registered for it.
+     */
+    @Setup
+    public void setup()
+    {
+        taskMgr = new TrcTaskMgr();
+
+        for (int i = 0; i < numTasks; i++)
+        {
+            TrcTaskMgr.TaskObject taskObj = taskMgr.createTask("task" + i, this::task);
+            taskObj.registerTask(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK);
+            if (i%2 == 0)
+            {
+                taskObj.registerTask(TrcTaskMgr.TaskType.PREPERIODIC_TASK);
+            }
+        }
+    }   //setup
+
+    /**
+     * This method is the benchmark task, it does a trivial amount of work so that the dispatch cost dominates.
+     *
+     * @param taskType specifies the type of task being run.
+     * @param runMode specifies the current robot run mode.
+     */
+    private void task(TrcTaskMgr.TaskType taskType, TrcRobot.RunMode runMode)
+    {
+        counter++;
+    }   //task
+
+    @Benchmark
+    public long executeContinuousTasks()
+    {
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PRECONTINUOUS_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        return counter;
+    }   //executeContinuousTasks
+
+    @Benchmark
+    public long executePeriodicTasks()
+    {
+        taskMgr.executeTaskType(TrcTaskMgr.TaskType.PREPERIODIC_TASK, TrcRobot.RunMode.TELEOP_MODE);
+        return counter;
+    }   //executePeriodicTasks
+
+}   //class TaskMgrBenchmark
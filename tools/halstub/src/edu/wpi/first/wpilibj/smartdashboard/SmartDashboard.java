@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package edu.wpi.first.wpilibj.smartdashboard;
+
+import java.util.HashMap;
+
+/**
+ * This class is a desktop stand-in for the WPILib SmartDashboard. It keeps the dashboard values in memory so that
+ * hallib and trclib can be built, tested and benchmarked without a WPILib install. It only provides the methods
+ * hallib uses, with the same signatures as WPILib so that classes compiled against it run with the real WPILib on
+ * the robot. It must never be on the robot classpath.
+ */
+public class SmartDashboard
+{
+    private static final HashMap<String, Object> values = new HashMap<>();
+
+    /**
+     * This method puts a string value in the dashboard.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true if the value was set, false if the key holds a value of a different type.
+     */
+    public static synchronized boolean putString(String key, String value)
+    {
+        return put(key, value);
+    }   //putString
+
+    /**
+     * This method puts a number value in the dashboard.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true if the value was set, false if the key holds a value of a different type.
+     */
+    public static synchronized boolean putNumber(String key, double value)
+    {
+        return put(key, value);
+    }   //putNumber
+
+    /**
+     * This method puts a boolean value in the dashboard.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true if the value was set, false if the key holds a value of a different type.
+     */
+    public static synchronized boolean putBoolean(String key, boolean value)
+    {
+        return put(key, value);
+    }   //putBoolean
+
+    /**
+     * This method checks if the dashboard has a value for the key.
+     *
+     * @param key specifies the key.
+     * @return true if the key has a value, false otherwise.
+     */
+    public static synchronized boolean containsKey(String key)
+    {
+        return values.containsKey(key);
+    }   //containsKey
+
+    /**
+     * This method returns the number value of the key.
+     *
+     * @param key specifies the key.
+     * @param defaultValue specifies the value to return if the key has no number value.
+     * @return number value.
+     */
+    public static synchronized double getNumber(String key, double defaultValue)
+    {
+        Object value = values.get(key);
+        return value instanceof Double? (Double)value: defaultValue;
+    }   //getNumber
+
+    /**
+     * This method returns the string value of the key.
+     *
+     * @param key specifies the key.
+     * @param defaultValue specifies the value to return if the key has no string value.
+     * @return string value.
+     */
+    public static synchronized String getString(String key, String defaultValue)
+    {
+        Object value = values.get(key);
+        return value instanceof String? (String)value: defaultValue;
+    }   //getString
+
+    /**
+     * This method returns the boolean value of the key.
+     *
+     * @param key specifies the key.
+     * @param defaultValue specifies the value to return if the key has no boolean value.
+     * @return boolean value.
+     */
+    public static synchronized boolean getBoolean(String key, boolean defaultValue)
+    {
+        Object value = values.get(key);
+        return value instanceof Boolean? (Boolean)value: defaultValue;
+    }   //getBoolean
+
+    /**
+     * This method updates the sendables, there are none on the desktop.
+     */
+    public static void updateValues()
+    {
+    }   //updateValues
+
+    /**
+     * This method stores a value if the key is new or holds a value of the same type, like NetworkTables does.
+     *
+     * @param key specifies the key.
+     * @param value specifies the value.
+     * @return true if the value was set, false otherwise.
+     */
+    private static boolean put(String key, Object value)
+    {
+        Object oldValue = values.get(key);
+        boolean success = oldValue == null || oldValue.getClass() == value.getClass();
+
+        if (success)
+        {
+            values.put(key, value);
+        }
+
+        return success;
+    }   //put
+
+}   //class SmartDashboard
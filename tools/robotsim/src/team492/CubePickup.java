@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package team492;
+
+import simlib.SimMotor;
+import simlib.SimPneumatic;
+import trclib.TrcEvent;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcTaskMgr;
+import trclib.TrcTaskMgr.TaskType;
+import trclib.TrcUtil;
+
+/**
+ * This class is the desktop stand-in of the cube pickup subsystem. It has the interface the autonomous commands
+ * use, on simulated motors and pneumatics, with a simple game piece model instead of the current and proximity
+ * sensors: the robot starts with a preloaded cube, a cube is pushed out as soon as the pickup spins outward, and
+ * grabbing always finds a cube after the pickup has been spinning inward for GRAB_TIME.
+ */
+public class CubePickup
+{
+    private static final double GRAB_TIME = 0.5;                // seconds
+    private static final double CUBE_MASS = 3.25;               // pounds
+
+    private Robot robot;
+    public SimMotor controlMotor;
+    private SimPneumatic claw, deployer;
+    private TrcTaskMgr.TaskObject pickupTaskObj;
+    private TrcEvent cubeInProximityEvent = null;
+    private TrcEvent cubeInPossessionEvent = null;
+    private boolean cubeInPossession = true;
+    private boolean grabbing = false;
+    public double startTime;
+
+    /**
+     * Initialize the CubePickup class.
+     */
+    public CubePickup(Robot robot)
+    {
+        this.robot = robot;
+
+        controlMotor = new SimMotor("LeftPickupMotor");
+        claw = new SimPneumatic("CubePickupClaw");
+        deployer = new SimPneumatic("CubePickupDeploy");
+        closeClaw();
+        raisePickup();
+        robot.elevator.simElevator.setPayload(CUBE_MASS);
+
+        pickupTaskObj = TrcTaskMgr.getInstance().createTask("cubePickupTask", this::pickupTask);
+    }   //CubePickup
+
+    public void turtle()
+    {
+        raisePickup();
+        closeClaw();
+    }   //turtle
+
+    public void prepareForPickup()
+    {
+        deployPickup();
+        openClaw();
+    }   //prepareForPickup
+
+    public void openClaw()
+    {
+        claw.retract();
+    }   //openClaw
+
+    public void closeClaw()
+    {
+        claw.extend();
+    }   //closeClaw
+
+    public void raisePickup()
+    {
+        deployer.retract();
+    }   //raisePickup
+
+    public void deployPickup()
+    {
+        deployer.extend();
+    }   //deployPickup
+
+    public boolean isPickupDeployed()
+    {
+        return deployer.isExtended();
+    }   //isPickupDeployed
+
+    public double getPickupPower()
+    {
+        return controlMotor.getPower();
+    }   //getPickupPower
+
+    /**
+     * @return Returns true of there is a cube in the pickup
+     */
+    public boolean cubeInProximity()
+    {
+        return cubeInPossession;
+    }   //cubeInProximity
+
+    /**
+     * This method is called when a mechanism other than the pickup (i.e. a flipper) throws the cube out.
+     */
+    public void releaseCube()
+    {
+        if (cubeInPossession)
+        {
+            cubeInPossession = false;
+            robot.elevator.simElevator.setPayload(0.0);
+            robot.cubeDelivered();
+        }
+    }   //releaseCube
+
+    public void setPickupPower(double power)
+    {
+        if (grabbing)
+        {
+            pickupTaskObj.unregisterTask(TaskType.POSTCONTINUOUS_TASK);
+            grabbing = false;
+        }
+        controlMotor.setPower(power);
+
+        if (power < 0.0)
+        {
+            releaseCube();
+        }
+    }   //setPickupPower
+
+    public void stopPickup()
+    {
+        setPickupPower(0.0);
+    }   //stopPickup
+
+    public void dropCube(double power)
+    {
+        setPickupPower(-power);
+    }   //dropCube
+
+    /**
+     * spins the motors to pickup a cube and signals an event when done
+     */
+    public void grabCube(double power, TrcEvent event)
+    {
+        if (!grabbing)
+        {
+            controlMotor.setPower(power);
+            cubeInPossessionEvent = event;
+            startTime = TrcUtil.getCurrentTime();
+            pickupTaskObj.registerTask(TaskType.POSTCONTINUOUS_TASK);
+            grabbing = true;
+        }
+    }   //grabCube
+
+    public void setProximityTriggerEnabled(boolean enabled, TrcEvent event)
+    {
+        cubeInProximityEvent = enabled? event: null;
+    }   //setProximityTriggerEnabled
+
+    private void pickupTask(TaskType taskType, RunMode runMode)
+    {
+        final String funcName = "pickupTask";
+
+        if (TrcUtil.getCurrentTime() - startTime >= GRAB_TIME)
+        {
+            robot.globalTracer.traceInfo(funcName, "Cube in possession.");
+            closeClaw();
+            cubeInPossession = true;
+            robot.elevator.simElevator.setPayload(CUBE_MASS);
+            setPickupPower(RobotInfo.PICKUP_HOLD_CUBE_POWER);
+            if (cubeInProximityEvent != null)
+            {
+                cubeInProximityEvent.set(true);
+            }
+            if (cubeInPossessionEvent != null)
+            {
+                cubeInPossessionEvent.set(true);
+            }
+        }
+    }   //pickupTask
+
+}   //class CubePickup
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package team492;
+
+import simlib.SimDcMotor;
+import simlib.SimDigitalInput;
+import simlib.SimElevator;
+import simlib.SimMotor;
+import trclib.TrcEvent;
+import trclib.TrcPidActuator;
+import trclib.TrcPidController;
+import trclib.TrcUtil;
+
+/**
+ * This class is the desktop stand-in of the elevator subsystem. It builds the same PID actuator from the RobotInfo
+ * constants as the robot, on a simulated motor driving a simulated elevator.
+ */
+public class Elevator
+{
+    //
+    // Gearbox and carriage of the simulated elevator, estimates.
+    //
+    private static final double GEAR_RATIO = 35.0;
+    private static final double DRUM_DIAMETER = 1.5;            // inches
+    private static final double CARRIAGE_MASS = 15.0;           // pounds
+    private static final double COUNTER_BALANCE = 15.0;         // pounds force
+
+    public SimMotor elevatorMotor;
+    public SimElevator simElevator;
+    public TrcPidController elevatorPidCtrl;
+    public TrcPidActuator elevator;
+
+    private Robot robot;
+    private double elevatorPower = 0.0;
+
+    public Elevator(Robot robot)
+    {
+        this.robot = robot;
+        //
+        // The simulated motor is not inverted, positive power raises the simulated elevator.
+        //
+        elevatorMotor = new SimMotor("elevatorMotor");
+        elevatorMotor.setBrakeModeEnabled(true);
+        simElevator = new SimElevator(
+            "simElevator", elevatorMotor, SimDcMotor.PRO_775, 1, GEAR_RATIO, DRUM_DIAMETER, CARRIAGE_MASS,
+            RobotInfo.ELEVATOR_PID_CEILING - RobotInfo.ELEVATOR_POSITION_OFFSET,
+            1.0/RobotInfo.ELEVATOR_INCHES_PER_COUNT);
+        simElevator.setCounterBalance(COUNTER_BALANCE);
+        robot.addMechanism(simElevator);
+
+        elevatorPidCtrl = new TrcPidController("elevatorPidController",
+            new TrcPidController.PidCoefficients(RobotInfo.ELEVATOR_KP, RobotInfo.ELEVATOR_KI, RobotInfo.ELEVATOR_KD),
+            RobotInfo.ELEVATOR_TOLERANCE, this::getPosition);
+        elevator = new TrcPidActuator("elevator", elevatorMotor,
+            new SimDigitalInput("elevatorLowerLimit", elevatorMotor::isLowerLimitSwitchActive), elevatorPidCtrl,
+            RobotInfo.ELEVATOR_PID_FLOOR, RobotInfo.ELEVATOR_PID_CEILING, this::getGravityCompensation);
+        elevator.setPositionScale(RobotInfo.ELEVATOR_INCHES_PER_COUNT, RobotInfo.ELEVATOR_POSITION_OFFSET);
+        elevator.setStallProtection(
+            RobotInfo.ELEVATOR_STALL_MIN_POWER, RobotInfo.ELEVATOR_STALL_TIMEOUT,
+            RobotInfo.ELEVATOR_STALL_RESET_TIMEOUT);
+    }   //Elevator
+
+    public void setManualOverride(boolean manualOverride)
+    {
+        elevator.setManualOverride(manualOverride);
+    }   //setManualOverride
+
+    public void zeroCalibrate()
+    {
+        elevator.zeroCalibrate(RobotInfo.ELEVATOR_CAL_POWER);
+    }   //zeroCalibrate
+
+    public void setPosition(double pos)
+    {
+        pos = TrcUtil.clipRange(pos, RobotInfo.ELEVATOR_MIN_HEIGHT, RobotInfo.ELEVATOR_MAX_HEIGHT);
+        elevator.setTarget(pos, pos != RobotInfo.ELEVATOR_MIN_HEIGHT);
+    }   //setPosition
+
+    public void setPosition(double pos, TrcEvent event, double timeout)
+    {
+        pos = TrcUtil.clipRange(pos, RobotInfo.ELEVATOR_MIN_HEIGHT, RobotInfo.ELEVATOR_MAX_HEIGHT);
+        elevator.setTarget(pos, event, timeout);
+    }   //setPosition
+
+    public void setPower(double power)
+    {
+        elevator.setPower(power, true);
+        elevatorPower = power;
+    }   //setPower
+
+    public double getPower()
+    {
+        return elevatorPower;
+    }   //getPower
+
+    public double getPosition()
+    {
+        return elevator.getPosition();
+    }   //getPosition
+
+    public double getGravityCompensation()
+    {
+        double compensation = RobotInfo.ELEVATOR_GRAVITY_COMPENSATION;
+
+        if (robot.cubePickup != null && robot.cubePickup.cubeInProximity())
+        {
+            compensation += RobotInfo.ELEVATOR_CUBE_GRAVITY_COMPENSATION;
+        }
+
+        return compensation;
+    }   //getGravityCompensation
+
+}   //class Elevator
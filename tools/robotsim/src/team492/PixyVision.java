@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package team492;
+
+/**
+ * This class is the desktop stand-in of the Pixy camera subsystem. The simulated field has no power cubes to see,
+ * so the camera is never enabled and the robot is created without one. It keeps the orientation enum that
+ * RobotInfo refers to.
+ */
+public class PixyVision
+{
+    public enum Orientation
+    {
+        NORMAL_LANDSCAPE,
+        CLOCKWISE_PORTRAIT,
+        ANTICLOCKWISE_PORTRAIT,
+        UPSIDEDOWN_LANDSCAPE
+    }   //enum Orientation
+
+    /**
+     * This method checks if the camera is enabled.
+     *
+     * @return false, the simulated camera is never enabled.
+     */
+    public boolean isEnabled()
+    {
+        return false;
+    }   //isEnabled
+
+}   //class PixyVision
@@ -0,0 +1,529 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package team492;
+
+import hallib.HalDashboard;
+import simlib.SimAnalogInput;
+import simlib.SimAutoRobot;
+import simlib.SimAutoScenario;
+import simlib.SimDcMotor;
+import simlib.SimDigitalOutput;
+import simlib.SimFieldMap;
+import simlib.SimGyro;
+import simlib.SimMecanumDrive;
+import simlib.SimMotor;
+import simlib.SimPneumatic;
+import simlib.SimRangeFinder;
+import team492.RobotInfo.Position;
+import trclib.TrcDbgTrace;
+import trclib.TrcDriveBase;
+import trclib.TrcMaxbotixSonarArray;
+import trclib.TrcPidController;
+import trclib.TrcPidController.PidCoefficients;
+import trclib.TrcPidDrive;
+import trclib.TrcRobot;
+import trclib.TrcRobot.RunMode;
+import trclib.TrcRobotBattery;
+import trclib.TrcUtil;
+
+/**
+ * This class is the desktop stand-in of the team492 Robot class. The robot's Robot class extends the WPILib robot
+ * base and creates FRC devices, so it cannot run on the desktop. This class has the same public members the
+ * autonomous commands use, created on simlib instead, so that the robot's own CmdAutoSwitch, CmdAutoSideSwitch,
+ * CmdAutoScale and CmdAutoMoveToCrossField sources compile against it unchanged and run in the autonomous
+ * regression runner. The routine is picked like FrcAuto does with its default menu choices.
+ *
+ * The robot is placed against the alliance wall. Side starts are in the corridor between the switch and the side
+ * wall. Only CmdAutoSwitch from a side starts backwards, all other routines start facing down field.
+ *
+ * The pose error is measured where the preloaded cube left the robot, either pushed out by the pickup or thrown
+ * by a flipper. It is the distance from the robot center to the target plate less DELIVERY_REACH, zero if the
+ * cube landed within reach. A flipper throws the cube a further FLIPPER_THROW_DISTANCE. If the cube was never
+ * delivered, the final pose is used instead. Moving to the cross field position and the scale routine from the
+ * middle, which does nothing, have no target and no pose error. The plates and the throw are approximate.
+ */
+public class Robot extends SimAutoRobot
+{
+    public static final String programName = "FirstPowerUp";
+    public static final boolean USE_PIXY_HEADING_COMPENSATION = false;
+
+    private static final String AUTO_SIDE = "AUTO_SIDE";
+    private static final String AUTO_SWITCH = "AUTO_SWITCH";
+    private static final String AUTO_SCALE = "AUTO_SCALE";
+    private static final String[] ROUTINES = {AUTO_SIDE, AUTO_SWITCH, AUTO_SCALE};
+    private static final String[] START_POSITIONS =
+        {Position.LEFT_POS.toString(), Position.MID_POS.toString(), Position.RIGHT_POS.toString()};
+    //
+    // FrcAuto default menu choices.
+    //
+    private static final double AUTO_DELAY = 0.0;
+    private static final boolean FAST_DELIVERY = true;
+    private static final boolean GET_SECOND_CUBE = true;
+    private static final double FORWARD_DRIVE_DISTANCE = RobotInfo.FWD_DISTANCE_2;
+    private static final boolean USE_SONAR = true;
+    //
+    // Simulated robot and field, estimates.
+    //
+    private static final double ROBOT_MASS = 120.0;             // pounds
+    private static final double TRACK_WIDTH = 23.0;
+    private static final double WHEEL_BASE = 24.0;
+    private static final double SONAR_MAX_RANGE = 254.0;
+    private static final double SIDE_START_X = 48.0;
+    private static final double DELIVERY_REACH = RobotInfo.ROBOT_WIDTH/2.0 + RobotInfo.CUBE_WIDTH;
+    private static final double FLIPPER_THROW_DISTANCE = 24.0;
+    private static final double PLATE_WIDTH = 36.0;
+    private static final double PLATE_LENGTH = 48.0;
+    private static final double SWITCH_PLATE_Y = 144.0;
+    private static final double SCALE_PLATE_Y = (RobotInfo.FIELD_LENGTH - PLATE_LENGTH)/2.0;
+
+    private enum AutoCommand
+    {
+        SWITCH, SIDE_SWITCH, SCALE, CROSS_FIELD
+    }   //enum AutoCommand
+
+    private static double modeStartTime = 0.0;
+
+    public HalDashboard dashboard;
+    public TrcDbgTrace globalTracer = TrcDbgTrace.getGlobalTracer();
+    public double targetHeading = 0.0;
+    public SimAutoScenario.Alliance alliance = SimAutoScenario.Alliance.RED;
+    public String gameSpecificMessage = null;
+    //
+    // Sensors.
+    //
+    public TrcRobotBattery battery = null;
+    public SimGyro gyro = null;
+    public SimAnalogInput leftSonarSensor = null;
+    public SimAnalogInput rightSonarSensor = null;
+    public TrcMaxbotixSonarArray leftSonarArray = null;
+    public TrcMaxbotixSonarArray rightSonarArray = null;
+    public PixyVision pixy = null;
+    //
+    // DriveBase subsystem.
+    //
+    public SimMotor leftFrontWheel;
+    public SimMotor leftRearWheel;
+    public SimMotor rightFrontWheel;
+    public SimMotor rightRearWheel;
+    public SimMecanumDrive simDrive;
+    public TrcDriveBase driveBase;
+    public TrcPidController encoderXPidCtrl;
+    public TrcPidController encoderYPidCtrl;
+    public TrcPidController gyroTurnPidCtrl;
+    public TrcPidDrive pidDrive;
+    //
+    // Other subsystems.
+    //
+    public Elevator elevator;
+    public CubePickup cubePickup;
+    public SimPneumatic leftFlipper;
+    public SimPneumatic rightFlipper;
+    public CmdCubePickup cmdAutoCubePickup;
+    public CmdStrafeUntilCube cmdStrafeUntilCube;
+
+    private Position startPosition;
+    private AutoCommand autoCommandType;
+    private TrcRobot.RobotCommand autoCommand = null;
+    private boolean autoCompleted = false;
+    private String autoState = null;
+    private double[] targetPlate = null;
+    private double[] deliveryPose = null;
+    private boolean cubeThrown = false;
+
+    /**
+     * Constructor.
+     */
+    public Robot()
+    {
+        super(programName);
+        //
+        // FrcRobotBase creates the dashboard on the robot.
+        //
+        dashboard = HalDashboard.getInstance() != null? HalDashboard.getInstance(): new HalDashboard();
+    }   //Robot
+
+    /**
+     * This method returns the elapsed time since the current run mode started.
+     *
+     * @return mode elapsed time in seconds.
+     */
+    public static double getModeElapsedTime()
+    {
+        return TrcUtil.getCurrentTime() - modeStartTime;
+    }   //getModeElapsedTime
+
+    @Override
+    public void robotInit()
+    {
+        battery = getBattery();
+        //
+        // DriveBase subsystem. The simulated wheels need no inversion and the model has no roller slip, so the
+        // encoders are scaled like the robot's y axis in both directions.
+        //
+        leftFrontWheel = new SimMotor("LeftFrontWheel");
+        leftRearWheel = new SimMotor("LeftRearWheel");
+        rightFrontWheel = new SimMotor("RightFrontWheel");
+        rightRearWheel = new SimMotor("RightRearWheel");
+        simDrive = new SimMecanumDrive(
+            "simDrive", leftFrontWheel, rightFrontWheel, leftRearWheel, rightRearWheel, SimDcMotor.CIM, 1,
+            RobotInfo.DRIVE_MOTOR_ROTATIONS_PER_WHEEL_ROTATION, 2.0*RobotInfo.DRIVE_WHEEL_RADIUS_IN,
+            2.0*Math.PI*RobotInfo.DRIVE_WHEEL_RADIUS_IN/RobotInfo.ENCODER_Y_INCHES_PER_COUNT, TRACK_WIDTH,
+            WHEEL_BASE, ROBOT_MASS);
+        SimFieldMap fieldMap = SimFieldMap.createPowerUpField();
+        simDrive.setFieldMap(fieldMap);
+        addMechanism(simDrive);
+
+        gyro = new SimGyro("NavX", simDrive::getHeading, simDrive::getTurnRate);
+        driveBase = new TrcDriveBase(leftFrontWheel, leftRearWheel, rightFrontWheel, rightRearWheel, gyro);
+        driveBase.setXPositionScale(RobotInfo.ENCODER_Y_INCHES_PER_COUNT);
+        driveBase.setYPositionScale(RobotInfo.ENCODER_Y_INCHES_PER_COUNT);
+
+        encoderXPidCtrl = new TrcPidController(
+            "encoderXPidCtrl",
+            new PidCoefficients(
+                RobotInfo.ENCODER_X_KP, RobotInfo.ENCODER_X_KI, RobotInfo.ENCODER_X_KD, RobotInfo.ENCODER_X_KF),
+            RobotInfo.ENCODER_X_TOLERANCE,
+            driveBase::getXPosition);
+        encoderYPidCtrl = new TrcPidController(
+            "encoderYPidCtrl",
+            new PidCoefficients(
+                RobotInfo.ENCODER_Y_KP, RobotInfo.ENCODER_Y_KI, RobotInfo.ENCODER_Y_KD, RobotInfo.ENCODER_Y_KF),
+            RobotInfo.ENCODER_Y_TOLERANCE,
+            driveBase::getYPosition);
+        gyroTurnPidCtrl = new TrcPidController(
+            "gyroTurnPidCtrl",
+            new PidCoefficients(
+                RobotInfo.GYRO_TURN_KP, RobotInfo.GYRO_TURN_KI, RobotInfo.GYRO_TURN_KD, RobotInfo.GYRO_TURN_KF),
+            RobotInfo.GYRO_TURN_TOLERANCE,
+            driveBase::getHeading);
+        gyroTurnPidCtrl.setAbsoluteSetPoint(true);
+        pidDrive = new TrcPidDrive("pidDrive", driveBase, encoderXPidCtrl, encoderYPidCtrl, gyroTurnPidCtrl);
+        pidDrive.setStallTimeout(RobotInfo.DRIVE_STALL_TIMEOUT);
+
+        encoderXPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_XPID_POWER);
+        encoderYPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_YPID_POWER);
+        gyroTurnPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_TURNPID_POWER);
+        //
+        // Sonar sensors on both sides, ranging against the simulated field. The simulated sensors output the
+        // Maxbotix voltage and are scaled like the robot's.
+        //
+        SimRangeFinder leftRanger = new SimRangeFinder(
+            simDrive, fieldMap, -RobotInfo.ROBOT_WIDTH/2.0, 0.0, -90.0, SONAR_MAX_RANGE);
+        SimRangeFinder rightRanger = new SimRangeFinder(
+            simDrive, fieldMap, RobotInfo.ROBOT_WIDTH/2.0, 0.0, 90.0, SONAR_MAX_RANGE);
+        leftSonarSensor = new SimAnalogInput(
+            "LeftSonarSensor", () -> leftRanger.getDistance()/RobotInfo.SONAR_INCHES_PER_VOLT);
+        leftSonarSensor.setScale(RobotInfo.SONAR_INCHES_PER_VOLT, RobotInfo.SONAR_LEFT_DISTANCE_OFFSET);
+        rightSonarSensor = new SimAnalogInput(
+            "RightSonarSensor", () -> rightRanger.getDistance()/RobotInfo.SONAR_INCHES_PER_VOLT);
+        rightSonarSensor.setScale(RobotInfo.SONAR_INCHES_PER_VOLT, RobotInfo.SONAR_RIGHT_DISTANCE_OFFSET);
+        leftSonarArray = new TrcMaxbotixSonarArray(
+            "LeftSonar", leftSonarSensor, new SimDigitalOutput("LeftSonarPing"));
+        rightSonarArray = new TrcMaxbotixSonarArray(
+            "RightSonar", rightSonarSensor, new SimDigitalOutput("RightSonarPing"));
+        //
+        // Other subsystems.
+        //
+        elevator = new Elevator(this);
+        cubePickup = new CubePickup(this);
+        leftFlipper = new SimPneumatic("leftFlipper");
+        rightFlipper = new SimPneumatic("rightFlipper");
+
+        cmdAutoCubePickup = new CmdCubePickup(this);
+        cmdStrafeUntilCube = new CmdStrafeUntilCube(this);
+
+        setupRobotModes(null, new TrcRobot.RobotMode()
+        {
+            @Override
+            public void startMode(RunMode prevMode)
+            {
+                encoderYPidCtrl.setOutputLimit(0.6);
+                encoderXPidCtrl.setOutputLimit(RobotInfo.DRIVE_MAX_XPID_POWER);
+                autoCommand = createAutoCommand();
+            }   //startMode
+
+            @Override
+            public void stopMode(RunMode nextMode)
+            {
+            }   //stopMode
+
+            @Override
+            public void runPeriodic(double elapsedTime)
+            {
+            }   //runPeriodic
+
+            @Override
+            public void runContinuous(double elapsedTime)
+            {
+                if (!autoCompleted)
+                {
+                    autoCompleted = autoCommand.cmdPeriodic(elapsedTime);
+                }
+                //
+                // A flipper throws the cube out of the robot.
+                //
+                if (deliveryPose == null && (leftFlipper.isExtended() || rightFlipper.isExtended()))
+                {
+                    cubeThrown = true;
+                    cubePickup.releaseCube();
+                }
+            }   //runContinuous
+        }, null, null);
+    }   //robotInit
+
+    @Override
+    public void robotStartMode(RunMode runMode, RunMode prevMode)
+    {
+        final String funcName = "robotStartMode";
+
+        modeStartTime = TrcUtil.getCurrentTime();
+        if (runMode != RunMode.DISABLED_MODE)
+        {
+            globalTracer.traceInfo(funcName, "[%.3f] ***** %s *****", Robot.getModeElapsedTime(), runMode);
+            resetDrivePosition();
+            targetHeading = 0.0;
+            dashboard.clearDisplay();
+        }
+    }   //robotStartMode
+
+    @Override
+    public void robotStopMode(RunMode runMode, RunMode nextMode)
+    {
+        if (runMode != RunMode.DISABLED_MODE)
+        {
+            if (cmdAutoCubePickup.isEnabled())
+            {
+                cmdAutoCubePickup.stop();
+            }
+
+            if (cmdStrafeUntilCube.isEnabled())
+            {
+                cmdStrafeUntilCube.stop();
+            }
+            cubePickup.stopPickup();
+        }
+    }   //robotStopMode
+
+    public void resetDrivePosition()
+    {
+        driveBase.resetPosition();
+    }   //resetDrivePosition
+
+    public void traceStateInfo(double elapsedTime, String stateName)
+    {
+        final String funcName = "traceStateInfo";
+
+        autoState = stateName;
+        globalTracer.traceInfo(
+            funcName, "[%5.3f] <<<%16s>>> xPos=%6.2f,yPos=%6.2f,heading=%6.1f/%6.1f,volts=%.1f(%.1f)",
+            elapsedTime, stateName, driveBase.getXPosition(), driveBase.getYPosition(), driveBase.getHeading(),
+            targetHeading, battery.getVoltage(), battery.getLowestVoltage());
+    }   //traceStateInfo
+
+    /**
+     * This method is called by the cube pickup when the cube leaves the robot. It records where the first cube
+     * was delivered.
+     */
+    public void cubeDelivered()
+    {
+        if (deliveryPose == null && getCurrentRunMode() == RunMode.AUTO_MODE)
+        {
+            deliveryPose = new double[] {simDrive.getXPosition(), simDrive.getYPosition()};
+        }
+    }   //cubeDelivered
+
+    //
+    // Getters for sensor data.
+    //
+
+    public double getLeftSonarDistance()
+    {
+        return leftSonarArray.getDistance(0).value;
+    }   //getLeftSonarDistance
+
+    public double getRightSonarDistance()
+    {
+        return rightSonarArray.getDistance(0).value;
+    }   //getRightSonarDistance
+
+    public Double getPixyTargetHeading()
+    {
+        return null;
+    }   //getPixyTargetHeading
+
+    public Double getPixyTargetX()
+    {
+        return null;
+    }   //getPixyTargetX
+
+    //
+    // Autonomous selection.
+    //
+
+    /**
+     * This method picks the autonomous command the way FrcAuto does.
+     *
+     * @param routine specifies the autonomous strategy.
+     * @param startPosition specifies the start position.
+     * @param gameMessage specifies the game specific message.
+     * @return autonomous command type.
+     */
+    private static AutoCommand selectAutoCommand(String routine, Position startPosition, String gameMessage)
+    {
+        AutoCommand command;
+
+        if (routine.equals(AUTO_SIDE) && startPosition != Position.MID_POS)
+        {
+            boolean switchRight = gameMessage.charAt(0) == 'R';
+            boolean scaleRight = gameMessage.charAt(1) == 'R';
+            boolean startRight = startPosition == Position.RIGHT_POS;
+            //
+            // The default preference is the switch if both are on our side.
+            //
+            command = startRight == switchRight? AutoCommand.SIDE_SWITCH:
+                      startRight == scaleRight? AutoCommand.SCALE: AutoCommand.CROSS_FIELD;
+        }
+        else if (routine.equals(AUTO_SCALE))
+        {
+            command = AutoCommand.SCALE;
+        }
+        else
+        {
+            command = AutoCommand.SWITCH;
+        }
+
+        return command;
+    }   //selectAutoCommand
+
+    /**
+     * This method creates the selected autonomous command with the FrcAuto default menu choices.
+     *
+     * @return autonomous command.
+     */
+    private TrcRobot.RobotCommand createAutoCommand()
+    {
+        switch (autoCommandType)
+        {
+            case SIDE_SWITCH:
+                return new CmdAutoSideSwitch(this, AUTO_DELAY, GET_SECOND_CUBE, USE_SONAR);
+
+            case SCALE:
+                return new CmdAutoScale(this, AUTO_DELAY, startPosition, FORWARD_DRIVE_DISTANCE, USE_SONAR);
+
+            case CROSS_FIELD:
+                return new CmdAutoMoveToCrossField(this, AUTO_DELAY, startPosition);
+
+            default:
+                return new CmdAutoSwitch(
+                    this, AUTO_DELAY, FORWARD_DRIVE_DISTANCE, startPosition, FAST_DELIVERY, GET_SECOND_CUBE);
+        }
+    }   //createAutoCommand
+
+    //
+    // Implements SimAutoRobot abstract methods.
+    //
+
+    @Override
+    public String[] getAutoRoutines()
+    {
+        return ROUTINES;
+    }   //getAutoRoutines
+
+    @Override
+    public String[] getStartPositions()
+    {
+        return START_POSITIONS;
+    }   //getStartPositions
+
+    @Override
+    public void setupScenario(SimAutoScenario scenario)
+    {
+        startPosition = Position.valueOf(scenario.startPosition);
+        alliance = scenario.alliance;
+        gameSpecificMessage = scenario.gameMessage;
+        autoCommandType = selectAutoCommand(scenario.routine, startPosition, gameSpecificMessage);
+
+        double startX = startPosition == Position.LEFT_POS? SIDE_START_X:
+                        startPosition == Position.RIGHT_POS? RobotInfo.FIELD_WIDTH - SIDE_START_X:
+                        RobotInfo.FIELD_WIDTH/2.0;
+        boolean backwards = autoCommandType == AutoCommand.SWITCH && startPosition != Position.MID_POS;
+        simDrive.setPose(startX, RobotInfo.ROBOT_LENGTH/2.0, backwards? 180.0: 0.0);
+        //
+        // Plates as {x, y} of the corner closest to the origin, the switch plate and the scale plate are on the
+        // side given by the first and the second letter of the game message.
+        //
+        if (autoCommandType == AutoCommand.SWITCH || autoCommandType == AutoCommand.SIDE_SWITCH)
+        {
+            targetPlate = new double[] {
+                gameSpecificMessage.charAt(0) == 'R'?
+                    RobotInfo.FIELD_WIDTH - RobotInfo.SWITCH_TO_WALL_DISTANCE - PLATE_WIDTH:
+                    RobotInfo.SWITCH_TO_WALL_DISTANCE,
+                SWITCH_PLATE_Y};
+        }
+        else if (autoCommandType == AutoCommand.SCALE && startPosition != Position.MID_POS)
+        {
+            targetPlate = new double[] {
+                gameSpecificMessage.charAt(1) == 'R'?
+                    RobotInfo.FIELD_WIDTH - RobotInfo.SCALE_TO_WALL_DISTANCE - PLATE_WIDTH:
+                    RobotInfo.SCALE_TO_WALL_DISTANCE,
+                SCALE_PLATE_Y};
+        }
+        else
+        {
+            targetPlate = null;
+        }
+    }   //setupScenario
+
+    @Override
+    public boolean isAutoCompleted()
+    {
+        return autoCompleted;
+    }   //isAutoCompleted
+
+    @Override
+    public Object getAutoState()
+    {
+        return autoCompleted? null: autoState;
+    }   //getAutoState
+
+    @Override
+    public double getPoseError()
+    {
+        double error = 0.0;
+
+        if (targetPlate != null)
+        {
+            double x = deliveryPose != null? deliveryPose[0]: simDrive.getXPosition();
+            double y = deliveryPose != null? deliveryPose[1]: simDrive.getYPosition();
+            double dx = Math.max(Math.max(targetPlate[0] - x, x - targetPlate[0] - PLATE_WIDTH), 0.0);
+            double dy = Math.max(Math.max(targetPlate[1] - y, y - targetPlate[1] - PLATE_LENGTH), 0.0);
+
+            double reach = cubeThrown? DELIVERY_REACH + FLIPPER_THROW_DISTANCE: DELIVERY_REACH;
+
+            error = Math.max(Math.sqrt(dx*dx + dy*dy) - reach, 0.0);
+        }
+
+        return error;
+    }   //getPoseError
+
+}   //class Robot
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2018 Titan Robotics Club (http://www.titanrobotics.com)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package sysid;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import trclib.TrcPidController;
+import trclib.TrcSystemIdentifier;
+
+/**
+ * This class implements an offline tool that identifies the drive train and elevator models from the PID info
+ * lines in TraceLog files (the output of TrcPidController.printPidInfo with battery info). For each PID controller
+ * found in the logs (e.g. encoderXPidCtrl, encoderYPidCtrl, gyroTurnPidCtrl, elevatorPidController), it fits the
+ * kS/kV/kA feed forward model and the dead time, then reports the feed forward coefficients and suggested PID gains.
+ *
+ * Usage: java -jar sysid.jar [-nominal=12.0] [-minvel=0.5] [-gravity=name,...] logFileOrFolder...
+ */
+public class SysIdTool
+{
+    private static final Pattern pidInfoPattern = Pattern.compile(
+        "\\[\\s*(-?[\\d.]+)\\]\\s+(\\S+): Target=\\s*(-?[\\d.]+), Input=\\s*(-?[\\d.]+),.*" +
+        "Output=\\s*(-?[\\d.]+)\\(.*Volt=\\s*(-?[\\d.]+)");
+
+    private final Map<String, TrcSystemIdentifier> identifiers = new TreeMap<>();
+    private final ArrayList<String> gravityNames = new ArrayList<>();
+    private double nominalVoltage = TrcPidController.DEF_NOMINAL_VOLTAGE;
+    private double minVelocity = TrcSystemIdentifier.DEF_MIN_VELOCITY;
+    private int numFiles = 0;
+
+    /**
+     * This method returns the identifier for the given PID controller, creating one if necessary. Controllers with
+     * "elevator" in their name or listed with -gravity are fitted with a gravity term.
+     *
+     * @param name specifies the PID controller name.
+     * @return identifier for the controller.
+     */
+    private TrcSystemIdentifier getIdentifier(String name)
+    {
+        TrcSystemIdentifier identifier = identifiers.get(name);
+
+        if (identifier == null)
+        {
+            boolean hasGravity =
+                gravityNames.contains(name) || name.toLowerCase(Locale.US).contains("elevator");
+            identifier = new TrcSystemIdentifier(name, hasGravity);
+            identifier.setMinVelocity(minVelocity);
+            identifiers.put(name, identifier);
+        }
+
+        return identifier;
+    }   //getIdentifier
+
+    /**
+     * This method parses a trace log file and adds the PID info samples to the identifiers.
+     *
+     * @param file specifies the trace log file.
+     * @throws IOException if the file cannot be read.
+     */
+    private void parseFile(File file) throws IOException
+    {
+        //
+        // Every file is a separate run, don't let samples join across files.
+        //
+        for (TrcSystemIdentifier identifier: identifiers.values())
+        {
+            identifier.startSegment();
+        }
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file)))
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (!line.contains("printPidInfo"))
+                {
+                    continue;
+                }
+
+                Matcher matcher = pidInfoPattern.matcher(line);
+                if (matcher.find())
+                {
+                    double timestamp = Double.parseDouble(matcher.group(1));
+                    double input = Double.parseDouble(matcher.group(4));
+                    double output = Double.parseDouble(matcher.group(5));
+                    double voltage = Double.parseDouble(matcher.group(6));
+                    getIdentifier(matcher.group(2)).addSample(timestamp, output, voltage, input);
+                }
+            }
+        }
+        numFiles++;
+    }   //parseFile
+
+    /**
+     * This method parses a trace log file or all log files in a folder recursively.
+     *
+     * @param file specifies the file or folder.
+     * @throws IOException if a file cannot be read.
+     */
+    private void parse(File file) throws IOException
+    {
+        if (file.isDirectory())
+        {
+            File[] files = file.listFiles();
+            if (files != null)
+            {
+                Arrays.sort(files);
+                for (File f: files)
+                {
+                    parse(f);
+                }
+            }
+        }
+        else if (file.getName().endsWith(".log"))
+        {
+            parseFile(file);
+        }
+    }   //parse
+
+    /**
+     * This method prints the identified model and suggested gains of every controller.
+     */
+    private void report()
+    {
+        System.out.printf("Parsed %d log files, nominal voltage %.1fV.\n", numFiles, nominalVoltage);
+
+        for (TrcSystemIdentifier identifier: identifiers.values())
+        {
+            TrcSystemIdentifier.Model model = identifier.identify();
+
+            System.out.printf("\n%s: %d samples\n", identifier, identifier.getNumSamples());
+            if (model == null)
+            {
+                System.out.println("  Not enough moving samples to fit a model.");
+                continue;
+            }
+
+            TrcPidController.FeedForwardCoefficients ff = model.getFeedForwardCoefficients(nominalVoltage);
+            TrcPidController.PidCoefficients pid = model.getSuggestedPidCoefficients(nominalVoltage);
+            System.out.printf("  Model: %s\n", model);
+            System.out.printf("  FeedForward (power): kS=%.4f, kV=%.5f, kA=%.5f\n", ff.kS, ff.kV, ff.kA);
+            if (model.kG != 0.0)
+            {
+                System.out.printf("  Gravity compensation (power): %.4f\n", model.getGravityCompensation(nominalVoltage));
+            }
+
+            if (pid != null)
+            {
+                System.out.printf("  Suggested PID: kP=%.5f, kI=%.5f, kD=%.5f\n", pid.kP, pid.kI, pid.kD);
+            }
+            else
+            {
+                System.out.println("  No PID suggestion, kV is not positive (check sign of output vs input).");
+            }
+        }
+    }   //report
+
+    /**
+     * Main entry point of the tool.
+     *
+     * @param args specifies the command line arguments.
+     */
+    public static void main(String[] args)
+    {
+        SysIdTool tool = new SysIdTool();
+        ArrayList<File> files = new ArrayList<>();
+
+        for (String arg: args)
+        {
+            if (arg.startsWith("-nominal="))
+            {
+                tool.nominalVoltage = Double.parseDouble(arg.substring("-nominal=".length()));
+            }
+            else if (arg.startsWith("-minvel="))
+            {
+                tool.minVelocity = Double.parseDouble(arg.substring("-minvel=".length()));
+            }
+            else if (arg.startsWith("-gravity="))
+            {
+                tool.gravityNames.addAll(Arrays.asList(arg.substring("-gravity=".length()).split(",")));
+            }
+            else
+            {
+                files.add(new File(arg));
+            }
+        }
+
+        if (files.isEmpty())
+        {
+            System.err.println(
+                "Usage: SysIdTool [-nominal=12.0] [-minvel=0.5] [-gravity=name,...] logFileOrFolder...");
+            System.exit(1);
+        }
+
+        try
+        {
+            for (File file: files)
+            {
+                tool.parse(file);
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Failed to read log: " + e.getMessage());
+            System.exit(1);
+        }
+
+        tool.report();
+    }   //main
+
+}   //class SysIdTool